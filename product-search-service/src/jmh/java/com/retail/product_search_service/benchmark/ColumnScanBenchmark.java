@@ -0,0 +1,89 @@
+package com.retail.product_search_service.benchmark;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.search.ColumnScan;
+
+//JMH benchmark of the price / rating scan kernels alone (no Spring, no database), on the columns of the synthetic
+//catalog: "price between 1,000 and 50,000 and rating 3+" (about a quarter of the products match).
+//Each benchmark produces the same match bitmap:
+//- simpleLoop : one if per product, BitSet.set() for every match (what a plain Java loop does)
+//- scalar     : ColumnScan.scalar(), branch-free, 64 products per bitmap word
+//- vectorized : ColumnScan.vectorized(), Vector API (needs --add-modules jdk.incubator.vector, added by @Fork)
+//Run: mvn -Pbenchmark verify -Djmh.args="ColumnScanBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class ColumnScanBenchmark {
+
+    private static final double MIN_PRICE = 1_000;
+    private static final double MAX_PRICE = 50_000;
+    private static final double MIN_RATING = 3.0;
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    private double[] prices;
+    private double[] ratings;
+
+    @Setup(Level.Trial)
+    public void buildColumns() {
+        List<Product> products = SyntheticCatalog.products(0, catalogSize);
+        prices = new double[catalogSize];
+        ratings = new double[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            prices[i] = products.get(i).getPrice();
+            ratings[i] = products.get(i).getRating();
+        }
+    }
+
+    @Benchmark
+    public BitSet simpleLoop() {
+        BitSet matches = new BitSet(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            if (prices[i] >= MIN_PRICE && prices[i] < MAX_PRICE && ratings[i] >= MIN_RATING) {
+                matches.set(i);
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public BitSet scalar() {
+        return and(ColumnScan.scalar(prices, catalogSize, MIN_PRICE, MAX_PRICE),
+                ColumnScan.scalar(ratings, catalogSize, MIN_RATING, Double.POSITIVE_INFINITY));
+    }
+
+    @Benchmark
+    public BitSet vectorized() {
+        return and(ColumnScan.vectorized(prices, catalogSize, MIN_PRICE, MAX_PRICE),
+                ColumnScan.vectorized(ratings, catalogSize, MIN_RATING, Double.POSITIVE_INFINITY));
+    }
+
+    // Same step as the search engine's PriceRatingFilter: AND the two bitmaps word by word
+    private static BitSet and(long[] words, long[] other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other[i];
+        }
+        return BitSet.valueOf(words);
+    }
+}
@@ -0,0 +1,212 @@
+package com.retail.product_search_service.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retail.product_search_service.ProductSearchServiceApplication;
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.ProductSummary;
+import com.retail.product_search_service.controller.ProductSummaryJsonWriter;
+import com.retail.product_search_service.service.KeysetPage;
+import com.retail.product_search_service.service.ProductFacets;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.ProductService;
+import com.retail.product_search_service.service.SearchSort;
+import com.retail.product_search_service.service.search.ProductSearchEngine;
+import com.retail.product_search_service.service.search.SuggestionIndex;
+
+//JMH benchmark of every ProductService method against a real Spring context and embedded H2.
+//Setup (once per catalogSize): start the application without the web server, bulk-load the synthetic catalog.
+//Each @Benchmark method is then measured on its own: average time per call, in microseconds.
+//The serialize* benchmarks measure the JSON step the controller adds on top (Jackson, same ObjectMapper as Spring MVC).
+//serializeSummaries* compare Jackson with ProductSummaryJsonWriter on the same page of ProductSummary rows.
+//Run: mvn -Pbenchmark verify                                  → all sizes (10k / 100k / 1M), results in target/jmh-result.json
+//     mvn -Pbenchmark verify -Djmh.args="-p catalogSize=10000" → one size only
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class ProductServiceBenchmark {
+
+    private static final int SEED_CHUNK = 10_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ObjectMapper objectMapper;
+    private long minId;
+    private List<Product> categoryResult;
+    private List<Product> nameResult;
+    private List<ProductSummary> summaryPage;
+
+    @Setup(Level.Trial)
+    public void startAndSeed() {
+        context = new SpringApplicationBuilder(ProductSearchServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "product.bulk.batch-size=1000")
+                .run();
+        productService = context.getBean(ProductService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        for (int from = 0; from < catalogSize; from += SEED_CHUNK) {
+            productService.saveAll(SyntheticCatalog.products(from, Math.min(SEED_CHUNK, catalogSize - from)));
+        }
+        minId = productService.getProducts(KeysetPage.first(1)).get(0).getId();
+        categoryResult = productService.searchByCategory("Footwear");
+        nameResult = productService.searchByName("running shoes");
+        summaryPage = productService.searchByCategory("Footwear", KeysetPage.first(1000));
+        // saveAll() only schedules the suggestion rebuild; build it now so every iteration sees the full catalog
+        context.getBean(SuggestionIndex.class).rebuild(context.getBean(ProductSearchEngine.class).snapshot());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    // Each benchmark thread walks through random ids / values on its own
+    @State(Scope.Thread)
+    public static class Cursor {
+        final SplittableRandom random = new SplittableRandom(7);
+    }
+
+    @Benchmark
+    public List<Product> searchByName() {
+        return productService.searchByName("running shoes");
+    }
+
+    // Two typos: swapped letters in "nike", a missing letter in "running"
+    @Benchmark
+    public List<ProductSummary> fuzzySearchByName() {
+        return productService.fuzzySearchByName("nkie runing shoes", null, 20);
+    }
+
+    // BM25 + rating over every product with "running" or "shoes", only the 20 best kept (TopK heap)
+    @Benchmark
+    public List<ProductSummary> searchByNameRelevanceTop20() {
+        return productService.search(new ProductSearchCriteria("running shoes", null, null, null, null, null),
+                SearchSort.RELEVANCE, 20);
+    }
+
+    // Whole category scored by rating, compare with searchByCategory() that returns every row in id order
+    @Benchmark
+    public List<ProductSummary> searchByCategoryRatingTop20() {
+        return productService.search(new ProductSearchCriteria(null, "Footwear", null, null, null, null),
+                SearchSort.RATING, 20);
+    }
+
+    // Autocomplete as the user types: a short, a medium and a long prefix (trie walk + precomputed top 10)
+    @Benchmark
+    public int suggestWhileTyping() {
+        return productService.suggest("n", 10).size() + productService.suggest("nike wi", 10).size()
+                + productService.suggest("nike wireless headph", 10).size();
+    }
+
+    // Facet counts + price/rating histograms of the whole catalog and of one category (parallel chunked counting)
+    @Benchmark
+    public ProductFacets facetsAllProducts() {
+        return productService.facets(new ProductSearchCriteria(null, null, null, null, null, null), null, null);
+    }
+
+    @Benchmark
+    public ProductFacets facetsFootwear() {
+        return productService.facets(new ProductSearchCriteria(null, "Footwear", null, null, null, null), 100.0, null);
+    }
+
+    @Benchmark
+    public List<Product> searchByCategory() {
+        return productService.searchByCategory("Footwear");
+    }
+
+    @Benchmark
+    public List<Product> searchByBrand() {
+        return productService.searchByBrand("Nike");
+    }
+
+    @Benchmark
+    public List<Product> searchByPriceLessThan() {
+        return productService.searchByPriceLessThan(500.0);
+    }
+
+    @Benchmark
+    public List<Product> searchByRatingGreaterThanEqual() {
+        return productService.searchByRatingGreaterThanEqual(4.9);
+    }
+
+    // Top 100 of a wide range: only the first 100 index entries are read, whatever the range size
+    @Benchmark
+    public List<ProductSummary> searchByPriceRangeTop100() {
+        return productService.searchByPriceRange(1_000.0, 50_000.0, false, KeysetPage.first(100));
+    }
+
+    @Benchmark
+    public List<ProductSummary> searchByRatingRangeTop100() {
+        return productService.searchByRatingRange(4.0, null, true, KeysetPage.first(100));
+    }
+
+    @Benchmark
+    public Product getProductById(Cursor cursor) {
+        return productService.getProductById(minId + cursor.random.nextInt(catalogSize));
+    }
+
+    @Benchmark
+    public Product saveProduct(Cursor cursor) {
+        long id = minId + cursor.random.nextInt(catalogSize);
+        return productService.saveProduct(new Product(id, "Benchmark Updated Product " + id, "Footwear", "Nike",
+                cursor.random.nextDouble(50, 100_000), 4.0));
+    }
+
+    @Benchmark
+    public byte[] serializeCategoryResult() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(categoryResult);
+    }
+
+    @Benchmark
+    public byte[] serializeNameResult() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(nameResult);
+    }
+
+    @Benchmark
+    public byte[] serializeSummariesJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaryPage);
+    }
+
+    @Benchmark
+    public byte[] serializeSummariesHandWritten() {
+        return ProductSummaryJsonWriter.toBytes(summaryPage);
+    }
+
+    @Benchmark
+    public List<ProductSummary> searchByCategoryPage() {
+        return productService.searchByCategory("Footwear", KeysetPage.first(100));
+    }
+}
@@ -0,0 +1,48 @@
+package com.retail.product_search_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.retail.product_search_service.Entity.Product;
+
+//Deterministic fake catalog for benchmarks: the same seed always produces the same products,
+//so two benchmark runs (before / after a change) measure exactly the same data.
+//Names look like "Nike Lightweight Running Shoes 1234" so name searches hit realistic n-grams.
+public final class SyntheticCatalog {
+
+    public static final String[] CATEGORIES = {"Electronics", "Footwear", "Clothing", "Home", "Kitchen", "Sports",
+            "Books", "Toys", "Beauty", "Garden", "Automotive", "Grocery", "Office", "Music", "Health", "Jewelry",
+            "Baby", "Pets", "Tools", "Outdoor"};
+
+    public static final String[] BRANDS = {"Nike", "Adidas", "Puma", "Dell", "HP", "Lenovo", "Samsung", "Apple",
+            "Sony", "LG", "Philips", "Bosch", "Ikea", "Prestige", "Reebok", "Asus", "Acer", "Boat", "Noise", "Titan",
+            "Fossil", "Casio", "Levis", "Zara", "Uniqlo", "Canon", "Nikon", "Xiaomi", "Oppo", "Vivo", "Realme",
+            "Whirlpool", "Godrej", "Havells", "Bajaj", "Usha", "Milton", "Cello", "Tupperware", "Pigeon", "Hawkins",
+            "Wildcraft", "Skybags", "Safari", "VIP", "Decathlon", "Yonex", "Cosco", "Nivia", "Lego"};
+
+    private static final String[] ADJECTIVES = {"Lightweight", "Wireless", "Classic", "Premium", "Compact", "Smart",
+            "Ergonomic", "Waterproof", "Portable", "Deluxe", "Slim", "Heavy Duty", "Organic", "Vintage", "Ultra"};
+
+    private static final String[] NOUNS = {"Running Shoes", "Laptop", "Headphones", "T-Shirt", "Backpack", "Watch",
+            "Mixer Grinder", "Water Bottle", "Football", "Novel", "Desk Lamp", "Phone", "Jacket", "Camera", "Speaker",
+            "Pressure Cooker", "Yoga Mat", "Sneakers", "Monitor", "Keyboard"};
+
+    private SyntheticCatalog() {
+    }
+
+    // Products number `from` .. `from + count - 1`, new (id 0) so saveAll() assigns ids
+    public static List<Product> products(int from, int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int n = from; n < from + count; n++) {
+            SplittableRandom random = new SplittableRandom(n);
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String name = brand + " " + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + NOUNS[random.nextInt(NOUNS.length)] + " " + n;
+            double price = Math.round(random.nextDouble(50, 100_000) * 100) / 100.0;
+            double rating = Math.round(random.nextDouble(1, 5) * 10) / 10.0;
+            products.add(new Product(0L, name, CATEGORIES[random.nextInt(CATEGORIES.length)], brand, price, rating));
+        }
+        return products;
+    }
+}
@@ -0,0 +1,34 @@
+package com.retail.product_search_service.service.search;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+//Vector API kernel of ColumnScan, in a class of its own: it is only loaded when ColumnScan found the
+//jdk.incubator.vector module, so without the module nothing ever touches these imports.
+//Kept in src/main/java-vector: the only source compiled with --add-modules jdk.incubator.vector (pom.xml, compile-vector).
+//One bitmap word = 64 values = 64 / lanes vector compares (8 with AVX-512), every mask shifted to its place in the word.
+final class VectorColumnScan {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorColumnScan() {
+    }
+
+    // Fills words[0 .. full / 64) for the first `full` values (a multiple of 64), returns `full`
+    static int scan(double[] column, int full, double min, double max, long[] words) {
+        int lanes = SPECIES.length();
+        for (int from = 0; from < full; from += 64) {
+            long word = 0;
+            for (int bit = 0; bit < 64; bit += lanes) {
+                DoubleVector values = DoubleVector.fromArray(SPECIES, column, from + bit);
+                VectorMask<Double> matches = values.compare(VectorOperators.GE, min)
+                        .and(values.compare(VectorOperators.LT, max));
+                word |= matches.toLong() << bit;
+            }
+            words[from >>> 6] = word;
+        }
+        return full;
+    }
+}
@@ -2,31 +2,44 @@ package com.retail.product_search_service.Entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
-import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.retail.product_search_service.service.feed.ProductChangeListener;
+import com.retail.product_search_service.service.shard.ShardedIdGenerator.ShardedSequence;
+
 @Entity
-@Table
-@Data
-@AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_product_category_key", columnList = "category_key, id"),
+        @Index(name = "idx_product_brand_key", columnList = "brand_key, id"),
+        @Index(name = "idx_product_change_version", columnList = "change_version")
+})
+// Every insert / update / delete is published to the ProductChangeFeed once its transaction commits
+@EntityListeners(ProductChangeListener.class)
 @NoArgsConstructor
 
-//@Data is a Lombok shortcut that automatically generates:
+//@Data (Lombok) is NOT used on this entity any more. It would generate:
 /*public String getName() { ... }
 public void setName(String name) { ... }
 public String toString() { ... }
 public boolean equals(Object o) { ... }
 public int hashCode() { ... }*/
+//The getters/setters are written by hand below anyway. The generated equals/hashCode compared ALL fields,
+//which is wrong for a JPA entity (hashCode changes when any field is edited, so a managed Product put in a
+//HashSet gets lost) and costs a walk over every field per call. equals/hashCode/toString are written below:
+//equals compares the database id only, hashCode is constant, toString prints the fields without any lookups.
 //@NoArgsConstructor — Generates a Default Constructor-Spring Boot & JPA require a no-argument constructor,JPA internally uses reflection to create objects.
 //Without this constructor, you will get errors like:No default constructor for entity
 //@AllArgsConstructor — Constructor With All Fields
-//public Product(Long id, String name, String category, String brand, Double price, Double rating, Integer stock)
+//It is NOT used here: it generated Product(long id, ...) next to the hand-written Product(Long id, ...) below,
+//and new Product(1L, ...) became ambiguous. The explicit constructor below is the all-fields constructor.
+//public Product(Long id, String name, String category, String brand, Double price, Double rating)
 //For quickly creating product objects,For testing,For initializing sample data,For DTO mapping
 //example-Product p = new Product(1L, "Laptop", "Electronics", "Dell", 55000.0, 4.5, 20);
 //Without this annotation, you must manually write long constructors.
@@ -40,8 +53,13 @@ public class Product {
 	    this.price = price;
 	    this.rating = rating;
 	}
+	//Ids come from a database SEQUENCE instead of IDENTITY (auto-increment column).
+	//With IDENTITY, Hibernate must run each INSERT immediately to learn the new id, which disables JDBC batching.
+	//With a sequence and blocks of 50, Hibernate reserves 50 ids in one round trip and can then send
+	//the INSERTs in batches (used by bulk ingestion, POST /products/bulk).
+	//@ShardedSequence = that sequence, keeping only the ids this instance owns when the catalog is sharded (ShardRing).
 	@Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedSequence
     private long id;
 
     public long getId() {
@@ -88,4 +106,55 @@ public class Product {
     private String brand;       // Brand name (eg: "Nike")
     private Double price;       // Product price
     private Double rating;      // Rating (eg: 4.5 out of 5)
+
+    // Search keys: category / brand lowercased and accent-folded (SearchKeys.normalize), eg: "footwear".
+    // Productrepository looks products up by these indexed columns instead of LOWER(name) = LOWER(?), which can
+    // not use an index. They are filled in by updateSearchKeys() on every insert / update and have no getters,
+    // so they never appear in the JSON. The category / brand indexes end with id: a keyset page
+    // (key = ? and id > ? order by id) is one index seek followed by reading the next entries in order.
+    // Names have no key column: name search is answered by the search engine, which folds them the same way.
+    @Column(name = "category_key", length = 512)
+    private String categoryKey;
+    @Column(name = "brand_key", length = 512)
+    private String brandKey;
+
+    // Change version: a new value of the product_change_seq sequence on every insert and update of the row,
+    // assigned by the database itself (column default / ON UPDATE, migration V4), so a write that does not go
+    // through this application moves it too. ProductChangePoller reads the rows above the last version it saw.
+    // Hibernate never writes it (insertable / updatable = false); no getter, like the search keys.
+    @Column(name = "change_version", insertable = false, updatable = false)
+    private Long changeVersion;
+
+    // Called by Hibernate just before the INSERT / UPDATE, whatever way the fields were set
+    @PrePersist
+    @PreUpdate
+    void updateSearchKeys() {
+        categoryKey = SearchKeys.normalize(category);
+        brandKey = SearchKeys.normalize(brand);
+    }
+
+    // Two Products are equal when they are the same database row (same id).
+    // New products (id 0, not saved yet) are only equal to themselves.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Product other)) {
+            return false;
+        }
+        return id != 0 && id == other.getId();
+    }
+
+    // Constant on purpose: the id is assigned on save, and the hash must not change while the object is in a HashSet
+    @Override
+    public int hashCode() {
+        return Product.class.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Product(id=" + id + ", name=" + name + ", category=" + category + ", brand=" + brand
+                + ", price=" + price + ", rating=" + rating + ")";
+    }
 }
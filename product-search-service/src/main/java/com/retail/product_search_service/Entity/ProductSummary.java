@@ -0,0 +1,28 @@
+package com.retail.product_search_service.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Read-only view of a product with only the fields a search result listing shows.
+//Returned by every /products/search/... endpoint instead of the full Product entity:
+//- Database searches select these columns straight into the record (JPQL "select new ...ProductSummary(...)"),
+//  so Hibernate reads 5 columns and creates no managed entity (no persistence context entry, no dirty-check snapshot).
+//- In-memory searches (search engine) copy the fields from the Product with from().
+//- Written to JSON by ProductSummaryJsonWriter, field by field, without Jackson reflection.
+//category is left out on purpose: a listing is usually already filtered by it, and GET /products/{id} has it.
+//A record: immutable, no setters, equals/hashCode/toString generated by the compiler.
+public record ProductSummary(long id, String name, String brand, Double price, Double rating) {
+
+    public static ProductSummary from(Product product) {
+        return new ProductSummary(product.getId(), product.getName(), product.getBrand(), product.getPrice(),
+                product.getRating());
+    }
+
+    public static List<ProductSummary> from(List<Product> products) {
+        List<ProductSummary> summaries = new ArrayList<>(products.size());
+        for (Product product : products) {
+            summaries.add(from(product));
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,12 @@
+package com.retail.product_search_service.Entity;
+
+//One row of the product table with its change_version, read by ProductChangePoller.
+//Mapped straight from the JDBC row (ProductChangePoller's RowMapper): the poller only copies the values into a
+//change, so no managed entity is created for it.
+public record ProductVersion(long id, String name, String category, String brand, Double price, Double rating,
+                             long version) {
+
+    public Product toProduct() {
+        return new Product(id, name, category, brand, price, rating);
+    }
+}
@@ -0,0 +1,36 @@
+package com.retail.product_search_service.Entity;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+//The one matching rule of case-insensitive lookups: lowercased and accent-folded.
+//"Électronique", "ELECTRONIQUE" and "electronique" all give "electronique".
+//Product stores this form of category / brand in its *_key columns (indexed), and every lookup normalizes
+//its input the same way, so the database compares plain column values (index seek) instead of
+//LOWER(column) = LOWER(?) on every row. The search engine and the query cache use it for category / brand too,
+//and the search engine for names (grams, words, suggestions).
+//Folding: NFKD splits "é" into "e" + a combining accent, which is then dropped (and "ﬁ" becomes "fi").
+//Letters without a decomposition ("ß", "ø", "ł") are only lowercased.
+public final class SearchKeys {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private SearchKeys() {
+    }
+
+    // Search key of a value, null for null
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                String folded = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFKD)).replaceAll("");
+                return folded.toLowerCase(Locale.ROOT);
+            }
+        }
+        // plain ASCII (almost every value): nothing to fold
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
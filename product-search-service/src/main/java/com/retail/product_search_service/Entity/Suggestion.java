@@ -0,0 +1,13 @@
+package com.retail.product_search_service.Entity;
+
+//One autocomplete suggestion returned by GET /products/suggest?prefix=...
+//text   → the product name, brand or category as stored (original casing), e.g. "Nike Running Shoes"
+//field  → where the text comes from: "name", "brand" or "category"
+//rating → best rating among the products carrying this text (what suggestions are ranked by), null if none is rated
+//Suggestions are built once per index refresh and shared by every response that returns them.
+public record Suggestion(String text, String field, Double rating) {
+
+    public static final String NAME = "name";
+    public static final String BRAND = "brand";
+    public static final String CATEGORY = "category";
+}
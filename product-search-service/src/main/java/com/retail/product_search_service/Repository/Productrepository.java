@@ -2,12 +2,21 @@ package com.retail.product_search_service.Repository;
 
 
 import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.ProductSummary;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 //If you write a method name in a specific pattern,Spring will automatically generate SQL for that method.
 //If you write:findByName(String name),Spring says:findBy → SELECT,Name → field in the Product entity,String name → value to match
 //So Spring internally builds this SQL:
@@ -16,30 +25,24 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface Productrepository extends JpaRepository<Product, Long> {
 	
-	// Search by name (LIKE %name% search)
-	// Explanation:
-	// "findBy" → Spring Data knows this is a query method  
-	// "Name" → field in Product entity  
-	// "Containing" → performs a LIKE %name% match  
-	// "IgnoreCase" → case-insensitive  
-	// Final meaning: SELECT * FROM product WHERE LOWER(name) LIKE LOWER('%input%')
-	List<Product> findByNameContainingIgnoreCase(String name);
+	// Case-insensitive lookups use the search key columns (category_key, brand_key):
+	// the value lowercased and without accents, stored by Product on every write.
+	// Callers pass SearchKeys.normalize(input), so the SQL compares plain column values:
+	// WHERE category_key = ? can seek the index, WHERE LOWER(category) = LOWER(?) had to read every row.
 
-
-	// Search by category (exact match but ignoring case)
+	// Search by category (exact match of the search key)
 	// Explanation:
 	// "findBy" → query method  
-	// "Category" → field name in Product  
-	// "IgnoreCase" → ignore uppercase/lowercase  
-	// Meaning: SELECT * FROM product WHERE LOWER(category) = LOWER(input)
-	List<Product> findByCategoryIgnoreCase(String category);
+	// "CategoryKey" → field name in Product  
+	// Meaning: SELECT * FROM product WHERE category_key = input (index idx_product_category_key)
+	List<Product> findByCategoryKey(String categoryKey);
 
 
-	// Search by brand (exact match but case-insensitive)
+	// Search by brand (exact match of the search key)
 	// Explanation:
 	// Same logic as category  
-	// Meaning: SELECT * FROM product WHERE LOWER(brand) = LOWER(input)
-	List<Product> findByBrandIgnoreCase(String brand);
+	// Meaning: SELECT * FROM product WHERE brand_key = input (index idx_product_brand_key)
+	List<Product> findByBrandKey(String brandKey);
 
 
 	// Price less than given number
@@ -59,8 +62,52 @@ public interface Productrepository extends JpaRepository<Product, Long> {
 	// Meaning: SELECT * FROM product WHERE rating >= input
 	List<Product> findByRatingGreaterThanEqual(Double rating);
 
-	
-	
-	
+
+	// ===========================
+	// Keyset (cursor) pagination
+	// "IdGreaterThan" + "OrderByIdAsc" + Limit → WHERE ... AND id > :afterId ORDER BY id LIMIT :limit
+	// The primary key index takes the database straight to the cursor, no OFFSET scanning.
+	// ===========================
+	List<Product> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+
+
+	// ===========================
+	// Keyset pages of search results as ProductSummary (constructor projection)
+	// "select new ...ProductSummary(...)" → SQL selects only these 5 columns and Hibernate calls the record
+	// constructor for each row: no Product entity is created or tracked by the persistence context.
+	// The (category_key, id) / (brand_key, id) indexes answer "key = ? and id > ? ... limit n" by seeking to
+	// (key, afterId) and reading the next n entries. The ORDER BY names the key too: the key is fixed, so the
+	// order is still by id, but only then does H2 see it is the index order and skip sorting the rest of the category.
+	// ===========================
+	@Query("select new com.retail.product_search_service.Entity.ProductSummary(p.id, p.name, p.brand, p.price, p.rating)"
+			+ " from Product p where p.categoryKey = :categoryKey and p.id > :afterId order by p.categoryKey, p.id")
+	List<ProductSummary> findSummariesByCategory(@Param("categoryKey") String categoryKey,
+			@Param("afterId") long afterId, Limit limit);
+
+	@Query("select new com.retail.product_search_service.Entity.ProductSummary(p.id, p.name, p.brand, p.price, p.rating)"
+			+ " from Product p where p.brandKey = :brandKey and p.id > :afterId order by p.brandKey, p.id")
+	List<ProductSummary> findSummariesByBrand(@Param("brandKey") String brandKey, @Param("afterId") long afterId,
+			Limit limit);
+
+
+	// Stream every product in id order without loading the whole table into a List
+	// Must be called inside a transaction and the Stream must be closed (try-with-resources).
+	// The fetch size hint makes the JDBC driver pull rows from the database 500 at a time.
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select p from Product p order by p.id")
+	Stream<Product> streamAllOrderById();
+
+
+	// Largest id in the table (0 when it is empty)
+	// Together with count() it tells SearchIndexLoader whether the search engine snapshot on disk matches the table
+	@Query("select coalesce(max(p.id), 0) from Product p")
+	long findMaxId();
+
+
+	// Latest change_version in the table (0 when it is empty), read by SearchIndexLoader at startup
+	// The database sets change_version on every insert / update (migration V4); ProductChangePoller reads the changed
+	// rows itself, through JdbcTemplate (see there)
+	@Query("select coalesce(max(p.changeVersion), 0) from Product p")
+	long findMaxChangeVersion();
 
 }
@@ -1,21 +1,56 @@
 package com.retail.product_search_service.controller;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.ProductSummary;
+import com.retail.product_search_service.Entity.Suggestion;
+import com.retail.product_search_service.service.AsyncProductService;
+import com.retail.product_search_service.service.BulkIngestResult;
+import com.retail.product_search_service.service.BulkIngestResult.RowError;
+import com.retail.product_search_service.service.KeysetPage;
+import com.retail.product_search_service.service.ProductFacets;
+import com.retail.product_search_service.service.ProductSearchCriteria;
 import com.retail.product_search_service.service.ProductService;
+import com.retail.product_search_service.service.SearchSort;
+import com.retail.product_search_service.service.cache.ProductCache.CacheStatistics;
+import com.retail.product_search_service.service.shard.ShardCoordinator;
 
 import io.swagger.v3.oas.annotations.Operation;
 
 import org.springframework.web.bind.annotation.RequestBody;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 //@RestController = @Controller + @ResponseBody
@@ -28,12 +63,58 @@ import jakarta.validation.Valid;
 //@ResponseBody tells Spring:“Take the return value (Java object), convert it to JSON, and send it as HTTP response”
 //@RequestMapping("/products") → base path for all endpoints. Example: /products/search/name.
 //@Tag(...) → Swagger grouping and description for this controller in Swagger UI.
+//Pagination: every endpoint that returns a list is keyset (cursor) paginated.
+//  ?limit=N   → page size (default product.page.default-size, capped at product.page.max-size)
+//  ?after=ID  → return only products with id > ID (the cursor)
+//When a page is full, the response carries the header  X-Next-Cursor: <last id>  → send it back as ?after= for the next page.
+//No X-Next-Cursor header means this was the last page. The body stays a plain JSON array.
+//Search endpoints answer with ProductSummary objects (id, name, brand, price, rating) instead of full products;
+//ProductSummaryMessageConverter writes those lists to JSON without Jackson reflection.
+//Sorting: the name, category, brand and combined searches take ?sort=id|relevance|rating|price_asc|price_desc.
+//  sort=id (default) → id order, paginated with the cursor as above
+//  any other sort    → ranked: the ?limit= best products only, ?after= is ignored and no X-Next-Cursor is sent
+//Async variants: /products/async/search/... and /products/async/facets take the same parameters (plus ?timeoutMs=)
+//and give the same answers, but the servlet thread is released while the search runs (see section 11).
+//Sharded deployment (product.shard.nodes, see ShardRing): every instance holds part of the catalog. The endpoints above
+//answer for this instance's part only, except POST /products, POST /products/bulk, GET /products/{id} and the batch
+//gets by id, which go to the instance owning each id; /products/cluster/search searches every instance and merges their answers (see section 12).
 @RestController
 @RequestMapping("/products")
 public class ProductController {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String PARTIAL_RESULTS_HEADER = "X-Partial-Results";
+    static final String FAILED_SHARDS_HEADER = "X-Failed-Shards";
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    // SLF4J logger instead of System.out: debug() is skipped almost for free when DEBUG is off,
+    // and the {} placeholder means product.toString() is only called when the line is really written
+    private static final Logger log = LoggerFactory.getLogger(ProductController.class);
+
     @Autowired
     private ProductService productService;
 
+    // Same searches on a bounded executor with deadlines, for the /products/async/... endpoints
+    @Autowired
+    private AsyncProductService asyncProductService;
+
+    // Sharded deployment: routes reads / writes by id to their shard, runs /products/cluster/search on every shard
+    @Autowired
+    private ShardCoordinator shardCoordinator;
+
+    // Spring's own JSON mapper, used to write NDJSON lines in /products/stream
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${product.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${product.page.max-size:1000}")
+    private int maxPageSize;
+
+    @Value("${product.bulk.batch-size:1000}")
+    private int bulkBatchSize;
+
     //@Operation → Swagger summary for documentation.
     // @RequestBody Product product → Spring automatically converts JSON body from client into a Product object.
     //return productService.saveProduct(product) → calls service method to save product and returns the saved object.
@@ -41,12 +122,80 @@ public class ProductController {
     // 1. Add a new product
     // Maps to service: saveProduct(Product product)
     // POST /products
+    // Sharded: an update of a product another instance owns is forwarded to it, new products are created here
     // ========================================================================================
     @PostMapping
     @Operation(summary = "Add a new product")
     public Product addProduct(@Valid @RequestBody Product product) {
-        System.out.println("Received product: " + product);
-        return productService.saveProduct(product);
+        log.debug("Received product: {}", product);
+        return shardCoordinator.saveProduct(product);
+    }
+
+    // ===========================
+    // 1b. Bulk ingestion from a JSON array
+    // Maps to service: saveAll(List<Product> products)
+    // POST /products/bulk   (Content-Type: application/json)   body: [ {...}, {...}, ... ]
+    // No @Valid here on purpose: one bad row must not reject the whole feed, the service validates row by row
+    // and returns the row numbers of the rejected products.
+    // Sharded: rows with the id of a product another instance owns are forwarded to it (ShardCoordinator.saveAll)
+    // ===========================
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Add many products at once from a JSON array")
+    public BulkIngestResult addProducts(@RequestBody List<Product> products) {
+        return shardCoordinator.saveAll(products);
+    }
+
+    // ===========================
+    // 1c. Bulk ingestion from an NDJSON stream (one product JSON object per line)
+    // Maps to service: saveAll(List<Product> products), called once per product.bulk.batch-size lines
+    // POST /products/bulk   (Content-Type: application/x-ndjson)
+    // The body is read line by line, so a feed of any size only keeps one batch in memory.
+    // Row numbers in the report are line numbers (0-based); lines that are not valid JSON are reported too.
+    // Sharded: forwarded per batch like 1b.
+    // ===========================
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    @Operation(summary = "Add many products at once from newline-delimited JSON")
+    public BulkIngestResult addProductsNdjson(HttpServletRequest request) throws IOException {
+        BulkIngestResult total = BulkIngestResult.empty();
+        List<RowError> parseErrors = new ArrayList<>();
+        List<Product> batch = new ArrayList<>(bulkBatchSize);
+        List<Integer> batchLines = new ArrayList<>(bulkBatchSize);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine(), lineNumber++) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(objectMapper.readValue(line, Product.class));
+                    batchLines.add(lineNumber);
+                } catch (JsonProcessingException e) {
+                    parseErrors.add(new RowError(lineNumber, "Invalid JSON: " + e.getOriginalMessage()));
+                }
+                if (batch.size() == bulkBatchSize) {
+                    total = total.merge(saveBatch(batch, batchLines), 0);
+                    batch.clear();
+                    batchLines.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            total = total.merge(saveBatch(batch, batchLines), 0);
+        }
+        total = total.merge(new BulkIngestResult(parseErrors.size(), 0, parseErrors.size(), parseErrors), 0);
+        total.errors().sort(Comparator.comparingInt(RowError::row));
+        return total;
+    }
+
+    // Saves one NDJSON batch and turns the batch-relative row numbers of its errors back into line numbers
+    private BulkIngestResult saveBatch(List<Product> batch, List<Integer> batchLines) {
+        BulkIngestResult result = shardCoordinator.saveAll(batch);
+        List<RowError> errors = new ArrayList<>(result.errors().size());
+        for (RowError error : result.errors()) {
+            errors.add(new RowError(batchLines.get(error.row()), error.message()));
+        }
+        return new BulkIngestResult(result.received(), result.saved(), result.rejected(), errors);
     }
 
     // ===========================
@@ -55,76 +204,456 @@ public class ProductController {
     // 2. Get product by ID
     // Maps to service: getProductById(Long id)
     // GET /products/{id}
+    // Sharded: read from the instance owning the id
     // ===========================
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID")
     public Product getProductById(@PathVariable Long id) {
-        return productService.getProductById(id);
+        return shardCoordinator.getProductById(id);
     }
 
     // ===========================
-    // 3. Get all products
-    // Maps to service: getAllProducts()
-    // GET /products
+    // 2b. Cache statistics for GET /products/{id}
+    // Maps to service: getCacheStatistics()
+    // GET /products/cache/stats
+    // ===========================
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Product detail cache hit/miss/eviction counters")
+    public CacheStatistics getCacheStatistics() {
+        return productService.getCacheStatistics();
+    }
+
+    // ===========================
+    // 2c. Statistics of the category / brand result cache
+    // Maps to service: getQueryCacheStatistics()
+    // GET /products/cache/query-stats
+    // ===========================
+    @GetMapping("/cache/query-stats")
+    @Operation(summary = "Category / brand page result cache hit/miss/eviction counters")
+    public CacheStatistics getQueryCacheStatistics() {
+        return productService.getQueryCacheStatistics();
+    }
+
+    // ===========================
+    // 3. Get all products, one page at a time
+    // Maps to service: getProducts(KeysetPage page)
+    // GET /products?after=...&limit=...
     // ===========================
     @GetMapping
-    @Operation(summary = "Get all products")
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    @Operation(summary = "Get all products (keyset paginated, see X-Next-Cursor)")
+    public ResponseEntity<List<Product>> getAllProducts(@RequestParam(required = false) Long after,
+                                                        @RequestParam(required = false) Integer limit) {
+        KeysetPage page = page(after, limit);
+        return paged(productService.getProducts(page), page, Product::getId);
+    }
+
+    // ===========================
+    // 3a. Get many products by id in one request (listing pages: one call instead of one GET /products/{id} per row)
+    // Maps to service: getProductsByIds(List<Long> ids)
+    // GET  /products?ids=3,17,42
+    // POST /products/batch-get   body: [3, 17, 42]   (for id lists too long for a URL)
+    // Answers the products found, in the order of the ids; unknown ids are left out. Cached products come from the
+    // product cache, all the others from ONE "where id in (...)" query. More than product.batch-get.max-ids ids → 400.
+    // ===========================
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get many products by id (comma separated ?ids=) with one database query")
+    public List<Product> getProductsByIds(@RequestParam List<Long> ids) {
+        return shardCoordinator.getProductsByIds(ids);
+    }
+
+    @PostMapping("/batch-get")
+    @Operation(summary = "Get many products by id (JSON array of ids in the body) with one database query")
+    public List<Product> batchGet(@RequestBody List<Long> ids) {
+        return shardCoordinator.getProductsByIds(ids);
+    }
+
+    // ===========================
+    // 3b. Stream all products as NDJSON (one JSON object per line)
+    // Maps to service: streamAllProducts(Consumer<Product> consumer)
+    // GET /products/stream
+    // StreamingResponseBody writes straight to the HTTP response while rows are read from the database,
+    // so the full catalog is never held in memory — useful for exports and feed consumers.
+    // ===========================
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Stream all products as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                productService.streamAllProducts(product -> {
+                    try {
+                        writer.write(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.write('\n');
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     // ===========================
     // 4. Search products by name
-    // Maps to service: searchByName(String name)
-    // GET /products/search/name?name=...
+    // Maps to service: searchByName(String name) / fuzzySearchByName(String name, Integer maxEdits, int limit)
+    // GET /products/search/name?name=...&after=...&limit=...
+    // GET /products/search/name?name=nkie shoes&fuzzy=true&maxEdits=1&limit=...  → typo tolerant, best matches first.
+    // GET /products/search/name?name=running shoes&sort=relevance&limit=20  → BM25 ranked, best rated first among equals.
+    // Fuzzy and sorted results are ranked, not in id order, so they come as one page of `limit` rows without X-Next-Cursor.
     // ===========================
     @GetMapping("/search/name")
-    @Operation(summary = "Search products by name")
-    public List<Product> searchByName(@RequestParam String name) {
-        return productService.searchByName(name);
+    @Operation(summary = "Search products by name, optionally typo tolerant (fuzzy=true) or ranked (sort=relevance)")
+    public ResponseEntity<List<ProductSummary>> searchByName(@RequestParam String name,
+                                                             @RequestParam(defaultValue = "false") boolean fuzzy,
+                                                             @RequestParam(required = false) Integer maxEdits,
+                                                             @RequestParam(defaultValue = "id") SearchSort sort,
+                                                             @RequestParam(required = false) Long after,
+                                                             @RequestParam(required = false) Integer limit) {
+        KeysetPage page = page(after, limit);
+        if (fuzzy) {
+            return ResponseEntity.ok(productService.fuzzySearchByName(name, maxEdits, page.limit()));
+        }
+        if (sort != SearchSort.ID) {
+            return ranked(new ProductSearchCriteria(name, null, null, null, null, null), sort, page);
+        }
+        return paged(productService.searchByName(name, page), page, ProductSummary::id);
     }
 
     // ===========================
     // 5. Search products by category
     // Maps to service: searchByCategory(String category)
-    // GET /products/search/category?category=...
+    // GET /products/search/category?category=...&sort=...&after=...&limit=...
     // ===========================
     @GetMapping("/search/category")
     @Operation(summary = "Search products by category")
-    public List<Product> searchByCategory(@RequestParam String category) {
-        return productService.searchByCategory(category);
+    public ResponseEntity<List<ProductSummary>> searchByCategory(@RequestParam String category,
+                                                          @RequestParam(defaultValue = "id") SearchSort sort,
+                                                          @RequestParam(required = false) Long after,
+                                                          @RequestParam(required = false) Integer limit) {
+        KeysetPage page = page(after, limit);
+        if (sort != SearchSort.ID) {
+            return ranked(new ProductSearchCriteria(null, category, null, null, null, null), sort, page);
+        }
+        return paged(productService.searchByCategory(category, page), page, ProductSummary::id);
     }
 
     // ===========================
     // 6. Search products by brand
     // Maps to service: searchByBrand(String brand)
-    // GET /products/search/brand?brand=...
+    // GET /products/search/brand?brand=...&sort=...&after=...&limit=...
     // ===========================
     @GetMapping("/search/brand")
     @Operation(summary = "Search products by brand")
-    public List<Product> searchByBrand(@RequestParam String brand) {
-        return productService.searchByBrand(brand);
+    public ResponseEntity<List<ProductSummary>> searchByBrand(@RequestParam String brand,
+                                                       @RequestParam(defaultValue = "id") SearchSort sort,
+                                                       @RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Integer limit) {
+        KeysetPage page = page(after, limit);
+        if (sort != SearchSort.ID) {
+            return ranked(new ProductSearchCriteria(null, null, brand, null, null, null), sort, page);
+        }
+        return paged(productService.searchByBrand(brand, page), page, ProductSummary::id);
     }
 
     // ===========================
-    // 7. Search products by price less than
-    // Maps to service: searchByPriceLessThan(Double price)
-    // GET /products/search/price?lessThan=...
+    // 7. Search products by price range
+    // Maps to service: searchByPriceRange(Double min, Double max, boolean descending, KeysetPage page)
+    // GET /products/search/price?min=...&lessThan=...&order=asc|desc&after=...&limit=...
+    // min is inclusive, lessThan exclusive, both optional. Sorted by price, cheapest first unless order=desc.
     // ===========================
     @GetMapping("/search/price")
-    @Operation(summary = "Search products by price less than")
-    public List<Product> searchByPrice(@RequestParam Double lessThan) {
-        return productService.searchByPriceLessThan(lessThan);
+    @Operation(summary = "Search products by price range, sorted by price")
+    public ResponseEntity<List<ProductSummary>> searchByPrice(@RequestParam(required = false) Double min,
+                                                       @RequestParam(required = false) Double lessThan,
+                                                       @RequestParam(defaultValue = "asc") String order,
+                                                       @RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Integer limit) {
+        KeysetPage page = page(after, limit);
+        return paged(productService.searchByPriceRange(min, lessThan, descending(order), page), page,
+                ProductSummary::id);
     }
 
     // ===========================
-    // 8. Search products by minimum rating
-    // Maps to service: searchByRatingGreaterThanEqual(Double rating)
-    // GET /products/search/rating?min=...
+    // 8. Search products by rating range
+    // Maps to service: searchByRatingRange(Double min, Double max, boolean descending, KeysetPage page)
+    // GET /products/search/rating?min=...&max=...&order=asc|desc&after=...&limit=...
+    // min is inclusive, max exclusive, max optional. Sorted by rating, best rated first unless order=asc.
     // ===========================
     @GetMapping("/search/rating")
-    @Operation(summary = "Search products by minimum rating")
-    public List<Product> searchByRating(@RequestParam Double min) {
-        return productService.searchByRatingGreaterThanEqual(min);
+    @Operation(summary = "Search products by rating range, sorted by rating")
+    public ResponseEntity<List<ProductSummary>> searchByRating(@RequestParam Double min,
+                                                        @RequestParam(required = false) Double max,
+                                                        @RequestParam(defaultValue = "desc") String order,
+                                                        @RequestParam(required = false) Long after,
+                                                        @RequestParam(required = false) Integer limit) {
+        KeysetPage page = page(after, limit);
+        return paged(productService.searchByRatingRange(min, max, descending(order), page), page,
+                ProductSummary::id);
+    }
+
+    // ===========================
+    // 9. Combined search with any mix of filters
+    // Maps to service: search(ProductSearchCriteria criteria)
+    // GET /products/search?name=...&category=...&brand=...&minPrice=...&maxPrice=...&minRating=...&sort=...&after=...&limit=...
+    // Every parameter is optional (required = false); only the ones sent are applied, and ALL of them must match.
+    // Example: Nike footwear under 500 rated 4+ → /products/search?brand=Nike&category=Footwear&maxPrice=500&minRating=4
+    // ===========================
+    @GetMapping("/search")
+    @Operation(summary = "Search products by any combination of name, category, brand, price range and minimum rating")
+    public ResponseEntity<List<ProductSummary>> search(@RequestParam(required = false) String name,
+                                                @RequestParam(required = false) String category,
+                                                @RequestParam(required = false) String brand,
+                                                @RequestParam(required = false) Double minPrice,
+                                                @RequestParam(required = false) Double maxPrice,
+                                                @RequestParam(required = false) Double minRating,
+                                                @RequestParam(defaultValue = "id") SearchSort sort,
+                                                @RequestParam(required = false) Long after,
+                                                @RequestParam(required = false) Integer limit) {
+        KeysetPage page = page(after, limit);
+        ProductSearchCriteria criteria = new ProductSearchCriteria(name, category, brand, minPrice, maxPrice, minRating);
+        if (sort != SearchSort.ID) {
+            return ranked(criteria, sort, page);
+        }
+        return paged(productService.search(criteria, page), page, ProductSummary::id);
+    }
+
+    // ===========================
+    // 9b. Facet counts for the same filters as the combined search
+    // Maps to service: facets(ProductSearchCriteria criteria, Double priceInterval, Double ratingInterval)
+    // GET /products/facets?name=...&category=...&brand=...&minPrice=...&maxPrice=...&minRating=...
+    //                     &priceInterval=...&ratingInterval=...
+    // Answers "Electronics (1,204) / Footwear (877)" plus price / rating histograms in one call,
+    // instead of downloading every product and grouping them in the client.
+    // ===========================
+    @GetMapping("/facets")
+    @Operation(summary = "Counts per category and brand, price and rating histograms of the matching products")
+    public ProductFacets facets(@RequestParam(required = false) String name,
+                                @RequestParam(required = false) String category,
+                                @RequestParam(required = false) String brand,
+                                @RequestParam(required = false) Double minPrice,
+                                @RequestParam(required = false) Double maxPrice,
+                                @RequestParam(required = false) Double minRating,
+                                @RequestParam(required = false) Double priceInterval,
+                                @RequestParam(required = false) Double ratingInterval) {
+        ProductSearchCriteria criteria = new ProductSearchCriteria(name, category, brand, minPrice, maxPrice, minRating);
+        return productService.facets(criteria, priceInterval, ratingInterval);
+    }
+
+    // ===========================
+    // 10. Autocomplete (search-as-you-type)
+    // Maps to service: suggest(String prefix, int limit)
+    // GET /products/suggest?prefix=nike r&limit=...
+    // Names, brands and categories having a word that starts with the prefix, best rated first.
+    // Not paginated: limit defaults to and is capped at product.suggest.top-n.
+    // ===========================
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocomplete product names, brands and categories by prefix")
+    public List<Suggestion> suggest(@RequestParam String prefix,
+                                    @RequestParam(defaultValue = "${product.suggest.top-n:10}") int limit) {
+        return productService.suggest(prefix, limit);
+    }
+
+    // ===========================
+    // 11. Async (non-blocking) variants of the searches
+    // Maps to AsyncProductService (same methods as above, returning CompletableFuture)
+    // GET /products/async/search/name, /async/search/category, /async/search/brand, /async/search, /async/facets
+    //     same parameters and answers as the endpoints without /async, plus ?timeoutMs= (deadline of this request,
+    //     default product.async.timeout-ms, capped at product.async.max-timeout-ms)
+    // The method returns a DeferredResult at once, so the servlet thread goes back to the pool while the search runs
+    // on the search executor; the response is written when the future completes.
+    // 503 when the deadline passes (SearchTimeoutException) or the search queue is full (SearchRejectedException).
+    // If the client disconnects, the search is cancelled instead of running to the end for nobody.
+    // ===========================
+    @GetMapping("/async/search/name")
+    @Operation(summary = "Async search by name (fuzzy=true / sort=relevance as in /products/search/name)")
+    public DeferredResult<ResponseEntity<List<ProductSummary>>> searchByNameAsync(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) Integer maxEdits,
+            @RequestParam(defaultValue = "id") SearchSort sort,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long timeoutMs) {
+        KeysetPage page = page(after, limit);
+        Duration timeout = timeout(timeoutMs);
+        if (fuzzy) {
+            return deferred(asyncProductService.fuzzySearchByName(name, maxEdits, page.limit(), timeout),
+                    ResponseEntity::ok);
+        }
+        if (sort != SearchSort.ID) {
+            return rankedAsync(new ProductSearchCriteria(name, null, null, null, null, null), sort, page, timeout);
+        }
+        return deferred(asyncProductService.searchByName(name, page, timeout),
+                items -> paged(items, page, ProductSummary::id));
+    }
+
+    @GetMapping("/async/search/category")
+    @Operation(summary = "Async search by category")
+    public DeferredResult<ResponseEntity<List<ProductSummary>>> searchByCategoryAsync(
+            @RequestParam String category,
+            @RequestParam(defaultValue = "id") SearchSort sort,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long timeoutMs) {
+        KeysetPage page = page(after, limit);
+        Duration timeout = timeout(timeoutMs);
+        if (sort != SearchSort.ID) {
+            return rankedAsync(new ProductSearchCriteria(null, category, null, null, null, null), sort, page, timeout);
+        }
+        return deferred(asyncProductService.searchByCategory(category, page, timeout),
+                items -> paged(items, page, ProductSummary::id));
+    }
+
+    @GetMapping("/async/search/brand")
+    @Operation(summary = "Async search by brand")
+    public DeferredResult<ResponseEntity<List<ProductSummary>>> searchByBrandAsync(
+            @RequestParam String brand,
+            @RequestParam(defaultValue = "id") SearchSort sort,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long timeoutMs) {
+        KeysetPage page = page(after, limit);
+        Duration timeout = timeout(timeoutMs);
+        if (sort != SearchSort.ID) {
+            return rankedAsync(new ProductSearchCriteria(null, null, brand, null, null, null), sort, page, timeout);
+        }
+        return deferred(asyncProductService.searchByBrand(brand, page, timeout),
+                items -> paged(items, page, ProductSummary::id));
+    }
+
+    @GetMapping("/async/search")
+    @Operation(summary = "Async combined search (same filters as /products/search)")
+    public DeferredResult<ResponseEntity<List<ProductSummary>>> searchAsync(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(defaultValue = "id") SearchSort sort,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long timeoutMs) {
+        KeysetPage page = page(after, limit);
+        Duration timeout = timeout(timeoutMs);
+        ProductSearchCriteria criteria = new ProductSearchCriteria(name, category, brand, minPrice, maxPrice, minRating);
+        if (sort != SearchSort.ID) {
+            return rankedAsync(criteria, sort, page, timeout);
+        }
+        return deferred(asyncProductService.search(criteria, page, timeout),
+                items -> paged(items, page, ProductSummary::id));
+    }
+
+    @GetMapping("/async/facets")
+    @Operation(summary = "Async facet counts (same filters as /products/facets)")
+    public DeferredResult<ProductFacets> facetsAsync(@RequestParam(required = false) String name,
+                                                     @RequestParam(required = false) String category,
+                                                     @RequestParam(required = false) String brand,
+                                                     @RequestParam(required = false) Double minPrice,
+                                                     @RequestParam(required = false) Double maxPrice,
+                                                     @RequestParam(required = false) Double minRating,
+                                                     @RequestParam(required = false) Double priceInterval,
+                                                     @RequestParam(required = false) Double ratingInterval,
+                                                     @RequestParam(required = false) Long timeoutMs) {
+        ProductSearchCriteria criteria = new ProductSearchCriteria(name, category, brand, minPrice, maxPrice, minRating);
+        return deferred(asyncProductService.facets(criteria, priceInterval, ratingInterval, timeout(timeoutMs)),
+                Function.identity());
+    }
+
+    // ===========================
+    // 12. Search across every shard of a sharded deployment (scatter-gather)
+    // Maps to ShardCoordinator.search(...)
+    // GET /products/cluster/search?name=...&category=...&brand=...&minPrice=...&maxPrice=...&minRating=...
+    //                             &sort=...&after=...&limit=...&timeoutMs=...
+    // Same filters, sorts and pagination as /products/search, over the whole catalog instead of this instance's part.
+    // ?timeoutMs= is the deadline of every shard (default product.shard.timeout-ms). Shards that miss it or fail are
+    // left out and the answer says so in two headers:
+    //   X-Partial-Results: true   and   X-Failed-Shards: 1,3   (positions in product.shard.nodes)
+    // 503 only when no shard answered. Not sharded: the same as /products/search (async, with a deadline).
+    // ===========================
+    @GetMapping("/cluster/search")
+    @Operation(summary = "Search every shard of a sharded deployment and merge the results")
+    public DeferredResult<ResponseEntity<List<ProductSummary>>> clusterSearch(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(defaultValue = "id") SearchSort sort,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long timeoutMs) {
+        KeysetPage page = page(after, limit);
+        ProductSearchCriteria criteria = new ProductSearchCriteria(name, category, brand, minPrice, maxPrice, minRating);
+        return deferred(shardCoordinator.search(criteria, sort, page, timeout(timeoutMs)), result -> {
+            ResponseEntity<List<ProductSummary>> response = sort == SearchSort.ID
+                    ? paged(result.items(), page, ProductSummary::id) : ResponseEntity.ok(result.items());
+            if (!result.partial()) {
+                return response;
+            }
+            return ResponseEntity.ok().headers(response.getHeaders())
+                    .header(PARTIAL_RESULTS_HEADER, "true")
+                    .header(FAILED_SHARDS_HEADER, result.failedShards().stream().map(String::valueOf)
+                            .collect(Collectors.joining(",")))
+                    .body(result.items());
+        });
+    }
+
+    // ===========================
+    // Async helpers
+    // deferred() → DeferredResult completed from the future: value → response(value), failure → the exception
+    //              (handled like one thrown by a normal endpoint, e.g. @ResponseStatus → 503)
+    //              client disconnected (onError) or servlet async timeout (onTimeout) → future.cancel() stops the search
+    // ===========================
+    private <T, R> DeferredResult<R> deferred(CompletableFuture<T> future, Function<T, R> response) {
+        DeferredResult<R> result = new DeferredResult<>();
+        result.onError(error -> future.cancel(true));
+        result.onTimeout(() -> future.cancel(true));
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.setResult(response.apply(value));
+            } else {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+        return result;
+    }
+
+    private DeferredResult<ResponseEntity<List<ProductSummary>>> rankedAsync(ProductSearchCriteria criteria,
+                                                                            SearchSort sort, KeysetPage page,
+                                                                            Duration timeout) {
+        return deferred(asyncProductService.search(criteria, sort, page.limit(), timeout), ResponseEntity::ok);
+    }
+
+    private static Duration timeout(Long timeoutMs) {
+        return timeoutMs == null ? null : Duration.ofMillis(timeoutMs);
+    }
+
+    // ===========================
+    // Pagination helpers
+    // page()  → turns ?after=&limit= into a KeysetPage (missing limit = default size, never above max size)
+    // paged() → adds X-Next-Cursor when the page is full, i.e. there may be more rows after the last id
+    // ranked() → top `limit` rows in a sort order other than id: one page, never a cursor
+    // ===========================
+    private KeysetPage page(Long after, Integer limit) {
+        int size = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        return new KeysetPage(after == null ? 0 : after, size);
+    }
+
+    private static boolean descending(String order) {
+        return "desc".equalsIgnoreCase(order);
+    }
+
+    private ResponseEntity<List<ProductSummary>> ranked(ProductSearchCriteria criteria, SearchSort sort, KeysetPage page) {
+        return ResponseEntity.ok(productService.search(criteria, sort, page.limit()));
+    }
+
+    private static <T> ResponseEntity<List<T>> paged(List<T> items, KeysetPage page, ToLongFunction<T> id) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!items.isEmpty() && items.size() == page.limit()) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(id.applyAsLong(items.get(items.size() - 1))));
+        }
+        return response.body(items);
     }
 }
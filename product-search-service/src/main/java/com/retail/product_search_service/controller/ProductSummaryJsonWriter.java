@@ -0,0 +1,212 @@
+package com.retail.product_search_service.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.retail.product_search_service.Entity.ProductSummary;
+
+//Hand-written JSON writer for lists of ProductSummary, used for every search response.
+//Jackson finds the fields of a class through reflection and goes through a generic serializer per value;
+//here the five fields are written one after the other, straight into a byte[] buffer as UTF-8:
+//  [{"id":1,"name":"Laptop","brand":"Dell","price":500.0,"rating":4.5}, ...]
+//- field names are pre-encoded byte[] constants, ids are written digit by digit, strings are escaped and
+//  UTF-8 encoded char by char without creating intermediate Strings or byte[]s
+//- the buffer is flushed to the OutputStream whenever it is full, so big pages are not held in memory twice
+//The output is the same JSON Jackson would write for the record (same field order, same number format,
+//null for missing values), so clients see no difference.
+//Not thread-safe: create one per response.
+public final class ProductSummaryJsonWriter {
+
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] NAME = ascii(",\"name\":");
+    private static final byte[] BRAND = ascii(",\"brand\":");
+    private static final byte[] PRICE = ascii(",\"price\":");
+    private static final byte[] RATING = ascii(",\"rating\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+
+    public ProductSummaryJsonWriter(OutputStream out) {
+        this(out, 8192);
+    }
+
+    ProductSummaryJsonWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[Math.max(64, bufferSize)];
+    }
+
+    // Writes the whole list as one JSON array and flushes the buffer (the stream itself is not closed)
+    public void writeList(List<ProductSummary> summaries) throws IOException {
+        writeByte('[');
+        for (int i = 0; i < summaries.size(); i++) {
+            if (i > 0) {
+                writeByte(',');
+            }
+            write(summaries.get(i));
+        }
+        writeByte(']');
+        flush();
+    }
+
+    public static byte[] toBytes(List<ProductSummary> summaries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + summaries.size() * 96);
+        try {
+            new ProductSummaryJsonWriter(bytes).writeList(summaries);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);   // ByteArrayOutputStream never throws
+        }
+        return bytes.toByteArray();
+    }
+
+    // ===========================
+    // One object: {"id":..,"name":..,"brand":..,"price":..,"rating":..}
+    // ===========================
+    private void write(ProductSummary summary) throws IOException {
+        writeRaw(ID);
+        writeLong(summary.id());
+        writeRaw(NAME);
+        writeString(summary.name());
+        writeRaw(BRAND);
+        writeString(summary.brand());
+        writeRaw(PRICE);
+        writeDouble(summary.price());
+        writeRaw(RATING);
+        writeDouble(summary.rating());
+        writeByte('}');
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeRaw(ascii(Long.toString(value)));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    // Same text as Jackson: Double.toString (500.0, 4.5, 1.0E7); NaN / Infinity are quoted like Jackson does
+    private void writeDouble(Double value) throws IOException {
+        if (value == null) {
+            writeRaw(NULL);
+            return;
+        }
+        String text = Double.toString(value);
+        boolean quoted = value.isNaN() || value.isInfinite();
+        ensure(text.length() + 2);
+        if (quoted) {
+            buffer[position++] = '"';
+        }
+        for (int i = 0; i < text.length(); i++) {
+            buffer[position++] = (byte) text.charAt(i);
+        }
+        if (quoted) {
+            buffer[position++] = '"';
+        }
+    }
+
+    // ===========================
+    // JSON string: escapes " \ and control characters, encodes everything else as UTF-8
+    // A lone surrogate (broken UTF-16) is written as U+FFFD, the replacement character
+    // ===========================
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeRaw(NULL);
+            return;
+        }
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            ensure(6);
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    buffer[position++] = (byte) c;
+                } else {
+                    escape(c);
+                }
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                char encoded = Character.isSurrogate(c) ? '\uFFFD' : c;
+                buffer[position++] = (byte) (0xE0 | encoded >> 12);
+                buffer[position++] = (byte) (0x80 | encoded >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | encoded & 0x3F);
+            }
+        }
+        writeByte('"');
+    }
+
+    // Caller has ensured 6 free bytes
+    private void escape(char c) {
+        buffer[position++] = '\\';
+        switch (c) {
+            case '"' -> buffer[position++] = '"';
+            case '\\' -> buffer[position++] = '\\';
+            case '\n' -> buffer[position++] = 'n';
+            case '\r' -> buffer[position++] = 'r';
+            case '\t' -> buffer[position++] = 't';
+            case '\b' -> buffer[position++] = 'b';
+            case '\f' -> buffer[position++] = 'f';
+            default -> {
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xF];
+            }
+        }
+    }
+
+    private void writeByte(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void writeRaw(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensure(int free) throws IOException {
+        if (position + free > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
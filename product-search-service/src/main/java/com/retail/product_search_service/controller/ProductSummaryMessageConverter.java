@@ -0,0 +1,71 @@
+package com.retail.product_search_service.controller;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import com.retail.product_search_service.Entity.ProductSummary;
+
+//Lets Spring MVC write List<ProductSummary> response bodies with ProductSummaryJsonWriter instead of Jackson.
+//Spring Boot puts every HttpMessageConverter bean in front of its default converters, so for a controller method
+//returning ResponseEntity<List<ProductSummary>> this converter is asked first; every other type (Product,
+//List<Product>, Swagger docs, ...) is refused by canWrite() and still goes to Jackson.
+//Write-only: request bodies are never ProductSummary lists.
+@Component
+public class ProductSummaryMessageConverter extends AbstractGenericHttpMessageConverter<List<ProductSummary>> {
+
+    public ProductSummaryMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    // Only List<ProductSummary>: the generic type is checked, not just the List class
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (type == null || !canWrite(mediaType)) {
+            return false;
+        }
+        ResolvableType resolved = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolved.toClass())
+                && resolved.asCollection().resolveGeneric(0) == ProductSummary.class;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(List<ProductSummary> summaries, Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        new ProductSummaryJsonWriter(outputMessage.getBody()).writeList(summaries);
+    }
+
+    @Override
+    public List<ProductSummary> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ProductSummary lists are write-only", inputMessage);
+    }
+
+    @Override
+    protected List<ProductSummary> readInternal(Class<? extends List<ProductSummary>> clazz,
+                                                HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ProductSummary lists are write-only", inputMessage);
+    }
+}
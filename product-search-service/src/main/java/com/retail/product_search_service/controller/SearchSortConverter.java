@@ -0,0 +1,21 @@
+package com.retail.product_search_service.controller;
+
+import java.util.Locale;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import com.retail.product_search_service.service.SearchSort;
+
+//Turns the ?sort= request parameter into a SearchSort, ignoring case: sort=relevance, sort=PRICE_ASC, sort=Price_Desc.
+//Spring MVC's default String → enum conversion only accepts the exact constant name (RELEVANCE).
+//Spring Boot registers every Converter bean with MVC automatically. An unknown value throws,
+//which Spring answers with 400 Bad Request (type mismatch) like any other badly typed parameter.
+@Component
+public class SearchSortConverter implements Converter<String, SearchSort> {
+
+    @Override
+    public SearchSort convert(String source) {
+        return SearchSort.valueOf(source.trim().toUpperCase(Locale.ROOT));
+    }
+}
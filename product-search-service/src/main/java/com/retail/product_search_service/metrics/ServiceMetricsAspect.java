@@ -0,0 +1,93 @@
+package com.retail.product_search_service.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+//Times every ProductService method without touching the service code (Spring AOP "around" advice).
+//Controller → [ServiceMetricsAspect: start timer] → ProductServiceImpl → [stop timer, record result size]
+//Meters (see /actuator/prometheus or /actuator/metrics):
+//  product.service          timer, tags method + outcome (success / error), p50/p95/p99 from application.properties
+//  product.service.results  distribution of how many products a list-returning method returned, tag method
+//The method tag is the name with the parameter types, e.g. searchByName(String) and searchByName(String,KeysetPage):
+//overloads (full list vs keyset page, the three search() variants) do very different work and get timers of their own.
+//Per-endpoint HTTP timers (http.server.requests) and repository query counts (spring.data.repository.invocations)
+//come from Spring Boot Actuator itself.
+//Micrometer meters are cheap to update from many threads (striped counters, lock-free histogram buckets).
+//Building a meter is not, so each Timer / DistributionSummary is created once per method and reused (keyed by the
+//Method itself, so the tag text is also only built once).
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    static final String TIMER = "product.service";
+    static final String RESULTS = "product.service.results";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<Method, Timer> successTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, Timer> errorTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, DistributionSummary> resultSizes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ServiceMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* com.retail.product_search_service.service.ProductService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            errorTimers.computeIfAbsent(method, key -> timer(key, "error"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        successTimers.computeIfAbsent(method, key -> timer(key, "success"))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (result instanceof Collection<?> products) {
+            resultSizes.computeIfAbsent(method, this::resultSize).record(products.size());
+        }
+        return result;
+    }
+
+    // Tag value of a method: searchByName(String,KeysetPage)
+    static String methodTag(Method method) {
+        return method.getName() + Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private Timer timer(Method method, String outcome) {
+        return Timer.builder(TIMER)
+                .description("Time spent in ProductService methods")
+                .tag("method", methodTag(method))
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private DistributionSummary resultSize(Method method) {
+        return DistributionSummary.builder(RESULTS)
+                .description("Number of products returned by ProductService methods")
+                .baseUnit("products")
+                .tag("method", methodTag(method))
+                .register(registry);
+    }
+}
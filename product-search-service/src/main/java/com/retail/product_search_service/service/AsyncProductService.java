@@ -0,0 +1,35 @@
+package com.retail.product_search_service.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.retail.product_search_service.Entity.ProductSummary;
+
+//Asynchronous variant of the ProductService searches, used by the /products/async/... endpoints.
+//Every method returns at once; the search runs on a dedicated, bounded executor and the future completes with
+//its result, or fails with:
+//  SearchTimeoutException  → not finished within `timeout` (null = product.async.timeout-ms)
+//  SearchRejectedException → all search threads busy and the queue full
+//Cancelling the future (e.g. the client went away) or missing the deadline stops the search:
+//one still queued never starts, one running in the in-memory engine stops at its next cancellation check.
+//Results are the same as the synchronous ProductService methods of the same name.
+public interface AsyncProductService {
+
+    CompletableFuture<List<ProductSummary>> searchByName(String name, KeysetPage page, Duration timeout);
+
+    CompletableFuture<List<ProductSummary>> fuzzySearchByName(String name, Integer maxEdits, int limit,
+                                                              Duration timeout);
+
+    CompletableFuture<List<ProductSummary>> searchByCategory(String category, KeysetPage page, Duration timeout);
+
+    CompletableFuture<List<ProductSummary>> searchByBrand(String brand, KeysetPage page, Duration timeout);
+
+    CompletableFuture<List<ProductSummary>> search(ProductSearchCriteria criteria, KeysetPage page, Duration timeout);
+
+    CompletableFuture<List<ProductSummary>> search(ProductSearchCriteria criteria, SearchSort sort, int limit,
+                                                   Duration timeout);
+
+    CompletableFuture<ProductFacets> facets(ProductSearchCriteria criteria, Double priceInterval, Double ratingInterval,
+                                            Duration timeout);
+}
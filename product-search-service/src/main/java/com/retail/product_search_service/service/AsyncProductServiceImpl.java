@@ -0,0 +1,159 @@
+package com.retail.product_search_service.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.retail.product_search_service.Entity.ProductSummary;
+
+import jakarta.annotation.PreDestroy;
+
+//Runs the ProductService searches on a dedicated, bounded executor so the request thread is released while they run.
+//  searches:  product.async.threads threads (0 = one per CPU core) + a queue of product.async.queue-capacity;
+//             a search that finds the queue full fails right away with SearchRejectedException (no unbounded backlog)
+//  deadlines: every search gets one (the client's ?timeoutMs=, capped at product.async.max-timeout-ms, or
+//             product.async.timeout-ms); a single timer thread fails the future with SearchTimeoutException when it passes
+//  cancel:    when the future ends without a result (deadline, client gone → future.cancel()), the task is cancelled:
+//             still queued → never runs; running in the in-memory engine → interrupted, its scan stops at the next
+//             ScanCancellation check. Database-backed searches (category / brand pages) are not interrupted:
+//             an interrupt can close the JDBC connection's file channel, so their result is simply dropped.
+//The searches go through the ProductService bean, so their metrics (ServiceMetricsAspect) are recorded as usual.
+@Service
+public class AsyncProductServiceImpl implements AsyncProductService {
+
+    private final ProductService productService;
+    private final int queueCapacity;
+    private final long defaultTimeoutMs;
+    private final long maxTimeoutMs;
+    private final ThreadPoolExecutor searches;
+    private final ScheduledThreadPoolExecutor deadlines;
+
+    @Autowired
+    public AsyncProductServiceImpl(ProductService productService,
+                                   @Value("${product.async.threads:0}") int threads,
+                                   @Value("${product.async.queue-capacity:1000}") int queueCapacity,
+                                   @Value("${product.async.timeout-ms:2000}") long defaultTimeoutMs,
+                                   @Value("${product.async.max-timeout-ms:10000}") long maxTimeoutMs) {
+        this.productService = productService;
+        this.queueCapacity = queueCapacity;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.searches = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("product-search-"));
+        this.deadlines = new ScheduledThreadPoolExecutor(1, daemonThreads("search-deadline-"));
+        // a search that finishes in time cancels its deadline: drop it from the timer queue right away
+        deadlines.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public CompletableFuture<List<ProductSummary>> searchByName(String name, KeysetPage page, Duration timeout) {
+        return submit(timeout, true, () -> productService.searchByName(name, page));
+    }
+
+    @Override
+    public CompletableFuture<List<ProductSummary>> fuzzySearchByName(String name, Integer maxEdits, int limit,
+                                                                     Duration timeout) {
+        return submit(timeout, true, () -> productService.fuzzySearchByName(name, maxEdits, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<ProductSummary>> searchByCategory(String category, KeysetPage page,
+                                                                    Duration timeout) {
+        return submit(timeout, false, () -> productService.searchByCategory(category, page));
+    }
+
+    @Override
+    public CompletableFuture<List<ProductSummary>> searchByBrand(String brand, KeysetPage page, Duration timeout) {
+        return submit(timeout, false, () -> productService.searchByBrand(brand, page));
+    }
+
+    @Override
+    public CompletableFuture<List<ProductSummary>> search(ProductSearchCriteria criteria, KeysetPage page,
+                                                          Duration timeout) {
+        return submit(timeout, true, () -> productService.search(criteria, page));
+    }
+
+    @Override
+    public CompletableFuture<List<ProductSummary>> search(ProductSearchCriteria criteria, SearchSort sort, int limit,
+                                                          Duration timeout) {
+        return submit(timeout, true, () -> productService.search(criteria, sort, limit));
+    }
+
+    @Override
+    public CompletableFuture<ProductFacets> facets(ProductSearchCriteria criteria, Double priceInterval,
+                                                   Double ratingInterval, Duration timeout) {
+        return submit(timeout, true, () -> productService.facets(criteria, priceInterval, ratingInterval));
+    }
+
+    // ===========================
+    // Queue one search with a deadline
+    // result:   completed by the task (value or exception), by the deadline (SearchTimeoutException)
+    //           or by the caller (cancel) — whichever comes first, the others are ignored
+    // cleanup:  once result is done the deadline is cancelled, and the task too if it did not produce the result
+    // ===========================
+    private <T> CompletableFuture<T> submit(Duration timeout, boolean interruptible, Supplier<T> search) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                result.complete(search.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, null);
+        try {
+            searches.execute(task);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new SearchRejectedException(queueCapacity));
+            return result;
+        }
+        long timeoutMs = timeoutMs(timeout);
+        ScheduledFuture<?> deadline = deadlines.schedule(
+                () -> result.completeExceptionally(new SearchTimeoutException(timeoutMs)),
+                timeoutMs, TimeUnit.MILLISECONDS);
+        result.whenComplete((value, error) -> {
+            deadline.cancel(false);
+            if (error != null) {
+                task.cancel(interruptible);
+            }
+        });
+        return result;
+    }
+
+    // The client's timeout within (0, max-timeout-ms], or the default when it sent none
+    public long timeoutMs(Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            return defaultTimeoutMs;
+        }
+        return Math.min(timeout.toMillis(), maxTimeoutMs);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searches.shutdownNow();
+        deadlines.shutdownNow();
+    }
+}
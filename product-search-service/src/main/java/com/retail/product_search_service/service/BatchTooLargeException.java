@@ -0,0 +1,14 @@
+package com.retail.product_search_service.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown by getProductsByIds() when a batch asks for more than product.batch-get.max-ids products:
+//the client should split its list instead of the server sending one unbounded IN query.
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(int requested, int maxIds) {
+        super(requested + " ids requested, at most " + maxIds + " per batch");
+    }
+}
@@ -0,0 +1,28 @@
+package com.retail.product_search_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Report returned by bulk ingestion (POST /products/bulk).
+//received → rows in the request, saved → rows written to the database, rejected → rows that were not saved.
+//errors holds one entry per rejected row; `row` is the 0-based position of that row in the request
+//(for NDJSON: the line number, counting from 0), so the client can fix and resend just those rows.
+public record BulkIngestResult(int received, int saved, int rejected, List<RowError> errors) {
+
+    public record RowError(int row, String message) {
+    }
+
+    public static BulkIngestResult empty() {
+        return new BulkIngestResult(0, 0, 0, new ArrayList<>());
+    }
+
+    // Combine the report of the next chunk; its row numbers are shifted by `offset` (rows already seen before it)
+    public BulkIngestResult merge(BulkIngestResult next, int offset) {
+        List<RowError> allErrors = new ArrayList<>(errors);
+        for (RowError error : next.errors()) {
+            allErrors.add(new RowError(error.row() + offset, error.message()));
+        }
+        return new BulkIngestResult(received + next.received(), saved + next.saved(),
+                rejected + next.rejected(), allErrors);
+    }
+}
@@ -0,0 +1,15 @@
+package com.retail.product_search_service.service;
+
+//One page of a keyset (cursor) paginated list.
+//Instead of OFFSET (which makes the database skip N rows on every page), the client sends the last id it has seen:
+//  page 1: GET /products?limit=100              → WHERE id > 0    ORDER BY id LIMIT 100
+//  page 2: GET /products?after=100&limit=100    → WHERE id > 100  ORDER BY id LIMIT 100
+//The database jumps straight to the cursor through the primary key index, so page 10,000 is as cheap as page 1,
+//and only `limit` rows are ever held in memory.
+//The search engine applies the same cursor to its id-ordered columns (binary search on the ids).
+public record KeysetPage(long afterId, int limit) {
+
+    public static KeysetPage first(int limit) {
+        return new KeysetPage(0, limit);
+    }
+}
@@ -0,0 +1,24 @@
+package com.retail.product_search_service.service;
+
+import java.util.List;
+import java.util.Map;
+
+//Facet counts of one filtered result set, for "Electronics (1,204) / Footwear (877)" style navigation.
+//total      → number of matching products
+//categories → matching products per category, biggest first (products without a category are not counted)
+//brands     → same per brand
+//price      → histogram of the matching prices: buckets of priceInterval width, only non-empty ones, lowest first
+//rating     → same for ratings with ratingInterval
+//The intervals are the ones actually used: a requested interval that would make too many buckets is widened.
+public record ProductFacets(int total,
+                            Map<String, Integer> categories,
+                            Map<String, Integer> brands,
+                            double priceInterval,
+                            List<Bucket> price,
+                            double ratingInterval,
+                            List<Bucket> rating) {
+
+    // Products with from <= value < to
+    public record Bucket(double from, double to, int count) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.retail.product_search_service.service;
+
+//All filters of the combined search in one object (GET /products/search).
+//Every field is optional: null means "do not filter on this field".
+//name      → case-insensitive "contains"           (same as /search/name)
+//category  → case-insensitive exact match          (same as /search/category)
+//brand     → case-insensitive exact match          (same as /search/brand)
+//minPrice  → price >= minPrice
+//maxPrice  → price <  maxPrice                     (same as /search/price?lessThan=)
+//minRating → rating >= minRating                   (same as /search/rating?min=)
+//A record gives us the constructor, getters, equals/hashCode and toString for free.
+public record ProductSearchCriteria(
+        String name,
+        String category,
+        String brand,
+        Double minPrice,
+        Double maxPrice,
+        Double minRating) {
+}
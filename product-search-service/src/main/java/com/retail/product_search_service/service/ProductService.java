@@ -2,13 +2,17 @@
 
 package com.retail.product_search_service.service;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.ProductSummary;
+import com.retail.product_search_service.Entity.Suggestion;
+import com.retail.product_search_service.service.cache.ProductCache.CacheStatistics;
 
 
 //Why do we need methods in ProductService when ProductRepository already has them
 //Think of a 3-layer architecture:Controller  →  Service  →  Repository  →  Database
-//1. Repository Layer = Only talks to the DATABASE:findAll(),findById(),findByNameContainingIgnoreCase(),findByCategory() etc...
+//1. Repository Layer = Only talks to the DATABASE:findAll(),findById(),findByCategoryKey(),findByBrandKey() etc...
 //2. Service Layer = Business Logic + Rules,Service is the “brain” of your application.
 //Even if Service uses Repository methods inside it, service adds logic around those operations.
 //“Even if repo has save(), service can add: Validate product name is not empty, Validate price is not negative, Set created date, Call another service, Apply discount rule, 
@@ -26,8 +30,14 @@ import com.retail.product_search_service.Entity.Product;
 public interface ProductService {
 	  Product saveProduct(Product product);
 
+	    // Bulk ingestion: validates every row, writes the valid ones in JDBC batches, reports the rejected ones
+	    BulkIngestResult saveAll(List<Product> products);
+
 	    Product getProductById(Long id);
 
+	    // Many products by id with one database query for the ones not cached, in the order asked for (unknown ids left out)
+	    List<Product> getProductsByIds(List<Long> ids);
+
 	    List<Product> getAllProducts();
 
 	    List<Product> searchByName(String name);
@@ -39,6 +49,48 @@ public interface ProductService {
 	    List<Product> searchByPriceLessThan(Double price);
 
 	    List<Product> searchByRatingGreaterThanEqual(Double rating);
+
+	    List<Product> search(ProductSearchCriteria criteria);
+
+	    // Keyset paginated variants: at most page.limit() products with id > page.afterId(), in id order
+	    List<Product> getProducts(KeysetPage page);
+
+	    // Paginated searches return the slim ProductSummary listing view instead of full entities
+	    List<ProductSummary> searchByName(String name, KeysetPage page);
+
+	    // Typo tolerant name search, ranked by number of typos (not id ordered, so no cursor): the `limit` best matches
+	    List<ProductSummary> fuzzySearchByName(String name, Integer maxEdits, int limit);
+
+	    List<ProductSummary> searchByCategory(String category, KeysetPage page);
+
+	    List<ProductSummary> searchByBrand(String brand, KeysetPage page);
+
+	    List<ProductSummary> search(ProductSearchCriteria criteria, KeysetPage page);
+
+	    // Ranked variant (relevance, rating, price): the `limit` best matches in that order, no cursor
+	    List<ProductSummary> search(ProductSearchCriteria criteria, SearchSort sort, int limit);
+
+	    // Range searches min <= value < max (null = open end), sorted by that value instead of by id.
+	    // page.afterId() is the id of the last product of the previous page, the cursor continues after it.
+	    List<ProductSummary> searchByPriceRange(Double min, Double max, boolean descending, KeysetPage page);
+
+	    List<ProductSummary> searchByRatingRange(Double min, Double max, boolean descending, KeysetPage page);
+
+	    // Hands every product to the consumer one at a time, in id order, without building a List
+	    void streamAllProducts(Consumer<Product> consumer);
+
+	    // Hit / miss / eviction counters of the getProductById() cache
+	    CacheStatistics getCacheStatistics();
+
+	    // Same counters for the category / brand page result cache
+	    CacheStatistics getQueryCacheStatistics();
+
+	    // Counts per category / brand and price / rating histograms of everything matching the criteria
+	    // (null interval = configured default)
+	    ProductFacets facets(ProductSearchCriteria criteria, Double priceInterval, Double ratingInterval);
+
+	    // Autocomplete: best rated names / brands / categories with a word starting with the prefix
+	    List<Suggestion> suggest(String prefix, int limit);
 	
 
 }
@@ -1,27 +1,80 @@
 package com.retail.product_search_service.service;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.ProductSummary;
+import com.retail.product_search_service.Entity.SearchKeys;
+import com.retail.product_search_service.Entity.Suggestion;
 import com.retail.product_search_service.Repository.Productrepository;
+import com.retail.product_search_service.service.BulkIngestResult.RowError;
 import com.retail.product_search_service.service.ProductService;
+import com.retail.product_search_service.service.cache.ProductCache;
+import com.retail.product_search_service.service.cache.ProductCache.CacheStatistics;
+import com.retail.product_search_service.service.cache.QueryResultCache;
+import com.retail.product_search_service.service.cache.RequestCoalescer;
+import com.retail.product_search_service.service.search.NumericField;
+import com.retail.product_search_service.service.search.ProductSearchEngine;
+import com.retail.product_search_service.service.search.SnapshotStore;
+import com.retail.product_search_service.service.search.SuggestionIndex;
+import com.retail.product_search_service.service.write.WriteAck;
+import com.retail.product_search_service.service.write.WriteBehindQueue;
 
-//Your Repository has 5 custom methods + built-in methods
-//custom methods-findByNameContainingIgnoreCase(),findByCategoryIgnoreCase(),findByBrandIgnoreCase(),findByPriceLessThan(),findByRatingGreaterThanEqual()
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+//Your Repository has 4 name-derived custom methods + built-in methods
+//custom methods-findByCategoryKey(),findByBrandKey(),findByPriceLessThan(),findByRatingGreaterThanEqual()
 //Built-in methods from JpaRepository (already available even if you don’t write them):save(),findById(),findAll(),deleteById(),count(),existsById() and so on.....
 //You get all these for free because your repository extends:JpaRepository<Product, Long>
-//So total methods available = 5 (custom) + 50+ (built-in)
+//So total methods available = 4 (custom) + 50+ (built-in)
 //Service → Repository Mapping
-//saveProduct()                  → repository.save()
-//getProductById()               → repository.findById()
+//saveProduct()                  → repository.save() (or the write-behind queue: many saves share one transaction)
+//saveAll()                      → entityManager.persist() in JDBC batches of product.bulk.batch-size
+//getProductById()               → productCache → repository.findAllById() (only on a cache miss; concurrent misses
+//                                 within product.batch-get.coalesce-window-us share one IN query, see RequestCoalescer)
+//getProductsByIds()             → productCache.getAll() → repository.findAllById() (one IN query for all the misses)
 //getAllProducts()               → repository.findAll()
-//searchByName()                 → repository.findByNameContainingIgnoreCase()
-//searchByCategory()             → repository.findByCategoryIgnoreCase()
-//searchByBrand()                → repository.findByBrandIgnoreCase()
-//searchByPriceLessThan()        → repository.findByPriceLessThan()
-//searchByRatingGreaterThanEqual() → repository.findByRatingGreaterThanEqual()
+//searchByName()                 → searchEngine.searchByName() (in-memory index, no SQL)
+//searchByCategory()             → repository.findByCategoryKey(SearchKeys.normalize(category))
+//searchByBrand()                → repository.findByBrandKey(SearchKeys.normalize(brand))
+//searchByPriceLessThan()        → searchEngine.searchByRange(PRICE, ...) (sorted price index, no SQL)
+//searchByRatingGreaterThanEqual() → searchEngine.searchByRange(RATING, ...) (sorted rating index, no SQL)
+//search(criteria)               → searchEngine.search() (all filters in one call, no SQL)
+//getProducts(KeysetPage page)   → repository.findByIdGreaterThanOrderByIdAsc(..., Limit) (one page at a time)
+//searchByCategory/Brand(..., page) → queryCache (ids of the page) → repository.findSummariesBy...() only on a miss
+//searchByName/search(..., page) → searchEngine.search(criteria, afterId, limit) → ProductSummary
+//fuzzySearchByName()            → searchEngine.fuzzySearchByName() (word trigrams + edit distance, ranked)
+//search(criteria, sort, limit)  → searchEngine.search(criteria, sort, limit) (BM25 / rating / price top-K, no SQL)
+//searchByPriceRange() / searchByRatingRange() → searchEngine.searchByRange() (one page at a time, in value order)
+//streamAllProducts()            → repository.streamAllOrderById() (row by row, constant memory)
+//suggest()                      → suggestionIndex.suggest() (prefix trie with precomputed top-N, no SQL)
+//facets()                       → searchEngine.facets() (dictionary-encoded columns, counted in parallel, no SQL)
 
 @Service
 public class ProductServiceImpl implements ProductService {
@@ -29,29 +82,316 @@ public class ProductServiceImpl implements ProductService {
 
     @Autowired
     private Productrepository productRepository;
+
+    // In-memory name index, built at startup and kept current by saveProduct()
+    @Autowired
+    private ProductSearchEngine searchEngine;
+
+    // Autocomplete index, rebuilt in the background after saveProduct() / saveAll()
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    // Search engine snapshot file for fast restarts, outdated by every write and rewritten after it
+    @Autowired
+    private SnapshotStore snapshotStore;
+
+    // Read-through cache for getProductById(), invalidated by saveProduct()
+    @Autowired
+    private ProductCache productCache;
+
+    // Ids of category / brand pages, invalidated per category / brand when a write changes who belongs to it
+    @Autowired
+    private QueryResultCache queryCache;
+
+    // Used by streamAllProducts() to detach rows that were already sent, so the persistence context stays small
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Bean Validation (@NotBlank etc. on Product), run by saveAll() for every row
+    @Autowired
+    private Validator validator;
+
+    // saveAll() opens one short transaction per batch instead of one huge transaction for the whole feed
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${product.bulk.batch-size:1000}")
+    private int bulkBatchSize;
+
+    // Fuzzy name search limits: most typos per query word, most dictionary words checked per query word
+    @Value("${product.search.fuzzy.max-edits:2}")
+    private int fuzzyMaxEdits;
+
+    @Value("${product.search.fuzzy.max-candidates:2000}")
+    private int fuzzyMaxCandidates;
+
+    // Default histogram bucket widths of facets() when the client sends none
+    @Value("${product.facets.price-interval:1000}")
+    private double facetPriceInterval;
+
+    @Value("${product.facets.rating-interval:1}")
+    private double facetRatingInterval;
+
+    // Write-behind mode of saveProduct() (off by default, see WriteBehindQueue)
+    @Value("${product.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
+
+    @Value("${product.write-behind.queue-capacity:10000}")
+    private int writeBehindCapacity;
+
+    @Value("${product.write-behind.batch-size:500}")
+    private int writeBehindBatchSize;
+
+    @Value("${product.write-behind.enqueue-timeout-ms:1000}")
+    private long writeBehindEnqueueTimeoutMs;
+
+    @Value("${product.write-behind.ack:COMMIT}")
+    private WriteAck writeBehindAck;
+
+    // null when write-behind is off: saveProduct() then writes directly
+    private WriteBehindQueue writeBehind;
+
+    // Most ids per getProductsByIds() call (= per IN query)
+    @Value("${product.batch-get.max-ids:1000}")
+    private int batchGetMaxIds;
+
+    // How long (microseconds) a getProductById() cache miss waits for concurrent misses to share its query (0 = off)
+    @Value("${product.batch-get.coalesce-window-us:100}")
+    private long coalesceWindowMicros;
+
+    // null when coalescing is off: a cache miss then runs its own findById()
+    private RequestCoalescer<Long, Product> idLoader;
+
+    @PostConstruct
+    public void startWriteBehind() {
+        if (writeBehindEnabled) {
+            writeBehind = new WriteBehindQueue(writeBehindCapacity, writeBehindBatchSize, writeBehindEnqueueTimeoutMs,
+                    writeBehindAck, this::writeQueuedBatch);
+        }
+    }
+
+    @PostConstruct
+    public void startCoalescing() {
+        if (coalesceWindowMicros > 0) {
+            idLoader = new RequestCoalescer<>(this::findAllById, TimeUnit.MICROSECONDS.toNanos(coalesceWindowMicros),
+                    batchGetMaxIds);
+        }
+    }
+
+    // Commits what is still queued before the database goes away
+    @PreDestroy
+    public void stopWriteBehind() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
     
  // ===========================
     // Save a product to the database
     // Receives a Product object as input (product)
     // Calls repository.save(product) which inserts or updates the record in the database
     // Returns the saved Product object with auto-generated fields like id
+    // The saved product is also pushed into the search engine so name searches see it immediately,
+    // and its cache entry is dropped so GET /products/{id} does not return the old version
+    // Suggestions and the snapshot file follow a moment later (background rebuilds, see SuggestionIndex, SnapshotStore)
+    // With product.write-behind.enabled the product goes through the write-behind queue instead: concurrent saves are
+    // coalesced by id and committed together in one transaction (writeQueuedBatch below), same result for the caller
     // Used for POST /products
     // ===========================
     @Override
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        if (writeBehind != null) {
+            return writeBehind.save(product);
+        }
+        snapshotStore.beginWrite();
+        try {
+            Product before = product.getId() == 0 ? null
+                    : searchEngine.findByIds(new long[] {product.getId()}).stream().findFirst().orElse(null);
+            Product saved = productRepository.save(product);
+            searchEngine.index(saved);
+            productCache.invalidate(saved.getId());
+            queryCache.invalidateChanged(before, saved);
+            suggestionIndex.refreshLater(searchEngine::snapshot);
+            return saved;
+        } finally {
+            snapshotStore.endWrite();
+        }
+    }
+
+    // ===========================
+    // Save many products at once (bulk ingestion)
+    // Receives the rows of a catalog feed (a JSON array or one chunk of an NDJSON stream)
+    // 1. Every row is validated in parallel (parallel stream → all CPU cores), results kept per row index
+    // 2. Valid rows are written product.bulk.batch-size at a time, each batch in its own transaction:
+    //    persist() all rows → flush() sends the INSERTs as JDBC batches → clear() empties the persistence context
+    // 3. Saved rows are added to the search engine and dropped from the product cache
+    // If the database rejects a batch, every row of that batch is reported and the next batch still runs
+    // Returns counts and one RowError per rejected row
+    // Used for POST /products/bulk
+    // ===========================
+    @Override
+    public BulkIngestResult saveAll(List<Product> products) {
+        String[] problems = new String[products.size()];
+        IntStream.range(0, products.size()).parallel().forEach(row -> problems[row] = validate(products.get(row)));
+
+        List<RowError> errors = new ArrayList<>();
+        List<Product> batch = new ArrayList<>(bulkBatchSize);
+        List<Integer> batchRows = new ArrayList<>(bulkBatchSize);
+        int saved = 0;
+        for (int row = 0; row < products.size(); row++) {
+            if (problems[row] != null) {
+                errors.add(new RowError(row, problems[row]));
+                continue;
+            }
+            batch.add(products.get(row));
+            batchRows.add(row);
+            if (batch.size() == bulkBatchSize) {
+                saved += writeBatch(batch, batchRows, errors);
+                batch.clear();
+                batchRows.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            saved += writeBatch(batch, batchRows, errors);
+        }
+        return new BulkIngestResult(products.size(), saved, products.size() - saved, errors);
+    }
+
+    private String validate(Product product) {
+        if (product == null) {
+            return "Row is empty";
+        }
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private int writeBatch(List<Product> batch, List<Integer> rows, List<RowError> errors) {
+        snapshotStore.beginWrite();
+        try {
+            return writeBatchInTransaction(batch, rows, errors);
+        } finally {
+            snapshotStore.endWrite();
+        }
+    }
+
+    private int writeBatchInTransaction(List<Product> batch, List<Integer> rows, List<RowError> errors) {
+        List<Product> written;
+        try {
+            written = persistBatch(batch, bulkBatchSize);
+        } catch (RuntimeException e) {
+            String message = "Batch rejected by the database: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (Integer row : rows) {
+                errors.add(new RowError(row, message));
+            }
+            return 0;
+        }
+        afterWrite(written);
+        return written.size();
+    }
+
+    // Batch writer of the write-behind queue: one transaction for everything that was queued, same steps as saveAll()
+    private List<Product> writeQueuedBatch(List<Product> batch) {
+        snapshotStore.beginWrite();
+        try {
+            List<Product> written = persistBatch(batch, writeBehindBatchSize);
+            afterWrite(written);
+            return written;
+        } finally {
+            snapshotStore.endWrite();
+        }
+    }
+
+    // One transaction: persist() new rows / merge() existing ones → flush() sends them as JDBC batches → clear()
+    // Returns the saved products in the order of the batch; throws (and rolls back everything) if the database refuses
+    private List<Product> persistBatch(List<Product> batch, int jdbcBatchSize) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            List<Product> result = new ArrayList<>(batch.size());
+            for (Product product : batch) {
+                if (product.getId() == 0) {
+                    entityManager.persist(product);
+                    result.add(product);
+                } else {
+                    result.add(entityManager.merge(product));
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return result;
+        });
+    }
+
+    // Saved rows → search engine, stale cache entries dropped, suggestions rebuilt a moment later
+    private void afterWrite(List<Product> written) {
+        long[] ids = new long[written.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = written.get(i).getId();
+        }
+        Map<Long, Product> before = new HashMap<>();
+        for (Product product : searchEngine.findByIds(ids)) {
+            before.put(product.getId(), product);
+        }
+        searchEngine.indexAll(written);
+        for (Product product : written) {
+            productCache.invalidate(product.getId());
+            queryCache.invalidateChanged(before.get(product.getId()), product);
+        }
+        suggestionIndex.refreshLater(searchEngine::snapshot);
     }
 
     // ===========================
     // Get a product by its ID
     // Receives the product id as input (Long id)
-    // Calls repository.findById(id) which fetches the product if it exists
-    // If not found, returns null
+    // Looks in productCache first; only on a miss goes to the database,
+    // and concurrent misses for the same id share that single database call
+    // Misses for different ids arriving within the coalescing window share one "where id in (...)" query
+    // If not found, returns null (and nothing is cached)
     // Used for GET /products/{id}
     // ===========================
     @Override
     public Product getProductById(Long id) {
-        return productRepository.findById(id).orElse(null);
+        if (idLoader == null) {
+            return productCache.get(id, key -> productRepository.findById(key).orElse(null));
+        }
+        return productCache.get(id, idLoader::load);
+    }
+
+    // ===========================
+    // Get many products by id in one call (listing pages that would otherwise send one GET per product)
+    // Cached products come from productCache, all the others from ONE repository.findAllById() IN query
+    // Returns the products found in the order of the ids asked for; unknown ids and repeats are left out
+    // More than product.batch-get.max-ids ids → BatchTooLargeException (HTTP 400)
+    // Used for GET /products?ids=... and POST /products/batch-get
+    // ===========================
+    @Override
+    public List<Product> getProductsByIds(List<Long> ids) {
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        if (unique.size() > batchGetMaxIds) {
+            throw new BatchTooLargeException(unique.size(), batchGetMaxIds);
+        }
+        Map<Long, Product> found = productCache.getAll(unique, this::findAllById);
+        List<Product> products = new ArrayList<>(found.size());
+        for (Long id : unique) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private Map<Long, Product> findAllById(Set<Long> ids) {
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            products.put(product.getId(), product);
+        }
+        return products;
     }
 
     // ===========================
@@ -68,60 +408,242 @@ public class ProductServiceImpl implements ProductService {
     // ===========================
     // Search products by name (case-insensitive, partial match)
     // Receives the search string as input
-    // Calls repository.findByNameContainingIgnoreCase(name)
+    // Answered by the in-memory n-gram index (searchEngine), the database is not queried
     // Returns a List of matching products
     // Used for GET /products/search/name?name=someName
     // ===========================
     @Override
     public List<Product> searchByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+        return searchEngine.searchByName(name);
+    }
+
+    // ===========================
+    // Typo tolerant search by name ("nkie shoes" → "Nike Running Shoes")
+    // Receives the search string, an optional typo budget per word and how many results to return
+    // The client may ask for fewer typos than product.search.fuzzy.max-edits, never more
+    // Returns the `limit` best matches (fewest typos first) as listing rows
+    // Used for GET /products/search/name?name=nkie%20shoes&fuzzy=true
+    // ===========================
+    @Override
+    public List<ProductSummary> fuzzySearchByName(String name, Integer maxEdits, int limit) {
+        int edits = maxEdits == null ? fuzzyMaxEdits : Math.max(0, Math.min(maxEdits, fuzzyMaxEdits));
+        return ProductSummary.from(searchEngine.fuzzySearchByName(name, edits, fuzzyMaxCandidates, limit));
     }
 
     // ===========================
     // Search products by category (case-insensitive, exact match)
     // Receives the category as input
-    // Calls repository.findByCategoryIgnoreCase(category)
+    // Calls repository.findByCategoryKey() with the category's search key (lowercased, accents removed)
     // Returns a List of matching products
     // Used for GET /products/search/category?category=someCategory
     // ===========================
     @Override
     public List<Product> searchByCategory(String category) {
-        return productRepository.findByCategoryIgnoreCase(category);
+        return productRepository.findByCategoryKey(SearchKeys.normalize(category));
     }
 
     // ===========================
     // Search products by brand (case-insensitive, exact match)
     // Receives the brand as input
-    // Calls repository.findByBrandIgnoreCase(brand)
+    // Calls repository.findByBrandKey() with the brand's search key (lowercased, accents removed)
     // Returns a List of matching products
     // Used for GET /products/search/brand?brand=someBrand
     // ===========================
     @Override
     public List<Product> searchByBrand(String brand) {
-        return productRepository.findByBrandIgnoreCase(brand);
+        return productRepository.findByBrandKey(SearchKeys.normalize(brand));
     }
 
     // ===========================
     // Search products with price less than a given value
     // Receives the maximum price as input
-    // Calls repository.findByPriceLessThan(price)
-    // Returns a List of matching products
+    // Answered by the search engine's sorted price index (two binary searches, no SQL)
+    // Not sped up by the SIMD column scan (ColumnScan): that answers a bitmap in catalog order for the combined
+    // search, this needs every match in price order, which the index already holds, so a broad limit costs as much
+    // as before (one product per match)
+    // Returns a List of matching products, cheapest first
     // Used for GET /products/search/price?lessThan=500
     // ===========================
     @Override
     public List<Product> searchByPriceLessThan(Double price) {
-        return productRepository.findByPriceLessThan(price);
+        return searchEngine.searchByRange(NumericField.PRICE, Double.NEGATIVE_INFINITY, price, false, 0,
+                Integer.MAX_VALUE);
     }
 
     // ===========================
     // Search products with rating greater than or equal to a given value
     // Receives the minimum rating as input
-    // Calls repository.findByRatingGreaterThanEqual(rating)
-    // Returns a List of matching products
+    // Answered by the search engine's sorted rating index (two binary searches, no SQL)
+    // Like searchByPriceLessThan(), not sped up by the SIMD column scan: the matches are needed in rating order,
+    // so a low minimum still returns (and costs) most of the catalog
+    // Returns a List of matching products, best rated first
     // Used for GET /products/search/rating?min=4
     // ===========================
     @Override
     public List<Product> searchByRatingGreaterThanEqual(Double rating) {
-        return productRepository.findByRatingGreaterThanEqual(rating);
+        return searchEngine.searchByRange(NumericField.RATING, rating, Double.POSITIVE_INFINITY, true, 0,
+                Integer.MAX_VALUE);
+    }
+
+    // ===========================
+    // Combined search on any mix of name, category, brand, price range and minimum rating
+    // Receives the filters as one ProductSearchCriteria object (null fields are ignored)
+    // Answered by the search engine: the most selective filter runs first, the others are intersected as BitSets
+    // Returns a List of products matching ALL given filters
+    // Used for GET /products/search?brand=Nike&category=Footwear&maxPrice=500&minRating=4
+    // ===========================
+    @Override
+    public List<Product> search(ProductSearchCriteria criteria) {
+        return searchEngine.search(criteria);
+    }
+
+    // ===========================
+    // Keyset paginated reads
+    // Receive a KeysetPage (afterId = last id the client has seen, limit = page size)
+    // Database-backed searches push "id > afterId ORDER BY id LIMIT n" into SQL,
+    // engine-backed searches (name, combined) start at the cursor in the engine's id-ordered columns
+    // Searches return ProductSummary (listing fields only): SQL ones select it directly, engine ones copy into it
+    // Used by every list endpoint: GET /products?after=...&limit=..., /products/search/...?after=...&limit=...
+    // ===========================
+    @Override
+    public List<Product> getProducts(KeysetPage page) {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(page.afterId(), Limit.of(page.limit()));
+    }
+
+    @Override
+    public List<ProductSummary> searchByName(String name, KeysetPage page) {
+        return ProductSummary.from(searchEngine.search(new ProductSearchCriteria(name, null, null, null, null, null),
+                page.afterId(), page.limit()));
+    }
+
+    @Override
+    public List<ProductSummary> searchByCategory(String category, KeysetPage page) {
+        return cachedPage(QueryResultCache.Field.CATEGORY, category, page,
+                () -> productRepository.findSummariesByCategory(SearchKeys.normalize(category), page.afterId(),
+                        Limit.of(page.limit())));
+    }
+
+    @Override
+    public List<ProductSummary> searchByBrand(String brand, KeysetPage page) {
+        return cachedPage(QueryResultCache.Field.BRAND, brand, page,
+                () -> productRepository.findSummariesByBrand(SearchKeys.normalize(brand), page.afterId(),
+                        Limit.of(page.limit())));
+    }
+
+    // The caller whose miss ran the SQL returns those rows; every other caller gets the cached ids
+    // turned back into rows by the search engine (one map lookup per id, current names and prices)
+    private List<ProductSummary> cachedPage(QueryResultCache.Field field, String term, KeysetPage page,
+                                            Supplier<List<ProductSummary>> query) {
+        List<List<ProductSummary>> loaded = new ArrayList<>(1);
+        long[] ids = queryCache.get(field, term, page, () -> {
+            List<ProductSummary> rows = query.get();
+            loaded.add(rows);
+            return rows.stream().mapToLong(ProductSummary::id).toArray();
+        });
+        if (!loaded.isEmpty()) {
+            return loaded.get(0);
+        }
+        return ProductSummary.from(searchEngine.findByIds(ids));
+    }
+
+    @Override
+    public List<ProductSummary> search(ProductSearchCriteria criteria, KeysetPage page) {
+        return ProductSummary.from(searchEngine.search(criteria, page.afterId(), page.limit()));
+    }
+
+    // ===========================
+    // Ranked search: the `limit` best matches for the sort order, best first
+    // Used by every search endpoint with ?sort=relevance|rating|price_asc|price_desc
+    // The engine keeps only `limit` candidates in a heap while scanning the matches, nothing else is sorted
+    // ===========================
+    @Override
+    public List<ProductSummary> search(ProductSearchCriteria criteria, SearchSort sort, int limit) {
+        return ProductSummary.from(searchEngine.search(criteria, sort, limit));
+    }
+
+    // ===========================
+    // Price / rating range pages, sorted by the value itself (cheapest first, best rated first, ...)
+    // Only the first page.limit() matches after the cursor are read from the sorted index (top-k),
+    // the full result is never built or sorted
+    // null min / max → open end of the range
+    // Used for GET /products/search/price?min=...&lessThan=...&order=... and /products/search/rating?min=...&max=...&order=...
+    // ===========================
+    @Override
+    public List<ProductSummary> searchByPriceRange(Double min, Double max, boolean descending, KeysetPage page) {
+        return ProductSummary.from(searchEngine.searchByRange(NumericField.PRICE, lowerBound(min), upperBound(max),
+                descending, page.afterId(), page.limit()));
+    }
+
+    @Override
+    public List<ProductSummary> searchByRatingRange(Double min, Double max, boolean descending, KeysetPage page) {
+        return ProductSummary.from(searchEngine.searchByRange(NumericField.RATING, lowerBound(min), upperBound(max),
+                descending, page.afterId(), page.limit()));
+    }
+
+    private static double lowerBound(Double min) {
+        return min == null ? Double.NEGATIVE_INFINITY : min;
+    }
+
+    private static double upperBound(Double max) {
+        return max == null ? Double.POSITIVE_INFINITY : max;
+    }
+
+    // ===========================
+    // Stream all products one by one
+    // Calls repository.streamAllOrderById() which reads rows from JDBC in fetch-size chunks
+    // Each product is handed to the consumer (e.g. written as one NDJSON line) and then detached,
+    // so Hibernate does not keep a reference to every row it has read → memory stays flat
+    // readOnly transaction: required to keep the JDBC cursor open, and skips dirty checking
+    // Used for GET /products/stream
+    // ===========================
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
+    }
+
+    // ===========================
+    // Cache counters (size, hits, misses, evictions)
+    // Used for GET /products/cache/stats
+    // ===========================
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return productCache.stats();
+    }
+
+    // Same counters for the category / brand page cache
+    // Used for GET /products/cache/query-stats
+    @Override
+    public CacheStatistics getQueryCacheStatistics() {
+        return queryCache.stats();
+    }
+
+    // ===========================
+    // Facet counts for a filtered result set
+    // Receives the same filters as search(criteria) plus the histogram bucket widths (null → configured default)
+    // Answered by the search engine from its in-memory columns, the database is not queried and no product is copied
+    // Returns the number of matches, counts per category and brand, price and rating histograms
+    // Used for GET /products/facets?category=...&maxPrice=...
+    // ===========================
+    @Override
+    public ProductFacets facets(ProductSearchCriteria criteria, Double priceInterval, Double ratingInterval) {
+        return searchEngine.facets(criteria, priceInterval == null ? facetPriceInterval : priceInterval,
+                ratingInterval == null ? facetRatingInterval : ratingInterval);
+    }
+
+    // ===========================
+    // Autocomplete suggestions for search-as-you-type
+    // Receives what the user has typed so far; answered by the in-memory prefix trie, the database is not queried
+    // Returns at most limit suggestions (capped at product.suggest.top-n), best rated first
+    // Used for GET /products/suggest?prefix=...
+    // ===========================
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return suggestionIndex.suggest(prefix, limit);
     }
 }
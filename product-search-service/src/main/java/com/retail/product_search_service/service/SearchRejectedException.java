@@ -0,0 +1,14 @@
+package com.retail.product_search_service.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown (as the failed result of an async search) when the search executor's threads are busy and its queue is full.
+//The server is overloaded: 503 tells the client to retry later instead of the request waiting without limit.
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SearchRejectedException extends RuntimeException {
+
+    public SearchRejectedException(int queueCapacity) {
+        super("Search queue is full (" + queueCapacity + " waiting searches), try again later");
+    }
+}
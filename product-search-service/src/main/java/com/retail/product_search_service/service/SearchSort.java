@@ -0,0 +1,20 @@
+package com.retail.product_search_service.service;
+
+//Order of search results, the ?sort= parameter of the search endpoints.
+//ID         → id order (default). The only order that supports the ?after= cursor (X-Next-Cursor).
+//RELEVANCE  → best match for the name query first: BM25 score of the query words in the name, plus a rating boost.
+//             Without a name query only the rating boost is left, i.e. best rated first.
+//RATING     → best rated first
+//PRICE_ASC  → cheapest first
+//PRICE_DESC → most expensive first
+//Products with no rating / price are placed last in the orders that use that field.
+//Every order other than ID returns only the top ?limit= rows, picked with a bounded heap (TopK)
+//so the full match set is never sorted.
+//The URL value is case-insensitive: ?sort=relevance, ?sort=price_asc, ...
+public enum SearchSort {
+    ID,
+    RELEVANCE,
+    RATING,
+    PRICE_ASC,
+    PRICE_DESC
+}
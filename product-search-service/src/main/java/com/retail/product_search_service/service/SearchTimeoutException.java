@@ -0,0 +1,14 @@
+package com.retail.product_search_service.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown (as the failed result of an async search) when the search did not finish before its deadline.
+//The search itself is cancelled at the same moment (see AsyncProductServiceImpl).
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SearchTimeoutException extends RuntimeException {
+
+    public SearchTimeoutException(long timeoutMs) {
+        super("Search did not finish within " + timeoutMs + " ms");
+    }
+}
@@ -0,0 +1,144 @@
+package com.retail.product_search_service.service.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.retail.product_search_service.Entity.Product;
+
+//Read-through cache for GET /products/{id}, in front of repository.findById().
+//Caffeine is used because it already solves the hard parts:
+//- W-TinyLFU eviction: keeps products that are read often, not just the ones read last
+//- get(id, loader) runs the loader only once per id: 100 concurrent misses on the same product → 1 database query,
+//  the other 99 callers wait for that result instead of stampeding the datasource
+//- hit / miss / eviction counters (recordStats)
+//The cache holds CompletableFutures (AsyncCache) instead of products, so the database query runs OUTSIDE
+//Caffeine's internal ConcurrentHashMap lock: a plain Cache.get(id, loader) would run the JDBC call inside
+//a synchronized block, which pins a virtual thread to its carrier thread for the whole query (Java 21).
+//Here the map only stores an empty future under its lock, the first caller completes it, the others join() it.
+//Two limits are applied at the same time:
+//- max-bytes: every entry is weighed by its approximate heap size
+//- max-entries: every entry weighs at least max-bytes / max-entries, so no more than max-entries can fit
+//Products not found in the database are not cached (the loader returns null).
+//getAll() looks up many ids at once and loads all the missing ones with one loader call (one IN query).
+@Component
+public class ProductCache {
+
+    // object header + id + 5 references + 2 boxed Doubles, rounded up
+    private static final int PRODUCT_OVERHEAD_BYTES = 96;
+    // String object + backing array headers
+    private static final int STRING_OVERHEAD_BYTES = 56;
+
+    private final AsyncCache<Long, Product> cache;
+
+    @Autowired
+    public ProductCache(@Value("${product.cache.max-entries:100000}") long maxEntries,
+                        @Value("${product.cache.max-bytes:67108864}") long maxBytes) {
+        int minimumWeight = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / Math.max(1, maxEntries)));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Product product) -> Math.max(minimumWeight, weigh(product)))
+                .recordStats()
+                .buildAsync();
+    }
+
+    // ===========================
+    // Return the cached product, or load it once with the given loader
+    // Concurrent callers asking for the same missing id share one loader call
+    // The future completed with null (product not found) or with an exception is dropped from the cache by Caffeine
+    // ===========================
+    public Product get(Long id, Function<Long, Product> loader) {
+        CompletableFuture<Product> mine = new CompletableFuture<>();
+        CompletableFuture<Product> future = cache.get(id, (key, executor) -> mine);
+        if (future == mine) {
+            try {
+                mine.complete(loader.apply(id));
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // ===========================
+    // Same for many ids at once (GET /products?ids=): the cached ones are returned as they are, all the missing ones
+    // are loaded by ONE loader call. Ids another caller is loading right now are waited for, not loaded twice.
+    // Ids the loader does not return (not found) are missing from the result and not cached.
+    // ===========================
+    public Map<Long, Product> getAll(Collection<Long> ids, Function<Set<Long>, Map<Long, Product>> loader) {
+        CompletableFuture<Map<Long, Product>> mine = new CompletableFuture<>();
+        List<Set<Long>> missing = new ArrayList<>(1);
+        // Caffeine calls this right away (on this thread) with the ids that have no entry yet, if there are any
+        CompletableFuture<Map<Long, Product>> future = cache.getAll(ids, (keys, executor) -> {
+            missing.add(Set.copyOf(keys));
+            return mine;
+        });
+        if (!missing.isEmpty()) {
+            try {
+                mine.complete(loader.apply(missing.get(0)));
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Called after a write so the next read loads the fresh row
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    // cleanUp() first runs any pending (asynchronous) evictions, so size and eviction counts are up to date
+    public CacheStatistics stats() {
+        cache.synchronous().cleanUp();
+        CacheStats stats = cache.synchronous().stats();
+        return new CacheStatistics(cache.synchronous().estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.evictionWeight(), stats.hitRate());
+    }
+
+    static int weigh(Product product) {
+        return PRODUCT_OVERHEAD_BYTES + weigh(product.getName()) + weigh(product.getCategory())
+                + weigh(product.getBrand());
+    }
+
+    private static int weigh(String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + value.length();
+    }
+
+    // Snapshot of the cache counters, returned by GET /products/cache/stats
+    public record CacheStatistics(long size, long hits, long misses, long evictions, long evictedBytes,
+                                  double hitRate) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.retail.product_search_service.service.cache;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.SearchKeys;
+import com.retail.product_search_service.service.KeysetPage;
+import com.retail.product_search_service.service.cache.ProductCache.CacheStatistics;
+
+//Result cache of the SQL-backed category / brand pages (searchByCategory / searchByBrand with a KeysetPage).
+//Key   = field + search key of the term + page (after, limit) + the term's generation (see below)
+//Value = the ids of the page as a long[] (8 bytes per row), NOT the rows: the service turns them back into rows
+//        from the in-memory search engine, so a cached page always shows current names and prices
+//Memory: entries are weighed by their size in bytes (ids + key) and Caffeine evicts above max-bytes.
+//Invalidation without flushing everything: every (field, term) hashes to one of GENERATIONS counters.
+//  A write that adds a product to a category / brand, or moves one out of it, bumps that term's counter
+//  (invalidate() / invalidateChanged(), called by the service or the ChangeFeedIndexer AFTER the database commit
+//  and the engine update).
+//  Lookups put the current counter in the key, so entries of the old generation are never read again
+//  and simply age out; every other category / brand keeps its cached pages. A price or name change bumps nothing.
+//  Two terms sharing a counter only cost an extra miss, never a stale page.
+//  The generation is read BEFORE the SQL runs: a query racing with a write caches its result under the old
+//  generation, which the write's bump has already made unreachable.
+//Concurrent misses of the same key run one query (same AsyncCache trick as ProductCache).
+@Component
+public class QueryResultCache {
+
+    // Searchable fields whose results are cached
+    public enum Field {
+        CATEGORY,
+        BRAND
+    }
+
+    // Generation counters shared by all terms (power of two, ~32 KB)
+    static final int GENERATIONS = 1 << 12;
+    // Key object + term String + boxed values, and the long[] header
+    private static final int ENTRY_OVERHEAD_BYTES = 120;
+
+    private record Key(Field field, String term, long afterId, int limit, long generation) {
+    }
+
+    private final AsyncCache<Key, long[]> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATIONS);
+
+    @Autowired
+    public QueryResultCache(@Value("${product.query-cache.max-bytes:16777216}") long maxBytes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, long[] ids) -> ENTRY_OVERHEAD_BYTES + key.term().length() + ids.length * Long.BYTES)
+                .recordStats()
+                .buildAsync();
+    }
+
+    // ===========================
+    // Ids of one page: cached ones, or the loader's (run once for concurrent misses of the same page)
+    // A failed loader is not cached, its exception goes to every caller waiting for it
+    // ===========================
+    public long[] get(Field field, String term, KeysetPage page, Supplier<long[]> loader) {
+        String normalized = normalize(term);
+        Key key = new Key(field, normalized, page.afterId(), page.limit(),
+                generations.get(slot(field, normalized)));
+        CompletableFuture<long[]> mine = new CompletableFuture<>();
+        CompletableFuture<long[]> future = cache.get(key, (k, executor) -> mine);
+        if (future == mine) {
+            try {
+                mine.complete(loader.get());
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // A write changed which products have this category / brand: its cached pages are not read any more
+    public void invalidate(Field field, String term) {
+        if (term != null) {
+            generations.incrementAndGet(slot(field, normalize(term)));
+        }
+    }
+
+    // ===========================
+    // One product was written: before = its previous values (null = new product), after = its new ones (null = deleted)
+    // New, deleted, or category / brand changed → the cached pages of the old and the new value are outdated.
+    // Other changes (name, price, rating) need nothing: cached pages hold ids, the rows come from the engine.
+    // ===========================
+    public void invalidateChanged(Product before, Product after) {
+        if (before == null || after == null || !sameKey(before.getCategory(), after.getCategory())) {
+            invalidate(Field.CATEGORY, before == null ? null : before.getCategory());
+            invalidate(Field.CATEGORY, after == null ? null : after.getCategory());
+        }
+        if (before == null || after == null || !sameKey(before.getBrand(), after.getBrand())) {
+            invalidate(Field.BRAND, before == null ? null : before.getBrand());
+            invalidate(Field.BRAND, after == null ? null : after.getBrand());
+        }
+    }
+
+    // Same search key = same lookups ("Nike" → "NIKE" moves nothing)
+    private static boolean sameKey(String a, String b) {
+        return Objects.equals(SearchKeys.normalize(a), SearchKeys.normalize(b));
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public CacheStatistics stats() {
+        cache.synchronous().cleanUp();
+        CacheStats stats = cache.synchronous().stats();
+        return new CacheStatistics(cache.synchronous().estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.evictionWeight(), stats.hitRate());
+    }
+
+    // Same matching rule as the SQL: category_key = SearchKeys.normalize(:category)
+    private static String normalize(String term) {
+        return term == null ? "" : SearchKeys.normalize(term);
+    }
+
+    private static int slot(Field field, String normalized) {
+        int hash = normalized.hashCode() * 31 + field.ordinal();
+        return (hash ^ (hash >>> 16)) & (GENERATIONS - 1);
+    }
+}
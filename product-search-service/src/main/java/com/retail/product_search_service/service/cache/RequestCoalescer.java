@@ -0,0 +1,97 @@
+package com.retail.product_search_service.service.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+//Turns concurrent single-key lookups into batched ones ("DataLoader" pattern), used by getProductById() on a cache
+//miss: 50 listing-page requests for 50 different products arriving together → 1 "where id in (...)" query, not 50.
+//load(key):
+//  1. the key is queued with a future for its value
+//  2. the first caller of a window becomes its leader: it waits `windowNanos` (microseconds) for others to queue
+//     their keys, then runs the batch function for everything queued (at most maxBatch keys per call) and
+//     completes every future, its own included
+//  3. every other caller just waits for its future
+//No background thread: the leader is a caller, the same flat-combining idea as the writer lock of
+//LeftRightSearchEngine. A key the batch function does not return gets null (not found); an exception of the batch
+//function is thrown to every caller of that batch.
+//Without concurrency a lookup costs one window more than a direct query, so the window is kept in microseconds.
+public class RequestCoalescer<K, V> {
+
+    private record Pending<K, V>(K key, CompletableFuture<V> value) {
+    }
+
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final ConcurrentLinkedQueue<Pending<K, V>> queue = new ConcurrentLinkedQueue<>();
+    // true while a leader waits for its window to pass
+    private final AtomicBoolean collecting = new AtomicBoolean();
+
+    public RequestCoalescer(Function<Set<K>, Map<K, V>> batchFunction, long windowNanos, int maxBatch) {
+        this.batchFunction = batchFunction;
+        this.windowNanos = windowNanos;
+        this.maxBatch = maxBatch;
+    }
+
+    public V load(K key) {
+        Pending<K, V> pending = new Pending<>(key, new CompletableFuture<>());
+        queue.offer(pending);
+        if (collecting.compareAndSet(false, true)) {
+            LockSupport.parkNanos(windowNanos);
+            // reset BEFORE draining: a key queued from now on is either drained below or its caller becomes the
+            // next leader, never left waiting
+            collecting.set(false);
+            dispatch();
+        }
+        try {
+            return pending.value().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Everything queued, in batches of at most maxBatch keys. Stops at the first batch that is not full: what is
+    // queued later belongs to the next window's leader, so a steady stream of lookups never keeps one caller here.
+    private void dispatch() {
+        boolean full = true;
+        while (full) {
+            List<Pending<K, V>> batch = new ArrayList<>();
+            for (Pending<K, V> pending = queue.poll(); pending != null; pending = queue.poll()) {
+                batch.add(pending);
+                if (batch.size() == maxBatch) {
+                    break;
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            full = batch.size() == maxBatch;
+            Set<K> keys = new LinkedHashSet<>();
+            for (Pending<K, V> pending : batch) {
+                keys.add(pending.key());
+            }
+            try {
+                Map<K, V> values = batchFunction.apply(keys);
+                for (Pending<K, V> pending : batch) {
+                    pending.value().complete(values.get(pending.key()));
+                }
+            } catch (RuntimeException | Error e) {
+                for (Pending<K, V> pending : batch) {
+                    pending.value().completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.retail.product_search_service.service.feed;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.cache.ProductCache;
+import com.retail.product_search_service.service.cache.QueryResultCache;
+import com.retail.product_search_service.service.search.ProductSearchEngine;
+import com.retail.product_search_service.service.search.SnapshotStore;
+import com.retail.product_search_service.service.search.SuggestionIndex;
+
+import jakarta.annotation.PostConstruct;
+
+//Subscriber of the change feed that keeps the derived structures current, one change at a time (no rebuild):
+//search engine, product cache, category / brand page cache, suggestions, snapshot file.
+//Per batch of changes (everything published since the previous call):
+//1. last change per product wins (a product updated 5 times is indexed once)
+//2. the search engine's current version of those products is read (one map lookup each)
+//3. changes the engine already holds are dropped: writes made through ProductServiceImpl were applied by the service
+//   itself before it returned (so its caller reads its own write), and the poller repeats writes the listener
+//   already published
+//4. the rest: engine.indexAll() / engine.remove() (one batch = one new engine generation), then the same
+//   invalidations as a save: product cache entry, the pages of the old and the new category / brand,
+//   suggestions rebuilt a moment later, snapshot file rewritten a moment later
+//Changes are applied in feed order on the subscriber's thread, so two writes of the same product end in the state
+//of the later one; a service write racing with an older change of the same product is corrected by the next change
+//the poller reads for it.
+@Component
+public class ChangeFeedIndexer {
+
+    @Autowired
+    private ProductChangeFeed feed;
+
+    @Autowired
+    private ProductSearchEngine searchEngine;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private QueryResultCache queryCache;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private SnapshotStore snapshotStore;
+
+    private ProductChangeFeed.Subscription subscription;
+
+    @PostConstruct
+    public void start() {
+        subscription = feed.subscribe("indexer", this::apply);
+    }
+
+    // Version of the last change applied (or skipped because the engine already had it)
+    public long position() {
+        return subscription.position();
+    }
+
+    void apply(List<ProductChange> changes) {
+        Map<Long, ProductChange> latest = new LinkedHashMap<>();
+        for (ProductChange change : changes) {
+            latest.remove(change.productId());
+            latest.put(change.productId(), change);
+        }
+        long[] ids = latest.keySet().stream().mapToLong(Long::longValue).toArray();
+        Map<Long, Product> before = new HashMap<>();
+        for (Product product : searchEngine.findByIds(ids)) {
+            before.put(product.getId(), product);
+        }
+        List<Product> upserts = new ArrayList<>();
+        List<Long> removals = new ArrayList<>();
+        for (ProductChange change : latest.values()) {
+            Product current = before.get(change.productId());
+            if (change.type() == ProductChange.Type.DELETE) {
+                if (current != null) {
+                    removals.add(change.productId());
+                }
+            } else if (!sameValues(current, change.product())) {
+                upserts.add(change.product());
+            }
+        }
+        if (upserts.isEmpty() && removals.isEmpty()) {
+            return;
+        }
+        snapshotStore.beginWrite();
+        try {
+            if (!upserts.isEmpty()) {
+                searchEngine.indexAll(upserts);
+            }
+            for (Long id : removals) {
+                searchEngine.remove(id);
+            }
+            for (Product product : upserts) {
+                productCache.invalidate(product.getId());
+                queryCache.invalidateChanged(before.get(product.getId()), product);
+            }
+            for (Long id : removals) {
+                productCache.invalidate(id);
+                queryCache.invalidateChanged(before.get(id), null);
+            }
+            suggestionIndex.refreshLater(searchEngine::snapshot);
+        } finally {
+            snapshotStore.endWrite();
+        }
+    }
+
+    private static boolean sameValues(Product a, Product b) {
+        return a != null && a.getId() == b.getId() && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getCategory(), b.getCategory()) && Objects.equals(a.getBrand(), b.getBrand())
+                && Objects.equals(a.getPrice(), b.getPrice()) && Objects.equals(a.getRating(), b.getRating());
+    }
+}
@@ -0,0 +1,16 @@
+package com.retail.product_search_service.service.feed;
+
+import com.retail.product_search_service.Entity.Product;
+
+//One change of the product table, as carried by the ProductChangeFeed.
+//version : position in the feed, 1, 2, 3, ... in the order the changes were published (never reused, no gaps)
+//type    : UPSERT = the row was inserted or updated, product = its values after the write
+//          DELETE = the row was removed, product = its values before
+//product : a detached copy, safe to keep and to hand to other threads
+public record ProductChange(long version, Type type, long productId, Product product) {
+
+    public enum Type {
+        UPSERT,
+        DELETE
+    }
+}
@@ -0,0 +1,181 @@
+package com.retail.product_search_service.service.feed;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.retail.product_search_service.Entity.Product;
+
+import jakarta.annotation.PreDestroy;
+
+//In-process, ordered feed of product changes (see ProductChange).
+//Producers: ProductChangeListener (JPA entity listener, every write made through Hibernate, right after its commit)
+//           and ProductChangePoller (rows changed directly in the database, found by their change_version).
+//Consumers: subscribe(name, handler) → one daemon thread per subscriber calls handler with the changes published
+//           since the previous call, oldest first (ChangeFeedIndexer keeps the search engine and caches current).
+//The feed is a singly linked list that only grows at the tail:
+//  publish: new node with version = tail's version + 1 → compareAndSet(tail, node) → old tail.next = node → unpark
+//           a failed CAS (another publisher won) just retries with the new tail: no lock, the writer never waits
+//           for a subscriber, and the CAS fixes the order so versions follow the list order without gaps
+//  read:    every subscriber keeps its own cursor (the last node it handled) and follows the `next` links;
+//           when there is none yet it parks until a publisher unparks it (or IDLE_PARK_NANOS pass)
+//Nothing keeps the head of the list: a node is garbage as soon as the slowest subscriber moved past it.
+//There is no bound on how far a subscriber may fall behind (writers are never slowed down by the feed);
+//a slow subscriber only costs the memory of the changes it has not read yet.
+@Component
+public class ProductChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+    // How long an idle subscriber sleeps before looking again (a publish wakes it up earlier)
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // Most changes handed to a handler in one call
+    static final int MAX_BATCH = 1000;
+
+    // One change; `next` is written once, by the publisher that appended the following node
+    private static final class Node {
+        private final ProductChange change;
+        private final long version;
+        private volatile Node next;
+
+        Node(ProductChange change, long version) {
+            this.change = change;
+            this.version = version;
+        }
+    }
+
+    private final AtomicReference<Node> tail = new AtomicReference<>(new Node(null, 0));
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // ===========================
+    // Append one change, returns its version
+    // ===========================
+    public long publish(ProductChange.Type type, Product product) {
+        Node node;
+        Node last;
+        do {
+            last = tail.get();
+            node = new Node(new ProductChange(last.version + 1, type, product.getId(), product), last.version + 1);
+        } while (!tail.compareAndSet(last, node));
+        last.next = node;
+        wakeSubscribers();
+        return node.version;
+    }
+
+    // Append several changes of the same type (one transaction, one poll), returns the version of the last one
+    public long publishAll(ProductChange.Type type, Collection<Product> products) {
+        long version = version();
+        for (Product product : products) {
+            version = publish(type, product);
+        }
+        return version;
+    }
+
+    // Version of the latest change (0 before the first one)
+    public long version() {
+        return tail.get().version;
+    }
+
+    // ===========================
+    // Start a subscriber: handler gets every change published from now on, in order, in batches of up to MAX_BATCH
+    // It runs on the subscriber's own thread; an exception is logged and the feed moves on to the next changes
+    // ===========================
+    public Subscription subscribe(String name, Consumer<List<ProductChange>> handler) {
+        Subscription subscription = new Subscription(name, handler, tail.get());
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    // Wait until every subscriber handled the changes up to `version` (false when timeoutMs passed first)
+    public boolean awaitSubscribers(long version, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Subscription subscription : subscriptions) {
+            while (subscription.position() < version && !subscription.closed) {
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        return true;
+    }
+
+    private void wakeSubscribers() {
+        for (Subscription subscription : subscriptions) {
+            LockSupport.unpark(subscription.thread);
+        }
+    }
+
+    // Stops every subscriber thread (changes not handled yet are dropped, the process is going away)
+    @PreDestroy
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    // ===========================
+    // One subscriber: its cursor in the feed and the thread following it
+    // ===========================
+    public static final class Subscription implements AutoCloseable {
+        private final String name;
+        private final Consumer<List<ProductChange>> handler;
+        private final Thread thread;
+        private Node cursor;
+        // Version of the last change handed to the handler and returned from it
+        private volatile long position;
+        private volatile boolean closed;
+
+        private Subscription(String name, Consumer<List<ProductChange>> handler, Node start) {
+            this.name = name;
+            this.handler = handler;
+            this.cursor = start;
+            this.position = start.version;
+            this.thread = new Thread(this::run, "product-feed-" + name);
+            thread.setDaemon(true);
+        }
+
+        public long position() {
+            return position;
+        }
+
+        private void run() {
+            while (!closed) {
+                List<ProductChange> batch = new ArrayList<>();
+                Node next = cursor.next;
+                while (next != null && batch.size() < MAX_BATCH) {
+                    batch.add(next.change);
+                    cursor = next;
+                    next = next.next;
+                }
+                if (batch.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                try {
+                    handler.accept(batch);
+                } catch (RuntimeException e) {
+                    log.warn("Change feed subscriber {} failed on versions {}-{}, moving on", name,
+                            batch.get(0).version(), cursor.version, e);
+                }
+                position = cursor.version;
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.retail.product_search_service.service.feed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.retail.product_search_service.Entity.Product;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+//JPA entity listener of Product (@EntityListeners on the entity): turns every insert / update / delete that Hibernate
+//executes into a ProductChange, whoever called it (ProductServiceImpl, the write-behind queue, bulk ingestion or any
+//other code using the repository).
+//Hibernate creates it through Spring (SpringBeanContainer), which injects the feed.
+//Changes are published AFTER the commit: a rolled back transaction publishes nothing, and a subscriber that reads
+//the database on a change sees the committed row. The changes of one transaction are collected in a list bound to
+//the transaction (TransactionSynchronizationManager resource) and published together by one synchronization.
+//Publishing is a CAS append to the feed, so the committing thread never waits for a subscriber.
+//Without a transaction (not the case for repository / EntityManager writes) the change is published right away.
+public class ProductChangeListener {
+
+    @Autowired
+    private ProductChangeFeed feed;
+
+    @PostPersist
+    @PostUpdate
+    void written(Product product) {
+        collect(ProductChange.Type.UPSERT, product);
+    }
+
+    @PostRemove
+    void removed(Product product) {
+        collect(ProductChange.Type.DELETE, product);
+    }
+
+    private void collect(ProductChange.Type type, Product product) {
+        // a copy: the entity stays managed (and may change again) after this callback
+        Product copy = new Product(product.getId(), product.getName(), product.getCategory(), product.getBrand(),
+                product.getPrice(), product.getRating());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            feed.publish(type, copy);
+            return;
+        }
+        TransactionChanges changes = (TransactionChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new TransactionChanges();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        changes.types.add(type);
+        changes.products.add(copy);
+    }
+
+    // The changes of one transaction, published in the order Hibernate executed them once it commits
+    private final class TransactionChanges implements TransactionSynchronization {
+        private final List<ProductChange.Type> types = new ArrayList<>();
+        private final List<Product> products = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            for (int i = 0; i < products.size(); i++) {
+                feed.publish(types.get(i), products.get(i));
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ProductChangeListener.this);
+        }
+    }
+}
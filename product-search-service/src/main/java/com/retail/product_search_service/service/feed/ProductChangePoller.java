@@ -0,0 +1,160 @@
+package com.retail.product_search_service.service.feed;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.ProductVersion;
+import com.retail.product_search_service.service.search.SnapshotStore;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+//Polling fallback of the change feed, for writes that never go through Hibernate (another service, a SQL script):
+//the database gives every inserted / updated row a new change_version (migration V4), so every
+//product.change-feed.poll-interval-ms the rows above the last version seen are read and published as UPSERTs.
+//Late commits: versions are taken when the statement runs, not when it commits, so a slow transaction can commit
+//version 10 after version 11 was already read. Each poll therefore starts `overlap` versions below the highest one
+//seen, and remembers which (product, version) pairs it already published in that window, so only the late rows
+//are published again. A transaction committing more than `overlap` versions late is missed until its row changes again.
+//Rows also written through Hibernate are published twice (listener + poll); subscribers skip a change the search
+//engine already holds, so that only costs the read.
+//Deletes leave no row to find: a row deleted outside the application stays in the search engine until a restart.
+//Where the first poll starts is set by SearchIndexLoader (startFrom): the table's change_version read before the engine
+//was rebuilt, or the one of the snapshot file it was loaded from (rows UPDATEd while the service was down are then
+//published by the first poll). Without it, the first poll starts `overlap` versions below the current maximum.
+//After a poll, once every feed subscriber (the indexer) applied what was published, the watermark is reported to the
+//SnapshotStore: the next snapshot file records that every change up to it is in the engine.
+//The two poll queries go through JdbcTemplate, not the repository: they run every second whether anything changed or
+//not, and Hibernate's SQL logging (show-sql / org.hibernate.SQL in application.properties) would print them every
+//time. JdbcTemplate only logs its statements with logging.level.org.springframework.jdbc.core.JdbcTemplate=DEBUG.
+//product.change-feed.poll-interval-ms=0 turns polling off.
+@Component
+public class ProductChangePoller {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangePoller.class);
+
+    // How long a poll waits for the subscribers to apply what it published before reporting its watermark
+    private static final long APPLY_TIMEOUT_MS = 5_000;
+
+    private static final String MAX_VERSION_SQL = "select coalesce(max(change_version), 0) from product";
+    private static final String CHANGED_AFTER_SQL = "select id, name, category, brand, price, rating, change_version"
+            + " from product where change_version > ? order by change_version limit ?";
+
+    // Nullable columns are read as objects: getDouble() would turn a missing price / rating into 0
+    private static final RowMapper<ProductVersion> ROW = (rs, rowNum) -> new ProductVersion(rs.getLong("id"),
+            rs.getString("name"), rs.getString("category"), rs.getString("brand"),
+            rs.getObject("price", Double.class), rs.getObject("rating", Double.class), rs.getLong("change_version"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductChangeFeed feed;
+    private final SnapshotStore snapshotStore;
+    private final long intervalMs;
+    private final int batchSize;
+    private final long overlap;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "product-change-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Highest change_version read so far (-1 = not started), and the version published per product in the window
+    // (only touched by the poller thread, or by a test calling poll() directly)
+    private long watermark = -1;
+    private final Map<Long, Long> published = new HashMap<>();
+
+    @Autowired
+    public ProductChangePoller(JdbcTemplate jdbcTemplate, ProductChangeFeed feed, SnapshotStore snapshotStore,
+                               @Value("${product.change-feed.poll-interval-ms:1000}") long intervalMs,
+                               @Value("${product.change-feed.poll-batch-size:1000}") int batchSize,
+                               @Value("${product.change-feed.poll-overlap:100}") long overlap) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.feed = feed;
+        this.snapshotStore = snapshotStore;
+        this.intervalMs = intervalMs;
+        this.batchSize = batchSize;
+        this.overlap = overlap;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (intervalMs > 0) {
+            poller.scheduleWithFixedDelay(this::pollQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean enabled() {
+        return intervalMs > 0;
+    }
+
+    // The next poll reads the rows changed after `changeVersion` (minus the overlap)
+    public synchronized void startFrom(long changeVersion) {
+        watermark = changeVersion;
+        published.clear();
+    }
+
+    // ===========================
+    // One poll: read the changed rows batch-size at a time (keyset on change_version) and publish the new ones
+    // Returns how many changes were published
+    // ===========================
+    public synchronized int poll() {
+        if (watermark < 0) {
+            watermark = jdbcTemplate.queryForObject(MAX_VERSION_SQL, Long.class);
+        }
+        long after = Math.max(0, watermark - overlap);
+        long highest = watermark;
+        int count = 0;
+        List<ProductVersion> rows;
+        do {
+            rows = jdbcTemplate.query(CHANGED_AFTER_SQL, ROW, after, batchSize);
+            List<Product> changed = new ArrayList<>(rows.size());
+            for (ProductVersion row : rows) {
+                after = row.version();
+                highest = Math.max(highest, row.version());
+                Long previous = published.get(row.id());
+                if (previous == null || previous < row.version()) {
+                    published.put(row.id(), row.version());
+                    changed.add(row.toProduct());
+                }
+            }
+            feed.publishAll(ProductChange.Type.UPSERT, changed);
+            count += changed.size();
+        } while (rows.size() == batchSize);
+        watermark = highest;
+        long windowStart = watermark - overlap;
+        published.values().removeIf(version -> version <= windowStart);
+        if (feed.awaitSubscribers(feed.version(), APPLY_TIMEOUT_MS)) {
+            snapshotStore.indexedThrough(watermark);
+        }
+        return count;
+    }
+
+    private void pollQuietly() {
+        try {
+            int count = poll();
+            if (count > 0) {
+                log.debug("Change feed poll published {} changes, watermark {}", count, watermark);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Change feed poll failed, retrying in {} ms", intervalMs, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+}
@@ -0,0 +1,71 @@
+package com.retail.product_search_service.service.search;
+
+//Scan of one double[] column (price or rating) for min <= value < max, answered as a bitmap: bit `ordinal % 64` of
+//word `ordinal / 64` is set when that product matches. That is the long[] layout of java.util.BitSet, so
+//BitSet.valueOf() takes the words as they are, and two bitmaps are intersected 64 products at a time.
+//Used by the combined search when a price / rating range matches a large share of the catalog: reading the column
+//front to back is then cheaper than listing every match out of the RangeIndex and setting its bit at a random spot.
+//Two kernels, same answer:
+//- vectorized(): jdk.incubator.vector, compares several doubles per instruction (DoubleVector.SPECIES_PREFERRED:
+//  8 lanes with AVX-512, 4 with AVX2) and packs each comparison mask into the bitmap word with VectorMask.toLong()
+//- scalar(): 64 comparisons per word, each turned into a bit without a branch, so the JIT can unroll the loop
+//scan() uses the vectorized kernel when the JVM was started with --add-modules jdk.incubator.vector (the pom does it
+//for spring-boot:run, the tests and the benchmarks) and the scalar one otherwise.
+//The vectorized kernel itself is VectorColumnScan in src/main/java-vector, compiled on its own with the module added
+//(see pom.xml), so the rest of the sources compile without it and without javac's "incubating module" warnings.
+//Only the combined search uses it: searchByPriceLessThan() / searchByRatingGreaterThanEqual() stay on the RangeIndex,
+//they need the matches in value order.
+//NaN (null price / rating) fails both comparisons, so it never matches, the same as in the RangeIndex.
+public final class ColumnScan {
+
+    private static final boolean VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private ColumnScan() {
+    }
+
+    public static boolean vectorApiAvailable() {
+        return VECTOR_API;
+    }
+
+    // Bitmap of the first `count` values of the column, with the fastest kernel this JVM has
+    public static long[] scan(double[] column, int count, double min, double max) {
+        return VECTOR_API ? vectorized(column, count, min, max) : scalar(column, count, min, max);
+    }
+
+    public static long[] vectorized(double[] column, int count, double min, double max) {
+        long[] words = new long[words(count)];
+        int full = VectorColumnScan.scan(column, count & ~63, min, max, words);
+        tail(column, full, count, min, max, words);
+        return words;
+    }
+
+    public static long[] scalar(double[] column, int count, double min, double max) {
+        long[] words = new long[words(count)];
+        int full = count & ~63;
+        for (int from = 0; from < full; from += 64) {
+            long word = 0;
+            for (int bit = 0; bit < 64; bit++) {
+                double value = column[from + bit];
+                // & instead of &&: both comparisons always run, no branch to mispredict
+                word |= (value >= min & value < max ? 1L : 0L) << bit;
+            }
+            words[from >>> 6] = word;
+        }
+        tail(column, full, count, min, max, words);
+        return words;
+    }
+
+    // The last count % 64 values, one by one
+    private static void tail(double[] column, int from, int count, double min, double max, long[] words) {
+        for (int ordinal = from; ordinal < count; ordinal++) {
+            double value = column[ordinal];
+            if (value >= min && value < max) {
+                words[ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+    }
+
+    private static int words(int count) {
+        return (count + 63) >>> 6;
+    }
+}
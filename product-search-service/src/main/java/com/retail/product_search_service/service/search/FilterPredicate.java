@@ -0,0 +1,18 @@
+package com.retail.product_search_service.service.search;
+
+import java.util.BitSet;
+
+//One filter of a combined search (name / category / brand / price range / rating), as seen by the SearchPlanner.
+//Documents are addressed by their ordinal inside the engine, so a set of matches fits in a compact BitSet
+//(1 bit per product: a 1M product catalog is a 125 KB bitset).
+interface FilterPredicate {
+
+    // Upper bound on how many products can match — the planner's "cost"
+    int estimate();
+
+    // All matching ordinals, built from the index (cost ~ estimate())
+    BitSet matching();
+
+    // Check a single ordinal, used when probing a small candidate set is cheaper than building matching()
+    boolean test(int ordinal);
+}
@@ -0,0 +1,1261 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.SearchKeys;
+import com.retail.product_search_service.service.ProductFacets;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.SearchSort;
+
+//In-memory n-gram inverted index over Product.name.
+//How it works:
+//1. Every product gets a small int "ordinal" (its slot in the column arrays). Ordinals follow id order.
+//2. The lowercased name is cut into overlapping 3-character grams: "nike shoes" → "nik","ike","ke ","e s"," sh",...
+//3. For every gram we keep a PostingList (sorted int[]) of the ordinals whose name contains that gram.
+//4. A query "shoe" is cut the same way ("sho","hoe"). Only products present in ALL those posting lists can contain
+//   the query, so we intersect the lists (smallest first) and then confirm with a real "contains" to drop false positives.
+//Queries shorter than one gram (1-2 characters) are answered by scanning the in-memory names, still without SQL.
+//The catalog itself is held column by column, not as Product objects (a Product is only created for a result):
+//  ids → long[], name → UTF-8 bytes in one shared buffer (NameColumn), category / brand → int codes (TermDictionary),
+//  price / rating → double[] (NaN = null)
+//so a product costs ~50 bytes + its name instead of ~250 bytes of objects, boxed numbers and duplicated Strings,
+//and a filter over one field reads one primitive array front to back.
+//Category and brand are dictionary encoded (TermDictionary): an int code per product plus one PostingList per code.
+//Price and rating are kept in double[] columns plus one RangeIndex each (sorted values + ordinals)
+//for O(log n + k) range queries.
+//Facet counts (per category / brand, price and rating histograms) are counted from those primitive columns,
+//in parallel over chunks of ordinals.
+//The combined search (search(criteria)) lets the SearchPlanner pick the cheapest order to apply them.
+//A price or rating range matching a large share of the catalog is not listed from its RangeIndex but scanned from
+//its column into a bitmap (ColumnScan, SIMD with the Vector API); price range + minimum rating together are one
+//filter, the two bitmaps ANDed word by word.
+//Whole words of the name also go into a TermIndex (word dictionary + trigrams of the words) for fuzzy search
+//and for relevance ranking (BM25 needs how many products use a word and how long each name is).
+//writeSnapshot() / loadSnapshot() save and restore all of it as one binary file, for fast restarts (SnapshotStore).
+//remove() leaves a tombstone: the ordinal stays reserved for its id (ordinals keep following id order), its postings
+//and range entries are removed, and the `deleted` BitSet is subtracted from every match set.
+//Reads take the read lock and can run in parallel; index() takes the write lock for the short time it edits the lists.
+//An engine created with locking = false skips the lock: LeftRightSearchEngine (the Spring bean) holds two of them
+//and makes sure no write ever runs on the copy readers are using, so the readers need no lock at all.
+//Long scans stop early when their thread is interrupted (ScanCancellation), used by the async search API.
+public class InvertedIndexSearchEngine implements ProductSearchEngine {
+
+    static final int GRAM = 3;
+
+    // BM25 constants (the usual defaults): K1 = how fast repeated words stop adding score, B = name length penalty
+    static final double BM25_K1 = 1.2;
+    static final double BM25_B = 0.75;
+    // Added to the relevance score for a 5-star product (scaled down linearly for lower ratings).
+    // Below the score of one matching word used by less than a third of the catalog (see Relevance):
+    // a better rating reorders similarly relevant products but does not outrank one matching an extra real word.
+    static final double RATING_BOOST = 1.0;
+
+    // Facets are counted in chunks of this many ordinals, one chunk per parallel task
+    static final int FACET_CHUNK = 1 << 16;
+    // Most buckets of one histogram: a smaller interval than that is widened (x10) until it fits
+    static final int MAX_BUCKETS = 1_000;
+
+    private final ReadWriteLock lock;
+
+    private long[] ids = new long[16];
+    private final NameColumn names = new NameColumn();
+    private int[] categoryCodes = new int[16];
+    private int[] brandCodes = new int[16];
+    private int[] categorySpellings = new int[16];
+    private int[] brandSpellings = new int[16];
+    private double[] prices = new double[16];
+    private double[] ratings = new double[16];
+    private int[] nameLengths = new int[16];
+    private long totalNameLength;
+    private int docCount;
+    private final Map<Long, Integer> ordinalsById = new HashMap<>();
+    private final Map<String, PostingList> grams = new HashMap<>();
+    private final TermDictionary categoryDictionary = new TermDictionary();
+    private final TermDictionary brandDictionary = new TermDictionary();
+    private final RangeIndex priceIndex = new RangeIndex();
+    private final RangeIndex ratingIndex = new RangeIndex();
+    private final TermIndex words = new TermIndex();
+    // Ordinals of removed products (tombstones) and how many there are
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    public InvertedIndexSearchEngine() {
+        this(true);
+    }
+
+    // locking = false: the caller guarantees that writes never run at the same time as reads (LeftRightSearchEngine)
+    InvertedIndexSearchEngine(boolean locking) {
+        this.lock = locking ? new ReentrantReadWriteLock() : NoLock.INSTANCE;
+    }
+
+    // ===========================
+    // Rebuild the index from scratch
+    // Products are sorted by id first so ordinal order == id order
+    // ===========================
+    @Override
+    public void rebuild(Collection<Product> products) {
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(Comparator.comparingLong(Product::getId));
+        lock.writeLock().lock();
+        try {
+            allocate(Math.max(16, sorted.size()));
+            docCount = 0;
+            totalNameLength = 0;
+            deleted.clear();
+            deletedCount = 0;
+            ordinalsById.clear();
+            names.clear();
+            grams.clear();
+            categoryDictionary.clear();
+            brandDictionary.clear();
+            words.clear();
+            for (Product product : sorted) {
+                put(product, false);
+            }
+            reloadRanges();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Insert or update one product
+    // If the id is already known, the postings of the old values are removed before the new ones are added
+    // ===========================
+    @Override
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            put(product, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // For big batches one re-sort of the range indexes is cheaper than shifting the arrays once per product
+    @Override
+    public void indexAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            boolean reload = products.size() > Math.max(64, docCount / 32);
+            for (Product product : products) {
+                put(product, !reload);
+            }
+            if (reload) {
+                reloadRanges();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Remove one product (deleted from the database); an unknown id is ignored
+    // Its postings and range entries go like in put(), its numeric columns become "missing" (NaN) so a range
+    // reload skips it, and the ordinal becomes a tombstone: still mapped to the id (saving the id again reuses it)
+    // ===========================
+    @Override
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.get(id);
+            if (ordinal == null || deleted.get(ordinal)) {
+                return;
+            }
+            unindex(ordinal, true);
+            prices[ordinal] = Double.NaN;
+            ratings[ordinal] = Double.NaN;
+            categoryCodes[ordinal] = TermDictionary.NONE;
+            brandCodes[ordinal] = TermDictionary.NONE;
+            nameLengths[ordinal] = 0;
+            deleted.set(ordinal);
+            deletedCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Case-insensitive "contains" search on the name
+    // Same results as LOWER(name) LIKE LOWER('%name%'), returned in id order (and ignoring accents, see normalize())
+    // ===========================
+    @Override
+    public List<Product> searchByName(String name) {
+        if (name == null) {
+            return new ArrayList<>();
+        }
+        NameColumn.NameQuery query = new NameColumn.NameQuery(normalize(name));
+        lock.readLock().lock();
+        try {
+            if (query.text.length() < GRAM) {
+                return scan(query);
+            }
+            int[] candidates = candidates(query.text);
+            List<Product> result = new ArrayList<>(candidates.length);
+            for (int i = 0; i < candidates.length; i++) {
+                ScanCancellation.check(i);
+                int ordinal = candidates[i];
+                if (names.contains(ordinal, query)) {
+                    result.add(product(ordinal));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Fuzzy name search: "nkie shoes" finds "Nike Running Shoes"
+    // 1. each query word → the dictionary words within its typo budget (TermIndex.similar)
+    // 2. a product matches when EVERY query word matched one of its words (BitSet AND)
+    // 3. score = total typos (0 = all words exact); the `limit` best are kept in a bounded heap,
+    //    (TopK), ties broken by id, so the whole match set is never sorted
+    // ===========================
+    @Override
+    public List<Product> fuzzySearchByName(String name, int maxEdits, int maxCandidates, int limit) {
+        Set<String> queryWords = TermIndex.words(normalize(name));
+        if (queryWords.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            List<BitSet[]> byDistance = new ArrayList<>();
+            BitSet matches = null;
+            for (String word : queryWords) {
+                int edits = TermIndex.allowedEdits(word.length(), maxEdits);
+                BitSet[] levels = new BitSet[edits + 1];
+                BitSet any = new BitSet(docCount);
+                for (int d = 0; d <= edits; d++) {
+                    levels[d] = new BitSet(docCount);
+                }
+                for (TermIndex.TermMatch match : words.similar(word, edits, maxCandidates)) {
+                    PostingList list = words.postings(match.termId());
+                    for (int i = 0; i < list.size(); i++) {
+                        levels[match.distance()].set(list.get(i));
+                        any.set(list.get(i));
+                    }
+                }
+                byDistance.add(levels);
+                if (matches == null) {
+                    matches = any;
+                } else {
+                    matches.and(any);
+                }
+                if (matches.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+            // fewer typos = higher score
+            TopK best = new TopK(limit);
+            int visited = 0;
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                ScanCancellation.check(++visited);
+                int typos = 0;
+                for (BitSet[] levels : byDistance) {
+                    int d = 0;
+                    while (!levels[d].get(ordinal)) {
+                        d++;
+                    }
+                    typos += d;
+                }
+                best.offer(ordinal, -typos);
+            }
+            return products(best.drain());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Range search on price or rating, answered from the RangeIndex
+    // Two binary searches find [min, max), then at most `limit` entries are read in value order
+    // ===========================
+    @Override
+    public List<Product> searchByRange(NumericField field, double min, double max, boolean descending,
+                                       long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            double[] column = field == NumericField.PRICE ? prices : ratings;
+            double afterValue = 0;
+            int afterOrdinal = -1;
+            if (afterId != 0) {
+                Integer ordinal = ordinalsById.get(afterId);
+                if (ordinal == null || Double.isNaN(column[ordinal])) {
+                    return new ArrayList<>();
+                }
+                afterOrdinal = ordinal;
+                afterValue = column[ordinal];
+            }
+            return products(rangeIndex(field).range(min, max, descending, afterValue, afterOrdinal, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Combined search: every non-null field of the criteria must match
+    // The planner applies the most selective filter first and intersects the rest as BitSets
+    // ===========================
+    @Override
+    public List<Product> search(ProductSearchCriteria criteria) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(filters(criteria));
+            List<Product> result = new ArrayList<>(matches.cardinality());
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                ScanCancellation.check(result.size());
+                result.add(product(ordinal));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // One keyset page of the combined search: the first `limit` matches with an id above afterId, in id order
+    // Ordinals follow id order, so the cursor is a binary search in the ids column and only the page's
+    // products are built from the columns (the full match set stays a BitSet)
+    // ===========================
+    @Override
+    public List<Product> search(ProductSearchCriteria criteria, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(filters(criteria));
+            int from = firstOrdinalAfter(afterId);
+            List<Product> result = new ArrayList<>(Math.min(limit, 1024));
+            for (int ordinal = matches.nextSetBit(from); ordinal >= 0 && result.size() < limit;
+                 ordinal = matches.nextSetBit(ordinal + 1)) {
+                result.add(product(ordinal));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Combined search returning only the `limit` best products in the requested order
+    // 1. the planner finds every match as a BitSet (same as search(criteria), except that a relevance
+    //    search matches ANY of the name's query words instead of the whole name)
+    // 2. each match gets a score for the order (relevance, rating, -price, ...)
+    // 3. a TopK heap of size `limit` keeps the best: 20 rows out of 300,000 matches are never fully sorted
+    // ===========================
+    @Override
+    public List<Product> search(ProductSearchCriteria criteria, SearchSort sort, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(filters(criteria, sort == SearchSort.RELEVANCE));
+            if (sort == SearchSort.ID) {
+                List<Product> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+                for (int ordinal = matches.nextSetBit(0); ordinal >= 0 && result.size() < limit;
+                     ordinal = matches.nextSetBit(ordinal + 1)) {
+                    result.add(product(ordinal));
+                }
+                return result;
+            }
+            Relevance relevance = sort == SearchSort.RELEVANCE ? new Relevance(criteria.name()) : null;
+            TopK best = new TopK(limit);
+            int visited = 0;
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                ScanCancellation.check(++visited);
+                best.offer(ordinal, switch (sort) {
+                    case RELEVANCE -> relevance.score(ordinal);
+                    case RATING -> orLowest(ratings[ordinal]);
+                    case PRICE_ASC -> orLowest(-prices[ordinal]);
+                    case PRICE_DESC -> orLowest(prices[ordinal]);
+                    case ID -> -ordinal;
+                });
+            }
+            return products(best.drain());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Facet counts of everything matching the criteria
+    // 1. the planner finds the matches as a BitSet (same as search(criteria))
+    // 2. the ordinals are cut in chunks of FACET_CHUNK; each chunk is counted by its own parallel task
+    //    (common ForkJoin pool = one task per core) into its own primitive int[] counters:
+    //      categories[categoryCodes[ordinal]]++, brands[brandCodes[ordinal]]++, price[bucket]++, rating[bucket]++
+    //    no shared counter, no lock, no boxing, only the int columns are read (sequentially)
+    //    (each task first checks whether the search was cancelled, see ScanCancellation)
+    // 3. the per-chunk counters are added together, then turned into labelled counts
+    // The tasks read the columns while this thread holds the read lock, so no write can change them meanwhile.
+    // ===========================
+    @Override
+    public ProductFacets facets(ProductSearchCriteria criteria, double priceInterval, double ratingInterval) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(filters(criteria));
+            Histogram price = new Histogram(priceIndex, priceInterval);
+            Histogram rating = new Histogram(ratingIndex, ratingInterval);
+            int count = docCount;
+            int chunks = (count + FACET_CHUNK - 1) / FACET_CHUNK;
+            Thread searcher = Thread.currentThread();
+            FacetCounts total = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> {
+                        ScanCancellation.check(searcher);
+                        return countFacets(matches, chunk * FACET_CHUNK, Math.min(count, (chunk + 1) * FACET_CHUNK),
+                                price, rating);
+                    })
+                    .reduce(FacetCounts::add)
+                    .orElseGet(() -> new FacetCounts(categoryDictionary.size(), brandDictionary.size(),
+                            price.buckets, rating.buckets));
+            return new ProductFacets(total.matches,
+                    labelled(categoryDictionary, total.categories), labelled(brandDictionary, total.brands),
+                    price.interval, price.toBuckets(total.price), rating.interval, rating.toBuckets(total.rating));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // One chunk of ordinals [from, to), counted into fresh arrays
+    private FacetCounts countFacets(BitSet matches, int from, int to, Histogram price, Histogram rating) {
+        FacetCounts counts = new FacetCounts(categoryDictionary.size(), brandDictionary.size(), price.buckets,
+                rating.buckets);
+        for (int ordinal = matches.nextSetBit(from); ordinal >= 0 && ordinal < to;
+             ordinal = matches.nextSetBit(ordinal + 1)) {
+            counts.matches++;
+            int category = categoryCodes[ordinal];
+            if (category != TermDictionary.NONE) {
+                counts.categories[category]++;
+            }
+            int brand = brandCodes[ordinal];
+            if (brand != TermDictionary.NONE) {
+                counts.brands[brand]++;
+            }
+            int priceBucket = price.bucket(prices[ordinal]);
+            if (priceBucket >= 0) {
+                counts.price[priceBucket]++;
+            }
+            int ratingBucket = rating.bucket(ratings[ordinal]);
+            if (ratingBucket >= 0) {
+                counts.rating[ratingBucket]++;
+            }
+        }
+        return counts;
+    }
+
+    // Non-zero counts with the dictionary's display value, biggest count first, then alphabetical
+    private static Map<String, Integer> labelled(TermDictionary dictionary, int[] counts) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                codes.add(code);
+            }
+        }
+        codes.sort((a, b) -> counts[a] != counts[b] ? Integer.compare(counts[b], counts[a])
+                : dictionary.value(a).compareToIgnoreCase(dictionary.value(b)));
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int code : codes) {
+            result.put(dictionary.value(code), counts[code]);
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Products by id, in the order of the ids; ids the engine does not hold are skipped
+    // One HashMap lookup per id, no SQL (used to turn cached id lists back into rows)
+    // ===========================
+    @Override
+    public List<Product> findByIds(long[] productIds) {
+        lock.readLock().lock();
+        try {
+            List<Product> result = new ArrayList<>(productIds.length);
+            for (long id : productIds) {
+                Integer ordinal = ordinalsById.get(id);
+                if (ordinal != null && !deleted.get(ordinal)) {
+                    result.add(product(ordinal));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> snapshot() {
+        lock.readLock().lock();
+        try {
+            List<Product> result = new ArrayList<>(docCount - deletedCount);
+            for (int ordinal = 0; ordinal < docCount; ordinal++) {
+                if (!deleted.get(ordinal)) {
+                    result.add(product(ordinal));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Write everything the engine holds to a snapshot file (format: SnapshotFile)
+    // Columns, dictionaries, gram / word posting lists and the sorted range indexes go in as they are,
+    // so loadSnapshot() only copies arrays instead of re-cutting every name into grams and re-sorting the prices.
+    // Runs under the read lock: searches go on meanwhile, writes wait until the file is written.
+    // ===========================
+    @Override
+    public void writeSnapshot(Path file, long changeVersion) throws IOException {
+        lock.readLock().lock();
+        try (SnapshotFile.Writer out = new SnapshotFile.Writer(file)) {
+            out.putInt(docCount);
+            out.putLong(totalNameLength);
+            out.putLongs(ids, docCount);
+            out.putDoubles(prices, docCount);
+            out.putDoubles(ratings, docCount);
+            out.putInts(nameLengths, docCount);
+            names.writeTo(out, docCount);
+            categoryDictionary.writeTo(out);
+            out.putInts(categorySpellings, docCount);
+            brandDictionary.writeTo(out);
+            out.putInts(brandSpellings, docCount);
+            writePostings(out, grams);
+            words.writeTo(out);
+            priceIndex.writeTo(out);
+            ratingIndex.writeTo(out);
+            int[] tombstones = deleted.stream().toArray();
+            out.putInts(tombstones, tombstones.length);
+            // the header describes the products the database should have: tombstones are not counted
+            long maxId = 0;
+            for (int ordinal = 0; ordinal < docCount; ordinal++) {
+                if (!deleted.get(ordinal)) {
+                    maxId = Math.max(maxId, ids[ordinal]);
+                }
+            }
+            out.finish(docCount - deletedCount, maxId, changeVersion);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // Replace the engine's content with a snapshot file written by writeSnapshot()
+    // The file is memory-mapped and checked (header, checksum) before anything is replaced.
+    // Names are copied into an off-heap buffer; the category / brand posting lists and the id → ordinal map,
+    // which are cheap to derive, are refilled from the columns.
+    // ===========================
+    @Override
+    public void loadSnapshot(Path file) throws IOException {
+        SnapshotFile.Reader in = new SnapshotFile.Reader(file);
+        lock.writeLock().lock();
+        try {
+            docCount = in.getInt();
+            totalNameLength = in.getLong();
+            ids = in.getLongs();
+            prices = in.getDoubles();
+            ratings = in.getDoubles();
+            nameLengths = in.getInts();
+            names.readFrom(in);
+            categoryDictionary.readFrom(in);
+            categorySpellings = in.getInts();
+            brandDictionary.readFrom(in);
+            brandSpellings = in.getInts();
+            readPostings(in, grams);
+            words.readFrom(in);
+            priceIndex.readFrom(in);
+            ratingIndex.readFrom(in);
+            deleted.clear();
+            for (int ordinal : in.getInts()) {
+                deleted.set(ordinal);
+            }
+            deletedCount = deleted.cardinality();
+            categoryCodes = new int[docCount];
+            brandCodes = new int[docCount];
+            ordinalsById.clear();
+            for (int ordinal = 0; ordinal < docCount; ordinal++) {
+                ordinalsById.put(ids[ordinal], ordinal);
+                if (deleted.get(ordinal)) {
+                    categoryCodes[ordinal] = TermDictionary.NONE;
+                    brandCodes[ordinal] = TermDictionary.NONE;
+                    continue;
+                }
+                categoryCodes[ordinal] = categoryDictionary.term(categorySpellings[ordinal]);
+                brandCodes[ordinal] = brandDictionary.term(brandSpellings[ordinal]);
+                post(categoryDictionary, categoryCodes[ordinal], ordinal);
+                post(brandDictionary, brandCodes[ordinal], ordinal);
+            }
+            allocate(Math.max(16, docCount));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Snapshot section of a key → posting list map (grams of the names, grams of the words)
+    static void writePostings(SnapshotFile.Writer out, Map<String, PostingList> postings) throws IOException {
+        out.putInt(postings.size());
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            out.putString(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    static void readPostings(SnapshotFile.Reader in, Map<String, PostingList> postings) {
+        postings.clear();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            postings.put(in.getString(), PostingList.readFrom(in));
+        }
+    }
+
+    private List<Product> products(int[] ordinals) {
+        List<Product> result = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            result.add(product(ordinal));
+        }
+        return result;
+    }
+
+    // A fresh Product rebuilt from the columns (caller must hold the read lock).
+    // Every call returns a new object, so callers can never change what the engine holds.
+    private Product product(int ordinal) {
+        return new Product(ids[ordinal], names.get(ordinal),
+                categoryDictionary.spelling(categorySpellings[ordinal]),
+                brandDictionary.spelling(brandSpellings[ordinal]),
+                Double.isNaN(prices[ordinal]) ? null : prices[ordinal],
+                Double.isNaN(ratings[ordinal]) ? null : ratings[ordinal]);
+    }
+
+    // Planner matches without the tombstones (a search with no filter, or a short name scan, visits every ordinal)
+    private BitSet matches(List<FilterPredicate> filters) {
+        BitSet matches = SearchPlanner.execute(filters, docCount);
+        if (deletedCount > 0) {
+            matches.andNot(deleted);
+        }
+        return matches;
+    }
+
+    // First ordinal whose id is above afterId (docCount when there is none)
+    private int firstOrdinalAfter(long afterId) {
+        int low = 0;
+        int high = docCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Missing values (NaN) sort after every real value
+    private static double orLowest(double value) {
+        return Double.isNaN(value) ? Double.NEGATIVE_INFINITY : value;
+    }
+
+    // Translate the criteria into planner filters, caller must hold the read lock
+    private List<FilterPredicate> filters(ProductSearchCriteria criteria) {
+        return filters(criteria, false);
+    }
+
+    // anyWord = relevance search: the name must contain at least one of the query words (not the whole query),
+    // BM25 then ranks the products containing more, and rarer, query words first
+    private List<FilterPredicate> filters(ProductSearchCriteria criteria, boolean anyWord) {
+        List<FilterPredicate> filters = new ArrayList<>();
+        if (criteria.name() != null && anyWord) {
+            List<FilterPredicate> words = new ArrayList<>();
+            for (String word : TermIndex.words(normalize(criteria.name()))) {
+                words.add(new NameFilter(word));
+            }
+            filters.add(words.isEmpty() ? new NameFilter(normalize(criteria.name())) : new AnyFilter(words));
+        } else if (criteria.name() != null) {
+            filters.add(new NameFilter(normalize(criteria.name())));
+        }
+        if (criteria.category() != null) {
+            filters.add(new TermFilter(categoryDictionary, categoryCodes, SearchKeys.normalize(criteria.category())));
+        }
+        if (criteria.brand() != null) {
+            filters.add(new TermFilter(brandDictionary, brandCodes, SearchKeys.normalize(criteria.brand())));
+        }
+        RangeFilter price = null;
+        if (criteria.minPrice() != null || criteria.maxPrice() != null) {
+            double min = criteria.minPrice() == null ? Double.NEGATIVE_INFINITY : criteria.minPrice();
+            double max = criteria.maxPrice() == null ? Double.POSITIVE_INFINITY : criteria.maxPrice();
+            price = new RangeFilter(priceIndex, prices, docCount, min, max);
+        }
+        RangeFilter rating = null;
+        if (criteria.minRating() != null) {
+            rating = new RangeFilter(ratingIndex, ratings, docCount, criteria.minRating(), Double.POSITIVE_INFINITY);
+        }
+        if (price != null && rating != null) {
+            filters.add(new PriceRatingFilter(price, rating));
+        } else if (price != null || rating != null) {
+            filters.add(price != null ? price : rating);
+        }
+        return filters;
+    }
+
+    // Intersect the posting lists of every gram of the query, smallest list first
+    private int[] candidates(String query) {
+        Set<String> queryGrams = grams(query);
+        List<PostingList> lists = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            PostingList list = grams.get(gram);
+            if (list == null || list.size() == 0) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).intersect(result);
+        }
+        return result;
+    }
+
+    private List<Product> scan(NameColumn.NameQuery query) {
+        List<Product> result = new ArrayList<>();
+        for (int ordinal = 0; ordinal < docCount; ordinal++) {
+            ScanCancellation.check(ordinal);
+            if (!deleted.get(ordinal) && names.contains(ordinal, query)) {
+                result.add(product(ordinal));
+            }
+        }
+        return result;
+    }
+
+    private RangeIndex rangeIndex(NumericField field) {
+        return field == NumericField.PRICE ? priceIndex : ratingIndex;
+    }
+
+    private void reloadRanges() {
+        priceIndex.load(prices, docCount);
+        ratingIndex.load(ratings, docCount);
+    }
+
+    // Caller must hold the write lock.
+    // maintainRanges = false when the caller reloads the range indexes itself after a batch
+    private void put(Product product, boolean maintainRanges) {
+        Integer existing = ordinalsById.get(product.getId());
+        int ordinal;
+        if (existing != null && deleted.get(existing)) {
+            // a removed product saved again: its tombstone holds nothing to unindex
+            ordinal = existing;
+            deleted.clear(ordinal);
+            deletedCount--;
+        } else if (existing != null) {
+            ordinal = existing;
+            unindex(ordinal, maintainRanges);
+        } else {
+            ordinal = docCount++;
+            if (ordinal == ids.length) {
+                allocate(ordinal + (ordinal >> 1));
+            }
+            ordinalsById.put(product.getId(), ordinal);
+        }
+        // Only the values are copied into the columns, so later changes to the caller's entity cannot corrupt the index
+        ids[ordinal] = product.getId();
+        names.set(ordinal, product.getName(), existing != null, docCount);
+        categorySpellings[ordinal] = categoryDictionary.intern(product.getCategory());
+        brandSpellings[ordinal] = brandDictionary.intern(product.getBrand());
+        categoryCodes[ordinal] = categoryDictionary.term(categorySpellings[ordinal]);
+        brandCodes[ordinal] = brandDictionary.term(brandSpellings[ordinal]);
+        prices[ordinal] = product.getPrice() == null ? Double.NaN : product.getPrice();
+        ratings[ordinal] = product.getRating() == null ? Double.NaN : product.getRating();
+        String normalized = normalize(product.getName());
+        for (String gram : grams(normalized)) {
+            grams.computeIfAbsent(gram, g -> new PostingList()).add(ordinal);
+        }
+        words.add(normalized, ordinal);
+        nameLengths[ordinal] = TermIndex.words(normalized).size();
+        totalNameLength += nameLengths[ordinal];
+        post(categoryDictionary, categoryCodes[ordinal], ordinal);
+        post(brandDictionary, brandCodes[ordinal], ordinal);
+        if (maintainRanges) {
+            priceIndex.insert(prices[ordinal], ordinal);
+            ratingIndex.insert(ratings[ordinal], ordinal);
+        }
+    }
+
+    // Take an ordinal's current values out of the postings, the range indexes and the name length total
+    private void unindex(int ordinal, boolean maintainRanges) {
+        String previous = names.normalized(ordinal);
+        for (String gram : grams(previous)) {
+            unpost(grams, gram, ordinal);
+        }
+        words.remove(previous, ordinal);
+        totalNameLength -= nameLengths[ordinal];
+        unpost(categoryDictionary, categoryCodes[ordinal], ordinal);
+        unpost(brandDictionary, brandCodes[ordinal], ordinal);
+        if (maintainRanges) {
+            priceIndex.remove(prices[ordinal], ordinal);
+            ratingIndex.remove(ratings[ordinal], ordinal);
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        names.ensureCapacity(capacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        brandCodes = Arrays.copyOf(brandCodes, capacity);
+        categorySpellings = Arrays.copyOf(categorySpellings, capacity);
+        brandSpellings = Arrays.copyOf(brandSpellings, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+    }
+
+    private static void post(TermDictionary dictionary, int code, int ordinal) {
+        if (code != TermDictionary.NONE) {
+            dictionary.postings(code).add(ordinal);
+        }
+    }
+
+    private static void unpost(TermDictionary dictionary, int code, int ordinal) {
+        if (code != TermDictionary.NONE) {
+            dictionary.postings(code).remove(ordinal);
+        }
+    }
+
+    private static void unpost(Map<String, PostingList> postings, String key, int ordinal) {
+        PostingList list = postings.get(key);
+        if (list != null) {
+            list.remove(ordinal);
+            if (list.size() == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    // Name text as grams, words, suggestions and queries see it: lowercased and accent-folded like category / brand
+    // (SearchKeys), so "cafe" finds "Café" and "CAFÉ" finds "cafe"
+    static String normalize(String value) {
+        return value == null ? "" : SearchKeys.normalize(value);
+    }
+
+    static Set<String> grams(String normalized) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            result.add(normalized.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    private static BitSet toBitSet(int[] ordinals) {
+        BitSet bits = new BitSet();
+        for (int ordinal : ordinals) {
+            bits.set(ordinal);
+        }
+        return bits;
+    }
+
+    // ===========================
+    // BM25 relevance of one product's name for the query words, plus the rating boost (used under the read lock)
+    //   score = sum over query words found in the name of  idf(word) * (K1 + 1) / (1 + K1 * (1 - B + B * len / avgLen))
+    //           + RATING_BOOST * rating / 5
+    //   idf(word) = ln(1 + (N - df + 0.5) / (df + 0.5))   → rare words count more than common ones
+    //   len / avgLen                                      → a short name that matches is more focused than a long one
+    // A word counts once per name (names are short, repeated words are rare), so the term-frequency part is tf = 1.
+    // Query words that only match inside a longer word ("sho" in "shoes") pass the filter but add no BM25 score.
+    // A matching word in a name of average length scores exactly its idf: ~4.6 for a word used by 1 % of the catalog,
+    // ~1.1 for one used by a third of it, ~0.7 for one used by half of it.
+    // ===========================
+    private final class Relevance {
+        private final List<BitSet> present = new ArrayList<>();
+        private final List<Double> idf = new ArrayList<>();
+        private final double averageLength;
+
+        Relevance(String query) {
+            int live = docCount - deletedCount;
+            averageLength = live == 0 ? 1 : Math.max(1, (double) totalNameLength / live);
+            for (String word : TermIndex.words(normalize(query))) {
+                PostingList list = words.postings(word);
+                if (list == null || list.size() == 0) {
+                    continue;
+                }
+                BitSet bits = new BitSet(docCount);
+                for (int i = 0; i < list.size(); i++) {
+                    bits.set(list.get(i));
+                }
+                present.add(bits);
+                idf.add(Math.log(1 + (live - list.size() + 0.5) / (list.size() + 0.5)));
+            }
+        }
+
+        double score(int ordinal) {
+            double score = 0;
+            double norm = BM25_K1 * (1 - BM25_B + BM25_B * nameLengths[ordinal] / averageLength);
+            for (int i = 0; i < present.size(); i++) {
+                if (present.get(i).get(ordinal)) {
+                    score += idf.get(i) * (BM25_K1 + 1) / (1 + norm);
+                }
+            }
+            double rating = ratings[ordinal];
+            return Double.isNaN(rating) ? score : score + RATING_BOOST * rating / 5;
+        }
+    }
+
+    // Per-task facet counters, indexed by dictionary code / histogram bucket
+    private static final class FacetCounts {
+        private int matches;
+        private final int[] categories;
+        private final int[] brands;
+        private final int[] price;
+        private final int[] rating;
+
+        FacetCounts(int categoryCount, int brandCount, int priceBuckets, int ratingBuckets) {
+            categories = new int[categoryCount];
+            brands = new int[brandCount];
+            price = new int[priceBuckets];
+            rating = new int[ratingBuckets];
+        }
+
+        FacetCounts add(FacetCounts other) {
+            matches += other.matches;
+            addInto(categories, other.categories);
+            addInto(brands, other.brands);
+            addInto(price, other.price);
+            addInto(rating, other.rating);
+            return this;
+        }
+
+        private static void addInto(int[] target, int[] source) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] += source[i];
+            }
+        }
+    }
+
+    // ===========================
+    // Fixed-width histogram over a numeric column: bucket = floor(value / interval) - floor(min / interval)
+    // The bucket range is sized from the RangeIndex min / max (whole catalog), so every task uses the same buckets.
+    // A missing or non-positive interval falls back to 1; an interval giving more than MAX_BUCKETS is widened x10.
+    // ===========================
+    private static final class Histogram {
+        // 0.3 / 0.1 = 2.9999999999999996 in doubles: the nudge puts a value sitting on a bucket edge in the upper bucket
+        private static final double EDGE = 1e-9;
+
+        private final double interval;
+        private final long first;
+        private final int buckets;
+
+        Histogram(RangeIndex index, double requested) {
+            double width = requested > 0 && Double.isFinite(requested) ? requested : 1;
+            if (index.size() == 0) {
+                interval = width;
+                first = 0;
+                buckets = 0;
+                return;
+            }
+            while (slot(index.max(), width) - slot(index.min(), width) + 1 > MAX_BUCKETS) {
+                width *= 10;
+            }
+            interval = width;
+            first = slot(index.min(), width);
+            buckets = (int) (slot(index.max(), width) - first + 1);
+        }
+
+        private static long slot(double value, double width) {
+            return (long) Math.floor(value / width + EDGE);
+        }
+
+        // Bucket of a value, -1 for a missing value (NaN)
+        int bucket(double value) {
+            if (Double.isNaN(value) || buckets == 0) {
+                return -1;
+            }
+            return (int) Math.max(0, Math.min(buckets - 1, slot(value, interval) - first));
+        }
+
+        List<ProductFacets.Bucket> toBuckets(int[] counts) {
+            List<ProductFacets.Bucket> result = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    result.add(new ProductFacets.Bucket((first + i) * interval, (first + i + 1) * interval, counts[i]));
+                }
+            }
+            return result;
+        }
+    }
+
+    // ===========================
+    // Planner filters over the engine's arrays (all used under the read lock)
+    // ===========================
+
+    // name contains query: estimate = shortest gram posting list
+    private final class NameFilter implements FilterPredicate {
+        private final NameColumn.NameQuery query;
+
+        NameFilter(String query) {
+            this.query = new NameColumn.NameQuery(query);
+        }
+
+        @Override
+        public int estimate() {
+            if (query.text.length() < GRAM) {
+                return docCount;
+            }
+            int smallest = docCount;
+            for (String gram : grams(query.text)) {
+                PostingList list = grams.get(gram);
+                smallest = Math.min(smallest, list == null ? 0 : list.size());
+            }
+            return smallest;
+        }
+
+        @Override
+        public BitSet matching() {
+            BitSet bits = new BitSet(docCount);
+            int[] candidates = query.text.length() < GRAM ? null : candidates(query.text);
+            if (candidates == null) {
+                for (int ordinal = 0; ordinal < docCount; ordinal++) {
+                    ScanCancellation.check(ordinal);
+                    if (test(ordinal)) {
+                        bits.set(ordinal);
+                    }
+                }
+            } else {
+                for (int i = 0; i < candidates.length; i++) {
+                    ScanCancellation.check(i);
+                    if (test(candidates[i])) {
+                        bits.set(candidates[i]);
+                    }
+                }
+            }
+            return bits;
+        }
+
+        @Override
+        public boolean test(int ordinal) {
+            return names.contains(ordinal, query);
+        }
+    }
+
+    // at least one of several filters (the words of a relevance query): estimate = sum, matching = union
+    private static final class AnyFilter implements FilterPredicate {
+        private final List<FilterPredicate> filters;
+
+        AnyFilter(List<FilterPredicate> filters) {
+            this.filters = filters;
+        }
+
+        @Override
+        public int estimate() {
+            int total = 0;
+            for (FilterPredicate filter : filters) {
+                total += filter.estimate();
+            }
+            return total;
+        }
+
+        @Override
+        public BitSet matching() {
+            BitSet bits = new BitSet();
+            for (FilterPredicate filter : filters) {
+                bits.or(filter.matching());
+            }
+            return bits;
+        }
+
+        @Override
+        public boolean test(int ordinal) {
+            for (FilterPredicate filter : filters) {
+                if (filter.test(ordinal)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // exact (lowercased) category or brand: estimate = size of its posting list, test = one int comparison
+    private static final class TermFilter implements FilterPredicate {
+        private final PostingList postings;
+        private final int[] codes;
+        private final int code;
+
+        TermFilter(TermDictionary dictionary, int[] codes, String term) {
+            this.code = dictionary.code(term);
+            this.postings = code == TermDictionary.NONE ? null : dictionary.postings(code);
+            this.codes = codes;
+        }
+
+        @Override
+        public int estimate() {
+            return postings == null ? 0 : postings.size();
+        }
+
+        @Override
+        public BitSet matching() {
+            return postings == null ? new BitSet() : toBitSet(postings.toArray());
+        }
+
+        @Override
+        public boolean test(int ordinal) {
+            return code != TermDictionary.NONE && codes[ordinal] == code;
+        }
+    }
+
+    // min <= value < max: the RangeIndex counts matches in O(log n) and lists them in O(log n + k),
+    // test() reads the double[] column directly (NaN = null never matches)
+    // More than 1 / SCAN_RATIO of the catalog matching → matching() scans the column instead (ColumnScan):
+    // n sequential compares, several per instruction, beat k bits set one by one in random order
+    private static final class RangeFilter implements FilterPredicate {
+        private static final int SCAN_RATIO = 32;
+
+        private final RangeIndex index;
+        private final double[] column;
+        private final int docCount;
+        private final double min;
+        private final double max;
+        private int estimate = -1;
+
+        RangeFilter(RangeIndex index, double[] column, int docCount, double min, double max) {
+            this.index = index;
+            this.column = column;
+            this.docCount = docCount;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int estimate() {
+            if (estimate < 0) {
+                estimate = index.count(min, max);
+            }
+            return estimate;
+        }
+
+        @Override
+        public BitSet matching() {
+            return scans() ? BitSet.valueOf(words())
+                    : toBitSet(index.range(min, max, false, 0, -1, Integer.MAX_VALUE));
+        }
+
+        boolean scans() {
+            return estimate() > docCount / SCAN_RATIO;
+        }
+
+        long[] words() {
+            return ColumnScan.scan(column, docCount, min, max);
+        }
+
+        @Override
+        public boolean test(int ordinal) {
+            double value = column[ordinal];
+            return value >= min && value < max;
+        }
+    }
+
+    // Price range AND minimum rating as one filter ("under 500 rated 4+"). When both ranges are broad, both columns
+    // are scanned and the bitmaps ANDed 64 products at a time, instead of probing the rating of every price match;
+    // otherwise the narrower range is listed from its index and the other one tested per match
+    private static final class PriceRatingFilter implements FilterPredicate {
+        private final RangeFilter narrow;
+        private final RangeFilter wide;
+
+        PriceRatingFilter(RangeFilter price, RangeFilter rating) {
+            this.narrow = price.estimate() <= rating.estimate() ? price : rating;
+            this.wide = narrow == price ? rating : price;
+        }
+
+        @Override
+        public int estimate() {
+            return narrow.estimate();
+        }
+
+        @Override
+        public BitSet matching() {
+            if (narrow.scans()) {
+                long[] words = narrow.words();
+                long[] other = wide.words();
+                for (int i = 0; i < words.length; i++) {
+                    words[i] &= other[i];
+                }
+                return BitSet.valueOf(words);
+            }
+            BitSet bits = narrow.matching();
+            for (int ordinal = bits.nextSetBit(0); ordinal >= 0; ordinal = bits.nextSetBit(ordinal + 1)) {
+                if (!wide.test(ordinal)) {
+                    bits.clear(ordinal);
+                }
+            }
+            return bits;
+        }
+
+        @Override
+        public boolean test(int ordinal) {
+            return narrow.test(ordinal) && wide.test(ordinal);
+        }
+    }
+
+    // ===========================
+    // Lock of an engine with locking = false: every method does nothing
+    // ===========================
+    private static final class NoLock implements ReadWriteLock, Lock {
+        static final NoLock INSTANCE = new NoLock();
+
+        @Override
+        public Lock readLock() {
+            return this;
+        }
+
+        @Override
+        public Lock writeLock() {
+            return this;
+        }
+
+        @Override
+        public void lock() {
+        }
+
+        @Override
+        public void lockInterruptibly() {
+        }
+
+        @Override
+        public boolean tryLock() {
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) {
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("No conditions on an unlocked engine");
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.ProductFacets;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.SearchSort;
+
+//The ProductSearchEngine bean: two copies of InvertedIndexSearchEngine, so that searches never wait for writes.
+//Publication (copy-on-write without copying the whole index on every write, "Left-Right"):
+//- `published` (one volatile reference) is the copy searches read. Nothing writes to it while it is published,
+//  so for a search it is an immutable snapshot of the catalog.
+//- a batch of writes goes to the other copy (the standby), which no search can reach. Then `published` is switched
+//  to it: one volatile write, every new search sees the whole batch at once (a new generation).
+//- the writer then waits until no search is still reading the old copy and replays the same batch on it.
+//  That copy becomes the standby of the next batch: an old generation is reclaimed (reused) as soon as
+//  its last reader is gone, never copied or reallocated.
+//Searches: arrive on the read indicator of the current epoch → read `published` → search → depart (in a finally).
+//  Arrive / depart are one atomic increment / decrement of a striped counter (no lock, no retry loop),
+//  and the copies are built with locking = false: a search never waits, whatever the writers are doing.
+//Knowing when the old copy is free takes two read indicators, picked by the parity of an epoch counter:
+//  after switching `published` the writer waits until the other epoch's indicator is empty, bumps the epoch,
+//  then waits until the previous epoch's indicator is empty. A search that arrived before the switch
+//  may still be in the old copy; one that arrives after it can only read the new one.
+//Batching: writers queue their change (lock-free queue), then take the writer lock; whoever gets it applies
+//  everything queued, so many concurrent saves share one generation (one switch, one wait for the readers).
+//  Every caller returns once its own change is published (its next search sees it).
+//Cost: the catalog is held twice and every change is applied twice. A write still waits for the searches that
+//  started before it (as the write lock made it do), but searches no longer wait for writes.
+@Component
+public class LeftRightSearchEngine implements ProductSearchEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(LeftRightSearchEngine.class);
+
+    // One queued write: applied to both copies, then `done` (the caller waits on the writer lock, not on this)
+    private static final class PendingChange {
+        private final Change change;
+        private Exception failure;
+        private boolean done;
+
+        PendingChange(Change change) {
+            this.change = change;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Change {
+        void apply(InvertedIndexSearchEngine copy) throws IOException;
+    }
+
+    private final InvertedIndexSearchEngine[] copies = {
+            new InvertedIndexSearchEngine(false), new InvertedIndexSearchEngine(false)};
+    private final ReadIndicator[] readers = {new ReadIndicator(), new ReadIndicator()};
+    private final ConcurrentLinkedQueue<PendingChange> queue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writerLock = new ReentrantLock();
+
+    // The copy searches read, and the epoch whose parity says which read indicator they arrive on
+    private volatile InvertedIndexSearchEngine published = copies[0];
+    private volatile long epoch;
+    // Generations published so far (one per batch of writes)
+    private volatile long generation;
+
+    // ===========================
+    // Writes: queued, applied to the standby copy, published, replayed on the old copy
+    // ===========================
+    @Override
+    public void rebuild(Collection<Product> products) {
+        writeUnchecked(copy -> copy.rebuild(products));
+    }
+
+    @Override
+    public void index(Product product) {
+        // the same values for both copies, even if the caller changes its entity meanwhile
+        Product copy = new Product(product.getId(), product.getName(), product.getCategory(), product.getBrand(),
+                product.getPrice(), product.getRating());
+        writeUnchecked(engine -> engine.index(copy));
+    }
+
+    @Override
+    public void indexAll(Collection<Product> products) {
+        List<Product> copies = new ArrayList<>(products.size());
+        for (Product product : products) {
+            copies.add(new Product(product.getId(), product.getName(), product.getCategory(), product.getBrand(),
+                    product.getPrice(), product.getRating()));
+        }
+        writeUnchecked(engine -> engine.indexAll(copies));
+    }
+
+    @Override
+    public void remove(long id) {
+        writeUnchecked(copy -> copy.remove(id));
+    }
+
+    // A snapshot file that cannot be read fails on the first copy, before anything is published
+    @Override
+    public void loadSnapshot(Path file) throws IOException {
+        write(copy -> copy.loadSnapshot(file));
+    }
+
+    // ===========================
+    // Reads: always on the published copy
+    // ===========================
+    @Override
+    public List<Product> searchByName(String name) {
+        return read(copy -> copy.searchByName(name));
+    }
+
+    @Override
+    public List<Product> fuzzySearchByName(String name, int maxEdits, int maxCandidates, int limit) {
+        return read(copy -> copy.fuzzySearchByName(name, maxEdits, maxCandidates, limit));
+    }
+
+    @Override
+    public List<Product> searchByRange(NumericField field, double min, double max, boolean descending, long afterId,
+                                       int limit) {
+        return read(copy -> copy.searchByRange(field, min, max, descending, afterId, limit));
+    }
+
+    @Override
+    public List<Product> search(ProductSearchCriteria criteria) {
+        return read(copy -> copy.search(criteria));
+    }
+
+    @Override
+    public List<Product> search(ProductSearchCriteria criteria, long afterId, int limit) {
+        return read(copy -> copy.search(criteria, afterId, limit));
+    }
+
+    @Override
+    public List<Product> search(ProductSearchCriteria criteria, SearchSort sort, int limit) {
+        return read(copy -> copy.search(criteria, sort, limit));
+    }
+
+    @Override
+    public ProductFacets facets(ProductSearchCriteria criteria, double priceInterval, double ratingInterval) {
+        return read(copy -> copy.facets(criteria, priceInterval, ratingInterval));
+    }
+
+    @Override
+    public List<Product> findByIds(long[] ids) {
+        return read(copy -> copy.findByIds(ids));
+    }
+
+    @Override
+    public int size() {
+        return read(InvertedIndexSearchEngine::size);
+    }
+
+    @Override
+    public List<Product> snapshot() {
+        return read(InvertedIndexSearchEngine::snapshot);
+    }
+
+    @Override
+    public void writeSnapshot(Path file, long changeVersion) throws IOException {
+        ReadIndicator indicator = readers[(int) (epoch & 1)];
+        int stripe = indicator.arrive();
+        try {
+            published.writeSnapshot(file, changeVersion);
+        } finally {
+            indicator.depart(stripe);
+        }
+    }
+
+    // Number of generations published so far (each one = one batch of writes)
+    public long generation() {
+        return generation;
+    }
+
+    private <T> T read(Function<InvertedIndexSearchEngine, T> search) {
+        ReadIndicator indicator = readers[(int) (epoch & 1)];
+        int stripe = indicator.arrive();
+        try {
+            return search.apply(published);
+        } finally {
+            indicator.depart(stripe);
+        }
+    }
+
+    private void writeUnchecked(Change change) {
+        try {
+            write(change);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Queue the change; whoever holds the writer lock publishes everything queued (maybe this caller's change too)
+    private void write(Change change) throws IOException {
+        PendingChange pending = new PendingChange(change);
+        queue.offer(pending);
+        writerLock.lock();
+        try {
+            if (!pending.done) {
+                publishQueued();
+            }
+        } finally {
+            writerLock.unlock();
+        }
+        if (pending.failure instanceof IOException e) {
+            throw e;
+        }
+        if (pending.failure instanceof RuntimeException e) {
+            throw e;
+        }
+    }
+
+    // ===========================
+    // One generation (caller holds the writer lock)
+    // 1. every queued change → standby copy (a change that throws there is reported to its caller and skipped)
+    // 2. publish the standby: new searches read it from now on
+    // 3. wait until the searches still reading the old copy are gone
+    // 4. the same changes → old copy, which is the standby of the next generation
+    // ===========================
+    private void publishQueued() {
+        List<PendingChange> batch = new ArrayList<>();
+        for (PendingChange pending = queue.poll(); pending != null; pending = queue.poll()) {
+            batch.add(pending);
+        }
+        InvertedIndexSearchEngine old = published;
+        InvertedIndexSearchEngine standby = old == copies[0] ? copies[1] : copies[0];
+        boolean changed = false;
+        for (PendingChange pending : batch) {
+            try {
+                pending.change.apply(standby);
+                changed = true;
+            } catch (IOException | RuntimeException e) {
+                pending.failure = e;
+            }
+        }
+        if (changed) {
+            published = standby;
+            generation++;
+            waitForReaders();
+            for (PendingChange pending : batch) {
+                if (pending.failure != null) {
+                    continue;
+                }
+                try {
+                    pending.change.apply(old);
+                } catch (IOException | RuntimeException e) {
+                    // e.g. the snapshot file was deleted between the two loads: copy the published catalog instead
+                    log.warn("Search engine copy could not replay a write, rebuilding it from the published copy", e);
+                    old.rebuild(standby.snapshot());
+                    break;
+                }
+            }
+        }
+        for (PendingChange pending : batch) {
+            pending.done = true;
+        }
+    }
+
+    private void waitForReaders() {
+        long current = epoch;
+        readers[(int) ((current + 1) & 1)].awaitEmpty();
+        epoch = current + 1;
+        readers[(int) (current & 1)].awaitEmpty();
+    }
+
+    // ===========================
+    // Number of searches inside, one counter per stripe (stripe = thread id) so that searches running on different
+    // cores do not all increment the same cache line; the stripes are PADDING longs apart for the same reason.
+    // Only "is it zero" is ever asked, by the writer.
+    // ===========================
+    private static final class ReadIndicator {
+        // 16 longs = 128 bytes: two stripes never share a cache line (nor its prefetched neighbour)
+        private static final int PADDING = 16;
+        // How often the waiting writer spins before it starts sleeping between checks
+        private static final int SPINS = 100;
+        private static final long PARK_NANOS = 10_000;
+
+        private final int mask;
+        private final AtomicLongArray counts;
+
+        ReadIndicator() {
+            int stripes = 1;
+            while (stripes < 4 * Runtime.getRuntime().availableProcessors()) {
+                stripes <<= 1;
+            }
+            mask = stripes - 1;
+            counts = new AtomicLongArray(stripes * PADDING);
+        }
+
+        // Returns the stripe to depart from (the same thread always gets the same one)
+        @SuppressWarnings("deprecation")
+        int arrive() {
+            int stripe = (int) (Thread.currentThread().getId() & mask);
+            counts.getAndIncrement(stripe * PADDING);
+            return stripe;
+        }
+
+        void depart(int stripe) {
+            counts.getAndDecrement(stripe * PADDING);
+        }
+
+        void awaitEmpty() {
+            int spins = 0;
+            while (!isEmpty()) {
+                if (++spins < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            for (int i = 0; i < counts.length(); i += PADDING) {
+                if (counts.get(i) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
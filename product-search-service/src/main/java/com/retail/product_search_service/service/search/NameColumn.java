@@ -0,0 +1,211 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+//Product names of the search engine, stored as UTF-8 bytes in ONE contiguous buffer instead of one String per product.
+//ordinal → offsets[ordinal], lengths[ordinal] = where its bytes are in the buffer
+//Why:
+//- a String costs ~56 bytes of headers (String object + its own byte[]) before the first character;
+//  here a name costs its bytes + 8 bytes of offset/length
+//- a name scan walks one buffer front to back instead of jumping to a separate object per product
+//The buffer is a direct ByteBuffer (ByteBuffer.allocateDirect): it lives outside the Java heap,
+//so the GC never scans or copies it. After a restart it is one bulk copy of the snapshot file's names section.
+//The original spelling is stored (it is returned to clients); "contains" is case-insensitive:
+//- ASCII-only names (nearly all of them) are matched byte by byte, folding A-Z to a-z on the fly
+//- the few names with other characters are decoded, lowercased and accent-folded by normalize() (flagged in nonAscii)
+//Updates append the new name at the end; the old bytes become garbage and are dropped by compact()
+//once they outweigh the live ones. Not thread-safe on its own: the search engine calls it under its read/write lock.
+final class NameColumn {
+
+    // Length of a null name (an empty name has length 0)
+    private static final int NULL = -1;
+
+    // ASCII lowercase table, one lookup per byte instead of a range check (only used for ASCII names, bytes 0-127)
+    private static final byte[] LOWER = new byte[128];
+
+    static {
+        for (int b = 0; b < LOWER.length; b++) {
+            LOWER[b] = (byte) (b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b);
+        }
+    }
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+    private int used;
+    private long garbage;
+    private int[] offsets = new int[16];
+    private int[] lengths = new int[16];
+    private final BitSet nonAscii = new BitSet();
+
+    void clear() {
+        buffer = ByteBuffer.allocateDirect(1024);
+        used = 0;
+        garbage = 0;
+        nonAscii.clear();
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > offsets.length) {
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+    }
+
+    // Store the name of an ordinal (a null name is kept as length NULL)
+    // replacing = the ordinal already had a name, count = number of ordinals in use (for compaction)
+    void set(int ordinal, String name, boolean replacing, int count) {
+        byte[] bytes = (name == null ? "" : name).getBytes(StandardCharsets.UTF_8);
+        if (replacing) {
+            garbage += length(ordinal);
+        }
+        if (used + bytes.length > buffer.capacity()) {
+            if (garbage > used / 2) {
+                compact(count, ordinal);
+            }
+            if (used + bytes.length > buffer.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocateDirect(
+                        Math.max(used + bytes.length, buffer.capacity() + (buffer.capacity() >> 1)));
+                grown.put(0, buffer, 0, used);
+                buffer = grown;
+            }
+        }
+        buffer.put(used, bytes);
+        offsets[ordinal] = used;
+        lengths[ordinal] = name == null ? NULL : bytes.length;
+        used += bytes.length;
+        nonAscii.set(ordinal, !isAscii(bytes));
+    }
+
+    // Name as stored (original case)
+    String get(int ordinal) {
+        if (lengths[ordinal] == NULL) {
+            return null;
+        }
+        byte[] bytes = new byte[lengths[ordinal]];
+        buffer.get(offsets[ordinal], bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Lowercased, accent-folded name, same as normalize(name) ("" for a null name)
+    String normalized(int ordinal) {
+        return InvertedIndexSearchEngine.normalize(get(ordinal));
+    }
+
+    // ===========================
+    // Case-insensitive "contains" of a normalized query, without creating a String for ASCII names
+    // UTF-8 is self-synchronizing, so a byte match of the query's UTF-8 is a character match
+    // ===========================
+    boolean contains(int ordinal, NameQuery query) {
+        if (nonAscii.get(ordinal)) {
+            return normalized(ordinal).contains(query.text);
+        }
+        byte[] needle = query.bytes;
+        int start = offsets[ordinal];
+        int last = start + length(ordinal) - needle.length;
+        if (needle.length == 0) {
+            return true;
+        }
+        byte first = needle[0];
+        byte firstUpper = query.firstUpper;
+        for (int i = start; i <= last; i++) {
+            byte b = buffer.get(i);
+            if (b != first && b != firstUpper) {
+                continue;
+            }
+            int j = 1;
+            while (j < needle.length && LOWER[buffer.get(i + j)] == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ===========================
+    // Snapshot section: lengths of ordinals [0, count), then their bytes back to back, then the nonAscii flags
+    // readFrom() copies the bytes out of the mapped file in one go and only rebuilds the offsets
+    // (scanning the mapping in place measured ~30 % slower than a direct buffer, and would pin the file)
+    // ===========================
+    void writeTo(SnapshotFile.Writer out, int count) throws IOException {
+        out.putInts(lengths, count);
+        int total = 0;
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            total += length(ordinal);
+        }
+        out.putInt(total);
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            out.putRawBytes(buffer, offsets[ordinal], offsets[ordinal] + length(ordinal));
+        }
+        long[] flags = nonAscii.toLongArray();
+        out.putLongs(flags, flags.length);
+    }
+
+    void readFrom(SnapshotFile.Reader in) {
+        lengths = in.getInts();
+        offsets = new int[lengths.length];
+        int position = 0;
+        for (int ordinal = 0; ordinal < lengths.length; ordinal++) {
+            offsets[ordinal] = position;
+            position += length(ordinal);
+        }
+        ByteBuffer section = in.slice();
+        buffer = ByteBuffer.allocateDirect(Math.max(1024, section.capacity()));
+        buffer.put(0, section, 0, section.capacity());
+        used = section.capacity();
+        garbage = 0;
+        nonAscii.clear();
+        nonAscii.or(BitSet.valueOf(in.getLongs()));
+    }
+
+    // Rewrite the live names of ordinals [0, count) back to back, dropping the bytes of replaced names
+    // `skip` is the ordinal being written: its old name (if any) is garbage already
+    private void compact(int count, int skip) {
+        ByteBuffer compacted = ByteBuffer.allocateDirect(Math.max(1024, used - (int) garbage));
+        int position = 0;
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            if (ordinal == skip) {
+                continue;
+            }
+            compacted.put(position, buffer, offsets[ordinal], length(ordinal));
+            offsets[ordinal] = position;
+            position += length(ordinal);
+        }
+        buffer = compacted;
+        used = position;
+        garbage = 0;
+    }
+
+    // Bytes used by the name of an ordinal (0 for a null name)
+    private int length(int ordinal) {
+        return Math.max(0, lengths[ordinal]);
+    }
+
+    private static boolean isAscii(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A normalized query in both forms the column needs, encoded once per search instead of once per product
+    static final class NameQuery {
+        final String text;
+        final byte[] bytes;
+        // Upper case of the first byte ('s' → 'S'), the first byte itself when it is not a letter
+        final byte firstUpper;
+
+        NameQuery(String normalized) {
+            this.text = normalized;
+            this.bytes = normalized.getBytes(StandardCharsets.UTF_8);
+            byte first = bytes.length == 0 ? 0 : bytes[0];
+            this.firstUpper = first >= 'a' && first <= 'z' ? (byte) (first - ('a' - 'A')) : first;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.retail.product_search_service.service.search;
+
+//Numeric product fields that have a RangeIndex in the search engine.
+public enum NumericField {
+    PRICE,
+    RATING
+}
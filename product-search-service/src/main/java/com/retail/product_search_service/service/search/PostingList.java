@@ -0,0 +1,99 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+//A posting list is the list of documents (products) that contain one term of the inverted index.
+//Example: gram "nik" → [0, 4, 17]  means products with ordinal 0, 4 and 17 have "nik" in their name.
+//Ordinals are kept in a sorted primitive int[] (no boxing, 4 bytes per entry) so two lists can be
+//intersected with a simple merge walk instead of HashSet lookups.
+public final class PostingList {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ordinals = EMPTY;
+    private int size;
+
+    // Add an ordinal, keeping the array sorted. New products get the highest ordinal,
+    // so the common case is a cheap append at the end.
+    public void add(int ordinal) {
+        if (size > 0 && ordinals[size - 1] >= ordinal) {
+            int pos = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (pos >= 0) {
+                return;
+            }
+            insertAt(-pos - 1, ordinal);
+            return;
+        }
+        insertAt(size, ordinal);
+    }
+
+    public void remove(int ordinal) {
+        int pos = Arrays.binarySearch(ordinals, 0, size, ordinal);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ordinals, pos + 1, ordinals, pos, size - pos - 1);
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        return ordinals[index];
+    }
+
+    public boolean contains(int ordinal) {
+        return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+    }
+
+    // Copy of the live part of the array, safe to hand out to readers
+    public int[] toArray() {
+        return Arrays.copyOf(ordinals, size);
+    }
+
+    // Merge-walk intersection of a sorted array with this list, result is sorted as well
+    public int[] intersect(int[] sorted) {
+        int[] out = new int[Math.min(sorted.length, size)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < sorted.length && j < size) {
+            int a = sorted[i];
+            int b = ordinals[j];
+            if (a == b) {
+                out[n++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    // Snapshot section: the live part of the array (see SnapshotFile)
+    void writeTo(SnapshotFile.Writer out) throws IOException {
+        out.putInts(ordinals, size);
+    }
+
+    static PostingList readFrom(SnapshotFile.Reader in) {
+        PostingList list = new PostingList();
+        list.ordinals = in.getInts();
+        list.size = list.ordinals.length;
+        return list;
+    }
+
+    private void insertAt(int pos, int ordinal) {
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(ordinals, pos, ordinals, pos + 1, size - pos);
+        ordinals[pos] = ordinal;
+        size++;
+    }
+}
@@ -0,0 +1,479 @@
+package com.retail.product_search_service.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.Suggestion;
+
+//Immutable prefix index behind /products/suggest, rebuilt as a whole and swapped in by SuggestionIndex.
+//Entries: every distinct (lowercased) product name, brand and category, with the best rating of its products.
+//Keys: every entry can be found from its start and from the start of ANY of its words, so "run" suggests
+//"Nike Running Shoes":  key = (entry, offset)  → "nike running shoes", "running shoes", "shoes"
+//Two levels, so memory stays proportional to the number of keys:
+//1. Sorted key array: all keys in lexicographic order, stored as two int[] (entry, offset) — no substring is ever
+//   created, the characters are read from the entry's text. Keys sharing a prefix form one contiguous range.
+//2. A character trie over the HEAVY prefixes only (more than LIGHT_RANGE keys). Each trie node knows its key range
+//   and keeps a precomputed top-N entries by rating. The thousands of rare, long prefixes never get a node.
+//Lookup of "nike r":
+//  walk the trie one character at a time (children are sorted, found by binary search): O(prefix length)
+//  prefix ends on a trie node     → return its precomputed top-N, nothing else is read or allocated
+//  prefix leaves the trie earlier → what is left is a light range of at most LIGHT_RANGE keys: binary search it
+//                                   inside the node's range and rank those few keys directly
+//Ties in rating are ordered by text (entries are numbered alphabetically).
+final class PrefixTrie {
+
+    // Prefixes with at most this many keys get no trie node, they are ranked at query time instead
+    static final int LIGHT_RANGE = 64;
+
+    private final Suggestion[] entries;
+    private final String[] texts;
+    private final double[] scores;
+    private final int topN;
+
+    // sorted keys
+    private final int[] keyEntries;
+    private final int[] keyOffsets;
+
+    // trie nodes, node 0 = root (empty prefix); the children of a node are contiguous and sorted by label
+    private char[] labels = new char[16];
+    private int[] firstChild = new int[16];
+    private int[] childCount = new int[16];
+    private int[] rangeFrom = new int[16];
+    private int[] rangeTo = new int[16];
+    private int[] topFrom = new int[16];
+    private int[] topCount = new int[16];
+    private int nodeCount;
+
+    // precomputed top-N entry ids of every node, one after the other
+    private int[] tops = new int[64];
+    private int topsSize;
+
+    private PrefixTrie(Suggestion[] entries, String[] texts, double[] scores, int[] keyEntries, int[] keyOffsets,
+                       int topN) {
+        this.entries = entries;
+        this.texts = texts;
+        this.scores = scores;
+        this.keyEntries = keyEntries;
+        this.keyOffsets = keyOffsets;
+        this.topN = topN;
+    }
+
+    static PrefixTrie empty(int topN) {
+        return build(Collections.emptyList(), topN);
+    }
+
+    // ===========================
+    // Build from the catalog: collect entries, generate and sort the keys, then the trie of heavy prefixes
+    // ===========================
+    static PrefixTrie build(Collection<Product> products, int topN) {
+        // 1. distinct lowercased texts per field, each with its best rating
+        Entries found = new Entries(products.size() * 2);
+        Map<String, Integer> names = new HashMap<>();
+        Map<String, Integer> brands = new HashMap<>();
+        Map<String, Integer> categories = new HashMap<>();
+        for (Product product : products) {
+            found.collect(names, product.getName(), Suggestion.NAME, product.getRating());
+            found.collect(brands, product.getBrand(), Suggestion.BRAND, product.getRating());
+            found.collect(categories, product.getCategory(), Suggestion.CATEGORY, product.getRating());
+        }
+        // 2. one key at the start of every entry and at every other word start, then all keys sorted by their text
+        int n = found.size;
+        int keyCount = 0;
+        for (int e = 0; e < n; e++) {
+            keyCount += keyStarts(found.texts[e], null);
+        }
+        long[] keys = new long[keyCount];
+        int[] starts = new int[64];
+        int k = 0;
+        for (int e = 0; e < n; e++) {
+            if (starts.length < found.texts[e].length()) {
+                starts = new int[found.texts[e].length()];
+            }
+            int count = keyStarts(found.texts[e], starts);
+            for (int s = 0; s < count; s++) {
+                keys[k++] = (long) e << 32 | starts[s];
+            }
+        }
+        sortKeys(keys, found.texts);
+        // 3. renumber the entries alphabetically (order of their offset-0 keys), so equal ratings rank by text
+        int[] renumbered = new int[n];
+        int next = 0;
+        for (long key : keys) {
+            if ((int) key == 0) {
+                renumbered[(int) (key >>> 32)] = next++;
+            }
+        }
+        Suggestion[] entries = new Suggestion[n];
+        String[] texts = new String[n];
+        double[] scores = new double[n];
+        for (int e = 0; e < n; e++) {
+            int id = renumbered[e];
+            entries[id] = found.suggestions[e];
+            texts[id] = found.texts[e];
+            scores[id] = found.suggestions[e].rating() == null ? -1 : found.suggestions[e].rating();
+        }
+        PrefixTrie trie = new PrefixTrie(entries, texts, scores, new int[keyCount], new int[keyCount], topN);
+        for (int i = 0; i < keyCount; i++) {
+            trie.keyEntries[i] = renumbered[(int) (keys[i] >>> 32)];
+            trie.keyOffsets[i] = (int) keys[i];
+        }
+        // 4. trie of heavy prefixes, starting from the root that covers every key
+        trie.nodeCount = 1;
+        trie.rangeFrom[0] = 0;
+        trie.rangeTo[0] = keyCount;
+        trie.buildNode(0, 0, new int[n]);
+        return trie;
+    }
+
+    // Growing parallel arrays of the distinct entries found so far (suggestion + its lowercased text)
+    private static final class Entries {
+        private Suggestion[] suggestions;
+        private String[] texts;
+        private int size;
+
+        Entries(int capacity) {
+            suggestions = new Suggestion[Math.max(16, capacity)];
+            texts = new String[suggestions.length];
+        }
+
+        void collect(Map<String, Integer> ids, String text, String field, Double rating) {
+            if (text == null || text.isBlank()) {
+                return;
+            }
+            String lowercased = InvertedIndexSearchEngine.normalize(text);
+            Integer id = ids.putIfAbsent(lowercased, size);
+            if (id == null) {
+                if (size == suggestions.length) {
+                    suggestions = Arrays.copyOf(suggestions, size * 2);
+                    texts = Arrays.copyOf(texts, size * 2);
+                }
+                suggestions[size] = new Suggestion(text, field, rating);
+                texts[size++] = lowercased;
+            } else if (rating != null && (suggestions[id].rating() == null || rating > suggestions[id].rating())) {
+                suggestions[id] = new Suggestion(suggestions[id].text(), field, rating);
+            }
+        }
+    }
+
+    // Offset 0 plus every later offset where a word (letters / digits) starts; with starts == null only counts them
+    private static int keyStarts(String text, int[] starts) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (i == 0 || (Character.isLetterOrDigit(text.charAt(i)) && !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                if (starts != null) {
+                    starts[count] = i;
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    int keyCount() {
+        return keyEntries.length;
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    // ===========================
+    // The best `limit` entries (at most topN) having a word that starts with the lowercased prefix
+    // ===========================
+    List<Suggestion> suggest(String prefix, int limit) {
+        limit = Math.min(limit, topN);
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        int node = 0;
+        for (int depth = 0; depth < prefix.length(); depth++) {
+            int child = child(node, prefix.charAt(depth));
+            if (child < 0) {
+                return rankLightRange(node, prefix, limit);
+            }
+            node = child;
+        }
+        int count = Math.min(limit, topCount[node]);
+        List<Suggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(entries[tops[topFrom[node] + i]]);
+        }
+        return result;
+    }
+
+    // Children are sorted by label: binary search, -1 when there is no heavy child for that character
+    private int child(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < c) {
+                low = mid + 1;
+            } else if (labels[mid] > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // The keys starting with the prefix below this node are few (<= LIGHT_RANGE): find them and rank them
+    private List<Suggestion> rankLightRange(int node, String prefix, int limit) {
+        int low = rangeFrom[node];
+        int high = rangeTo[node];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        TopK best = new TopK(limit);
+        int[] offered = new int[LIGHT_RANGE];
+        int offeredCount = 0;
+        for (int key = low; key < rangeTo[node] && startsWith(key, prefix) && offeredCount < LIGHT_RANGE; key++) {
+            int entry = keyEntries[key];
+            if (!contains(offered, offeredCount, entry)) {
+                offered[offeredCount++] = entry;
+                best.offer(entry, scores[entry]);
+            }
+        }
+        int[] ranked = best.drain();
+        List<Suggestion> result = new ArrayList<>(ranked.length);
+        for (int entry : ranked) {
+            result.add(entries[entry]);
+        }
+        return result;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ===========================
+    // Create the heavy children of a node (recursively), then its top-N
+    // Keys of the node's range that end at `depth` come first (shortest sort first), then one group per next character.
+    // top-N of a node = best of: its heavy children's top-N lists + every key of its light groups / ending here.
+    // That is exact: an entry in the node's top-N is also in the top-N of the child it comes from.
+    // seen[] marks entries already offered for this node (an entry can reach a node through several keys).
+    // ===========================
+    private void buildNode(int node, int depth, int[] seen) {
+        int from = rangeFrom[node];
+        int to = rangeTo[node];
+        int groupsFrom = from;
+        while (groupsFrom < to && keyLength(groupsFrom) == depth) {
+            groupsFrom++;
+        }
+        // first pass: count the heavy groups so their nodes can be reserved side by side
+        int heavy = 0;
+        for (int start = groupsFrom; start < to; ) {
+            int end = groupEnd(start, to, depth);
+            if (end - start > LIGHT_RANGE) {
+                heavy++;
+            }
+            start = end;
+        }
+        int first = nodeCount;
+        ensureNodes(first + heavy);
+        nodeCount += heavy;
+        firstChild[node] = first;
+        childCount[node] = heavy;
+        int child = first;
+        for (int start = groupsFrom; start < to; ) {
+            int end = groupEnd(start, to, depth);
+            if (end - start > LIGHT_RANGE) {
+                labels[child] = charAt(start, depth);
+                rangeFrom[child] = start;
+                rangeTo[child] = end;
+                child++;
+            }
+            start = end;
+        }
+        for (int c = first; c < first + heavy; c++) {
+            buildNode(c, depth + 1, seen);
+        }
+
+        int stamp = node + 1;
+        TopK best = new TopK(topN);
+        for (int c = first; c < first + heavy; c++) {
+            for (int i = 0; i < topCount[c]; i++) {
+                offer(best, tops[topFrom[c] + i], seen, stamp);
+            }
+        }
+        for (int start = from; start < to; ) {
+            int end = start < groupsFrom ? groupsFrom : groupEnd(start, to, depth);
+            if (start < groupsFrom || end - start <= LIGHT_RANGE) {
+                for (int key = start; key < end; key++) {
+                    offer(best, keyEntries[key], seen, stamp);
+                }
+            }
+            start = end;
+        }
+        int[] ranked = best.drain();
+        if (tops.length < topsSize + ranked.length) {
+            tops = Arrays.copyOf(tops, Math.max(tops.length * 2, topsSize + ranked.length));
+        }
+        System.arraycopy(ranked, 0, tops, topsSize, ranked.length);
+        topFrom[node] = topsSize;
+        topCount[node] = ranked.length;
+        topsSize += ranked.length;
+    }
+
+    private void offer(TopK best, int entry, int[] seen, int stamp) {
+        if (seen[entry] != stamp) {
+            seen[entry] = stamp;
+            best.offer(entry, scores[entry]);
+        }
+    }
+
+    // End of the group of keys that have the same character as `start` at `depth` (binary search)
+    private int groupEnd(int start, int to, int depth) {
+        char c = charAt(start, depth);
+        int low = start + 1;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (charAt(mid, depth) <= c) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureNodes(int capacity) {
+        if (capacity <= labels.length) {
+            return;
+        }
+        int size = Math.max(capacity, labels.length * 2);
+        labels = Arrays.copyOf(labels, size);
+        firstChild = Arrays.copyOf(firstChild, size);
+        childCount = Arrays.copyOf(childCount, size);
+        rangeFrom = Arrays.copyOf(rangeFrom, size);
+        rangeTo = Arrays.copyOf(rangeTo, size);
+        topFrom = Arrays.copyOf(topFrom, size);
+        topCount = Arrays.copyOf(topCount, size);
+    }
+
+    // ===========================
+    // Key helpers: a key is the text of its entry from its offset on, read in place
+    // ===========================
+    private int keyLength(int key) {
+        return texts[keyEntries[key]].length() - keyOffsets[key];
+    }
+
+    private char charAt(int key, int depth) {
+        return texts[keyEntries[key]].charAt(keyOffsets[key] + depth);
+    }
+
+    private boolean startsWith(int key, String prefix) {
+        return texts[keyEntries[key]].startsWith(prefix, keyOffsets[key]);
+    }
+
+    // Compares the key with the prefix over the prefix's length only (a key starting with the prefix compares equal)
+    private int compareKey(int key, String prefix) {
+        String text = texts[keyEntries[key]];
+        int offset = keyOffsets[key];
+        int n = Math.min(text.length() - offset, prefix.length());
+        for (int i = 0; i < n; i++) {
+            int diff = text.charAt(offset + i) - prefix.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return n == prefix.length() ? 0 : -1;
+    }
+
+    // ===========================
+    // Multikey quicksort (3-way radix quicksort) of packed (entry << 32 | offset) keys by their text
+    // Partitions on ONE character at a time: <, = and > the pivot character; only the "=" part moves on to the next
+    // character. Keys sharing a long prefix ("nike lightweight running shoes ...") are not compared from the first
+    // character again and again like a comparison sort would.
+    // Reading a character means following key → String → byte[], a cache miss per key per pass, so the next
+    // CHUNK_CHARS characters of every key are copied into chunks[] (moved together with the keys): the passes read
+    // that array sequentially and the strings are only visited again every CHUNK_CHARS characters.
+    // A chunk holds 3 characters of 21 bits, each stored as char + 1 so that 0 means "the key has ended" and
+    // shorter keys sort first.
+    // ===========================
+    private static final int CHUNK_CHARS = 3;
+    private static final int CHUNK_BITS = 21;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private static void sortKeys(long[] keys, String[] texts) {
+        long[] chunks = new long[keys.length];
+        fillChunks(keys, chunks, 0, keys.length, 0, texts);
+        sortKeys(keys, chunks, 0, keys.length, 0, 0, texts);
+    }
+
+    private static void sortKeys(long[] keys, long[] chunks, int from, int to, int depth, int chunkDepth,
+                                 String[] texts) {
+        while (to - from > 1) {
+            if (depth - chunkDepth == CHUNK_CHARS) {
+                fillChunks(keys, chunks, from, to, depth, texts);
+                chunkDepth = depth;
+            }
+            int shift = CHUNK_BITS * (CHUNK_CHARS - 1 - (depth - chunkDepth));
+            long pivot = chunks[(from + to) >>> 1] >>> shift & CHUNK_MASK;
+            int less = from;
+            int greater = to - 1;
+            int i = from;
+            while (i <= greater) {
+                long c = chunks[i] >>> shift & CHUNK_MASK;
+                if (c < pivot) {
+                    swap(keys, chunks, less++, i++);
+                } else if (c > pivot) {
+                    swap(keys, chunks, i, greater--);
+                } else {
+                    i++;
+                }
+            }
+            sortKeys(keys, chunks, from, less, depth, chunkDepth, texts);
+            sortKeys(keys, chunks, greater + 1, to, depth, chunkDepth, texts);
+            if (pivot == 0) {
+                return;
+            }
+            from = less;
+            to = greater + 1;
+            depth++;
+        }
+    }
+
+    private static void fillChunks(long[] keys, long[] chunks, int from, int to, int depth, String[] texts) {
+        for (int k = from; k < to; k++) {
+            String text = texts[(int) (keys[k] >>> 32)];
+            int position = (int) keys[k] + depth;
+            long chunk = 0;
+            for (int c = 0; c < CHUNK_CHARS; c++, position++) {
+                chunk = chunk << CHUNK_BITS | (position < text.length() ? text.charAt(position) + 1 : 0);
+            }
+            chunks[k] = chunk;
+        }
+    }
+
+    private static void swap(long[] keys, long[] chunks, int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long chunk = chunks[a];
+        chunks[a] = chunks[b];
+        chunks[b] = chunk;
+    }
+}
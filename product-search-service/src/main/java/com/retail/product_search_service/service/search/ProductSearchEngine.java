@@ -0,0 +1,73 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.ProductFacets;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.SearchSort;
+
+//The search engine is the in-memory read side of the catalog.
+//ProductServiceImpl writes to the database through Productrepository and then tells the engine about the change,
+//so searches can be answered from memory without running SQL on every keystroke.
+//Flow: saveProduct() → repository.save() → engine.index()      (write path)
+//      searchByName() → engine.searchByName()                     (read path, no SQL)
+//It is an interface so another implementation (e.g. a remote search cluster) can be plugged in without touching the service.
+public interface ProductSearchEngine {
+
+    // Replace the whole index with the given products (used at startup from repository.findAll())
+    void rebuild(Collection<Product> products);
+
+    // Add a new product or refresh an existing one (matched by id)
+    void index(Product product);
+
+    // Same as index() for a whole batch (bulk ingestion), in one write
+    void indexAll(Collection<Product> products);
+
+    // Drop a product that was deleted from the database (an id the engine does not hold is ignored)
+    void remove(long id);
+
+    // Case-insensitive "name contains" search, same meaning as LOWER(name) LIKE LOWER('%name%')
+    List<Product> searchByName(String name);
+
+    // Typo tolerant name search: every query word must match a word of the name with at most maxEdits typos
+    // (fewer for short words). Best matches first (fewest typos in total), at most `limit` products.
+    // maxCandidates caps how many dictionary words are checked per query word, to keep latency bounded.
+    List<Product> fuzzySearchByName(String name, int maxEdits, int maxCandidates, int limit);
+
+    // Products with min <= field < max, sorted by that field (ascending or descending), at most `limit` of them.
+    // afterId = id of the last product of the previous page (0 for the first page)
+    List<Product> searchByRange(NumericField field, double min, double max, boolean descending, long afterId, int limit);
+
+    // Combined search, every non-null field of the criteria must match
+    List<Product> search(ProductSearchCriteria criteria);
+
+    // Same filters, one keyset page: at most `limit` matches with id > afterId, in id order
+    List<Product> search(ProductSearchCriteria criteria, long afterId, int limit);
+
+    // Same filters, but only the `limit` first products in the given order (relevance, rating, price, id)
+    List<Product> search(ProductSearchCriteria criteria, SearchSort sort, int limit);
+
+    // Facet counts (category, brand, price / rating histograms) of every product matching the criteria
+    ProductFacets facets(ProductSearchCriteria criteria, double priceInterval, double ratingInterval);
+
+    // Products with the given ids, in that order (ids it does not hold are skipped)
+    List<Product> findByIds(long[] ids);
+
+    // Number of products currently held by the engine
+    int size();
+
+    // Persist everything the engine holds (catalog + search indexes) to a versioned binary file
+    // changeVersion (kept in the header): highest change_version of the table the engine is known to hold
+    void writeSnapshot(Path file, long changeVersion) throws IOException;
+
+    // Replace the engine's content with a file written by writeSnapshot() (memory-mapped; IOException if it is
+    // not a valid snapshot of the current format, the engine is then left for the caller to rebuild)
+    void loadSnapshot(Path file) throws IOException;
+
+    // Copy of every product currently held, in id order (used to rebuild derived indexes like the suggestions)
+    List<Product> snapshot();
+}
@@ -0,0 +1,171 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+//Sorted index over one numeric column (price or rating), used for range searches like "price < 500".
+//Two parallel primitive arrays, sorted by (value, ordinal):
+//  values   : [ 99.0, 120.0, 120.0, 450.0, ... ]
+//  ordinals : [   7 ,    2 ,    9 ,    3 , ... ]   ← which product has that value
+//A range [min, max) is found with two binary searches, so:
+//  counting the matches costs O(log n)             (used by the SearchPlanner as its estimate)
+//  reading the first / last k matches costs O(log n + k)   (top-k, ascending or descending)
+//Ties are ordered by ordinal (= id order), which makes every entry unique and lets a page continue
+//exactly after the last product the client has seen (keyset pagination on (value, id)).
+//Products with no value (null price / rating, stored as NaN) are simply not in the index, like SQL "NULL < 500" is false.
+//Not thread-safe on its own: the search engine calls it under its read/write lock.
+final class RangeIndex {
+
+    private double[] values = new double[16];
+    private int[] ordinals = new int[16];
+    private int size;
+
+    // Build from scratch out of a column (bulk load / rebuild): O(n log n) instead of n single inserts
+    void load(double[] column, int docCount) {
+        int[] sorted = new int[docCount];
+        int n = 0;
+        for (int ordinal = 0; ordinal < docCount; ordinal++) {
+            if (!Double.isNaN(column[ordinal])) {
+                sorted[n++] = ordinal;
+            }
+        }
+        sorted = Arrays.copyOf(sorted, n);
+        mergeSort(sorted, new int[n], 0, n, column);
+        values = new double[Math.max(16, n)];
+        ordinals = new int[values.length];
+        for (int i = 0; i < n; i++) {
+            values[i] = column[sorted[i]];
+            ordinals[i] = sorted[i];
+        }
+        size = n;
+    }
+
+    // Single insert: binary search the slot and shift the tail by one (System.arraycopy = memmove)
+    void insert(double value, int ordinal) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int pos = lower(value, ordinal);
+        if (size == values.length) {
+            // at least 16: arrays read from a snapshot have exactly `size` slots, maybe 0 or 1
+            values = Arrays.copyOf(values, Math.max(16, size + (size >> 1)));
+            ordinals = Arrays.copyOf(ordinals, values.length);
+        }
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        System.arraycopy(ordinals, pos, ordinals, pos + 1, size - pos);
+        values[pos] = value;
+        ordinals[pos] = ordinal;
+        size++;
+    }
+
+    void remove(double value, int ordinal) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int pos = lower(value, ordinal);
+        if (pos < size && values[pos] == value && ordinals[pos] == ordinal) {
+            System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+            System.arraycopy(ordinals, pos + 1, ordinals, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    // Number of entries with min <= value < max
+    int count(double min, double max) {
+        return Math.max(0, lower(max, Integer.MIN_VALUE) - lower(min, Integer.MIN_VALUE));
+    }
+
+    // ===========================
+    // Ordinals with min <= value < max, at most `limit` of them
+    // ascending  → smallest values first, descending → largest values first
+    // afterValue/afterOrdinal → keyset cursor: continue after that (value, ordinal) entry; afterOrdinal < 0 = first page
+    // ===========================
+    int[] range(double min, double max, boolean descending, double afterValue, int afterOrdinal, int limit) {
+        int from = lower(min, Integer.MIN_VALUE);
+        int to = lower(max, Integer.MIN_VALUE);
+        if (from >= to || limit <= 0) {
+            return new int[0];
+        }
+        if (!descending) {
+            int start = afterOrdinal < 0 ? from : Math.max(from, upper(afterValue, afterOrdinal));
+            int n = Math.max(0, Math.min(limit, to - start));
+            return Arrays.copyOfRange(ordinals, start, start + n);
+        }
+        int start = afterOrdinal < 0 ? to - 1 : Math.min(to - 1, lower(afterValue, afterOrdinal) - 1);
+        int n = Math.max(0, Math.min(limit, start - from + 1));
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = ordinals[start - i];
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Snapshot section: the sorted arrays as they are, so a restart does not sort again
+    void writeTo(SnapshotFile.Writer out) throws IOException {
+        out.putDoubles(values, size);
+        out.putInts(ordinals, size);
+    }
+
+    void readFrom(SnapshotFile.Reader in) {
+        values = in.getDoubles();
+        ordinals = in.getInts();
+        size = values.length;
+    }
+
+    // Smallest / largest value in the index, NaN when it is empty
+    double min() {
+        return size == 0 ? Double.NaN : values[0];
+    }
+
+    double max() {
+        return size == 0 ? Double.NaN : values[size - 1];
+    }
+
+    // First position whose (value, ordinal) is >= the given pair
+    private int lower(double value, int ordinal) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value || (values[mid] == value && ordinals[mid] < ordinal)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First position whose (value, ordinal) is > the given pair
+    private int upper(double value, int ordinal) {
+        int pos = lower(value, ordinal);
+        return pos < size && values[pos] == value && ordinals[pos] == ordinal ? pos + 1 : pos;
+    }
+
+    // Stable merge sort of ordinals by column value; equal values keep ordinal order
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, double[] column) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, column);
+        mergeSort(a, tmp, mid, to, column);
+        if (column[a[mid - 1]] <= column[a[mid]]) {
+            return;
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && column[tmp[i]] <= column[tmp[j]])) {
+                a[k] = tmp[i++];
+            } else {
+                a[k] = tmp[j++];
+            }
+        }
+    }
+}
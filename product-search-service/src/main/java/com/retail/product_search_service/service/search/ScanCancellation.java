@@ -0,0 +1,35 @@
+package com.retail.product_search_service.service.search;
+
+import java.util.concurrent.CancellationException;
+
+//Cooperative cancellation of long scans.
+//The async search API (AsyncProductServiceImpl) interrupts the thread of a search that ran past its deadline or whose
+//client went away. Java cannot stop a running loop from outside, so the engine's long loops call check() every
+//CHECK_EVERY ordinals (one read of the thread's interrupt flag) and give up with a CancellationException.
+//Nothing else interrupts search threads, so synchronous searches never see it.
+final class ScanCancellation {
+
+    // Ordinals visited between two checks: a 1M product scan checks ~60 times, each check is nanoseconds
+    static final int CHECK_EVERY = 1 << 14;
+
+    private ScanCancellation() {
+    }
+
+    static void check() {
+        check(Thread.currentThread());
+    }
+
+    // visited = loop counter: only every CHECK_EVERY-th call reads the flag
+    static void check(int visited) {
+        if ((visited & (CHECK_EVERY - 1)) == 0) {
+            check();
+        }
+    }
+
+    // For parallel tasks (facets): the flag of the thread that started the search, not of the pool thread
+    static void check(Thread searcher) {
+        if (searcher.isInterrupted()) {
+            throw new CancellationException("Search cancelled");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.retail.product_search_service.service.search;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Repository.Productrepository;
+import com.retail.product_search_service.service.feed.ProductChangePoller;
+
+import jakarta.annotation.PostConstruct;
+
+//Fills the search engine and the suggestion index once at startup.
+//@PostConstruct runs after the repository is injected but before the web server accepts requests,
+//so the first /products/search/name call already sees the full catalog.
+//With product.snapshot.path set, the engine is first loaded from its snapshot file when that file matches the
+//table (SnapshotStore): no findAll(), no rebuild; the suggestions are then rebuilt in the background.
+//A file older than the table's change_version is only used when the change feed poller runs: it starts from the
+//file's version, so rows updated while the service was down reach the engine with the first poll.
+//Otherwise the engine is rebuilt from the table and a snapshot is written for the next start.
+@Component
+public class SearchIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexLoader.class);
+
+    @Autowired
+    private Productrepository productRepository;
+
+    @Autowired
+    private ProductSearchEngine searchEngine;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private SnapshotStore snapshotStore;
+
+    @Autowired
+    private ProductChangePoller changePoller;
+
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        // read before the table: every change up to it is in what findAll() returns
+        long changeVersion = productRepository.findMaxChangeVersion();
+        if (snapshotStore.enabled() && snapshotStore.load(productRepository.count(), productRepository.findMaxId(),
+                changeVersion, changePoller.enabled())) {
+            changePoller.startFrom(snapshotStore.loadedChangeVersion());
+            suggestionIndex.refreshLater(searchEngine::snapshot);
+            log.info("Search index loaded from snapshot with {} products in {} ms", searchEngine.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+        changePoller.startFrom(changeVersion);
+        snapshotStore.indexedThrough(changeVersion);
+        List<Product> products = productRepository.findAll();
+        searchEngine.rebuild(products);
+        suggestionIndex.rebuild(products);
+        snapshotStore.writeLater();
+        log.info("Search index built with {} products in {} ms", searchEngine.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
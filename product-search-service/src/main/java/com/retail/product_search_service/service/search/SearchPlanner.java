@@ -0,0 +1,49 @@
+package com.retail.product_search_service.service.search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+//Small cost-based planner for combined searches like "Nike footwear under 500 rated 4+".
+//1. Sort the filters by estimate(), most selective first.
+//2. The most selective filter produces the starting candidate BitSet.
+//3. For every next filter pick the cheaper way to apply it:
+//   - its own BitSet is smaller to build than the candidates we have → build it and AND the two bitsets
+//   - otherwise → probe test() only for the remaining candidates
+//4. Stop early as soon as no candidate is left.
+//With no filters at all every product (0..docCount-1) matches.
+//A cancelled search (ScanCancellation) stops between two filters or during a probe.
+final class SearchPlanner {
+
+    private SearchPlanner() {
+    }
+
+    static BitSet execute(List<FilterPredicate> filters, int docCount) {
+        if (filters.isEmpty()) {
+            BitSet all = new BitSet(docCount);
+            all.set(0, docCount);
+            return all;
+        }
+        List<FilterPredicate> ordered = new ArrayList<>(filters);
+        ordered.sort(Comparator.comparingInt(FilterPredicate::estimate));
+
+        BitSet candidates = ordered.get(0).matching();
+        for (int i = 1; i < ordered.size() && !candidates.isEmpty(); i++) {
+            ScanCancellation.check();
+            FilterPredicate filter = ordered.get(i);
+            if (filter.estimate() < candidates.cardinality()) {
+                candidates.and(filter.matching());
+            } else {
+                int visited = 0;
+                for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+                    ScanCancellation.check(++visited);
+                    if (!filter.test(ordinal)) {
+                        candidates.clear(ordinal);
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+}
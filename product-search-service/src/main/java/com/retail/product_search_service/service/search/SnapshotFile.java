@@ -0,0 +1,258 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+//Binary file format of the search engine snapshot (see SnapshotStore for when it is written and read).
+//Layout, little-endian (the byte order of x86 / ARM, so arrays are copied as they are):
+//  header (HEADER_BYTES): magic "PSNP", format version, product count, largest product id, creation time,
+//                         body length, CRC32 of the body, highest change_version the catalog reflects
+//  body:                  the engine's sections one after the other (columns, dictionaries, posting lists),
+//                         each one an int / long count followed by the raw values
+//A file with another magic or version, a wrong length or a bad checksum is rejected, never half loaded.
+//Writer: fills a 1 MB direct buffer and hands it to the FileChannel whenever it is full.
+//Reader: the whole file is memory-mapped (FileChannel.map), so loading is bulk copies out of the page cache
+//        (no read() calls, no parsing); slice() hands out a part of the mapping itself without copying.
+//A single mapping is limited to 2 GB, a bigger snapshot is rejected by the reader (the engine is rebuilt instead).
+final class SnapshotFile {
+
+    static final int MAGIC = 0x504E5350;   // "PSNP"
+    // Bump whenever a section is added, removed or changes meaning: older files are then ignored
+    static final int FORMAT_VERSION = 4;
+    static final int HEADER_BYTES = 56;
+
+    // What the header says about the catalog inside the file
+    // changeVersion: every row change up to this change_version (migration V4) is in the file
+    record Header(int productCount, long maxId, long changeVersion, long createdMillis) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    // Read and check only the header (cheap: used to decide whether the snapshot matches the database)
+    static Header readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            return checkHeader(header, channel.size());
+        }
+    }
+
+    private static Header checkHeader(ByteBuffer header, long fileSize) throws IOException {
+        if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        if (header.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Snapshot format " + header.getInt(4) + ", expected " + FORMAT_VERSION);
+        }
+        if (header.getLong(32) != fileSize - HEADER_BYTES) {
+            throw new IOException("Snapshot is truncated");
+        }
+        return new Header(header.getInt(8), header.getLong(16), header.getLong(48), header.getLong(24));
+    }
+
+    // ===========================
+    // Sequential writer of one snapshot file
+    // ===========================
+    static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 crc = new CRC32();
+        private long bodyLength;
+
+        Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            channel.position(HEADER_BYTES);
+        }
+
+        void putInt(int value) throws IOException {
+            room(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            room(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            putInt(count);
+            for (int i = 0; i < count; ) {
+                room(Integer.BYTES);
+                int n = Math.min(count - i, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                i += n;
+            }
+        }
+
+        void putLongs(long[] values, int count) throws IOException {
+            putInt(count);
+            for (int i = 0; i < count; ) {
+                room(Long.BYTES);
+                int n = Math.min(count - i, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * Long.BYTES);
+                i += n;
+            }
+        }
+
+        void putDoubles(double[] values, int count) throws IOException {
+            putInt(count);
+            for (int i = 0; i < count; ) {
+                room(Double.BYTES);
+                int n = Math.min(count - i, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * Double.BYTES);
+                i += n;
+            }
+        }
+
+        // Bytes [from, to) of a buffer without a length (absolute positions, the source buffer is not moved);
+        // the caller writes the total length first, so the section can be read back with Reader.slice()
+        void putRawBytes(ByteBuffer source, int from, int to) throws IOException {
+            for (int i = from; i < to; ) {
+                room(1);
+                int n = Math.min(to - i, buffer.remaining());
+                buffer.put(source.slice(i, n));
+                i += n;
+            }
+        }
+
+        // null is written as length -1
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int i = 0; i < bytes.length; ) {
+                room(1);
+                int n = Math.min(bytes.length - i, buffer.remaining());
+                buffer.put(bytes, i, n);
+                i += n;
+            }
+        }
+
+        // Flush the body, then write the header (last, so a crash mid-write leaves a file the reader rejects)
+        void finish(int productCount, long maxId, long changeVersion) throws IOException {
+            drain();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(productCount).putInt(0)
+                    .putLong(maxId).putLong(System.currentTimeMillis()).putLong(bodyLength).putLong(crc.getValue())
+                    .putLong(changeVersion);
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            bodyLength += buffer.remaining();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // ===========================
+    // Reader over one memory-mapped snapshot file, values are read in the order they were written
+    // ===========================
+    static final class Reader {
+        private final Header header;
+        private final ByteBuffer body;
+
+        Reader(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot of " + channel.size() + " bytes is too large to map");
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                header = checkHeader(mapped, channel.size());
+                body = mapped.slice(HEADER_BYTES, mapped.capacity() - HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                CRC32 crc = new CRC32();
+                crc.update(body.duplicate());
+                if (crc.getValue() != mapped.getLong(40)) {
+                    throw new IOException("Snapshot checksum mismatch");
+                }
+            }
+        }
+
+        Header header() {
+            return header;
+        }
+
+        int getInt() {
+            return body.getInt();
+        }
+
+        long getLong() {
+            return body.getLong();
+        }
+
+        int[] getInts() {
+            int[] values = new int[body.getInt()];
+            body.asIntBuffer().get(values);
+            body.position(body.position() + values.length * Integer.BYTES);
+            return values;
+        }
+
+        long[] getLongs() {
+            long[] values = new long[body.getInt()];
+            body.asLongBuffer().get(values);
+            body.position(body.position() + values.length * Long.BYTES);
+            return values;
+        }
+
+        double[] getDoubles() {
+            double[] values = new double[body.getInt()];
+            body.asDoubleBuffer().get(values);
+            body.position(body.position() + values.length * Double.BYTES);
+            return values;
+        }
+
+        // The next byte section as a read-only view of the mapping (no copy)
+        ByteBuffer slice() {
+            int length = body.getInt();
+            ByteBuffer slice = body.slice(body.position(), length);
+            body.position(body.position() + length);
+            return slice;
+        }
+
+        String getString() {
+            int length = body.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            body.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+//Keeps a snapshot file of the search engine next to the database, so a restart does not rebuild the engine
+//by reading the whole product table (see SnapshotFile for the format).
+//Startup (SearchIndexLoader): load() → if the file matches the database (same row count and largest id),
+//  the engine is filled from the memory-mapped file instead of findAll() + rebuild()
+//Rows UPDATEd while the service was down keep the row count and the largest id, so the header also holds the highest
+//change_version (migration V4) the engine had applied when the file was written (indexedThrough(), reported by the
+//change feed poller once the indexer caught up). On load:
+//  file version > database version → the database is older than the file (restored backup): rebuild
+//  file version < database version → rows changed since: the file is only used when the poller will catch up,
+//                                    starting from the file's version (loadedChangeVersion()), otherwise rebuild
+//Writes (ProductServiceImpl), around the database write + engine update:
+//  1. beginWrite() BEFORE the database write: the file on disk is deleted (once, it is usually already gone),
+//     so a crash right after the write can never leave a snapshot that misses it
+//  2. endWrite() AFTER the engine is updated (in a finally): a new file is written product.snapshot.write-delay-ms
+//     later, many writes within that delay share one file (same idea as SuggestionIndex.refreshLater)
+//  A file is only written while no write is between begin and end, into a temp file that is then moved into
+//  place; the move is skipped when another write began meanwhile (generation counter), its endWrite() covers it.
+//Shutdown: a pending write is done right away, so a clean restart always finds a current file.
+//Locks: ReentrantLocks, not synchronized: beginWrite() runs on request threads (virtual ones in the virtual profile),
+//and on Java 21 a virtual thread waiting on a monitor, or doing file I/O inside one, pins its carrier thread.
+//  state → the counters below, only held to read / update them (no I/O)
+//  files → orders the delete of beginWrite() after a move in progress, so a file moved in just before a write began
+//          is still deleted before that write reaches the database; taken only when there may be a file to delete
+//product.snapshot.path empty (default) = feature off. It is only useful with a database that survives a restart
+//(the default in-memory H2 starts empty, so its snapshot never matches and is simply rebuilt).
+@Component
+public class SnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private final ProductSearchEngine searchEngine;
+    private final Path file;
+    private final long writeDelayMs;
+    private final AtomicBoolean writePending = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, task -> {
+        Thread thread = new Thread(task, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ReentrantLock state = new ReentrantLock();
+    private final ReentrantLock files = new ReentrantLock();
+
+    // Number of beginWrite() calls so far, the value it had when the file on disk was written,
+    // and the writes between beginWrite() and endWrite() right now (all guarded by state)
+    private long generation;
+    private long writtenGeneration = -1;
+    private long writtenChangeVersion = -1;
+    private int writesInFlight;
+    private boolean onDisk;
+    // A temp file is being moved into place right now
+    private boolean moving;
+
+    // Highest change_version the engine is known to hold (goes into the next file), and the one of the file loaded
+    private volatile long indexedChangeVersion;
+    private volatile long loadedChangeVersion = -1;
+
+    @Autowired
+    public SnapshotStore(ProductSearchEngine searchEngine,
+                         @Value("${product.snapshot.path:}") String path,
+                         @Value("${product.snapshot.write-delay-ms:5000}") long writeDelayMs) {
+        this.searchEngine = searchEngine;
+        this.file = path == null || path.isBlank() ? null : Path.of(path);
+        this.writeDelayMs = writeDelayMs;
+        // on shutdown, a write still waiting for its delay is dropped (shutdown() writes right away instead)
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    public boolean enabled() {
+        return file != null;
+    }
+
+    // Every change up to this change_version has been applied to the engine
+    public void indexedThrough(long changeVersion) {
+        indexedChangeVersion = changeVersion;
+    }
+
+    // change_version the loaded file was written at (-1 = nothing loaded): the poller continues from there
+    public long loadedChangeVersion() {
+        return loadedChangeVersion;
+    }
+
+    // ===========================
+    // Fill the search engine from the snapshot file if it describes the same catalog as the database
+    // changeVersion = the table's highest change_version; catchUp = the poller will publish the rows changed after
+    // the file's version (without it, a file older than the table is not used)
+    // Returns false (engine untouched or to be rebuilt by the caller) when there is no usable file
+    // ===========================
+    public boolean load(long productCount, long maxId, long changeVersion, boolean catchUp) {
+        if (file == null) {
+            return false;
+        }
+        try {
+            SnapshotFile.Header header = SnapshotFile.readHeader(file);
+            if (header.productCount() != productCount || header.maxId() != maxId) {
+                log.info("Snapshot {} has {} products up to id {}, the database {} up to id {}: rebuilding",
+                        file, header.productCount(), header.maxId(), productCount, maxId);
+                return false;
+            }
+            if (header.changeVersion() > changeVersion || (header.changeVersion() < changeVersion && !catchUp)) {
+                log.info("Snapshot {} is at change version {}, the database at {}: rebuilding",
+                        file, header.changeVersion(), changeVersion);
+                return false;
+            }
+            searchEngine.loadSnapshot(file);
+            loadedChangeVersion = header.changeVersion();
+            indexedChangeVersion = header.changeVersion();
+        } catch (NoSuchFileException e) {
+            log.info("No snapshot at {}: rebuilding from the database", file);
+            return false;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot {} cannot be used, rebuilding from the database: {}", file, e.toString());
+            return false;
+        }
+        state.lock();
+        try {
+            onDisk = true;
+            writtenGeneration = generation;
+            writtenChangeVersion = loadedChangeVersion;
+        } finally {
+            state.unlock();
+        }
+        return true;
+    }
+
+    // Called before a database write: the snapshot on disk no longer describes the catalog
+    public void beginWrite() {
+        if (file == null) {
+            return;
+        }
+        boolean outdated;
+        state.lock();
+        try {
+            generation++;
+            writesInFlight++;
+            outdated = onDisk || moving;
+            onDisk = false;
+        } finally {
+            state.unlock();
+        }
+        if (outdated) {
+            // waits for a move in progress, so its file is gone before the caller writes to the database
+            files.lock();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete the outdated snapshot {}", file, e);
+            } finally {
+                files.unlock();
+            }
+        }
+    }
+
+    // Called once the write reached the database and the engine (or failed): schedule a new snapshot
+    public void endWrite() {
+        if (file == null) {
+            return;
+        }
+        state.lock();
+        try {
+            writesInFlight--;
+        } finally {
+            state.unlock();
+        }
+        writeLater();
+    }
+
+    // Schedule a new snapshot after write-delay-ms, unless one is already waiting
+    public void writeLater() {
+        if (file == null || !writePending.compareAndSet(false, true)) {
+            return;
+        }
+        writer.schedule(() -> {
+            writePending.set(false);
+            write();
+        }, writeDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // ===========================
+    // Write the snapshot now: engine → temp file → atomic rename over the old file
+    // ===========================
+    public void write() {
+        if (file == null) {
+            return;
+        }
+        long startGeneration;
+        // read before the engine: the file holds at least every change up to this version
+        long changeVersion = indexedChangeVersion;
+        state.lock();
+        try {
+            // an unchanged catalog is written again only to record a newer change version
+            if (writesInFlight > 0
+                    || (onDisk && writtenGeneration == generation && writtenChangeVersion == changeVersion)) {
+                return;
+            }
+            startGeneration = generation;
+        } finally {
+            state.unlock();
+        }
+        long start = System.nanoTime();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            searchEngine.writeSnapshot(temp, changeVersion);
+            if (!moveIntoPlace(temp, startGeneration, changeVersion)) {
+                return;
+            }
+            log.info("Snapshot of {} products written to {} in {} ms", searchEngine.size(), file,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write the snapshot {}", file, e);
+        }
+    }
+
+    // temp → file, unless a write began since startGeneration (then the temp file is dropped)
+    // A write beginning during the move sees `moving` and deletes the file right after it (beginWrite())
+    private boolean moveIntoPlace(Path temp, long startGeneration, long changeVersion) throws IOException {
+        files.lock();
+        try {
+            boolean current;
+            state.lock();
+            try {
+                current = generation == startGeneration;
+                moving = current;
+            } finally {
+                state.unlock();
+            }
+            if (!current) {
+                Files.deleteIfExists(temp);
+                return false;
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                state.lock();
+                try {
+                    moving = false;
+                    // otherwise the file is already outdated, the beginWrite() waiting on `files` deletes it
+                    if (generation == startGeneration) {
+                        onDisk = true;
+                        writtenGeneration = startGeneration;
+                        writtenChangeVersion = changeVersion;
+                    }
+                } finally {
+                    state.unlock();
+                }
+            }
+            return true;
+        } finally {
+            files.unlock();
+        }
+    }
+
+    // Let a write in progress finish (an interrupt would close its FileChannel), then write whatever is left
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(1, TimeUnit.MINUTES);
+        write();
+    }
+}
@@ -0,0 +1,94 @@
+package com.retail.product_search_service.service.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.Suggestion;
+
+import jakarta.annotation.PreDestroy;
+
+//Autocomplete for GET /products/suggest?prefix=..., answered from memory (no SQL, no LIKE per keystroke).
+//Holds one immutable PrefixTrie in a volatile field:
+//- readers just read the field, no lock; a lookup is a walk of the prefix plus a copy of the precomputed top-N
+//- writes do not edit the trie: saveProduct() / saveAll() call refreshLater(), which rebuilds a new trie from the
+//  search engine's products on a background thread and swaps it in with one volatile write
+//- many writes within product.suggest.refresh-delay-ms trigger a single rebuild (the pending flag coalesces them),
+//  so suggestions are at most that much (plus the rebuild time) behind the catalog
+//  (a rebuild takes a few seconds on one core for a 1M product catalog, a few ms for 10k)
+//product.suggest.top-n bounds how many suggestions are precomputed per prefix, and so the largest ?limit=.
+@Component
+public class SuggestionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionIndex.class);
+
+    private final int topN;
+    private final long refreshDelayMs;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "suggestion-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile PrefixTrie trie;
+
+    @Autowired
+    public SuggestionIndex(@Value("${product.suggest.top-n:10}") int topN,
+                           @Value("${product.suggest.refresh-delay-ms:1000}") long refreshDelayMs) {
+        this.topN = topN;
+        this.refreshDelayMs = refreshDelayMs;
+        this.trie = PrefixTrie.empty(topN);
+    }
+
+    // ===========================
+    // Best rated names / brands / categories with a word starting with the prefix (case-insensitive)
+    // At most min(limit, top-n) suggestions, best rating first
+    // ===========================
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return trie.suggest(InvertedIndexSearchEngine.normalize(prefix).stripLeading(), limit);
+    }
+
+    // Build a new trie synchronously and publish it (startup, tests)
+    public void rebuild(Collection<Product> products) {
+        long start = System.nanoTime();
+        PrefixTrie rebuilt = PrefixTrie.build(products, topN);
+        trie = rebuilt;
+        log.debug("Suggestion index built: {} entries, {} keys, {} nodes in {} ms", rebuilt.size(),
+                rebuilt.keyCount(), rebuilt.nodeCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // ===========================
+    // Schedule a rebuild from `source` after refresh-delay-ms, unless one is already waiting
+    // The flag is cleared before the products are read, so a write that lands during a rebuild schedules the next one
+    // ===========================
+    public void refreshLater(Supplier<? extends Collection<Product>> source) {
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        refresher.schedule(() -> {
+            refreshPending.set(false);
+            try {
+                rebuild(source.get());
+            } catch (RuntimeException e) {
+                log.warn("Suggestion index refresh failed, keeping the previous one", e);
+            }
+        }, refreshDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
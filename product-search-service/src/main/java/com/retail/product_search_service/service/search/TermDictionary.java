@@ -0,0 +1,132 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.retail.product_search_service.Entity.SearchKeys;
+
+//Dictionary encoding of a low-cardinality text column (category, brand).
+//Every distinct search key (SearchKeys.normalize: lowercased, accents removed) gets a small int code once: "footwear" → 0, "electronics" → 1, ...
+//The engine then keeps one int per product (codes column) instead of one String reference per product, and:
+//- filtering is an int comparison (codes[ordinal] == code) instead of String.equals()
+//- counting per value (facets) is counts[codes[ordinal]]++ into a primitive int[] indexed by code
+//- the products of a value are one PostingList per code, found with an array access
+//The display value kept per code is the first spelling seen ("Footwear"), used as the facet label.
+//Exact spellings are interned too (intern()): "Footwear" and "footwear" share a code but are separate spellings,
+//so a product can be rebuilt from its columns with the value it was saved with, and every product
+//with the same spelling points to the same String instead of its own copy.
+//Codes are never reused: a value whose products are all gone keeps its code with an empty posting list.
+//Not thread-safe on its own: the search engine calls it under its read/write lock.
+final class TermDictionary {
+
+    static final int NONE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private PostingList[] postings = new PostingList[16];
+    private int size;
+    private final Map<String, Integer> spellingCodes = new HashMap<>();
+    private String[] spellings = new String[16];
+    private int[] spellingTerms = new int[16];
+    private int spellingCount;
+
+    void clear() {
+        codes.clear();
+        values = new String[16];
+        postings = new PostingList[16];
+        size = 0;
+        spellingCodes.clear();
+        spellings = new String[16];
+        spellingTerms = new int[16];
+        spellingCount = 0;
+    }
+
+    // Code of a search key, NONE when no product ever had it
+    int code(String normalized) {
+        Integer code = codes.get(normalized);
+        return code == null ? NONE : code;
+    }
+
+    // Code of the value, created on first sight; null → NONE
+    int encode(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        String normalized = SearchKeys.normalize(value);
+        Integer existing = codes.get(normalized);
+        if (existing != null) {
+            return existing;
+        }
+        int code = size++;
+        if (code == values.length) {
+            values = Arrays.copyOf(values, code * 2);
+            postings = Arrays.copyOf(postings, code * 2);
+        }
+        values[code] = value;
+        postings[code] = new PostingList();
+        codes.put(normalized, code);
+        return code;
+    }
+
+    // Code of the exact spelling, created on first sight; null → NONE
+    int intern(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer existing = spellingCodes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int term = encode(value);
+        int spelling = spellingCount++;
+        if (spelling == spellings.length) {
+            spellings = Arrays.copyOf(spellings, spelling * 2);
+            spellingTerms = Arrays.copyOf(spellingTerms, spelling * 2);
+        }
+        spellings[spelling] = value;
+        spellingTerms[spelling] = term;
+        spellingCodes.put(value, spelling);
+        return spelling;
+    }
+
+    // Value code (see encode) of a spelling code
+    int term(int spelling) {
+        return spelling == NONE ? NONE : spellingTerms[spelling];
+    }
+
+    // Exact value of a spelling code, null for NONE
+    String spelling(int spelling) {
+        return spelling == NONE ? null : spellings[spelling];
+    }
+
+    // Snapshot section: the spellings in code order. Interning them again in that order gives every spelling
+    // and every value its old code back; the posting lists are refilled by the engine from its code columns.
+    void writeTo(SnapshotFile.Writer out) throws IOException {
+        out.putInt(spellingCount);
+        for (int spelling = 0; spelling < spellingCount; spelling++) {
+            out.putString(spellings[spelling]);
+        }
+    }
+
+    void readFrom(SnapshotFile.Reader in) {
+        clear();
+        int count = in.getInt();
+        for (int spelling = 0; spelling < count; spelling++) {
+            intern(in.getString());
+        }
+    }
+
+    PostingList postings(int code) {
+        return postings[code];
+    }
+
+    String value(int code) {
+        return values[code];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,270 @@
+package com.retail.product_search_service.service.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Word-level index over product names, used by the fuzzy (typo tolerant) name search.
+//Two levels:
+//1. Dictionary: every distinct word of every name gets a term id, and a PostingList of the products using it.
+//     "nike" → term 7 → products [0, 4, 17]
+//2. Trigram index over the DICTIONARY (not over the products): padded trigrams of each word → term ids.
+//     "nike" → "$$n", "$ni", "nik", "ike", "ke$", "e$$"
+//Finding the words within k typos of "nkie":
+//  a) candidate words = words sharing at least (grams of the query - 4k) trigrams with it
+//     (one typo changes at most 4 trigrams: a swap of two neighbours "ik" → "ki" touches 4, any other edit 3)
+//     only the rarest grams' lists are walked, the common ones are just probed for the words found
+//  b) every candidate is checked with a bounded edit distance that gives up as soon as it exceeds k
+//The dictionary is much smaller than the catalog (a million products share far fewer distinct words),
+//so both steps stay cheap, and only the words that really match are expanded to their product lists.
+//Not thread-safe on its own: the search engine calls it under its read/write lock.
+final class TermIndex {
+
+    // One word-level match: a dictionary word and its edit distance to the query word
+    record TermMatch(int termId, int distance) {
+    }
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final Map<String, PostingList> termGrams = new HashMap<>();
+    private String[] terms = new String[64];
+    private PostingList[] postings = new PostingList[64];
+    private int termCount;
+
+    void clear() {
+        termIds.clear();
+        termGrams.clear();
+        terms = new String[64];
+        postings = new PostingList[64];
+        termCount = 0;
+    }
+
+    void add(String normalizedName, int ordinal) {
+        for (String word : words(normalizedName)) {
+            int id = termId(word);   // may grow the arrays, so look it up before reading postings
+            postings[id].add(ordinal);
+        }
+    }
+
+    // The word stays in the dictionary with an empty list; it simply stops matching any product
+    void remove(String normalizedName, int ordinal) {
+        for (String word : words(normalizedName)) {
+            Integer id = termIds.get(word);
+            if (id != null) {
+                postings[id].remove(ordinal);
+            }
+        }
+    }
+
+    // Snapshot section: every word with its products, then the trigram lists of the dictionary
+    void writeTo(SnapshotFile.Writer out) throws IOException {
+        out.putInt(termCount);
+        for (int id = 0; id < termCount; id++) {
+            out.putString(terms[id]);
+            postings[id].writeTo(out);
+        }
+        InvertedIndexSearchEngine.writePostings(out, termGrams);
+    }
+
+    void readFrom(SnapshotFile.Reader in) {
+        clear();
+        termCount = in.getInt();
+        terms = new String[Math.max(64, termCount)];
+        postings = new PostingList[terms.length];
+        for (int id = 0; id < termCount; id++) {
+            terms[id] = in.getString();
+            postings[id] = PostingList.readFrom(in);
+            termIds.put(terms[id], id);
+        }
+        InvertedIndexSearchEngine.readPostings(in, termGrams);
+    }
+
+    PostingList postings(int termId) {
+        return postings[termId];
+    }
+
+    // Products using exactly this word, or null when no name has it
+    PostingList postings(String word) {
+        Integer id = termIds.get(word);
+        return id == null ? null : postings[id];
+    }
+
+    // ===========================
+    // Dictionary words within maxEdits typos of the query word, each with its distance
+    // At most maxCandidates words are verified: those sharing the most trigrams with the query go first
+    // ===========================
+    List<TermMatch> similar(String word, int maxEdits, int maxCandidates) {
+        List<TermMatch> result = new ArrayList<>();
+        if (maxEdits == 0) {
+            Integer id = termIds.get(word);
+            if (id != null && postings[id].size() > 0) {
+                result.add(new TermMatch(id, 0));
+            }
+            return result;
+        }
+        Set<String> queryGrams = paddedGrams(word);
+        int threshold = Math.max(1, queryGrams.size() - 4 * maxEdits);
+        List<PostingList> lists = new ArrayList<>(queryGrams.size());
+        int missing = 0;
+        for (String gram : queryGrams) {
+            PostingList ids = termGrams.get(gram);
+            if (ids == null) {
+                missing++;
+            } else {
+                lists.add(ids);
+            }
+        }
+        if (queryGrams.size() - missing < threshold) {
+            return result;
+        }
+        // A word sharing `threshold` of the query's grams must appear in at least one of its
+        // (grams - threshold + 1) rarest grams, so only those lists are walked to find candidates;
+        // the frequent grams are then only probed (binary search) for the words already found.
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int scanned = Math.min(lists.size(), queryGrams.size() - threshold + 1 - missing);
+        // shared[id] = trigrams in common; only the words touched at least once are looked at afterwards
+        int[] shared = new int[termCount];
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        for (int l = 0; l < scanned; l++) {
+            PostingList ids = lists.get(l);
+            for (int i = 0; i < ids.size(); i++) {
+                int id = ids.get(i);
+                if (shared[id]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+        for (int l = scanned; l < lists.size(); l++) {
+            PostingList ids = lists.get(l);
+            for (int t = 0; t < touchedCount; t++) {
+                if (ids.contains(touched[t])) {
+                    shared[touched[t]]++;
+                }
+            }
+        }
+        List<int[]> candidates = new ArrayList<>();
+        for (int t = 0; t < touchedCount; t++) {
+            int id = touched[t];
+            if (shared[id] >= threshold && Math.abs(terms[id].length() - word.length()) <= maxEdits
+                    && postings[id].size() > 0) {
+                candidates.add(new int[] {id, shared[id]});
+            }
+        }
+        if (candidates.size() > maxCandidates) {
+            candidates.sort((a, b) -> Integer.compare(b[1], a[1]));
+            candidates = candidates.subList(0, maxCandidates);
+        }
+        for (int[] candidate : candidates) {
+            int distance = distance(word, terms[candidate[0]], maxEdits);
+            if (distance <= maxEdits) {
+                result.add(new TermMatch(candidate[0], distance));
+            }
+        }
+        return result;
+    }
+
+    // How many typos a query word may have: longer words tolerate more, short ones at most one.
+    // (length + 1) / 4 is also the largest k for which the trigram filter above can never miss a match.
+    static int allowedEdits(int length, int maxEdits) {
+        return Math.min(maxEdits, (length + 1) / 4);
+    }
+
+    // Lowercased name → distinct words (letters and digits), in order of appearance
+    static Set<String> words(String normalized) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // ===========================
+    // Optimal string alignment distance (Levenshtein + swap of two neighbouring characters), bounded by max
+    // Only the diagonal band |i - j| <= max is computed, and the loop stops as soon as a whole row is above max,
+    // so checking a word that is far away costs a few steps instead of the full length × length table.
+    // Returns max + 1 when the distance is larger than max.
+    // ===========================
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int big = max + 1;
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= max ? j : big;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            Arrays.fill(current, big);
+            current[0] = i <= max ? i : big;
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = Math.min(value, big);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return big;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], big);
+    }
+
+    private int termId(String word) {
+        Integer existing = termIds.get(word);
+        if (existing != null) {
+            return existing;
+        }
+        int id = termCount++;
+        if (id == terms.length) {
+            terms = Arrays.copyOf(terms, id * 2);
+            postings = Arrays.copyOf(postings, id * 2);
+        }
+        terms[id] = word;
+        postings[id] = new PostingList();
+        termIds.put(word, id);
+        for (String gram : paddedGrams(word)) {
+            termGrams.computeIfAbsent(gram, g -> new PostingList()).add(id);
+        }
+        return id;
+    }
+
+    // "nike" → "$$nike$$" → "$$n", "$ni", "nik", "ike", "ke$", "e$$": the padding gives short words enough grams
+    static Set<String> paddedGrams(String word) {
+        String padded = "$$" + word + "$$";
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + InvertedIndexSearchEngine.GRAM <= padded.length(); i++) {
+            result.add(padded.substring(i, i + InvertedIndexSearchEngine.GRAM));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package com.retail.product_search_service.service.search;
+
+//Keeps the k best (highest score) ordinals seen so far, for "give me the 20 best of 300,000 matches".
+//A min-heap of size k stored in two primitive arrays (no boxing, no Comparator objects):
+//the root is the WORST result kept so far, so a new candidate only has to beat the root to get in.
+//  offer() → O(1) when the candidate is not good enough (the common case), O(log k) otherwise
+//  total   → O(n log k) for n candidates instead of O(n log n) for sorting them all, and only k entries in memory
+//Equal scores are ordered by ordinal (= id order), so results are deterministic.
+final class TopK {
+
+    private final int k;
+    private final double[] scores;
+    private final int[] ordinals;
+    private int size;
+
+    TopK(int k) {
+        this.k = Math.max(0, k);
+        this.scores = new double[this.k];
+        this.ordinals = new int[this.k];
+    }
+
+    void offer(int ordinal, double score) {
+        if (size < k) {
+            scores[size] = score;
+            ordinals[size] = ordinal;
+            siftUp(size++);
+        } else if (k > 0 && worse(scores[0], ordinals[0], score, ordinal)) {
+            scores[0] = score;
+            ordinals[0] = ordinal;
+            siftDown(0);
+        }
+    }
+
+    // The kept ordinals, best first. Empties the heap.
+    int[] drain() {
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ordinals[0];
+            size--;
+            scores[0] = scores[size];
+            ordinals[0] = ordinals[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    // true when (scoreA, ordinalA) ranks below (scoreB, ordinalB)
+    private static boolean worse(double scoreA, int ordinalA, double scoreB, int ordinalB) {
+        return scoreA < scoreB || (scoreA == scoreB && ordinalA > ordinalB);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(scores[i], ordinals[i], scores[parent], ordinals[parent])) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int worst = right < size && worse(scores[right], ordinals[right], scores[left], ordinals[left]) ? right : left;
+            if (!worse(scores[worst], ordinals[worst], scores[i], ordinals[i])) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int ordinal = ordinals[a];
+        ordinals[a] = ordinals[b];
+        ordinals[b] = ordinal;
+    }
+}
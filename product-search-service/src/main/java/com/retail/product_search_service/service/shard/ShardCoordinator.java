@@ -0,0 +1,410 @@
+package com.retail.product_search_service.service.shard;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.ProductSummary;
+import com.retail.product_search_service.service.AsyncProductService;
+import com.retail.product_search_service.service.BulkIngestResult;
+import com.retail.product_search_service.service.BulkIngestResult.RowError;
+import com.retail.product_search_service.service.KeysetPage;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.ProductService;
+import com.retail.product_search_service.service.SearchSort;
+
+//Coordinator side of a sharded deployment (ShardRing): any instance can answer for the whole catalog.
+//search()  → scatter-gather:
+//  1. the same search is sent to every shard at once: this instance's own shard through AsyncProductService
+//     (bounded executor, deadline), the others through their shard-local GET /products/search over HTTP
+//  2. every shard gets the same deadline (client's ?timeoutMs=, capped at product.async.max-timeout-ms, or
+//     product.shard.timeout-ms); a shard that fails or misses it is left out and reported in failedShards
+//  3. each shard returns its own top `limit` in the requested order, so the global top `limit` is among those
+//     N * limit rows: they are merged in that order and cut to `limit` (no shard sends more than a page)
+//  RELEVANCE: BM25 scores are computed per shard (word statistics of its own products) and not sent, so those
+//  lists are interleaved by rank instead (every shard's best, then every second best, ...; best rated first
+//  within a rank). With ids spread evenly by the ring, the shards' statistics are close to each other.
+//getProductById() / saveProduct() → routed to the shard owning the id (new products, id 0, are created here:
+//  ShardedIdGenerator gives them an id this shard owns).
+//saveAll() (POST /products/bulk) → new rows (id 0) and rows this shard owns are saved here; rows with the id of a
+//  product another shard owns are sent to that shard (its POST /products/bulk), all shards at once. Row numbers in
+//  the report stay those of the request; the rows of a shard that cannot be reached are reported as rejected.
+//getProductsByIds() → the ids are grouped by shard, every shard gets one batch (its POST /products/batch-get),
+//  all at once, and the answers are put back in the order asked for.
+//Not sharded (no product.shard.nodes): every call goes straight to the local ProductService, one "shard".
+@Service
+public class ShardCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardCoordinator.class);
+
+    private final ShardRing ring;
+    private final ProductService productService;
+    private final AsyncProductService asyncProductService;
+    private final ObjectMapper objectMapper;
+    private final long defaultTimeoutMs;
+    private final long maxTimeoutMs;
+    private final HttpClient http;
+
+    @Autowired
+    public ShardCoordinator(ShardRing ring,
+                            ProductService productService,
+                            AsyncProductService asyncProductService,
+                            ObjectMapper objectMapper,
+                            @Value("${product.shard.timeout-ms:1000}") long defaultTimeoutMs,
+                            @Value("${product.async.max-timeout-ms:10000}") long maxTimeoutMs) {
+        this.ring = ring;
+        this.productService = productService;
+        this.asyncProductService = asyncProductService;
+        this.objectMapper = objectMapper;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+        // HTTP/1.1 keep-alive connections, no HTTP/2 upgrade attempt on every new connection
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(defaultTimeoutMs))
+                .build();
+    }
+
+    // ===========================
+    // Scatter-gather search over every shard, completed when the last shard answered, failed or hit the deadline
+    // sort = ID → one keyset page (ids > page.afterId() in id order), otherwise the page.limit() best in that order
+    // ===========================
+    public CompletableFuture<ShardedResult<ProductSummary>> search(ProductSearchCriteria criteria, SearchSort sort,
+                                                                   KeysetPage page, Duration timeout) {
+        Duration deadline = Duration.ofMillis(timeoutMs(timeout));
+        List<CompletableFuture<List<ProductSummary>>> answers = new ArrayList<>(ring.size());
+        for (int shard = 0; shard < ring.size(); shard++) {
+            if (shard == ring.self()) {
+                answers.add(sort == SearchSort.ID
+                        ? asyncProductService.search(criteria, page, deadline)
+                        : asyncProductService.search(criteria, sort, page.limit(), deadline));
+            } else {
+                answers.add(searchRemote(shard, criteria, sort, page, deadline));
+            }
+        }
+        // handle(): a failed shard completes its slot with null instead of failing the whole search
+        List<CompletableFuture<List<ProductSummary>>> settled = new ArrayList<>(answers.size());
+        for (int shard = 0; shard < answers.size(); shard++) {
+            int position = shard;
+            settled.add(answers.get(shard).handle((items, error) -> {
+                if (error != null) {
+                    log.debug("Shard {} left out of a search: {}", position, error.toString());
+                    return null;
+                }
+                return items;
+            }));
+        }
+        return CompletableFuture.allOf(settled.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<List<ProductSummary>> lists = new ArrayList<>(settled.size());
+            List<Integer> failed = new ArrayList<>();
+            for (int shard = 0; shard < settled.size(); shard++) {
+                List<ProductSummary> items = settled.get(shard).join();
+                if (items == null) {
+                    failed.add(shard);
+                } else {
+                    lists.add(items);
+                }
+            }
+            if (lists.isEmpty()) {
+                throw new ShardsUnavailableException("No shard answered within " + deadline.toMillis() + " ms", null);
+            }
+            return new ShardedResult<>(merge(lists, sort, page.limit()), ring.size(), failed);
+        });
+    }
+
+    // ===========================
+    // Reads / writes by id: on the shard owning the id
+    // ===========================
+    public Product getProductById(Long id) {
+        int shard = ring.shardOf(id);
+        if (shard == ring.self()) {
+            return productService.getProductById(id);
+        }
+        String body = send(shard, HttpRequest.newBuilder(uri(shard, "/products/" + id)).GET());
+        return body.isEmpty() ? null : read(body, Product.class);
+    }
+
+    public List<Product> getProductsByIds(List<Long> ids) {
+        if (!ring.sharded()) {
+            return productService.getProductsByIds(ids);
+        }
+        List<List<Long>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < ring.size(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Long id : ids) {
+            byShard.get(ring.shardOf(id)).add(id);
+        }
+        List<CompletableFuture<String>> remote = new ArrayList<>();
+        for (int shard = 0; shard < ring.size(); shard++) {
+            List<Long> shardIds = byShard.get(shard);
+            remote.add(shard == ring.self() || shardIds.isEmpty() ? null : http.sendAsync(
+                    HttpRequest.newBuilder(uri(shard, "/products/batch-get"))
+                            .timeout(Duration.ofMillis(defaultTimeoutMs))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(shardIds.toString())).build(),
+                    HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new CompletionException(new IOException("HTTP " + response.statusCode()));
+                        }
+                        return response.body();
+                    }));
+        }
+        Map<Long, Product> found = new HashMap<>();
+        for (Product product : productService.getProductsByIds(byShard.get(ring.self()))) {
+            found.put(product.getId(), product);
+        }
+        for (int shard = 0; shard < remote.size(); shard++) {
+            if (remote.get(shard) == null) {
+                continue;
+            }
+            try {
+                for (Product product : read(remote.get(shard).join(), Product[].class)) {
+                    found.put(product.getId(), product);
+                }
+            } catch (CompletionException e) {
+                throw new ShardsUnavailableException("Shard " + shard + " (" + ring.node(shard) + ") failed",
+                        e.getCause());
+            }
+        }
+        List<Product> products = new ArrayList<>(found.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    public Product saveProduct(Product product) {
+        if (product.getId() == 0 || ring.owns(product.getId())) {
+            return productService.saveProduct(product);
+        }
+        int shard = ring.shardOf(product.getId());
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(product);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Product cannot be written as JSON", e);
+        }
+        return read(send(shard, HttpRequest.newBuilder(uri(shard, "/products"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))), Product.class);
+    }
+
+    public BulkIngestResult saveAll(List<Product> products) {
+        if (!ring.sharded()) {
+            return productService.saveAll(products);
+        }
+        // per shard: its rows and their numbers in the request
+        List<List<Product>> rows = new ArrayList<>();
+        List<List<Integer>> rowNumbers = new ArrayList<>();
+        for (int shard = 0; shard < ring.size(); shard++) {
+            rows.add(new ArrayList<>());
+            rowNumbers.add(new ArrayList<>());
+        }
+        for (int row = 0; row < products.size(); row++) {
+            Product product = products.get(row);
+            int shard = product == null || product.getId() == 0 ? ring.self() : ring.shardOf(product.getId());
+            rows.get(shard).add(product);
+            rowNumbers.get(shard).add(row);
+        }
+        List<CompletableFuture<String>> remote = new ArrayList<>();
+        for (int shard = 0; shard < ring.size(); shard++) {
+            List<Product> shardRows = rows.get(shard);
+            if (shard == ring.self() || shardRows.isEmpty()) {
+                remote.add(null);
+                continue;
+            }
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(shardRows);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Products cannot be written as JSON", e);
+            }
+            // the owner writes the rows in JDBC batches: 1 ms per row on top of the usual deadline
+            remote.add(http.sendAsync(HttpRequest.newBuilder(uri(shard, "/products/bulk"))
+                    .timeout(Duration.ofMillis(defaultTimeoutMs + shardRows.size()))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json)).build(),
+                    HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new CompletionException(new IOException("HTTP " + response.statusCode()));
+                        }
+                        return response.body();
+                    }));
+        }
+        BulkIngestResult total = renumber(productService.saveAll(rows.get(ring.self())),
+                rowNumbers.get(ring.self()));
+        for (int shard = 0; shard < remote.size(); shard++) {
+            if (remote.get(shard) == null) {
+                continue;
+            }
+            List<Integer> numbers = rowNumbers.get(shard);
+            BulkIngestResult result;
+            try {
+                result = renumber(read(remote.get(shard).join(), BulkIngestResult.class), numbers);
+            } catch (CompletionException | UncheckedIOException e) {
+                log.warn("Bulk rows for shard {} ({}) not saved", shard, ring.node(shard), e);
+                List<RowError> errors = new ArrayList<>(numbers.size());
+                for (Integer row : numbers) {
+                    errors.add(new RowError(row, "Shard " + shard + " (" + ring.node(shard) + ") unavailable"));
+                }
+                result = new BulkIngestResult(numbers.size(), 0, numbers.size(), errors);
+            }
+            total = total.merge(result, 0);
+        }
+        total.errors().sort(Comparator.comparingInt(RowError::row));
+        return total;
+    }
+
+    // Row numbers of a shard's report (positions in the rows it was sent) back to positions in the whole request
+    private static BulkIngestResult renumber(BulkIngestResult result, List<Integer> rowNumbers) {
+        List<RowError> errors = new ArrayList<>(result.errors().size());
+        for (RowError error : result.errors()) {
+            errors.add(new RowError(rowNumbers.get(error.row()), error.message()));
+        }
+        return new BulkIngestResult(result.received(), result.saved(), result.rejected(), errors);
+    }
+
+    // The client's timeout within (0, max-timeout-ms], or product.shard.timeout-ms when it sent none
+    private long timeoutMs(Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            return defaultTimeoutMs;
+        }
+        return Math.min(timeout.toMillis(), maxTimeoutMs);
+    }
+
+    // ===========================
+    // One remote shard: its shard-local GET /products/search with the same filters, sort and page
+    // ===========================
+    private CompletableFuture<List<ProductSummary>> searchRemote(int shard, ProductSearchCriteria criteria,
+                                                                 SearchSort sort, KeysetPage page, Duration deadline) {
+        StringBuilder query = new StringBuilder("/products/search?sort=").append(sort.name().toLowerCase())
+                .append("&after=").append(page.afterId())
+                .append("&limit=").append(page.limit());
+        parameter(query, "name", criteria.name());
+        parameter(query, "category", criteria.category());
+        parameter(query, "brand", criteria.brand());
+        parameter(query, "minPrice", criteria.minPrice());
+        parameter(query, "maxPrice", criteria.maxPrice());
+        parameter(query, "minRating", criteria.minRating());
+        HttpRequest request = HttpRequest.newBuilder(uri(shard, query.toString())).timeout(deadline).GET().build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new CompletionException(new IOException("HTTP " + response.statusCode()));
+            }
+            return Arrays.asList(read(response.body(), ProductSummary[].class));
+        });
+    }
+
+    private static void parameter(StringBuilder query, String name, Object value) {
+        if (value != null) {
+            query.append('&').append(name).append('=')
+                    .append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+        }
+    }
+
+    // Blocking call to one shard (reads / writes by id), with the default deadline; body "" = no product
+    private String send(int shard, HttpRequest.Builder request) {
+        try {
+            HttpResponse<String> response = http.send(request.timeout(Duration.ofMillis(defaultTimeoutMs)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new ShardsUnavailableException("Shard " + shard + " (" + ring.node(shard) + ") failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardsUnavailableException("Interrupted while calling shard " + shard, e);
+        }
+    }
+
+    private URI uri(int shard, String path) {
+        return URI.create(ring.node(shard) + path);
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ===========================
+    // Merge of the shards' lists into the first `limit` rows of the requested order
+    // Every list is already in that order and at most `limit` long: N * limit rows are sorted, the rest never sent.
+    // Ties are broken by id, as the search engine does within one shard.
+    // ===========================
+    static List<ProductSummary> merge(List<List<ProductSummary>> lists, SearchSort sort, int limit) {
+        List<ProductSummary> all = new ArrayList<>();
+        if (sort == SearchSort.RELEVANCE) {
+            // rank by rank: the r-th best of every shard, best rated first among them
+            int longest = lists.stream().mapToInt(List::size).max().orElse(0);
+            for (int rank = 0; rank < longest && all.size() < limit; rank++) {
+                List<ProductSummary> sameRank = new ArrayList<>();
+                for (List<ProductSummary> list : lists) {
+                    if (rank < list.size()) {
+                        sameRank.add(list.get(rank));
+                    }
+                }
+                sameRank.sort(order(SearchSort.RATING));
+                all.addAll(sameRank);
+            }
+        } else {
+            for (List<ProductSummary> list : lists) {
+                all.addAll(list);
+            }
+            all.sort(order(sort));
+        }
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    // Same orders as the search engine's TopK scores: missing rating / price last, then lowest id first
+    private static Comparator<ProductSummary> order(SearchSort sort) {
+        Comparator<ProductSummary> byId = Comparator.comparingLong(ProductSummary::id);
+        return switch (sort) {
+            case ID, RELEVANCE -> byId;
+            case RATING -> Comparator.comparingDouble((ProductSummary p) -> -orLowest(p.rating())).thenComparing(byId);
+            case PRICE_ASC -> Comparator.comparingDouble((ProductSummary p) -> -orLowest(negate(p.price())))
+                    .thenComparing(byId);
+            case PRICE_DESC -> Comparator.comparingDouble((ProductSummary p) -> -orLowest(p.price()))
+                    .thenComparing(byId);
+        };
+    }
+
+    private static double orLowest(Double value) {
+        return value == null || value.isNaN() ? Double.NEGATIVE_INFINITY : value;
+    }
+
+    private static Double negate(Double value) {
+        return value == null ? null : -value;
+    }
+}
@@ -0,0 +1,142 @@
+package com.retail.product_search_service.service.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+//Which instance (shard) of a sharded deployment holds which product: consistent hashing of Product.id.
+//  product.shard.nodes = base URLs of every instance, the same list in the same order on all of them
+//                        (empty = not sharded, this instance holds the whole catalog)
+//  product.shard.self  = position of this instance in that list
+//The ring: every shard is placed at product.shard.virtual-nodes points of the 64-bit hash space (hash of
+//"<url>#<n>"), a product belongs to the first point at or after hash(id), wrapping around.
+//  - many points per shard → each one gets close to 1/N of the ids, whatever the ids look like
+//  - adding / removing a shard only moves the ids between its points and their neighbours (~1/N of the catalog),
+//    the other shards keep theirs (a plain id % N would move almost every product)
+//Moving the products of a changed ring is not done here: a new ring starts with empty shards (re-ingest).
+//Also handed to Hibernate (HibernatePropertiesCustomizer, key SETTING) for ShardedIdGenerator, which only gives new
+//products ids this shard owns: ids stay unique across the shards and every product lives where the ring says.
+@Component
+public class ShardRing implements HibernatePropertiesCustomizer {
+
+    // Key of this ring in the Hibernate settings
+    public static final String SETTING = "product.shard.ring";
+
+    private final List<String> nodes;
+    private final int self;
+    // Points of the ring, sorted by hash; owners[i] = shard of points[i]
+    private final long[] points;
+    private final int[] owners;
+
+    @Autowired
+    public ShardRing(@Value("${product.shard.nodes:}") String nodes,
+                     @Value("${product.shard.self:0}") int self,
+                     @Value("${product.shard.virtual-nodes:128}") int virtualNodes) {
+        List<String> urls = new ArrayList<>();
+        for (String url : nodes.split(",")) {
+            if (!url.isBlank()) {
+                urls.add(url.trim().replaceAll("/+$", ""));
+            }
+        }
+        if (!urls.isEmpty() && (self < 0 || self >= urls.size())) {
+            throw new IllegalArgumentException("product.shard.self=" + self + " is not a position in product.shard.nodes");
+        }
+        this.nodes = List.copyOf(urls);
+        this.self = urls.isEmpty() ? 0 : self;
+
+        long[] hashes = new long[urls.size() * virtualNodes];
+        int[] shards = new int[hashes.length];
+        for (int shard = 0; shard < urls.size(); shard++) {
+            for (int n = 0; n < virtualNodes; n++) {
+                hashes[shard * virtualNodes + n] = hash(urls.get(shard) + "#" + n);
+                shards[shard * virtualNodes + n] = shard;
+            }
+        }
+        // sort the points by hash, carrying their shard along
+        Integer[] order = new Integer[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(hashes[a], hashes[b]));
+        this.points = new long[hashes.length];
+        this.owners = new int[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = shards[order[i]];
+        }
+    }
+
+    // false = a single instance holding everything (no product.shard.nodes)
+    public boolean sharded() {
+        return !nodes.isEmpty();
+    }
+
+    public int size() {
+        return Math.max(1, nodes.size());
+    }
+
+    public int self() {
+        return self;
+    }
+
+    public String node(int shard) {
+        return nodes.get(shard);
+    }
+
+    // ===========================
+    // Shard of a product id: binary search of the first point >= hash(id) (unsigned), wrapping to the first point
+    // ===========================
+    public int shardOf(long id) {
+        if (points.length == 0) {
+            return 0;
+        }
+        long hash = mix(id);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[mid], hash) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    public boolean owns(long id) {
+        return shardOf(id) == self;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(SETTING, this);
+    }
+
+    // 64-bit FNV-1a of the UTF-8 bytes, then mixed so that similar urls ("...:8081#1", "...:8082#1") spread out
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Finalizer of MurmurHash3 (fmix64): consecutive ids land far apart on the ring
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb1e5a9fe1a85L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,51 @@
+package com.retail.product_search_service.service.shard;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Properties;
+
+import org.hibernate.annotations.IdGeneratorType;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+//Id generator of Product: the product_seq sequence in blocks of 50 (as the plain @SequenceGenerator before),
+//except that in a sharded deployment only ids this shard owns on the ShardRing are handed out; the others are skipped.
+//Every shard has its own database and sequence, so the same numbers come out on every shard, but each shard keeps
+//a different part of them: no id is ever used twice in the cluster, and a product is created where it belongs.
+//About N sequence values are drawn per id with N shards: still one database round trip per 50 values.
+public class ShardedIdGenerator extends SequenceStyleGenerator {
+
+    // Put on the id field instead of @GeneratedValue + @SequenceGenerator
+    @IdGeneratorType(ShardedIdGenerator.class)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.FIELD, ElementType.METHOD})
+    public @interface ShardedSequence {
+    }
+
+    // null when the settings have no ring (e.g. Hibernate used without Spring): every id is kept
+    private ShardRing ring;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.setProperty(SEQUENCE_PARAM, "product_seq");
+        parameters.setProperty(OptimizableGenerator.INCREMENT_PARAM, "50");
+        super.configure(type, parameters, serviceRegistry);
+        Object setting = serviceRegistry.requireService(ConfigurationService.class).getSettings().get(ShardRing.SETTING);
+        ring = setting instanceof ShardRing shardRing ? shardRing : null;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Object id = super.generate(session, object);
+        while (ring != null && !ring.owns(((Number) id).longValue())) {
+            id = super.generate(session, object);
+        }
+        return id;
+    }
+}
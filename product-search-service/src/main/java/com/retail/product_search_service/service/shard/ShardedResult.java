@@ -0,0 +1,13 @@
+package com.retail.product_search_service.service.shard;
+
+import java.util.List;
+
+//Merged answer of a cluster search: the results and which shards are missing from them.
+//failedShards → positions (in product.shard.nodes) of the shards that timed out or failed; their products are
+//               not in `items`, so the answer is partial: complete for the other shards, but maybe not the true top K.
+public record ShardedResult<T>(List<T> items, int shards, List<Integer> failedShards) {
+
+    public boolean partial() {
+        return !failedShards.isEmpty();
+    }
+}
@@ -0,0 +1,15 @@
+package com.retail.product_search_service.service.shard;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown by the ShardCoordinator when no shard answered a cluster search in time, or when the shard owning a product
+//could not be reached for a read / write by id. With some shards answering, a search returns their results instead,
+//flagged as partial (see ShardedResult).
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ShardsUnavailableException extends RuntimeException {
+
+    public ShardsUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.retail.product_search_service.service.write;
+
+//When saveProduct() answers a caller in write-behind mode (product.write-behind.ack)
+//COMMIT  → after the transaction holding the write has committed: same durability as a direct save,
+//          the caller gets the saved product (with its id) and any database error
+//ENQUEUE → as soon as the write is in the queue: fastest, but the write is lost if the process dies before the
+//          next batch commits, and a database error is only logged. Only used for updates (id != 0): a new product
+//          has no id until it is inserted, so inserts always wait for their commit
+public enum WriteAck {
+    COMMIT,
+    ENQUEUE
+}
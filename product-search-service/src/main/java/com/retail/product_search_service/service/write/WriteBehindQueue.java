@@ -0,0 +1,225 @@
+package com.retail.product_search_service.service.write;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.retail.product_search_service.Entity.Product;
+
+//Write-behind mode of saveProduct() (product.write-behind.enabled=true): instead of one transaction and one flush
+//per POST /products, callers drop their write into a queue and ONE background thread commits the queued writes
+//together, in JDBC batches of up to product.write-behind.batch-size.
+//  caller:  save(product) → permit from the Semaphore (backpressure) → ConcurrentLinkedQueue.offer() → unpark writer
+//           → wait for the commit (WriteAck.COMMIT) or return right away (WriteAck.ENQUEUE, updates only)
+//  writer:  poll up to batch-size writes → coalesce by product id (several updates of one product → only the last is
+//           written, every caller of it gets that result) → batchWriter (one transaction) → complete the futures
+//Batching is "as much as is waiting": nothing is delayed on purpose. A lone write is committed right away,
+//under load the queue fills while the previous batch commits and the next batch is bigger.
+//The queue and the permits are lock-free (CAS); a caller only blocks when all queue-capacity permits are taken,
+//for at most enqueue-timeout-ms, then gets WriteQueueFullException (HTTP 503). Permits are returned after the
+//commit, so queue-capacity bounds the queued AND the in-flight writes.
+//If a batch fails (e.g. one row breaks a constraint) its writes are retried one by one, so only the bad write fails.
+//Writes to one product are committed in the order they were queued (single writer thread).
+//close() (on shutdown) stops new writes and commits everything still queued before it returns.
+public class WriteBehindQueue implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    // How long the idle writer sleeps before looking again (a new write wakes it up earlier)
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // One queued write and the future its caller waits on
+    private record PendingWrite(Product product, CompletableFuture<Product> saved) {
+    }
+
+    private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore permits;
+    private final int capacity;
+    private final int batchSize;
+    private final long enqueueTimeoutMs;
+    private final WriteAck ack;
+    private final Function<List<Product>, List<Product>> batchWriter;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // batchWriter: writes the products in one transaction and returns the saved products in the same order
+    public WriteBehindQueue(int capacity, int batchSize, long enqueueTimeoutMs, WriteAck ack,
+                            Function<List<Product>, List<Product>> batchWriter) {
+        this.permits = new Semaphore(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.ack = ack;
+        this.batchWriter = batchWriter;
+        this.writer = new Thread(this::run, "product-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // ===========================
+    // Queue one write and answer according to the ack mode
+    // COMMIT (and every insert): returns the saved product once its batch committed, throws what the database threw
+    // ENQUEUE (updates): returns the product as sent, the write follows with the next batch
+    // ===========================
+    public Product save(Product product) {
+        CompletableFuture<Product> saved = submit(product);
+        if (ack == WriteAck.ENQUEUE && product.getId() != 0) {
+            return product;
+        }
+        try {
+            return saved.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Queue one write; the future completes when the batch holding it has committed (or failed)
+    public CompletableFuture<Product> submit(Product product) {
+        if (closed) {
+            throw new IllegalStateException("Write queue is closed");
+        }
+        try {
+            if (!permits.tryAcquire() && !permits.tryAcquire(enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new WriteQueueFullException(capacity);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteQueueFullException(capacity);
+        }
+        PendingWrite write = new PendingWrite(product, new CompletableFuture<>());
+        queue.offer(write);
+        LockSupport.unpark(writer);
+        if (ack != WriteAck.ENQUEUE || product.getId() == 0) {
+            return write.saved();
+        }
+        // nobody waits for an acknowledged-on-enqueue update: at least tell the log when it is lost
+        write.saved().whenComplete((result, error) -> {
+            if (error != null) {
+                log.warn("Queued update of product {} was not saved", product.getId(), error);
+            }
+        });
+        return write.saved();
+    }
+
+    // Writes queued or being committed right now
+    public int pending() {
+        return capacity - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // a write queued while close() began can arrive after the writer stopped: commit it here
+        List<PendingWrite> taken = new ArrayList<>(batchSize);
+        while (writeNextBatch(taken)) {
+            // until the queue is empty
+        }
+    }
+
+    // ===========================
+    // Writer thread: take what is waiting, commit it, repeat; stops once closed and the queue is empty
+    // ===========================
+    private void run() {
+        List<PendingWrite> taken = new ArrayList<>(batchSize);
+        while (true) {
+            if (!writeNextBatch(taken)) {
+                if (closed) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    // Poll up to batch-size writes and commit them; false when the queue was empty
+    private boolean writeNextBatch(List<PendingWrite> taken) {
+        PendingWrite write = queue.poll();
+        if (write == null) {
+            return false;
+        }
+        do {
+            taken.add(write);
+        } while (taken.size() < batchSize && (write = queue.poll()) != null);
+        try {
+            writeCoalesced(taken);
+        } finally {
+            permits.release(taken.size());
+            taken.clear();
+        }
+        return true;
+    }
+
+    // Several updates of the same product → one row: the last one wins, all their callers get its result
+    private void writeCoalesced(List<PendingWrite> taken) {
+        List<Product> products = new ArrayList<>(taken.size());
+        List<List<CompletableFuture<Product>>> waiting = new ArrayList<>(taken.size());
+        Map<Long, Integer> slotById = new HashMap<>();
+        for (PendingWrite write : taken) {
+            long id = write.product().getId();
+            Integer slot = id == 0 ? null : slotById.putIfAbsent(id, products.size());
+            if (slot == null) {
+                products.add(write.product());
+                waiting.add(new ArrayList<>(1));
+                slot = products.size() - 1;
+            } else {
+                products.set(slot, write.product());
+            }
+            waiting.get(slot).add(write.saved());
+        }
+        if (products.size() > 1) {
+            // persist() gives new products their id even when the transaction then rolls back: remember which were new
+            boolean[] inserts = new boolean[products.size()];
+            for (int i = 0; i < inserts.length; i++) {
+                inserts[i] = products.get(i).getId() == 0;
+            }
+            try {
+                complete(waiting, batchWriter.apply(products));
+                return;
+            } catch (RuntimeException e) {
+                log.debug("Batch of {} writes failed, retrying them one by one", products.size(), e);
+                for (int i = 0; i < inserts.length; i++) {
+                    if (inserts[i]) {
+                        products.get(i).setId(0);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < products.size(); i++) {
+            try {
+                complete(waiting.subList(i, i + 1), batchWriter.apply(List.of(products.get(i))));
+            } catch (RuntimeException e) {
+                for (CompletableFuture<Product> saved : waiting.get(i)) {
+                    saved.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private static void complete(List<List<CompletableFuture<Product>>> waiting, List<Product> saved) {
+        for (int i = 0; i < waiting.size(); i++) {
+            for (CompletableFuture<Product> future : waiting.get(i)) {
+                future.complete(saved.get(i));
+            }
+        }
+    }
+}
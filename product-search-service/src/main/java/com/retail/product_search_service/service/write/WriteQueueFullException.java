@@ -0,0 +1,15 @@
+package com.retail.product_search_service.service.write;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//Thrown by saveProduct() in write-behind mode when the queue stayed full for product.write-behind.enqueue-timeout-ms.
+//This is the backpressure signal: the database is not keeping up, so the client gets 503 and should retry later
+//instead of the server piling up requests (and memory) without limit.
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WriteQueueFullException extends RuntimeException {
+
+    public WriteQueueFullException(int capacity) {
+        super("Write queue is full (" + capacity + " pending writes), try again later");
+    }
+}
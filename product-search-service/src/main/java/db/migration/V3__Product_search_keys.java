@@ -0,0 +1,70 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import com.retail.product_search_service.Entity.SearchKeys;
+
+//Schema version 3: the search key columns of Product (name_key, category_key, brand_key) and their indexes.
+//Written in Java because the existing rows need SearchKeys.normalize(): H2 has LOWER() but nothing that removes
+//accents, and the keys must be exactly what Product stores on new writes.
+//Flyway finds it next to the SQL scripts (classpath:db/migration) and runs it once, in version order.
+//1. add the three columns
+//2. fill them BATCH rows at a time, in id order (keyset: id > last id), one JDBC batch of UPDATEs per page
+//3. index them AFTER the fill (building an index once is cheaper than updating it row by row), and drop the
+//   V2 indexes on name / category / brand: lookups no longer use those columns, the indexes only slowed writes
+public class V3__Product_search_keys extends BaseJavaMigration {
+
+    private static final int BATCH = 1000;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table product add column if not exists name_key varchar(512)");
+            statement.execute("alter table product add column if not exists category_key varchar(512)");
+            statement.execute("alter table product add column if not exists brand_key varchar(512)");
+        }
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "select id, name, category, brand from product where id > ? order by id limit " + BATCH);
+             PreparedStatement update = connection.prepareStatement(
+                     "update product set name_key = ?, category_key = ?, brand_key = ? where id = ?")) {
+            long lastId = Long.MIN_VALUE;
+            int rows;
+            do {
+                rows = 0;
+                select.setLong(1, lastId);
+                try (ResultSet page = select.executeQuery()) {
+                    while (page.next()) {
+                        lastId = page.getLong(1);
+                        update.setString(1, SearchKeys.normalize(page.getString(2)));
+                        update.setString(2, SearchKeys.normalize(page.getString(3)));
+                        update.setString(3, SearchKeys.normalize(page.getString(4)));
+                        update.setLong(4, lastId);
+                        update.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows > 0) {
+                    update.executeBatch();
+                }
+            } while (rows == BATCH);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create index if not exists idx_product_name_key on product (name_key)");
+            statement.execute("create index if not exists idx_product_category_key on product (category_key, id)");
+            statement.execute("create index if not exists idx_product_brand_key on product (brand_key, id)");
+            statement.execute("drop index if exists idx_product_name");
+            statement.execute("drop index if exists idx_product_category");
+            statement.execute("drop index if exists idx_product_brand");
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- Product table as Hibernate maps it (Entity/Product.java), ids from product_seq in blocks of 50
+-- Databases created earlier by ddl-auto=update already have it: Flyway baselines them at version 1 (see application-prod.properties)
+create sequence if not exists product_seq start with 1 increment by 50;
+
+create table if not exists product (
+    id bigint not null,
+    name varchar(255) not null,
+    category varchar(255),
+    brand varchar(255),
+    price double precision,
+    rating double precision,
+    primary key (id)
+);
@@ -0,0 +1,9 @@
+-- Secondary indexes on the searchable columns
+-- name / category / brand: equality and prefix lookups (H2 adds the primary key to every index, so entries are
+-- in (value, id) order, the order of the keyset pages)
+-- price / rating: range filters (price < x, rating >= x)
+create index if not exists idx_product_name on product (name);
+create index if not exists idx_product_category on product (category);
+create index if not exists idx_product_brand on product (brand);
+create index if not exists idx_product_price on product (price);
+create index if not exists idx_product_rating on product (rating);
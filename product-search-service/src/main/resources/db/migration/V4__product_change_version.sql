@@ -0,0 +1,13 @@
+-- Schema version 4: change_version, the polling cursor of the product change feed (ProductChangePoller).
+-- The database assigns it, whoever writes the row (this application, another service, a manual SQL fix):
+--   INSERT → the column default takes the next value of product_change_seq
+--   UPDATE → ON UPDATE takes a new value, unless the statement left every column unchanged
+-- so "change_version > the last value seen" finds every row inserted or updated since (deletes leave no row).
+-- Adding the column fills the existing rows from the sequence as well.
+create sequence if not exists product_change_seq start with 1 increment by 1;
+
+alter table product add column if not exists change_version bigint
+    default next value for product_change_seq on update next value for product_change_seq;
+alter table product alter column change_version set not null;
+
+create index if not exists idx_product_change_version on product (change_version);
@@ -0,0 +1,6 @@
+-- Schema version 5: drop the name_key search key column added by V3, and its index.
+-- Name search never reads the table: it is answered by the search engine, which lowercases and accent-folds names
+-- itself (SearchKeys.normalize), and a LIKE '%x%' could not seek the index anyway. Every insert / update still paid
+-- for the column and its index, so both go. category_key / brand_key stay (equality lookups and keyset pages).
+drop index if exists idx_product_name_key;
+alter table product drop column if exists name_key;
@@ -0,0 +1,383 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.ProductService;
+
+//Open-loop load / soak test of the REST API, used as the before/after benchmark of the Spring profiles.
+//For every profile in load.profiles (default: "default,prod" = application.properties vs application-prod.properties):
+//1. start the app on a free localhost port with its own fresh database, seed load.catalog products (timed)
+//2. send load.rate requests per second for load.warmup seconds (not measured), then for load.duration seconds
+//3. report per endpoint: requests, req/s, error %, p50 / p90 / p99 / p99.9 / max latency,
+//   and for the whole run: GC collections and pause time, heap used and peak heap
+//Open loop: request i is due at start + i / rate whatever happened to the earlier ones, and its latency is measured
+//from that due time, not from when it was actually sent. A stalled server therefore shows up as the full delay of
+//every request that should have been sent meanwhile (no coordinated omission, unlike a closed-loop client that
+//simply sends less while the server is slow).
+//The endpoint of each request is drawn from load.mix (weights). Client and server share this JVM: GC and heap
+//figures include the client's (small and the same for every profile).
+//Settings are system properties, for example:
+//mvn -Ploadtest test -Dtest=ApiLoadTest -Dload.rate=2000 -Dload.duration=600 -Dload.profiles=prod   (10 min soak)
+//The report is printed and written to target/load-test-report.txt.
+@Tag("load")
+class ApiLoadTest {
+
+    private static final String PROFILES = System.getProperty("load.profiles", "default,prod");
+    // Defaults fit a 1-2 core machine; above the server's capacity latencies grow with every second of the run
+    private static final int RATE = Integer.getInteger("load.rate", 150);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration", 30);
+    private static final int CATALOG_SIZE = Integer.getInteger("load.catalog", 20_000);
+    private static final String MIX = System.getProperty("load.mix",
+            "name=25,category=15,brand=15,combined=15,byId=15,suggest=5,facets=5,save=5");
+    // Requests still waiting for an answer above this are not sent and count as errors (protects the client side)
+    private static final int MAX_IN_FLIGHT = 10_000;
+
+    private static final String[] ADJECTIVES = {"Running", "Leather", "Wireless", "Classic", "Smart", "Cotton",
+            "Gaming", "Travel"};
+    private static final String[] NOUNS = {"Shoes", "Jacket", "Headphones", "Watch", "Bag", "Shirt", "Keyboard",
+            "Bottle"};
+    private static final int CATEGORIES = 20;
+    private static final int BRANDS = 50;
+
+    @Test
+    void profilesUnderOpenLoopLoad() throws Exception {
+        Map<String, Endpoint> mix = parseMix(MIX);
+        List<Run> runs = new ArrayList<>();
+        for (String profile : PROFILES.split(",")) {
+            runs.add(run(profile.trim(), mix));
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Open loop: %d req/s, %d s warm-up, %d s measured, %d products, mix %s%n",
+                RATE, WARMUP_SECONDS, DURATION_SECONDS, CATALOG_SIZE, MIX));
+        for (Run run : runs) {
+            run.print(report);
+        }
+        if (runs.size() > 1) {
+            compare(runs, report);
+        }
+        System.out.println(report);
+        Files.writeString(Path.of("target", "load-test-report.txt"), report);
+
+        for (Run run : runs) {
+            Stats total = run.total();
+            assertTrue(total.count > 0, run.profile + ": no request completed");
+            assertTrue(total.errors <= total.count / 100, run.profile + ": more than 1% errors");
+        }
+    }
+
+    // ===========================
+    // One profile: start, seed, warm up, measure, shut down
+    // ===========================
+    private Run run(String profile, Map<String, Endpoint> mix) throws Exception {
+        Path dataDir = Files.createTempDirectory("load-" + profile);
+        // every profile starts from an empty database: the prod file database lives in a new temporary folder
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--server.port=0",
+                "--spring.profiles.active=" + profile,
+                "--product.data-dir=" + dataDir));
+        if (!profile.contains("prod")) {
+            args.add("--spring.datasource.url=jdbc:h2:mem:load-" + profile);
+        }
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProductSearchServiceApplication.class)
+                .run(args.toArray(new String[0]))) {
+            long seedStart = System.nanoTime();
+            seed(context.getBean(ProductService.class));
+            long seedNanos = System.nanoTime() - seedStart;
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            String baseUrl = "http://localhost:" + port + "/products";
+
+            drive(http, baseUrl, mix, WARMUP_SECONDS, new Run(profile, mix.keySet(), 0));
+            Run measured = new Run(profile, mix.keySet(), seedNanos);
+            measured.startJvmStats();
+            drive(http, baseUrl, mix, DURATION_SECONDS, measured);
+            measured.stopJvmStats();
+            return measured;
+        }
+    }
+
+    private static void seed(ProductService productService) {
+        List<Product> products = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            products.add(product(i));
+        }
+        productService.saveAll(products);
+    }
+
+    private static Product product(int i) {
+        return new Product(0L, ADJECTIVES[i % ADJECTIVES.length] + " " + NOUNS[(i / ADJECTIVES.length) % NOUNS.length]
+                + " " + i, "Category " + (i % CATEGORIES), "Brand " + (i % BRANDS), 10.0 + i % 10_000, 1.0 + i % 5);
+    }
+
+    // ===========================
+    // Fixed arrival rate: one scheduler thread sends request i at start + i * interval (async, never waits for
+    // answers); each answer records now - due time under its endpoint
+    // ===========================
+    private static void drive(HttpClient http, String baseUrl, Map<String, Endpoint> mix, int seconds, Run run)
+            throws InterruptedException {
+        List<Endpoint> endpoints = new ArrayList<>(mix.values());
+        int totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+        long interval = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long total = (long) RATE * seconds;
+        AtomicInteger inFlight = new AtomicInteger();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long due = start + i * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = pick(endpoints, random.nextInt(totalWeight));
+            Stats stats = run.stats.get(endpoint.name());
+            if (inFlight.get() >= MAX_IN_FLIGHT) {
+                stats.record(System.nanoTime() - due, false);
+                run.firstError(endpoint.name() + ": not sent, " + MAX_IN_FLIGHT + " requests already waiting");
+                continue;
+            }
+            inFlight.incrementAndGet();
+            http.sendAsync(endpoint.request(baseUrl, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        stats.record(System.nanoTime() - due, error == null && response.statusCode() < 400);
+                        if (error != null || response.statusCode() >= 400) {
+                            run.firstError(endpoint.name() + ": " + (error != null ? error : "HTTP " + response.statusCode()));
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+        // let the last requests finish (they still count: they were due inside the window)
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        run.elapsedNanos = System.nanoTime() - start;
+    }
+
+    private static Endpoint pick(List<Endpoint> endpoints, int ticket) {
+        for (Endpoint endpoint : endpoints) {
+            ticket -= endpoint.weight();
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    // ===========================
+    // Endpoint mix: "name=25,category=15,..." → the ProductController request of each name
+    // ===========================
+    private static Map<String, Endpoint> parseMix(String mix) {
+        Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] nameAndWeight = part.trim().split("=");
+            String name = nameAndWeight[0];
+            endpoints.put(name, new Endpoint(name, Integer.parseInt(nameAndWeight[1])));
+        }
+        return endpoints;
+    }
+
+    private record Endpoint(String name, int weight) {
+
+        HttpRequest request(String baseUrl, ThreadLocalRandom random) {
+            String word = random.nextBoolean() ? ADJECTIVES[random.nextInt(ADJECTIVES.length)]
+                    : NOUNS[random.nextInt(NOUNS.length)];
+            String category = "Category%20" + random.nextInt(CATEGORIES);
+            String brand = "Brand%20" + random.nextInt(BRANDS);
+            String path = switch (name) {
+                case "name" -> "/search/name?name=" + word + "&limit=50";
+                case "category" -> "/search/category?category=" + category + "&limit=50";
+                case "brand" -> "/search/brand?brand=" + brand + "&limit=50";
+                case "combined" -> "/search?category=" + category + "&maxPrice=" + random.nextInt(1_000, 9_000)
+                        + "&minRating=3&limit=50";
+                case "byId" -> "/" + (1 + random.nextInt(CATALOG_SIZE));
+                case "suggest" -> "/suggest?prefix=" + word.substring(0, 3).toLowerCase();
+                case "facets" -> "/facets?category=" + category;
+                case "save" -> "";
+                default -> throw new IllegalArgumentException("Unknown endpoint in load.mix: " + name);
+            };
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30));
+            if (name.equals("save")) {
+                Product product = product(random.nextInt(CATALOG_SIZE));
+                String json = "{\"name\":\"" + product.getName() + "\",\"category\":\"" + product.getCategory()
+                        + "\",\"brand\":\"" + product.getBrand() + "\",\"price\":" + product.getPrice()
+                        + ",\"rating\":" + product.getRating() + "}";
+                return builder.header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8)).build();
+            }
+            return builder.build();
+        }
+    }
+
+    // Latencies of one endpoint in nanoseconds (answers arrive on HttpClient threads, hence synchronized)
+    private static final class Stats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        synchronized void add(Stats other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        synchronized double percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(count - 1, Math.ceil(p * count) - 1)] / 1e6;
+        }
+    }
+
+    // ===========================
+    // Results of one profile + the JVM's GC and heap figures over the measured window
+    // ===========================
+    private static final class Run {
+        private final String profile;
+        private final Map<String, Stats> stats = new LinkedHashMap<>();
+        private final long seedNanos;
+        private long elapsedNanos;
+        private long gcCount;
+        private long gcMillis;
+        private long heapUsedBytes;
+        private long heapPeakBytes;
+        private volatile String firstError;
+
+        Run(String profile, Iterable<String> endpoints, long seedNanos) {
+            this.profile = profile;
+            this.seedNanos = seedNanos;
+            for (String endpoint : endpoints) {
+                stats.put(endpoint, new Stats());
+            }
+        }
+
+        void startJvmStats() {
+            System.gc();
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount -= gc.getCollectionCount();
+                gcMillis -= gc.getCollectionTime();
+            }
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+        }
+
+        void stopJvmStats() {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += gc.getCollectionCount();
+                gcMillis += gc.getCollectionTime();
+            }
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPeakBytes += pool.getPeakUsage().getUsed();
+                }
+            }
+            heapUsedBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+
+        void firstError(String error) {
+            if (firstError == null) {
+                firstError = error;
+            }
+        }
+
+        Stats total() {
+            Stats total = new Stats();
+            stats.values().forEach(total::add);
+            return total;
+        }
+
+        double throughput(Stats endpoint) {
+            return endpoint.count * 1e9 / elapsedNanos;
+        }
+
+        void print(StringBuilder out) {
+            out.append(String.format("%nProfile %s (seed: %d products in %d ms)%n", profile, CATALOG_SIZE,
+                    TimeUnit.NANOSECONDS.toMillis(seedNanos)));
+            out.append(String.format("%-10s %9s %9s %8s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "req/s",
+                    "errors%", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+            stats.forEach((name, endpoint) -> line(out, name, endpoint));
+            line(out, "total", total());
+            out.append(String.format("GC: %d collections, %d ms paused (%.2f%% of the run); heap used %d MB, peak %d MB%n",
+                    gcCount, gcMillis, gcMillis * 100.0 / TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    heapUsedBytes >> 20, heapPeakBytes >> 20));
+            if (firstError != null) {
+                out.append("First error: ").append(firstError).append(System.lineSeparator());
+            }
+        }
+
+        private void line(StringBuilder out, String name, Stats endpoint) {
+            out.append(String.format("%-10s %9d %9.0f %8.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, endpoint.count,
+                    throughput(endpoint), endpoint.count == 0 ? 0 : endpoint.errors * 100.0 / endpoint.count,
+                    endpoint.percentile(0.50), endpoint.percentile(0.90), endpoint.percentile(0.99),
+                    endpoint.percentile(0.999), endpoint.percentile(1.0)));
+        }
+    }
+
+    // Before/after: p50 and p99 of every later profile against the first one
+    private static void compare(List<Run> runs, StringBuilder out) {
+        Run before = runs.get(0);
+        for (Run after : runs.subList(1, runs.size())) {
+            out.append(String.format("%n%s → %s%n", before.profile, after.profile));
+            out.append(String.format("%-10s %12s %12s %8s %12s %12s %8s%n", "endpoint", "p50 before", "p50 after",
+                    "speedup", "p99 before", "p99 after", "speedup"));
+            Map<String, Stats> afterStats = new LinkedHashMap<>(after.stats);
+            afterStats.put("total", after.total());
+            Map<String, Stats> beforeStats = new LinkedHashMap<>(before.stats);
+            beforeStats.put("total", before.total());
+            beforeStats.forEach((name, was) -> {
+                Stats now = afterStats.get(name);
+                if (now != null) {
+                    out.append(String.format("%-10s %12.2f %12.2f %7.1fx %12.2f %12.2f %7.1fx%n", name,
+                            was.percentile(0.50), now.percentile(0.50), was.percentile(0.50) / now.percentile(0.50),
+                            was.percentile(0.99), now.percentile(0.99), was.percentile(0.99) / now.percentile(0.99)));
+                }
+            });
+            out.append(String.format("seed: %d ms → %d ms%n", TimeUnit.NANOSECONDS.toMillis(before.seedNanos),
+                    TimeUnit.NANOSECONDS.toMillis(after.seedNanos)));
+        }
+    }
+}
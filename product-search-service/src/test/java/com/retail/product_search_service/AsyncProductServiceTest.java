@@ -0,0 +1,138 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.retail.product_search_service.Entity.ProductSummary;
+import com.retail.product_search_service.service.AsyncProductServiceImpl;
+import com.retail.product_search_service.service.KeysetPage;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.ProductService;
+import com.retail.product_search_service.service.SearchRejectedException;
+import com.retail.product_search_service.service.SearchTimeoutException;
+
+//Async search API with a Mockito ProductService: the fake searches either answer at once
+//or block until they are interrupted, so deadlines, cancellation and the bounded queue can be checked.
+public class AsyncProductServiceTest {
+
+    private static final KeysetPage PAGE = KeysetPage.first(10);
+    private static final ProductSearchCriteria SHOES = new ProductSearchCriteria("shoes", null, null, null, null, null);
+
+    private final ProductService productService = mock(ProductService.class);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final AtomicBoolean interrupted = new AtomicBoolean();
+    private AsyncProductServiceImpl asyncService;
+
+    @BeforeEach
+    public void setUp() {
+        // 1 thread, 1 queued search, 100 ms default deadline, 500 ms longest deadline
+        asyncService = new AsyncProductServiceImpl(productService, 1, 1, 100, 500);
+        when(productService.searchByName("nike", PAGE)).thenReturn(
+                List.of(new ProductSummary(3L, "Nike Running Shoes", "Nike", 450.0, 4.2)));
+        // a slow engine scan: runs until its thread is interrupted
+        when(productService.search(SHOES, PAGE)).thenAnswer(invocation -> {
+            started.countDown();
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.onSpinWait();
+            }
+            interrupted.set(true);
+            throw new CancellationException("Search cancelled");
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        asyncService.shutdown();
+    }
+
+    @Test
+    public void testResultOfTheSynchronousSearch() throws Exception {
+        List<ProductSummary> result = asyncService.searchByName("nike", PAGE, null).get(1, TimeUnit.SECONDS);
+        assertEquals(1, result.size());
+        assertEquals("Nike Running Shoes", result.get(0).name());
+        verify(productService).searchByName("nike", PAGE);
+    }
+
+    @Test
+    public void testDeadlineFailsAndInterruptsTheSearch() throws Exception {
+        CompletableFuture<List<ProductSummary>> slow = asyncService.search(SHOES, PAGE, Duration.ofMillis(50));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> slow.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(SearchTimeoutException.class, error.getCause());
+        awaitInterrupted();
+        // the thread is free again for the next search
+        assertEquals(1, asyncService.searchByName("nike", PAGE, null).get(1, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    public void testCancelStopsTheSearch() throws Exception {
+        CompletableFuture<List<ProductSummary>> slow = asyncService.search(SHOES, PAGE, Duration.ofSeconds(10));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        slow.cancel(true);
+        awaitInterrupted();
+    }
+
+    @Test
+    public void testFullQueueIsRejectedAndQueuedSearchPastDeadlineNeverRuns() throws Exception {
+        CompletableFuture<List<ProductSummary>> running = asyncService.search(SHOES, PAGE, Duration.ofMillis(300));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        CompletableFuture<List<ProductSummary>> queued = asyncService.searchByName("nike", PAGE, Duration.ofMillis(50));
+        CompletableFuture<List<ProductSummary>> rejected = asyncService.searchByName("nike", PAGE, null);
+        assertTrue(rejected.isCompletedExceptionally());
+        assertInstanceOf(SearchRejectedException.class,
+                assertThrows(ExecutionException.class, rejected::get).getCause());
+
+        assertInstanceOf(SearchTimeoutException.class,
+                assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(SearchTimeoutException.class,
+                assertThrows(ExecutionException.class, () -> running.get(1, TimeUnit.SECONDS)).getCause());
+        awaitInterrupted();
+        Thread.sleep(50);
+        verify(productService, never()).searchByName("nike", PAGE);
+    }
+
+    @Test
+    public void testDatabaseSearchIsNotInterrupted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        when(productService.searchByBrand("Nike", PAGE)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(1, TimeUnit.SECONDS);
+            finished.set(!Thread.currentThread().isInterrupted());
+            return List.of();
+        });
+        CompletableFuture<List<ProductSummary>> brand = asyncService.searchByBrand("Nike", PAGE, Duration.ofMillis(50));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> brand.get(1, TimeUnit.SECONDS));
+        release.countDown();
+        Thread.sleep(50);
+        assertTrue(finished.get());
+    }
+
+    @Test
+    public void testClientTimeoutIsCapped() {
+        assertEquals(100, asyncService.timeoutMs(null));
+        assertEquals(100, asyncService.timeoutMs(Duration.ZERO));
+        assertEquals(200, asyncService.timeoutMs(Duration.ofMillis(200)));
+        assertEquals(500, asyncService.timeoutMs(Duration.ofMinutes(5)));
+    }
+
+    private void awaitInterrupted() throws InterruptedException {
+        for (int i = 0; i < 100 && !interrupted.get(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(interrupted.get());
+    }
+}
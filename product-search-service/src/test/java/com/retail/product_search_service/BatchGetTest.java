@@ -0,0 +1,132 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.BatchTooLargeException;
+import com.retail.product_search_service.service.ProductService;
+import com.retail.product_search_service.service.cache.RequestCoalescer;
+
+//Lookups of many products by id: the RequestCoalescer on its own (concurrent single-key loads → few batch calls),
+//then getProductsByIds() / getProductById() against the database.
+@SpringBootTest(properties = {
+        "product.batch-get.max-ids=50",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"})
+class BatchGetTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void concurrentLoadsShareBatchCalls() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        List<Set<Long>> batches = Collections.synchronizedList(new ArrayList<>());
+        RequestCoalescer<Long, String> coalescer = new RequestCoalescer<>(keys -> {
+            calls.incrementAndGet();
+            batches.add(keys);
+            Map<Long, String> values = new HashMap<>();
+            for (Long key : keys) {
+                if (key % 10 != 0) {
+                    values.put(key, "P" + key);
+                }
+            }
+            return values;
+        }, TimeUnit.MILLISECONDS.toNanos(20), 16);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(40);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (long id = 1; id <= 40; id++) {
+                long key = id;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return coalescer.load(key);
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < results.size(); i++) {
+                long key = i + 1;
+                // every 10th key is "not found"
+                assertEquals(key % 10 == 0 ? null : "P" + key, results.get(i).get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(calls.get() < 40, calls.get() + " batch calls for 40 keys");
+        batches.forEach(batch -> assertTrue(batch.size() <= 16, "batch of " + batch.size()));
+    }
+
+    @Test
+    void batchFailureIsThrownToItsCallers() {
+        RequestCoalescer<Long, String> coalescer = new RequestCoalescer<>(keys -> {
+            throw new IllegalStateException("database down");
+        }, 0, 16);
+        assertEquals("database down", assertThrows(IllegalStateException.class, () -> coalescer.load(1L)).getMessage());
+    }
+
+    @Test
+    void getProductsByIdsAnswersInRequestOrderWithoutUnknownIds() {
+        Long lamp = productService.saveProduct(new Product(0L, "Batch Lamp", "Home", "Ikea", 25.0, 4.0)).getId();
+        Long chair = productService.saveProduct(new Product(0L, "Batch Chair", "Home", "Ikea", 80.0, 4.2)).getId();
+        Long rug = productService.saveProduct(new Product(0L, "Batch Rug", "Home", "Ikea", 120.0, 3.9)).getId();
+        // one of them cached already, the others loaded together
+        productService.getProductById(chair);
+
+        List<Product> products = productService.getProductsByIds(List.of(rug, -1L, lamp, chair, rug));
+        assertEquals(List.of("Batch Rug", "Batch Lamp", "Batch Chair"),
+                products.stream().map(Product::getName).toList());
+        assertTrue(productService.getProductsByIds(List.of()).isEmpty());
+
+        List<Long> tooMany = new ArrayList<>();
+        for (long id = 1; id <= 51; id++) {
+            tooMany.add(id);
+        }
+        assertThrows(BatchTooLargeException.class, () -> productService.getProductsByIds(tooMany));
+    }
+
+    @Test
+    void concurrentGetProductByIdStillAnswersEveryId() throws Exception {
+        List<Product> saved = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            saved.add(new Product(0L, "Coalesced " + i, "Toys", "Lego", 10.0 + i, 4.0));
+        }
+        // saveAll() gives the products their ids without going through the cache
+        productService.saveAll(saved);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(30);
+        try {
+            List<Future<Product>> results = new ArrayList<>();
+            for (Product product : saved) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return productService.getProductById(product.getId());
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < saved.size(); i++) {
+                assertEquals("Coalesced " + i, results.get(i).get(5, TimeUnit.SECONDS).getName());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Repository.Productrepository;
+import com.retail.product_search_service.service.BulkIngestResult;
+import com.retail.product_search_service.service.ProductService;
+
+//Bulk ingestion needs a real database (transactions, sequence ids, JDBC batches), so unlike ProductServiceImplTest
+//this test starts the Spring context with the embedded H2. SQL logging is switched off (20,000 inserts would flood the output).
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+        "product.bulk.batch-size=500"})
+class BulkIngestTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private Productrepository productRepository;
+
+    @Test
+    void saveAllWritesValidRowsAndReportsInvalidOnes() {
+        long before = productRepository.count();
+        List<Product> feed = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String name = i % 5_000 == 0 ? "" : "Bulk Product " + i;
+            feed.add(new Product(0L, name, "Category " + (i % 20), "Brand " + (i % 50), 10.0 + i, 1 + (i % 5) * 1.0));
+        }
+        BulkIngestResult result = productService.saveAll(feed);
+
+        assertEquals(20_000, result.received());
+        assertEquals(19_996, result.saved());
+        assertEquals(4, result.rejected());
+        assertEquals(0, result.errors().get(0).row());
+        assertEquals(5_000, result.errors().get(1).row());
+        assertTrue(result.errors().get(0).message().startsWith("name:"));
+        assertEquals(before + 19_996, productRepository.count());
+        assertEquals(1, productService.searchByName("bulk product 19999").size());
+    }
+}
@@ -0,0 +1,44 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.retail.product_search_service.service.search.ColumnScan;
+
+//Plain JUnit test of the two scan kernels: the Vector API one and the scalar one set exactly the bits a simple
+//loop would, for column lengths around the 64-value word size, with NaN (null) values and open ranges.
+public class ColumnScanTest {
+
+    @Test
+    public void testKernelsMatchSimpleLoop() {
+        Random random = new Random(7);
+        for (int count : new int[] {0, 1, 63, 64, 65, 127, 128, 1000, 4099}) {
+            double[] column = new double[count + 5];
+            for (int i = 0; i < column.length; i++) {
+                column[i] = i % 11 == 0 ? Double.NaN : random.nextInt(100);
+            }
+            double[][] ranges = {{20, 60}, {Double.NEGATIVE_INFINITY, 50}, {50, Double.POSITIVE_INFINITY},
+                    {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY}, {70, 70}};
+            for (double[] range : ranges) {
+                long[] expected = new long[(count + 63) / 64];
+                for (int i = 0; i < count; i++) {
+                    if (column[i] >= range[0] && column[i] < range[1]) {
+                        expected[i / 64] |= 1L << (i % 64);
+                    }
+                }
+                assertArrayEquals(expected, ColumnScan.scalar(column, count, range[0], range[1]));
+                assertArrayEquals(expected, ColumnScan.vectorized(column, count, range[0], range[1]));
+                assertArrayEquals(expected, ColumnScan.scan(column, count, range[0], range[1]));
+            }
+        }
+    }
+
+    @Test
+    public void testVectorApiUsedWhenModuleAdded() {
+        // surefire starts the tests with --add-modules jdk.incubator.vector (pom.xml)
+        assertTrue(ColumnScan.vectorApiAvailable());
+    }
+}
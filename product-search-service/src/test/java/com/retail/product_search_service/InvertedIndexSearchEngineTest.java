@@ -0,0 +1,414 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.ProductFacets;
+import com.retail.product_search_service.service.ProductFacets.Bucket;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.SearchSort;
+import com.retail.product_search_service.service.search.InvertedIndexSearchEngine;
+import com.retail.product_search_service.service.search.NumericField;
+
+//Plain JUnit test (no Mockito, no Spring): the engine has no dependencies, so we build it directly
+//and check that it gives the same answers as LOWER(name) LIKE LOWER('%input%') would.
+public class InvertedIndexSearchEngineTest {
+
+    private InvertedIndexSearchEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        engine = new InvertedIndexSearchEngine();
+        engine.rebuild(Arrays.asList(
+                new Product(3L, "Nike Running Shoes", "Footwear", "Nike", 450.0, 4.2),
+                new Product(1L, "Dell Laptop", "Electronics", "Dell", 55000.0, 4.5),
+                new Product(2L, "Adidas Shoes", "Footwear", "Adidas", 400.0, 4.0)));
+    }
+
+    @Test
+    public void testContainsIgnoreCase() {
+        List<Product> products = engine.searchByName("SHOES");
+        assertEquals(2, products.size());
+        assertEquals(2L, products.get(0).getId());
+        assertEquals(3L, products.get(1).getId());
+    }
+
+    @Test
+    public void testQueryAcrossWords() {
+        assertEquals(1, engine.searchByName("ning sh").size());
+        assertEquals(0, engine.searchByName("shoes nike").size());
+    }
+
+    @Test
+    public void testShortQueryFallsBackToScan() {
+        assertEquals(3, engine.searchByName("").size());
+        assertEquals(1, engine.searchByName("de").size());
+    }
+
+    @Test
+    public void testIndexUpdatesRenamedProduct() {
+        engine.index(new Product(1L, "Dell Monitor", "Electronics", "Dell", 12000.0, 4.1));
+        assertTrue(engine.searchByName("laptop").isEmpty());
+        assertEquals(1, engine.searchByName("monitor").size());
+        assertEquals(3, engine.size());
+    }
+
+    @Test
+    public void testIndexAddsNewProduct() {
+        engine.index(new Product(4L, "Puma Shoes", "Footwear", "Puma", 300.0, 3.9));
+        assertEquals(3, engine.searchByName("shoes").size());
+    }
+
+    @Test
+    public void testCombinedSearch() {
+        List<Product> products = engine.search(new ProductSearchCriteria(null, "footwear", "NIKE", null, 500.0, 4.0));
+        assertEquals(1, products.size());
+        assertEquals(3L, products.get(0).getId());
+    }
+
+    @Test
+    public void testCombinedSearchWithNameAndPriceRange() {
+        assertEquals(1, engine.search(new ProductSearchCriteria("shoes", null, null, 420.0, 500.0, null)).size());
+        assertEquals(0, engine.search(new ProductSearchCriteria("shoes", "Electronics", null, null, null, null)).size());
+    }
+
+    @Test
+    public void testEmptyCriteriaMatchesEverything() {
+        assertEquals(3, engine.search(new ProductSearchCriteria(null, null, null, null, null, null)).size());
+    }
+
+    @Test
+    public void testCombinedSearchSeesCategoryChange() {
+        engine.index(new Product(2L, "Adidas Shoes", "Sportswear", "Adidas", 400.0, 4.0));
+        assertEquals(1, engine.search(new ProductSearchCriteria(null, "footwear", null, null, null, null)).size());
+        assertEquals(1, engine.search(new ProductSearchCriteria(null, "sportswear", null, null, null, null)).size());
+    }
+
+    @Test
+    public void testPriceRangeSortedAscendingAndDescending() {
+        List<Product> cheapest = engine.searchByRange(NumericField.PRICE, 0, 1000, false, 0, 10);
+        assertEquals(Arrays.asList(2L, 3L), ids(cheapest));
+        List<Product> best = engine.searchByRange(NumericField.RATING, 0, Double.POSITIVE_INFINITY, true, 0, 2);
+        assertEquals(Arrays.asList(1L, 3L), ids(best));
+    }
+
+    @Test
+    public void testRangeMinInclusiveMaxExclusive() {
+        assertEquals(Arrays.asList(2L), ids(engine.searchByRange(NumericField.PRICE, 400.0, 450.0, false, 0, 10)));
+        assertEquals(Arrays.asList(3L), ids(engine.searchByRange(NumericField.RATING, 4.2, 4.5, true, 0, 10)));
+    }
+
+    @Test
+    public void testRangeCursorContinuesAfterTies() {
+        engine.index(new Product(4L, "Puma Shoes", "Footwear", "Puma", 400.0, 3.9));
+        List<Product> first = engine.searchByRange(NumericField.PRICE, 0, 1000, false, 0, 1);
+        List<Product> second = engine.searchByRange(NumericField.PRICE, 0, 1000, false, 2L, 1);
+        List<Product> third = engine.searchByRange(NumericField.PRICE, 0, 1000, false, 4L, 5);
+        assertEquals(Arrays.asList(2L), ids(first));
+        assertEquals(Arrays.asList(4L), ids(second));
+        assertEquals(Arrays.asList(3L), ids(third));
+        assertEquals(Arrays.asList(4L, 2L), ids(engine.searchByRange(NumericField.PRICE, 0, 1000, true, 3L, 5)));
+    }
+
+    @Test
+    public void testRangeIndexFollowsPriceChangeAndNull() {
+        engine.index(new Product(1L, "Dell Laptop", "Electronics", "Dell", 350.0, 4.5));
+        engine.index(new Product(2L, "Adidas Shoes", "Footwear", "Adidas", null, 4.0));
+        assertEquals(Arrays.asList(1L, 3L), ids(engine.searchByRange(NumericField.PRICE, 0, 1000, false, 0, 10)));
+        assertEquals(2, engine.search(new ProductSearchCriteria(null, null, null, null, 1000.0, null)).size());
+    }
+
+    @Test
+    public void testBulkIndexKeepsRangesSorted() {
+        List<Product> batch = new ArrayList<>();
+        for (long id = 10; id < 1010; id++) {
+            batch.add(new Product(id, "Item " + id, "Misc", "Brand", (double) (id * 7 % 1000), 3.0));
+        }
+        engine.indexAll(batch);
+        List<Product> all = engine.searchByRange(NumericField.PRICE, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, false, 0, Integer.MAX_VALUE);
+        assertEquals(1003, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getPrice() <= all.get(i).getPrice());
+        }
+    }
+
+    @Test
+    public void testFuzzyNameSearchToleratesTypos() {
+        assertEquals(Arrays.asList(3L), ids(engine.fuzzySearchByName("nkie shoes", 2, 100, 10)));
+        assertEquals(Arrays.asList(2L), ids(engine.fuzzySearchByName("adidsa", 2, 100, 10)));
+        assertEquals(Arrays.asList(1L), ids(engine.fuzzySearchByName("Del Laptpo", 2, 100, 10)));
+        assertTrue(engine.fuzzySearchByName("nkie shoes", 0, 100, 10).isEmpty());
+        assertTrue(engine.fuzzySearchByName("sandals", 2, 100, 10).isEmpty());
+    }
+
+    @Test
+    public void testFuzzyResultsRankedByTypos() {
+        engine.index(new Product(4L, "Shoos Rack", "Home", "Ikea", 30.0, 3.5));
+        List<Product> products = engine.fuzzySearchByName("shoes", 2, 100, 10);
+        assertEquals(Arrays.asList(2L, 3L, 4L), ids(products));
+        assertEquals(Arrays.asList(2L), ids(engine.fuzzySearchByName("shoes", 2, 100, 1)));
+    }
+
+    @Test
+    public void testFuzzySearchFollowsRename() {
+        engine.index(new Product(3L, "Nike Running Socks", "Footwear", "Nike", 450.0, 4.2));
+        assertTrue(engine.fuzzySearchByName("nkie shoes", 2, 100, 10).isEmpty());
+        assertEquals(Arrays.asList(3L), ids(engine.fuzzySearchByName("nkie sokcs", 2, 100, 10)));
+    }
+
+    @Test
+    public void testRelevanceRanksMoreQueryWordsFirst() {
+        ProductSearchCriteria query = new ProductSearchCriteria("nike shoes", null, null, null, null, null);
+        // id order would only match the whole phrase; relevance matches any word and ranks both words first
+        assertTrue(engine.search(query, SearchSort.ID, 10).isEmpty());
+        assertEquals(Arrays.asList(3L, 2L), ids(engine.search(query, SearchSort.RELEVANCE, 10)));
+        assertEquals(Arrays.asList(3L), ids(engine.search(query, SearchSort.RELEVANCE, 1)));
+    }
+
+    @Test
+    public void testRelevanceRatingBoostBreaksTies() {
+        engine.index(new Product(4L, "Puma Shoes", "Footwear", "Puma", 350.0, 4.9));
+        ProductSearchCriteria query = new ProductSearchCriteria("shoes", null, null, null, null, null);
+        // 2 and 4 have equally relevant names, the better rated one wins; 3 has a longer name
+        assertEquals(Arrays.asList(4L, 2L, 3L), ids(engine.search(query, SearchSort.RELEVANCE, 10)));
+    }
+
+    @Test
+    public void testSortedTopKWithFilters() {
+        engine.index(new Product(5L, "Unrated Shoes", "Footwear", "Bata", null, null));
+        ProductSearchCriteria footwear = new ProductSearchCriteria(null, "footwear", null, null, null, null);
+        assertEquals(Arrays.asList(2L, 3L, 5L), ids(engine.search(footwear, SearchSort.PRICE_ASC, 10)));
+        assertEquals(Arrays.asList(3L, 2L, 5L), ids(engine.search(footwear, SearchSort.PRICE_DESC, 10)));
+        assertEquals(Arrays.asList(3L, 2L), ids(engine.search(footwear, SearchSort.RATING, 2)));
+        assertEquals(Arrays.asList(1L, 2L), ids(engine.search(
+                new ProductSearchCriteria(null, null, null, null, null, null), SearchSort.ID, 2)));
+    }
+
+    @Test
+    public void testTopKMatchesFullSort() {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            products.add(new Product(id, "Item " + id, "Category", "Brand", (double) random.nextInt(500),
+                    random.nextInt(50) / 10.0));
+        }
+        engine.rebuild(products);
+        List<Product> expected = new ArrayList<>(products);
+        expected.sort(Comparator.comparing(Product::getRating).reversed().thenComparing(Product::getId));
+        ProductSearchCriteria all = new ProductSearchCriteria(null, null, null, null, null, null);
+        assertEquals(ids(expected.subList(0, 25)), ids(engine.search(all, SearchSort.RATING, 25)));
+        expected.sort(Comparator.comparing(Product::getPrice).thenComparing(Product::getId));
+        assertEquals(ids(expected.subList(0, 25)), ids(engine.search(all, SearchSort.PRICE_ASC, 25)));
+    }
+
+    @Test
+    public void testFacetCounts() {
+        engine.index(new Product(4L, "Unbranded Socks", null, null, null, null));
+        ProductFacets facets = engine.facets(new ProductSearchCriteria(null, null, null, null, null, null), 1000, 1);
+        assertEquals(4, facets.total());
+        assertEquals(new ArrayList<>(Arrays.asList("Footwear", "Electronics")), new ArrayList<>(facets.categories().keySet()));
+        assertEquals(2, facets.categories().get("Footwear"));
+        assertEquals(new ArrayList<>(Arrays.asList("Adidas", "Dell", "Nike")), new ArrayList<>(facets.brands().keySet()));
+        assertEquals(Arrays.asList(new Bucket(0, 1000, 2), new Bucket(55000, 56000, 1)), facets.price());
+        assertEquals(Arrays.asList(new Bucket(4, 5, 3)), facets.rating());
+
+        ProductFacets footwear = engine.facets(new ProductSearchCriteria(null, "FOOTWEAR", null, null, 420.0, null), 1000, 1);
+        assertEquals(1, footwear.total());
+        assertEquals(Map.of("Footwear", 1), footwear.categories());
+        assertEquals(Map.of("Adidas", 1), footwear.brands());
+    }
+
+    @Test
+    public void testFacetIntervalWidenedWhenTooManyBuckets() {
+        ProductFacets facets = engine.facets(new ProductSearchCriteria(null, null, null, null, null, null), 1, 0.5);
+        assertEquals(100, facets.priceInterval());
+        assertEquals(Arrays.asList(new Bucket(400, 500, 2), new Bucket(55000, 55100, 1)), facets.price());
+        assertEquals(0.5, facets.ratingInterval());
+        assertEquals(Arrays.asList(new Bucket(4, 4.5, 2), new Bucket(4.5, 5, 1)), facets.rating());
+    }
+
+    @Test
+    public void testParallelFacetsMatchSequentialCount() {
+        Random random = new Random(3);
+        List<Product> products = new ArrayList<>();
+        Map<String, Integer> expectedBrands = new LinkedHashMap<>();
+        int[] expectedRatings = new int[5];
+        int expectedTotal = 0;
+        for (long id = 1; id <= 200_000; id++) {
+            String brand = "Brand " + random.nextInt(30);
+            double rating = random.nextInt(50) / 10.0;
+            String category = random.nextBoolean() ? "Even" : "Odd";
+            products.add(new Product(id, "Item " + id, category, brand, 10.0 + random.nextInt(990), rating));
+            if (category.equals("Even") && rating >= 2) {
+                expectedTotal++;
+                expectedBrands.merge(brand, 1, Integer::sum);
+                expectedRatings[(int) rating]++;
+            }
+        }
+        engine.rebuild(products);
+        ProductFacets facets = engine.facets(new ProductSearchCriteria(null, "even", null, null, null, 2.0), 100, 1);
+        assertEquals(expectedTotal, facets.total());
+        assertEquals(expectedBrands, new java.util.HashMap<>(facets.brands()));
+        for (Bucket bucket : facets.rating()) {
+            assertEquals(expectedRatings[(int) bucket.from()], bucket.count());
+        }
+        int priceTotal = 0;
+        for (Bucket bucket : facets.price()) {
+            priceTotal += bucket.count();
+        }
+        assertEquals(expectedTotal, priceTotal);
+    }
+
+    @Test
+    public void testBroadPriceAndRatingScanMatchesNarrowOnes() {
+        Random random = new Random(11);
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 10_001; id++) {
+            // every 7th product has no rating, every 13th no price: never a match
+            products.add(new Product(id, "Item " + id, "Category", "Brand",
+                    id % 13 == 0 ? null : 10.0 + random.nextInt(990), id % 7 == 0 ? null : random.nextInt(50) / 10.0));
+        }
+        engine.rebuild(products);
+        engine.remove(5L);
+        // broad ranges are scanned from the columns, narrow ones listed from the RangeIndex: same answers
+        double[][] ranges = {{100, 900, 1.0}, {500, 501, 1.0}, {100, 900, 4.9}, {10, 20, 4.9}};
+        for (double[] range : ranges) {
+            List<Long> expected = new ArrayList<>();
+            for (Product product : products) {
+                if (product.getId() != 5L && product.getPrice() != null && product.getRating() != null
+                        && product.getPrice() >= range[0] && product.getPrice() < range[1]
+                        && product.getRating() >= range[2]) {
+                    expected.add(product.getId());
+                }
+            }
+            assertEquals(expected, ids(engine.search(
+                    new ProductSearchCriteria(null, null, null, range[0], range[1], range[2]))), Arrays.toString(range));
+        }
+        assertEquals(10_001 - 1 - 10_001 / 13, engine.search(
+                new ProductSearchCriteria(null, null, null, 0.0, null, null)).size());
+    }
+
+    @Test
+    public void testProductsRebuiltFromColumnsKeepSavedValues() {
+        engine.index(new Product(4L, "Puma Sandals", "footwear", null, null, null));
+        engine.index(new Product(5L, null, "FOOTWEAR", "Puma", 99.0, 3.0));
+        List<Product> footwear = engine.search(new ProductSearchCriteria(null, "Footwear", null, null, null, null));
+        assertEquals(Arrays.asList(2L, 3L, 4L, 5L), ids(footwear));
+        Product sandals = footwear.get(2);
+        assertEquals("Puma Sandals", sandals.getName());
+        assertEquals("footwear", sandals.getCategory());
+        assertNull(sandals.getBrand());
+        assertNull(sandals.getPrice());
+        assertNull(sandals.getRating());
+        assertNull(footwear.get(3).getName());
+        assertEquals("FOOTWEAR", footwear.get(3).getCategory());
+        // the facet label stays the first spelling seen
+        assertEquals(Map.of("Footwear", 4, "Electronics", 1), engine.facets(
+                new ProductSearchCriteria(null, null, null, null, null, null), 1000, 1).categories());
+        // results are fresh objects: changing one does not change the engine
+        sandals.setName("Changed");
+        assertEquals("Puma Sandals", engine.searchByName("sandals").get(0).getName());
+    }
+
+    @Test
+    public void testKeysetPageStartsAfterCursor() {
+        engine.index(new Product(7L, "Puma Shoes", "Footwear", "Puma", 300.0, 3.9));
+        ProductSearchCriteria shoes = new ProductSearchCriteria("shoes", null, null, null, null, null);
+        assertEquals(Arrays.asList(2L, 3L), ids(engine.search(shoes, 0, 2)));
+        assertEquals(Arrays.asList(7L), ids(engine.search(shoes, 3, 2)));
+        assertEquals(Arrays.asList(7L), ids(engine.search(shoes, 5, 2)));
+        assertTrue(engine.search(shoes, 7, 2).isEmpty());
+    }
+
+    @Test
+    public void testNonAsciiNamesMatchIgnoringCaseAndAccents() {
+        engine.index(new Product(4L, "Café CRÈME Mug", "Kitchen", "Émile", 250.0, 4.0));
+        assertEquals(Arrays.asList(4L), ids(engine.searchByName("crème")));
+        assertEquals(Arrays.asList(4L), ids(engine.searchByName("ÈME MUG")));
+        assertEquals(Arrays.asList(4L), ids(engine.search(new ProductSearchCriteria("café", "KITCHEN", "émile",
+                null, null, null))));
+        assertEquals("Café CRÈME Mug", engine.searchByName("caf").get(0).getName());
+        // accents are folded like category / brand: "creme" finds "CRÈME", "cafe" finds "Café"
+        assertEquals(Arrays.asList(4L), ids(engine.searchByName("creme")));
+        assertEquals(Arrays.asList(4L), ids(engine.searchByName("CAFE CREME")));
+    }
+
+    @Test
+    public void testManyRenamesKeepNamesIntact() {
+        Random random = new Random(5);
+        String[] names = new String[200];
+        for (int round = 0; round < 20_000; round++) {
+            int id = 1 + random.nextInt(names.length);
+            names[id - 1] = "Item " + id + " version " + round + (random.nextBoolean() ? " Ünïcode" : "");
+            engine.index(new Product((long) id, names[id - 1], "Misc", "Brand", 1.0, 1.0));
+        }
+        for (int id = 1; id <= names.length; id++) {
+            if (names[id - 1] == null) {
+                continue;
+            }
+            List<Product> found = engine.searchByName(names[id - 1].toUpperCase());
+            assertEquals(1, found.size(), names[id - 1]);
+            assertEquals(names[id - 1], found.get(0).getName());
+        }
+    }
+
+    @Test
+    public void testRemovedProductIsInNoSearch() {
+        engine.remove(3L);
+        engine.remove(99L);
+        assertEquals(2, engine.size());
+        assertEquals(Arrays.asList(2L), ids(engine.searchByName("shoes")));
+        assertEquals(Arrays.asList(1L, 2L), ids(engine.searchByName("")));
+        assertEquals(Arrays.asList(1L, 2L), ids(engine.search(new ProductSearchCriteria(null, null, null, null, null, null))));
+        assertTrue(engine.search(new ProductSearchCriteria(null, null, "nike", null, null, null)).isEmpty());
+        assertTrue(engine.fuzzySearchByName("runing", 2, 2000, 10).isEmpty());
+        assertEquals(Arrays.asList(2L), ids(engine.searchByRange(NumericField.PRICE, 0, 1000, false, 0, 10)));
+        assertTrue(engine.findByIds(new long[] {3L}).isEmpty());
+        assertEquals(Arrays.asList(1L, 2L), ids(engine.snapshot()));
+        ProductFacets facets = engine.facets(new ProductSearchCriteria(null, null, null, null, null, null), 1000, 1);
+        assertEquals(2, facets.total());
+        assertFalse(facets.brands().containsKey("Nike"));
+
+        // saved again: back in every search, in its old place in id order
+        engine.index(new Product(3L, "Nike Trail Shoes", "Footwear", "Nike", 500.0, 4.4));
+        assertEquals(3, engine.size());
+        assertEquals(Arrays.asList(2L, 3L), ids(engine.searchByName("shoes")));
+        assertEquals(Arrays.asList(2L, 3L), ids(engine.searchByRange(NumericField.PRICE, 0, 1000, false, 0, 10)));
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(engine.snapshot()));
+    }
+
+    @Test
+    public void testInterruptedSearchIsCancelled() {
+        ProductSearchCriteria shortName = new ProductSearchCriteria("e", "footwear", null, null, 500.0, null);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> engine.searchByName("s"));
+            assertThrows(CancellationException.class, () -> engine.search(shortName));
+            assertThrows(CancellationException.class, () -> engine.facets(shortName, 100, 1));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(2, engine.search(shortName).size());
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        List<Long> ids = new ArrayList<>();
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+}
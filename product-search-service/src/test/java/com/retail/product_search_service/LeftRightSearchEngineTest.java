@@ -0,0 +1,198 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.SearchSort;
+import com.retail.product_search_service.service.search.InvertedIndexSearchEngine;
+import com.retail.product_search_service.service.search.LeftRightSearchEngine;
+import com.retail.product_search_service.service.search.ProductSearchEngine;
+
+//Plain JUnit test of the two-copy engine: searches running during writes see whole batches, both copies end up
+//with every write, and (tagged "load", mvn test -Ploadtest) the read latency stays flat under a sustained write load
+//while the single locked engine's read p99 grows.
+public class LeftRightSearchEngineTest {
+
+    @Test
+    public void testSearchesSeeWholeBatchesWhileWritesGoOn() throws Exception {
+        LeftRightSearchEngine engine = new LeftRightSearchEngine();
+        engine.rebuild(List.of(pair(1L, 0), pair(2L, 0)));
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> problems = new ConcurrentLinkedQueue<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread reader = new Thread(() -> {
+                while (writing.get()) {
+                    // both products are always written in the same indexAll(): same round in every search
+                    List<Product> found = engine.findByIds(new long[] {1L, 2L});
+                    if (found.size() != 2 || !found.get(0).getPrice().equals(found.get(1).getPrice())) {
+                        problems.add(found.toString());
+                    }
+                    List<Product> byName = engine.searchByName("round");
+                    if (byName.size() != 2 || !byName.get(0).getName().equals(byName.get(1).getName())) {
+                        problems.add(byName.toString());
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            int first = w * 10_000;
+            Thread writer = new Thread(() -> {
+                for (int round = first + 1; round <= first + 2_000; round++) {
+                    engine.indexAll(List.of(pair(1L, round), pair(2L, round)));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(problems.isEmpty(), () -> problems.size() + " torn reads, first: " + problems.peek());
+        assertTrue(engine.generation() > 1);
+        assertTrue(engine.generation() <= 4_001);
+
+        // the next write publishes the other copy: it must hold the same catalog
+        List<String> before = rows(engine.snapshot());
+        engine.index(new Product(3L, "Extra", null, null, null, null));
+        List<String> after = rows(engine.snapshot());
+        assertEquals(before, after.subList(0, 2));
+        engine.remove(3L);
+        assertEquals(before, rows(engine.snapshot()));
+        assertEquals(2, engine.size());
+    }
+
+    @Test
+    public void testFailedSnapshotLoadPublishesNothing() {
+        LeftRightSearchEngine engine = new LeftRightSearchEngine();
+        engine.rebuild(List.of(pair(1L, 0)));
+        long generation = engine.generation();
+        assertThrows(IOException.class, () -> engine.loadSnapshot(Path.of("missing.snapshot")));
+        assertEquals(generation, engine.generation());
+        assertEquals(1, engine.size());
+    }
+
+    // ===========================
+    // Read p99 under a sustained write load, single locked engine vs the two-copy engine
+    // 2 searcher threads run ranked searches over 50,000 products as fast as they can: first alone, then while a
+    // writer thread updates 2,000 products per second. The writes cost CPU in both cases (the same on a 1-core
+    // machine), but only the locked engine makes searches wait for a write to finish.
+    // ===========================
+    @Test
+    @Tag("load")
+    public void testReadLatencyUnderWriteLoad() throws Exception {
+        List<Product> catalog = new ArrayList<>();
+        Random random = new Random(11);
+        for (long id = 1; id <= 50_000; id++) {
+            catalog.add(new Product(id, "Item " + random.nextInt(5_000) + " shoes", "Category " + random.nextInt(20),
+                    "Brand " + random.nextInt(100), 1.0 + random.nextInt(10_000), random.nextInt(50) / 10.0));
+        }
+        InvertedIndexSearchEngine locked = new InvertedIndexSearchEngine();
+        locked.rebuild(catalog);
+        LeftRightSearchEngine leftRight = new LeftRightSearchEngine();
+        leftRight.rebuild(catalog);
+
+        double[] lockedIdle = readLatencies(locked, 0);
+        double[] lockedBusy = readLatencies(locked, 2_000);
+        double[] leftRightIdle = readLatencies(leftRight, 0);
+        double[] leftRightBusy = readLatencies(leftRight, 2_000);
+        System.out.printf("%-12s %12s %12s %12s %12s%n", "engine", "idle p50 ms", "idle p99 ms", "writes p50 ms",
+                "writes p99 ms");
+        System.out.printf("%-12s %12.3f %12.3f %12.3f %12.3f%n", "locked", lockedIdle[0], lockedIdle[1],
+                lockedBusy[0], lockedBusy[1]);
+        System.out.printf("%-12s %12.3f %12.3f %12.3f %12.3f%n", "left-right", leftRightIdle[0], leftRightIdle[1],
+                leftRightBusy[0], leftRightBusy[1]);
+
+        // unaffected: within 50 % (+ 1 ms of scheduling noise) of the p99 without writes
+        assertTrue(leftRightBusy[1] <= leftRightIdle[1] * 1.5 + 1.0,
+                () -> "left-right p99 " + leftRightBusy[1] + " ms under writes, " + leftRightIdle[1] + " ms idle");
+    }
+
+    // { p50, p99 } in ms of the searches run during 3 seconds, with `writesPerSecond` updates going on meanwhile
+    private static double[] readLatencies(ProductSearchEngine engine, int writesPerSecond) throws Exception {
+        ProductSearchCriteria shoes = new ProductSearchCriteria("shoes", null, null, null, null, null);
+        for (int i = 0; i < 200; i++) {
+            engine.search(shoes, SearchSort.RATING, 20);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong written = new AtomicLong();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(3);
+            long start = System.nanoTime();
+            while (running.get() && writesPerSecond > 0) {
+                long due = start + written.get() * 1_000_000_000L / writesPerSecond;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    continue;
+                }
+                long id = 1 + random.nextInt(50_000);
+                engine.index(new Product(id, "Item " + random.nextInt(5_000) + " shoes", "Category 1", "Brand 1",
+                        1.0 + random.nextInt(10_000), random.nextInt(50) / 10.0));
+                written.incrementAndGet();
+            }
+        });
+        ConcurrentLinkedQueue<long[]> samples = new ConcurrentLinkedQueue<>();
+        List<Thread> searchers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            Thread searcher = new Thread(() -> {
+                long[] nanos = new long[1 << 20];
+                int n = 0;
+                while (running.get() && n < nanos.length) {
+                    long start = System.nanoTime();
+                    engine.search(shoes, SearchSort.RATING, 20);
+                    nanos[n++] = System.nanoTime() - start;
+                }
+                samples.add(Arrays.copyOf(nanos, n));
+            });
+            searchers.add(searcher);
+        }
+        writer.start();
+        for (Thread searcher : searchers) {
+            searcher.start();
+        }
+        Thread.sleep(3_000);
+        running.set(false);
+        writer.join();
+        for (Thread searcher : searchers) {
+            searcher.join();
+        }
+        long[] all = samples.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new double[] {all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6};
+    }
+
+    private static Product pair(long id, int round) {
+        return new Product(id, "Round " + round, "Test", "Test", (double) round, 1.0);
+    }
+
+    // Product.equals() compares ids only, toString() shows every field
+    private static List<String> rows(List<Product> products) {
+        List<String> rows = new ArrayList<>();
+        for (Product product : products) {
+            rows.add(product.toString());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,76 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.cache.ProductCache;
+
+//Plain JUnit test of the cache on its own: load coalescing and the entry-count bound.
+public class ProductCacheTest {
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        ProductCache cache = new ProductCache(100, 1_000_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Product>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cache.get(1L, id -> {
+                        loads.incrementAndGet();
+                        sleep(100);
+                        return new Product(id, "Laptop", "Electronics", "Dell", 500.0, 4.5);
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Product> result : results) {
+                assertEquals("Laptop", result.get(5, TimeUnit.SECONDS).getName());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testEntryCountBound() {
+        ProductCache cache = new ProductCache(10, 1_000_000);
+        for (long id = 1; id <= 100; id++) {
+            cache.get(id, key -> new Product(key, "P" + key, "C", "B", 1.0, 1.0));
+        }
+        assertTrue(cache.stats().size() <= 10);
+        assertTrue(cache.stats().evictions() >= 90);
+    }
+
+    @Test
+    public void testMissingProductIsNotCached() {
+        ProductCache cache = new ProductCache(10, 1_000_000);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(7L, key -> { loads.incrementAndGet(); return null; });
+        cache.get(7L, key -> { loads.incrementAndGet(); return null; });
+        assertEquals(2, loads.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
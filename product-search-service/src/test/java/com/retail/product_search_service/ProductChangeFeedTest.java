@@ -0,0 +1,203 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Repository.Productrepository;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.ProductService;
+import com.retail.product_search_service.service.feed.ChangeFeedIndexer;
+import com.retail.product_search_service.service.feed.ProductChange;
+import com.retail.product_search_service.service.feed.ProductChangeFeed;
+import com.retail.product_search_service.service.feed.ProductChangePoller;
+import com.retail.product_search_service.service.search.ProductSearchEngine;
+import com.retail.product_search_service.service.search.SnapshotStore;
+
+//Change feed end to end: the feed's ordering on its own, then writes that bypass ProductServiceImpl
+//(repository calls, SQL straight to the database) reaching the search engine and the caches through the
+//entity listener / the poller and the ChangeFeedIndexer. Polling is switched off and poll() called by the test.
+//The restart test starts its own contexts on a file database with a snapshot file, and changes a row while stopped.
+@SpringBootTest(properties = {
+        "product.change-feed.poll-interval-ms=0",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"})
+class ProductChangeFeedTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private Productrepository productRepository;
+
+    @Autowired
+    private ProductSearchEngine searchEngine;
+
+    @Autowired
+    private ProductChangeFeed feed;
+
+    @Autowired
+    private ProductChangePoller poller;
+
+    @Autowired
+    private ChangeFeedIndexer indexer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentPublishersGetOrderedVersionsWithoutGaps() throws Exception {
+        ProductChangeFeed local = new ProductChangeFeed();
+        ConcurrentLinkedQueue<ProductChange> received = new ConcurrentLinkedQueue<>();
+        ProductChangeFeed.Subscription subscription = local.subscribe("test", received::addAll);
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long first = t * 10_000L;
+            Thread publisher = new Thread(() -> {
+                for (long id = first + 1; id <= first + 5_000; id++) {
+                    local.publish(ProductChange.Type.UPSERT, new Product(id, "P" + id, null, null, null, null));
+                }
+            });
+            publisher.start();
+            publishers.add(publisher);
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        assertEquals(20_000, local.version());
+        awaitPosition(subscription::position, 20_000);
+        local.close();
+
+        long expected = 1;
+        long[] lastIdPerPublisher = new long[4];
+        for (ProductChange change : received) {
+            assertEquals(expected++, change.version());
+            // each publisher's own changes stay in the order it published them
+            int publisher = (int) (change.productId() / 10_000);
+            assertTrue(change.productId() > lastIdPerPublisher[publisher]);
+            lastIdPerPublisher[publisher] = change.productId();
+        }
+        assertEquals(20_001, expected);
+    }
+
+    @Test
+    void repositoryWritesReachTheSearchEngine() throws Exception {
+        Product saved = productRepository.save(new Product(0L, "Feedtest Kettle", "Kitchen", "Feedbrand", 30.0, 4.0));
+        awaitIndexed();
+        assertEquals(1, searchEngine.searchByName("feedtest kettle").size());
+
+        saved.setPrice(35.0);
+        productRepository.save(saved);
+        awaitIndexed();
+        assertEquals(35.0, searchEngine.findByIds(new long[] {saved.getId()}).get(0).getPrice());
+        assertEquals(35.0, productService.getProductById(saved.getId()).getPrice());
+
+        productRepository.deleteById(saved.getId());
+        awaitIndexed();
+        assertTrue(searchEngine.searchByName("feedtest kettle").isEmpty());
+        assertTrue(searchEngine.search(new ProductSearchCriteria(null, null, "feedbrand", null, null, null)).isEmpty());
+        assertNull(productService.getProductById(saved.getId()));
+    }
+
+    @Test
+    void sqlWritesAreFoundByThePoller() throws Exception {
+        Product saved = productService.saveProduct(new Product(0L, "Polltest Lamp", "Home", "Pollbrand", 20.0, 3.0));
+        poller.poll();
+        // the product cache holds the row as saved
+        assertEquals(20.0, productService.getProductById(saved.getId()).getPrice());
+
+        jdbcTemplate.update("update product set price = 25, name = 'Polltest Desk Lamp' where id = ?", saved.getId());
+        jdbcTemplate.update("insert into product (id, name, category, brand, price, rating, category_key, brand_key)"
+                + " values (?, 'Polltest Shade', 'Home', 'Pollbrand', 5, 2, 'home', 'pollbrand')", saved.getId() + 1_000_000);
+        assertTrue(searchEngine.searchByName("polltest desk").isEmpty());
+
+        assertTrue(poller.poll() >= 2);
+        awaitIndexed();
+        assertEquals(1, searchEngine.searchByName("polltest desk").size());
+        assertEquals(25.0, productService.getProductById(saved.getId()).getPrice());
+        assertEquals(2, productService.search(new ProductSearchCriteria("polltest", null, null, null, null, null)).size());
+
+        // nothing changed since: nothing published again
+        assertEquals(0, poller.poll());
+    }
+
+    @Test
+    void rowUpdatedWhileStoppedIsNotHiddenByTheSnapshot(@TempDir Path directory) throws Exception {
+        String url = "jdbc:h2:file:" + directory.resolve("products");
+        String snapshot = directory.resolve("search-engine.snapshot").toString();
+        long id;
+        try (ConfigurableApplicationContext running = start(url, snapshot, 0)) {
+            id = running.getBean(ProductService.class)
+                    .saveProduct(new Product(0L, "Restart Teapot", "Kitchen", "Restartbrand", 15.0, 4.0)).getId();
+            // the poll reports its watermark: the snapshot written on shutdown records it
+            running.getBean(ProductChangePoller.class).poll();
+        }
+        updateName(url, id, "Restart Kettle");
+
+        // polling on: the file is loaded as it is, the first poll publishes the row changed meanwhile
+        try (ConfigurableApplicationContext restarted = start(url, snapshot, 60_000)) {
+            assertTrue(restarted.getBean(SnapshotStore.class).loadedChangeVersion() > 0);
+            ProductSearchEngine engine = restarted.getBean(ProductSearchEngine.class);
+            assertTrue(engine.searchByName("restart kettle").isEmpty());
+            restarted.getBean(ProductChangePoller.class).poll();
+            assertEquals(1, engine.searchByName("restart kettle").size());
+        }
+        updateName(url, id, "Restart Mug");
+
+        // polling off: nothing would catch up, so the file is not used and the engine is rebuilt from the table
+        try (ConfigurableApplicationContext restarted = start(url, snapshot, 0)) {
+            assertEquals(-1, restarted.getBean(SnapshotStore.class).loadedChangeVersion());
+            assertEquals(1, restarted.getBean(ProductSearchEngine.class).searchByName("restart mug").size());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String url, String snapshot, long pollIntervalMs) {
+        return new SpringApplicationBuilder(ProductSearchServiceApplication.class).web(WebApplicationType.NONE).run(
+                "--spring.datasource.url=" + url,
+                "--product.snapshot.path=" + snapshot,
+                "--product.change-feed.poll-interval-ms=" + pollIntervalMs,
+                // no overlap: the update is only read again when the poller starts from the snapshot's version
+                "--product.change-feed.poll-overlap=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=INFO",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO");
+    }
+
+    // Straight to the database file while no instance is running
+    private static void updateName(String url, long id, String name) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            assertEquals(1, connection.createStatement().executeUpdate("update product set name = '" + name
+                    + "' where id = " + id));
+        }
+    }
+
+    private void awaitIndexed() throws InterruptedException {
+        awaitPosition(indexer::position, feed.version());
+    }
+
+    private static void awaitPosition(LongSupplier position, long version)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (position.getAsLong() < version) {
+            assertTrue(System.currentTimeMillis() < deadline, "subscriber did not catch up with version " + version);
+            Thread.sleep(5);
+        }
+    }
+}
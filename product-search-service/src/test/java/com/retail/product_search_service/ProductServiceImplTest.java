@@ -46,13 +46,28 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.ProductSummary;
+import com.retail.product_search_service.Entity.Suggestion;
 import com.retail.product_search_service.Repository.Productrepository;
+import com.retail.product_search_service.service.KeysetPage;
+import com.retail.product_search_service.service.ProductFacets;
+import com.retail.product_search_service.service.ProductSearchCriteria;
 import com.retail.product_search_service.service.ProductServiceImpl;
+import com.retail.product_search_service.service.SearchSort;
+import com.retail.product_search_service.service.cache.ProductCache;
+import com.retail.product_search_service.service.cache.QueryResultCache;
+import com.retail.product_search_service.service.search.InvertedIndexSearchEngine;
+import com.retail.product_search_service.service.search.SnapshotStore;
+import com.retail.product_search_service.service.search.SuggestionIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 
 public class ProductServiceImplTest {
 
@@ -62,6 +77,22 @@ public class ProductServiceImplTest {
     @Mock
     private Productrepository productRepository;
 
+    @Spy
+    private InvertedIndexSearchEngine searchEngine = new InvertedIndexSearchEngine();
+
+    // long refresh delay: background rebuilds never fire during a test, suggestions are rebuilt explicitly
+    @Spy
+    private SuggestionIndex suggestionIndex = new SuggestionIndex(10, 60_000);
+
+    @Spy
+    private ProductCache productCache = new ProductCache(100, 1_000_000);
+
+    @Mock
+    private SnapshotStore snapshotStore;
+
+    @Spy
+    private QueryResultCache queryCache = new QueryResultCache(1_000_000);
+
     private Product product1;
     private Product product2;
 
@@ -79,6 +110,13 @@ public class ProductServiceImplTest {
         assertNotNull(savedProduct);
         assertEquals("Laptop", savedProduct.getName());
         verify(productRepository, times(1)).save(product1);
+        verify(searchEngine, times(1)).index(product1);
+        verify(suggestionIndex, times(1)).refreshLater(any());
+        InOrder snapshotOrder = inOrder(snapshotStore, productRepository);
+        snapshotOrder.verify(snapshotStore).beginWrite();
+        snapshotOrder.verify(productRepository).save(product1);
+        snapshotOrder.verify(snapshotStore).endWrite();
+        assertEquals(1, productService.searchByName("laptop").size());
     }
 
     @Test
@@ -98,6 +136,26 @@ public class ProductServiceImplTest {
         verify(productRepository, times(1)).findById(3L);
     }
 
+    @Test
+    public void testGetProductById_Cached() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+        productService.getProductById(1L);
+        Product cachedProduct = productService.getProductById(1L);
+        assertEquals("Laptop", cachedProduct.getName());
+        verify(productRepository, times(1)).findById(1L);
+        assertEquals(1, productService.getCacheStatistics().hits());
+    }
+
+    @Test
+    public void testSaveProductInvalidatesCache() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+        when(productRepository.save(product1)).thenReturn(product1);
+        productService.getProductById(1L);
+        productService.saveProduct(product1);
+        productService.getProductById(1L);
+        verify(productRepository, times(2)).findById(1L);
+    }
+
     @Test
     public void testGetAllProducts() {
         when(productRepository.findAll()).thenReturn(Arrays.asList(product1, product2));
@@ -108,51 +166,151 @@ public class ProductServiceImplTest {
 
     @Test
     public void testSearchByName() {
-        when(productRepository.findByNameContainingIgnoreCase("Laptop"))
-                .thenReturn(Arrays.asList(product1));
+        searchEngine.rebuild(Arrays.asList(product1, product2));
         List<Product> products = productService.searchByName("Laptop");
         assertEquals(1, products.size());
         assertEquals("Laptop", products.get(0).getName());
-        verify(productRepository, times(1)).findByNameContainingIgnoreCase("Laptop");
     }
 
     @Test
     public void testSearchByCategory() {
-        when(productRepository.findByCategoryIgnoreCase("Electronics"))
+        when(productRepository.findByCategoryKey("electronics"))
                 .thenReturn(Arrays.asList(product1, product2));
         List<Product> products = productService.searchByCategory("Electronics");
         assertEquals(2, products.size());
-        verify(productRepository, times(1)).findByCategoryIgnoreCase("Electronics");
+        verify(productRepository, times(1)).findByCategoryKey("electronics");
     }
 
     @Test
     public void testSearchByBrand() {
-        when(productRepository.findByBrandIgnoreCase("Dell"))
+        when(productRepository.findByBrandKey("dell"))
                 .thenReturn(Arrays.asList(product1));
         List<Product> products = productService.searchByBrand("Dell");
         assertEquals(1, products.size());
         assertEquals("Dell", products.get(0).getBrand());
-        verify(productRepository, times(1)).findByBrandIgnoreCase("Dell");
+        verify(productRepository, times(1)).findByBrandKey("dell");
     }
 
     @Test
     public void testSearchByPriceLessThan() {
-        when(productRepository.findByPriceLessThan(400.0))
-                .thenReturn(Arrays.asList(product2));
+        searchEngine.rebuild(Arrays.asList(product1, product2));
         List<Product> products = productService.searchByPriceLessThan(400.0);
         assertEquals(1, products.size());
         assertTrue(products.get(0).getPrice() < 400.0);
-        verify(productRepository, times(1)).findByPriceLessThan(400.0);
+        verify(productRepository, never()).findByPriceLessThan(anyDouble());
     }
 
     @Test
     public void testSearchByRatingGreaterThanEqual() {
-        when(productRepository.findByRatingGreaterThanEqual(4.5))
-                .thenReturn(Arrays.asList(product1));
+        searchEngine.rebuild(Arrays.asList(product1, product2));
         List<Product> products = productService.searchByRatingGreaterThanEqual(4.5);
         assertEquals(1, products.size());
         assertTrue(products.get(0).getRating() >= 4.5);
-        verify(productRepository, times(1)).findByRatingGreaterThanEqual(4.5);
+        verify(productRepository, never()).findByRatingGreaterThanEqual(anyDouble());
+    }
+
+    @Test
+    public void testGetProductsPage() {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(10)))
+                .thenReturn(Arrays.asList(product2));
+        List<Product> products = productService.getProducts(new KeysetPage(1L, 10));
+        assertEquals(1, products.size());
+        assertEquals(2L, products.get(0).getId());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    public void testSearchByNamePage() {
+        Product product3 = new Product(3L, "Gaming Laptop", "Electronics", "Asus", 900.0, 4.7);
+        searchEngine.rebuild(Arrays.asList(product1, product2, product3));
+        List<ProductSummary> firstPage = productService.searchByName("laptop", KeysetPage.first(1));
+        assertEquals(1, firstPage.size());
+        assertEquals(1L, firstPage.get(0).id());
+        List<ProductSummary> secondPage = productService.searchByName("laptop", new KeysetPage(1L, 1));
+        assertEquals(1, secondPage.size());
+        assertEquals(3L, secondPage.get(0).id());
+        assertEquals("Asus", secondPage.get(0).brand());
+        assertTrue(productService.searchByName("laptop", new KeysetPage(3L, 1)).isEmpty());
+    }
+
+    @Test
+    public void testFuzzySearchByName() {
+        ReflectionTestUtils.setField(productService, "fuzzyMaxEdits", 2);
+        ReflectionTestUtils.setField(productService, "fuzzyMaxCandidates", 100);
+        searchEngine.rebuild(Arrays.asList(product1, product2));
+        List<ProductSummary> products = productService.fuzzySearchByName("lpatop", null, 10);
+        assertEquals(1, products.size());
+        assertEquals(1L, products.get(0).id());
+        assertTrue(productService.fuzzySearchByName("lpatop", 0, 10).isEmpty());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void testSearchWithCombinedFilters() {
+        searchEngine.rebuild(Arrays.asList(product1, product2));
+        List<Product> products = productService.search(new ProductSearchCriteria(null, "electronics", null, null, 400.0, null));
+        assertEquals(1, products.size());
+        assertEquals("Phone", products.get(0).getName());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void testFacets() {
+        ReflectionTestUtils.setField(productService, "facetPriceInterval", 250.0);
+        ReflectionTestUtils.setField(productService, "facetRatingInterval", 1.0);
+        searchEngine.rebuild(Arrays.asList(product1, product2));
+        ProductFacets facets = productService.facets(new ProductSearchCriteria(null, null, null, null, null, null), null, null);
+        assertEquals(2, facets.total());
+        assertEquals(2, facets.categories().get("Electronics"));
+        assertEquals(250.0, facets.priceInterval());
+        assertEquals(2, facets.price().size());
+        assertEquals(1, productService.facets(new ProductSearchCriteria(null, null, "samsung", null, null, null), 100.0, null).total());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void testSuggest() {
+        suggestionIndex.rebuild(Arrays.asList(product1, product2));
+        List<Suggestion> suggestions = productService.suggest("ELEC", 10);
+        assertEquals(1, suggestions.size());
+        assertEquals("Electronics", suggestions.get(0).text());
+        assertEquals(4.5, suggestions.get(0).rating());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void testCategoryPageCachedAsIdsUntilMembershipChanges() {
+        searchEngine.rebuild(Arrays.asList(product1, product2));
+        KeysetPage page = KeysetPage.first(10);
+        when(productRepository.findSummariesByCategory("electronics", 0, Limit.of(10)))
+                .thenReturn(ProductSummary.from(Arrays.asList(product1, product2)));
+        assertEquals(2, productService.searchByCategory("ELECTRONICS", page).size());
+
+        // price change: same page from the cache, rows rebuilt from the engine show the new price
+        Product cheaper = new Product(2L, "Phone", "Electronics", "Samsung", 250.0, 4.0);
+        when(productRepository.save(cheaper)).thenReturn(cheaper);
+        productService.saveProduct(cheaper);
+        List<ProductSummary> cached = productService.searchByCategory("electronics", page);
+        assertEquals(250.0, cached.get(1).price());
+        verify(productRepository, times(1)).findSummariesByCategory(anyString(), anyLong(), any());
+
+        // category change: the electronics pages are outdated, the next read runs the query again
+        Product moved = new Product(2L, "Phone", "Mobiles", "Samsung", 250.0, 4.0);
+        when(productRepository.save(moved)).thenReturn(moved);
+        productService.saveProduct(moved);
+        productService.searchByCategory("electronics", page);
+        verify(productRepository, times(2)).findSummariesByCategory(anyString(), anyLong(), any());
+        assertEquals(1, productService.getQueryCacheStatistics().hits());
+    }
+
+    @Test
+    public void testRankedSearch() {
+        searchEngine.rebuild(Arrays.asList(product1, product2));
+        ProductSearchCriteria electronics = new ProductSearchCriteria(null, "electronics", null, null, null, null);
+        assertEquals(2L, productService.search(electronics, SearchSort.PRICE_ASC, 1).get(0).id());
+        assertEquals(1L, productService.search(electronics, SearchSort.RATING, 1).get(0).id());
+        assertEquals(2, productService.search(electronics, SearchSort.PRICE_DESC, 10).size());
+        verifyNoInteractions(productRepository);
     }
 }
 
@@ -174,7 +332,14 @@ ARRANGE: when(productRepository.save(product1)).thenReturn(product1);
 Meaning: “If save() is called with product1, return product1.”
 ACT: Product saved = productService.saveProduct(product1);
 ASSERT: assertEquals("Laptop", saved.getName());
-VERIFY: repository.save(product1) was called once.
+VERIFY: repository.save(product1) was called once, the product was pushed into the search engine and a suggestion refresh was requested.
+The snapshot file (a @Mock SnapshotStore here) is outdated BEFORE the database write and rewritten after it (InOrder).
+---------------------------------------------
+testCategoryPageCachedAsIdsUntilMembershipChanges:
+ARRANGE: both products in the search engine, repository returns them for the electronics page
+ACT: read the page → save a new price → read again → move the phone to another category → read again
+ASSERT: the second read is a cache hit (cached ids, rows from the engine, so the new price shows)
+VERIFY: findSummariesByCategory called once before the category change and once more after it
 ---------------------------------------------
 testGetProductById_Found:
 ARRANGE: repository returns Optional.of(product1)
@@ -188,6 +353,16 @@ ACT: service.getProductById(3L)
 ASSERT: result is null (your service returns null for not found)
 VERIFY: findById(3L) called once
 ---------------------------------------------
+testGetProductById_Cached:
+ARRANGE: repository returns product1
+ACT: service.getProductById(1L) twice
+ASSERT: second call is a cache hit
+VERIFY: findById(1L) called only ONCE — the second read never reaches the database
+---------------------------------------------
+testSaveProductInvalidatesCache:
+ACT: read (cached) → save → read again
+VERIFY: findById(1L) called twice, because saveProduct() removed the stale cache entry
+---------------------------------------------
 testGetAllProducts:
 ARRANGE: findAll() returns [product1, product2]
 ACT: service.getAllProducts()
@@ -195,28 +370,70 @@ ASSERT: size 2
 VERIFY: findAll() called once
 ---------------------------------------------
 testSearchByName:
-ARRANGE: findByNameContainingIgnoreCase("Laptop") returns [product1]
+ARRANGE: the search engine (a @Spy, i.e. a REAL object Mockito can verify) is built from [product1, product2]
 ACT: service.searchByName("Laptop")
 ASSERT: size 1, name is Laptop
-VERIFY: method called
+VERIFY: the repository is NOT called — names are searched in memory
 ---------------------------------------------
 testSearchByCategory:
 ARRANGE: repository returns both products
 ACT → service.searchByCategory("Electronics")
 ASSERT → size 2
-VERIFY → correct method called
+VERIFY → looked up by the search key "electronics" (lowercased, accents removed)
 ---------------------------------------------
 testSearchByBrand:
 ARRANGE: brand "Dell" returns only product1
 ASSERT: product1 brand matches
 ---------------------------------------------
 testSearchByPriceLessThan:
-ARRANGE: price < 400 returns product2
-ASSERT: price < 400 true
+ARRANGE: search engine built from both products
+ASSERT: only product2 has price < 400
+VERIFY: answered from the price index, repository never queried
 ---------------------------------------------
 testSearchByRatingGreaterThanEqual:
-ARRANGE: rating >= 4.5 returns product1
-ASSERT: product1 rating >= 4.5
+ARRANGE: search engine built from both products
+ASSERT: only product1 has rating >= 4.5
+VERIFY: answered from the rating index, repository never queried
+---------------------------------------------
+testGetProductsPage:
+ARRANGE: keyset query "id > 1 LIMIT 10" returns product2
+ASSERT: page holds product2 only
+VERIFY: findAll() is never used for paging
+---------------------------------------------
+testSearchByNamePage:
+ARRANGE: two laptops (id 1 and 3) in the search engine
+ACT: page 1 (limit 1), then page 2 (after = 1), then after = 3
+ASSERT: id 1, then id 3 (as ProductSummary listing rows), then an empty page
+---------------------------------------------
+testFuzzySearchByName:
+ARRANGE: search engine built from both products, fuzzy limits set (normally from application.properties)
+ACT: "lpatop" (two swapped letters) with the default typo budget, then with maxEdits = 0
+ASSERT: the Laptop is found, then nothing (exact words only)
+VERIFY: repository never touched
+---------------------------------------------
+testSearchWithCombinedFilters:
+ARRANGE: search engine built from both products
+ACT: service.search(category = electronics AND price < 400)
+ASSERT: only the Phone matches
+VERIFY: repository never touched (verifyNoInteractions)
+---------------------------------------------
+testFacets:
+ARRANGE: search engine built from both products, default bucket widths set (normally from application.properties)
+ACT: facets of everything with the default widths, then of brand = samsung with a 100 price interval
+ASSERT: 2 products, both Electronics, 2 price buckets of width 250; then only the Samsung phone
+VERIFY: repository never touched
+---------------------------------------------
+testSuggest:
+ARRANGE: suggestion index built from both products
+ACT: service.suggest("ELEC") (case-insensitive prefix)
+ASSERT: the category Electronics, with the best rating of its products (4.5)
+VERIFY: repository never touched
+---------------------------------------------
+testRankedSearch:
+ARRANGE: search engine built from both products
+ACT: top 1 electronics by lowest price, top 1 by rating, then top 10 by highest price
+ASSERT: Phone (cheaper), Laptop (better rated), both products when the limit is larger than the matches
+VERIFY: repository never touched
 ---------------------------------------------
 SUMMARY:
 Each test isolates exactly one method in service. Repository is mocked, so service logic alone is tested. Every test: (1) mocks repository output, (2) calls service, (3) checks output, (4) verifies repository usage. This is the standard pattern for all Spring Boot service layer tests.
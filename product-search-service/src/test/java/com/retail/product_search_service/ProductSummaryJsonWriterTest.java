@@ -0,0 +1,51 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retail.product_search_service.Entity.ProductSummary;
+import com.retail.product_search_service.controller.ProductSummaryJsonWriter;
+
+//The hand-written writer must produce exactly the bytes Jackson would, so every case is compared with ObjectMapper.
+public class ProductSummaryJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testSameOutputAsJackson() throws Exception {
+        List<ProductSummary> summaries = Arrays.asList(
+                new ProductSummary(1L, "Laptop", "Dell", 500.0, 4.5),
+                new ProductSummary(2L, "Quote \" and \\ backslash", "Tab\tNew\nLine", 1.0E7, 0.001),
+                new ProductSummary(3L, "Café Crème", "日本 👟", 12345.678, null),
+                new ProductSummary(Long.MAX_VALUE, "\u0001 control", null, null, -0.0));
+        assertJacksonEquivalent(summaries);
+    }
+
+    @Test
+    public void testEmptyList() throws Exception {
+        assertEquals("[]", new String(ProductSummaryJsonWriter.toBytes(Collections.emptyList()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLargePageSpansManyBufferFlushes() throws Exception {
+        List<ProductSummary> summaries = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            summaries.add(new ProductSummary(i, "Product ü " + i, "Brand " + (i % 50), 10.0 + i, (i % 50) / 10.0));
+        }
+        assertJacksonEquivalent(summaries);
+    }
+
+    private void assertJacksonEquivalent(List<ProductSummary> summaries) throws Exception {
+        String expected = objectMapper.writeValueAsString(summaries);
+        String actual = new String(ProductSummaryJsonWriter.toBytes(summaries), StandardCharsets.UTF_8);
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,60 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.retail.product_search_service.service.KeysetPage;
+import com.retail.product_search_service.service.cache.QueryResultCache;
+import com.retail.product_search_service.service.cache.QueryResultCache.Field;
+
+//Plain JUnit test of the page cache on its own: normalized keys, per-term invalidation and the byte budget.
+public class QueryResultCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private long[] load(long... ids) {
+        loads.incrementAndGet();
+        return ids;
+    }
+
+    @Test
+    public void testKeysAreNormalizedAndIncludeThePage() {
+        QueryResultCache cache = new QueryResultCache(1_000_000);
+        KeysetPage first = KeysetPage.first(2);
+        assertArrayEquals(new long[] {1, 2}, cache.get(Field.CATEGORY, "Footwear", first, () -> load(1, 2)));
+        assertArrayEquals(new long[] {1, 2}, cache.get(Field.CATEGORY, "FOOTWEAR", first, () -> load(9)));
+        assertEquals(1, loads.get());
+        cache.get(Field.CATEGORY, "footwear", new KeysetPage(2, 2), () -> load(3));
+        cache.get(Field.BRAND, "footwear", first, () -> load(4));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testInvalidateOnlyDropsThatTerm() {
+        QueryResultCache cache = new QueryResultCache(1_000_000);
+        KeysetPage page = KeysetPage.first(10);
+        cache.get(Field.CATEGORY, "Footwear", page, () -> load(1));
+        cache.get(Field.CATEGORY, "Electronics", page, () -> load(2));
+        cache.get(Field.BRAND, "Nike", page, () -> load(1));
+
+        cache.invalidate(Field.CATEGORY, "FOOTWEAR");
+        assertArrayEquals(new long[] {1, 3}, cache.get(Field.CATEGORY, "Footwear", page, () -> load(1, 3)));
+        cache.get(Field.CATEGORY, "Electronics", page, () -> load(2));
+        cache.get(Field.BRAND, "Nike", page, () -> load(1));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testByteBudgetEvictsPages() {
+        // ~100 KB budget, pages of 1,000 ids = ~8 KB each: only about a dozen fit
+        QueryResultCache cache = new QueryResultCache(100_000);
+        for (int term = 0; term < 100; term++) {
+            cache.get(Field.BRAND, "Brand " + term, KeysetPage.first(1_000), () -> load(new long[1_000]));
+        }
+        assertTrue(cache.stats().size() <= 13, "size " + cache.stats().size());
+        assertTrue(cache.stats().evictions() > 80);
+    }
+}
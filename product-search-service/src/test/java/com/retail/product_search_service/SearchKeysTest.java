@@ -0,0 +1,109 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.SearchKeys;
+import com.retail.product_search_service.Repository.Productrepository;
+import com.retail.product_search_service.service.KeysetPage;
+import com.retail.product_search_service.service.ProductService;
+
+//Search key columns end to end: the normalization rule, Product filling the keys on insert / update,
+//the repository lookups using them, name search folding the same way in the search engine, and the V3 migration
+//filling and indexing them for rows that already exist, V5 dropping name_key again (those run Flyway on their own
+//in-memory database, separate from the Spring context's).
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"})
+class SearchKeysTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private Productrepository productRepository;
+
+    @Test
+    void normalizeLowercasesAndFoldsAccents() {
+        assertEquals("electronique", SearchKeys.normalize("Électronique"));
+        assertEquals("electronique", SearchKeys.normalize("ELECTRONIQUE"));
+        assertEquals("creme brulee", SearchKeys.normalize("Crème Brûlée"));
+        assertEquals("fitness", SearchKeys.normalize("ﬁtness"));
+        assertEquals("straße", SearchKeys.normalize("STRAßE"));
+        assertNull(SearchKeys.normalize(null));
+    }
+
+    @Test
+    void keysAreWrittenOnSaveAndUsedByLookups() {
+        Product saved = productService.saveProduct(new Product(0L, "Café Crème", "Épicerie Fine", "Nestlé", 4.5, 4.0));
+
+        assertEquals(List.of(saved.getId()), ids(productRepository.findByCategoryKey(SearchKeys.normalize("EPICERIE FINE"))));
+        assertEquals(1, productService.searchByBrand("nestle").size());
+        assertEquals(1, productService.searchByCategory("epicerie fine", KeysetPage.first(10)).size());
+        // names are folded by the search engine: no accent needed in the query, or accents where the name has none
+        assertEquals(List.of(saved.getId()), ids(productService.searchByName("cafe creme")));
+        assertEquals(List.of(saved.getId()), ids(productService.searchByName("CAFÉ")));
+
+        // update: the keys follow the new values
+        saved.setCategory("Boissons");
+        productService.saveProduct(saved);
+        assertTrue(productRepository.findByCategoryKey("epicerie fine").isEmpty());
+        assertEquals(1, productService.searchByCategory("BOISSONS").size());
+        assertEquals(1, productService.searchByCategory("boissons", KeysetPage.first(10)).size());
+    }
+
+    @Test
+    void migrationsFillKeysOfExistingRowsAndCategoryPagesSeekTheIndex() throws Exception {
+        String url = "jdbc:h2:mem:search-keys-migration;DB_CLOSE_DELAY=-1";
+        Flyway.configure().dataSource(url, "sa", "").target("2").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("insert into product (id, name, category, brand, price, rating) values"
+                    + " (1, 'Crème Solaire', 'Beauté', 'Vichy', 20, 4), (2, 'Laptop', 'Electronics', 'Dell', 900, 5)");
+
+            Flyway.configure().dataSource(url, "sa", "").target("3").load().migrate();
+
+            try (ResultSet rows = statement.executeQuery(
+                    "select name_key, category_key, brand_key from product order by id")) {
+                assertTrue(rows.next());
+                assertEquals("creme solaire", rows.getString(1));
+                assertEquals("beaute", rows.getString(2));
+                assertEquals("vichy", rows.getString(3));
+                assertTrue(rows.next());
+                assertEquals("electronics", rows.getString(2));
+            }
+
+            Flyway.configure().dataSource(url, "sa", "").load().migrate();
+
+            try (ResultSet columns = statement.executeQuery("select count(*) from information_schema.columns"
+                    + " where table_name = 'PRODUCT' and column_name = 'NAME_KEY'")) {
+                assertTrue(columns.next());
+                assertEquals(0, columns.getInt(1));
+            }
+            try (ResultSet plan = statement.executeQuery("explain select id from product"
+                    + " where category_key = 'beaute' and id > 0 order by category_key, id fetch first 10 rows only")) {
+                assertTrue(plan.next());
+                String text = plan.getString(1);
+                assertTrue(text.contains("IDX_PRODUCT_CATEGORY_KEY"), text);
+                // same ORDER BY as findSummariesByCategory: read in index order, no sort step
+                assertTrue(text.contains("index sorted"), text);
+            }
+        }
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+}
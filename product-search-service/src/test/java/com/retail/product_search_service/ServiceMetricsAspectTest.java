@@ -0,0 +1,68 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.metrics.ServiceMetricsAspect;
+import com.retail.product_search_service.service.KeysetPage;
+import com.retail.product_search_service.service.ProductService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//Checks the metrics aspect without starting Spring: AspectJProxyFactory wraps a mocked ProductService
+//with the aspect, and a SimpleMeterRegistry (in-memory) collects what it records.
+public class ServiceMetricsAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private ProductService mockService;
+    private ProductService timedService;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        mockService = mock(ProductService.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(mockService);
+        factory.addAspect(new ServiceMetricsAspect(registry));
+        timedService = factory.getProxy();
+    }
+
+    @Test
+    public void testTimerAndResultSizeRecorded() {
+        when(mockService.searchByBrand("Dell")).thenReturn(Arrays.asList(
+                new Product(1L, "Laptop", "Electronics", "Dell", 500.0, 4.5),
+                new Product(2L, "Monitor", "Electronics", "Dell", 200.0, 4.1)));
+        timedService.searchByBrand("Dell");
+        timedService.searchByBrand("Dell");
+
+        assertEquals(2, registry.get("product.service").tag("method", "searchByBrand(String)").tag("outcome", "success")
+                .timer().count());
+        assertEquals(4.0, registry.get("product.service.results").tag("method", "searchByBrand(String)")
+                .summary().totalAmount());
+    }
+
+    @Test
+    public void testOverloadsGetTimersOfTheirOwn() {
+        timedService.searchByName("Laptop");
+        timedService.searchByName("Laptop", KeysetPage.first(10));
+        timedService.searchByName("Laptop", KeysetPage.first(10));
+
+        assertEquals(1, registry.get("product.service").tag("method", "searchByName(String)").timer().count());
+        assertEquals(2, registry.get("product.service").tag("method", "searchByName(String,KeysetPage)").timer()
+                .count());
+    }
+
+    @Test
+    public void testErrorOutcomeRecorded() {
+        when(mockService.getProductById(9L)).thenThrow(new RuntimeException("DB error"));
+        assertThrows(RuntimeException.class, () -> timedService.getProductById(9L));
+        assertEquals(1, registry.get("product.service").tag("method", "getProductById(Long)").tag("outcome", "error")
+                .timer().count());
+    }
+}
@@ -0,0 +1,274 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+//Throughput of /products/cluster/search with 1, 2, 4, ... shards, each shard a separate JVM process on localhost.
+//For every count N in shard.counts (default "1,2,4"):
+//1. start N instances (java -cp <test classpath> ProductSearchServiceApplication) on free ports, with the same
+//   product.shard.nodes list and their own in-memory database; logs go to target/shard-<N>-<k>.log
+//2. POST /products/bulk shard.catalog / N products to each instance (each keeps the ids it owns)
+//3. shard.clients client threads send ranked cluster searches back to back, spread over the N instances
+//   (closed loop), shard.warmup seconds not measured, then shard.duration seconds measured
+//4. report req/s, speedup over 1 shard, p50 / p99 latency, errors and partial answers
+//The catalog stays the same size, so N shards each search 1/N of it: on N machines, N times the throughput.
+//Here the "machines" are CPU cores: with at least N + 1 cores every instance is pinned to a core of its own (taskset,
+//Linux), the client runs on the rest, and near-linear scaling (>= 70 % of N x) is asserted. With fewer cores the
+//instances share them, the numbers are printed but scaling is not asserted.
+//mvn -Ploadtest test -Dtest=ShardScalingLoadTest -Dshard.counts=1,2,4,8 -Dshard.catalog=200000
+//The report is printed and written to target/shard-scaling-report.txt.
+@Tag("load")
+class ShardScalingLoadTest {
+
+    private static final String COUNTS = System.getProperty("shard.counts", "1,2,4");
+    private static final int CATALOG_SIZE = Integer.getInteger("shard.catalog", 40_000);
+    private static final int CLIENTS = Integer.getInteger("shard.clients", 16);
+    private static final int WARMUP_SECONDS = Integer.getInteger("shard.warmup", 5);
+    private static final int DURATION_SECONDS = Integer.getInteger("shard.duration", 15);
+
+    private static final String[] NOUNS = {"Shoes", "Jacket", "Headphones", "Watch", "Bag", "Shirt", "Keyboard",
+            "Bottle"};
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void clusterSearchThroughputGrowsWithShards() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        boolean pinned = new File("/usr/bin/taskset").canExecute();
+        List<Result> results = new ArrayList<>();
+        for (String count : COUNTS.split(",")) {
+            results.add(run(Integer.parseInt(count.trim()), cores, pinned));
+        }
+
+        StringBuilder report = new StringBuilder(String.format(
+                "Cluster search, %d products in total, %d clients, %d s measured, %d cores%s%n",
+                CATALOG_SIZE, CLIENTS, DURATION_SECONDS, cores, pinned ? "" : " (no taskset: instances not pinned)"));
+        report.append(String.format("%7s %10s %8s %10s %10s %8s %8s%n",
+                "shards", "req/s", "speedup", "p50 ms", "p99 ms", "errors", "partial"));
+        double base = results.get(0).throughput() / results.get(0).shards;
+        for (Result result : results) {
+            report.append(String.format("%7d %10.1f %7.2fx %10.2f %10.2f %8d %8d%n", result.shards,
+                    result.throughput(), result.throughput() / base, result.percentile(0.50),
+                    result.percentile(0.99), result.errors, result.partial));
+        }
+        System.out.println(report);
+        Files.writeString(Path.of("target", "shard-scaling-report.txt"), report);
+
+        for (Result result : results) {
+            assertTrue(result.count > 0, result.shards + " shards: no request completed");
+            assertTrue(result.errors + result.partial <= result.count / 100,
+                    result.shards + " shards: more than 1% errors / partial answers");
+            if (pinned && cores > result.shards) {
+                assertTrue(result.throughput() >= 0.7 * result.shards * base,
+                        result.shards + " shards: " + result.throughput() + " req/s, not near-linear");
+            }
+        }
+    }
+
+    // ===========================
+    // One cluster of `shards` processes: start, seed, warm up, measure, stop
+    // ===========================
+    private Result run(int shards, int cores, boolean pinned) throws Exception {
+        int[] ports = new int[shards];
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            ports[i] = freePort();
+            urls.add("http://localhost:" + ports[i]);
+        }
+        List<Process> processes = new ArrayList<>();
+        try {
+            for (int i = 0; i < shards; i++) {
+                processes.add(start(shards, i, ports[i], String.join(",", urls), pinned && cores > shards));
+            }
+            for (String url : urls) {
+                awaitReady(url);
+            }
+            for (int i = 0; i < shards; i++) {
+                seed(urls.get(i), i, shards);
+            }
+            drive(urls, WARMUP_SECONDS, new Result(shards));
+            Result measured = new Result(shards);
+            drive(urls, DURATION_SECONDS, measured);
+            return measured;
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+            for (Process process : processes) {
+                process.waitFor();
+            }
+        }
+    }
+
+    // Instance k of a cluster, on core k when pinned (the client keeps the last core)
+    private static Process start(int shards, int self, int port, String nodes, boolean pin) throws Exception {
+        List<String> command = new ArrayList<>();
+        if (pin) {
+            command.addAll(Arrays.asList("taskset", "-c", String.valueOf(self)));
+        }
+        command.addAll(Arrays.asList(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx512m",
+                "-XX:ActiveProcessorCount=1",
+                "-cp", System.getProperty("java.class.path"),
+                ProductSearchServiceApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:shard-" + self,
+                "--product.shard.nodes=" + nodes,
+                "--product.shard.self=" + self,
+                "--product.shard.timeout-ms=5000",
+                "--product.change-feed.poll-interval-ms=0",
+                "--spring.jpa.show-sql=false",
+                // root=WARN does not cover the loggers application.properties sets: every statement and bind value
+                // would be logged and measured
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(Path.of("target", "shard-" + shards + "-" + self + ".log").toFile())
+                .start();
+    }
+
+    private void awaitReady(String url) throws Exception {
+        long deadline = System.currentTimeMillis() + 120_000;
+        while (true) {
+            try {
+                HttpResponse<String> health = http.send(HttpRequest.newBuilder(URI.create(url + "/actuator/health"))
+                        .GET().build(), HttpResponse.BodyHandlers.ofString());
+                if (health.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException notYet) {
+                // not listening yet
+            }
+            assertTrue(System.currentTimeMillis() < deadline, url + " did not start");
+            Thread.sleep(500);
+        }
+    }
+
+    // This instance's share of the catalog, in bulk requests of 5,000 rows
+    private void seed(String url, int self, int shards) throws Exception {
+        StringBuilder body = new StringBuilder();
+        int rows = 0;
+        for (int i = self; i < CATALOG_SIZE; i += shards) {
+            body.append(rows == 0 ? "[" : ",").append(String.format(Locale.ROOT,
+                    "{\"name\":\"Item %d %s\",\"category\":\"Category %d\",\"brand\":\"Brand %d\","
+                            + "\"price\":%d,\"rating\":%.1f}",
+                    i, NOUNS[i % NOUNS.length], i % 20, i % 50, 10 + i % 10_000, 1.0 + i % 41 / 10.0));
+            if (++rows == 5_000 || i + shards >= CATALOG_SIZE) {
+                HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(url + "/products/bulk"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body.append("]").toString())).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, response.statusCode(), response.body());
+                body.setLength(0);
+                rows = 0;
+            }
+        }
+    }
+
+    // ===========================
+    // Closed loop: every client sends its next search as soon as the previous one answered
+    // ===========================
+    private void drive(List<String> urls, int seconds, Result result) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            String url = urls.get(c % urls.size()) + "/products/cluster/search?sort=rating&limit=20&name=";
+            Thread client = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    boolean ok;
+                    boolean partial = false;
+                    try {
+                        HttpResponse<Void> response = http.send(HttpRequest.newBuilder(URI.create(
+                                        url + NOUNS[random.nextInt(NOUNS.length)])).GET().build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        ok = response.statusCode() == 200;
+                        partial = response.headers().firstValue("X-Partial-Results").isPresent();
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    if (running.get()) {
+                        result.record(System.nanoTime() - start, ok, partial);
+                    }
+                }
+            });
+            client.start();
+            clients.add(client);
+        }
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread client : clients) {
+            client.join();
+        }
+        result.seconds = seconds;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // Latencies and counters of one measured run
+    private static final class Result {
+        private final int shards;
+        private long[] nanos = new long[1 << 16];
+        private int count;
+        private int errors;
+        private int partial;
+        private int seconds;
+
+        Result(int shards) {
+            this.shards = shards;
+        }
+
+        synchronized void record(long latency, boolean ok, boolean partialAnswer) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latency;
+            if (!ok) {
+                errors++;
+            }
+            if (partialAnswer) {
+                partial++;
+            }
+        }
+
+        double throughput() {
+            return (double) count / seconds;
+        }
+
+        synchronized double percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) (count * p))] / 1e6;
+        }
+    }
+}
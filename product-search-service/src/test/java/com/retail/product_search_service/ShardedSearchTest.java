@@ -0,0 +1,201 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.ProductSummary;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.ProductService;
+import com.retail.product_search_service.service.SearchSort;
+import com.retail.product_search_service.service.search.InvertedIndexSearchEngine;
+import com.retail.product_search_service.service.search.ProductSearchEngine;
+import com.retail.product_search_service.service.shard.ShardRing;
+
+//Sharding: the consistent hash ring on its own, then two instances started in this JVM (own port, own in-memory
+//database) as a 2-shard cluster. Their merged /products/cluster/search answers are compared with one engine holding
+//both catalogs; stopping one shard turns the answers into flagged partial results.
+class ShardedSearchTest {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    void ringSpreadsIdsEvenlyAndMovesFewWhenAShardIsAdded() {
+        ShardRing three = new ShardRing("http://a:8080,http://b:8080,http://c:8080", 0, 128);
+        ShardRing four = new ShardRing("http://a:8080,http://b:8080,http://c:8080,http://d:8080", 0, 128);
+        int[] counts = new int[3];
+        int moved = 0;
+        for (long id = 1; id <= 300_000; id++) {
+            int before = three.shardOf(id);
+            counts[before]++;
+            int after = four.shardOf(id);
+            if (after != before) {
+                // only the new shard takes ids, the others keep theirs
+                assertEquals(3, after);
+                moved++;
+            }
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 100_000) < 15_000, () -> Arrays.toString(counts));
+        }
+        // about a quarter of the ids go to the 4th shard (id % N would move three quarters)
+        assertTrue(moved > 45_000 && moved < 105_000, "moved " + moved);
+        assertFalse(new ShardRing("", 0, 128).sharded());
+        assertTrue(new ShardRing("", 0, 128).owns(42));
+    }
+
+    @Test
+    void clusterSearchMergesEveryShardAndFlagsMissingOnes() throws Exception {
+        int[] ports = {freePort(), freePort()};
+        String nodes = "http://localhost:" + ports[0] + ",http://localhost:" + ports[1];
+        ConfigurableApplicationContext first = start(0, ports[0], nodes);
+        ConfigurableApplicationContext second = start(1, ports[1], nodes);
+        try {
+            seed(first.getBean(ProductService.class), 0);
+            seed(second.getBean(ProductService.class), 1);
+            List<Product> firstCatalog = first.getBean(ProductSearchEngine.class).snapshot();
+            List<Product> secondCatalog = second.getBean(ProductSearchEngine.class).snapshot();
+            ShardRing ring = first.getBean(ShardRing.class);
+            // every instance only created ids it owns: no id is on both
+            firstCatalog.forEach(product -> assertEquals(0, ring.shardOf(product.getId())));
+            secondCatalog.forEach(product -> assertEquals(1, ring.shardOf(product.getId())));
+
+            InvertedIndexSearchEngine whole = new InvertedIndexSearchEngine();
+            List<Product> all = new ArrayList<>(firstCatalog);
+            all.addAll(secondCatalog);
+            whole.rebuild(all);
+
+            String base = "http://localhost:" + ports[0] + "/products";
+            ProductSearchCriteria shoes = new ProductSearchCriteria("shoes", null, null, null, 500.0, null);
+            for (SearchSort sort : List.of(SearchSort.RATING, SearchSort.PRICE_ASC, SearchSort.PRICE_DESC)) {
+                HttpResponse<String> response = get(base + "/cluster/search?name=shoes&maxPrice=500&limit=25&sort="
+                        + sort.name().toLowerCase());
+                assertNull(response.headers().firstValue("X-Partial-Results").orElse(null));
+                assertEquals(ids(whole.search(shoes, sort, 25)), summaryIds(response), sort.name());
+            }
+            // id order: the cursor pages through both shards
+            HttpResponse<String> page = get(base + "/cluster/search?name=shoes&maxPrice=500&limit=30&after=40");
+            assertEquals(ids(whole.search(shoes, 40, 30)), summaryIds(page));
+            assertEquals(String.valueOf(summaryIds(page).get(29)), page.headers().firstValue("X-Next-Cursor").get());
+            HttpResponse<String> relevance = get(base + "/cluster/search?name=running%20shoes&sort=relevance&limit=20");
+            assertEquals(20, new HashSet<>(summaryIds(relevance)).size());
+
+            // reads and updates by id go to the owning shard
+            Product remote = secondCatalog.get(0);
+            assertEquals(remote.getName(), json.readValue(get(base + "/" + remote.getId()).body(), Product.class).getName());
+            remote.setName("Forwarded Update");
+            HttpResponse<String> saved = http.send(HttpRequest.newBuilder(URI.create(base))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(json.writeValueAsString(remote))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, saved.statusCode(), saved.body());
+            assertEquals("Forwarded Update", second.getBean(ProductService.class).getProductById(remote.getId()).getName());
+
+            // bulk rows with another shard's id are saved there, not copied here; new rows stay here
+            Product bulkRemote = secondCatalog.get(3);
+            bulkRemote.setName("Bulk Forwarded");
+            Product bulkNew = new Product(0L, "Bulk New Sandals", "Footwear", "Brand 1", 99.0, 4.0);
+            HttpResponse<String> bulk = http.send(HttpRequest.newBuilder(URI.create(base + "/bulk"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(json.writeValueAsString(
+                                    List.of(bulkNew, bulkRemote)))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, bulk.statusCode(), bulk.body());
+            assertEquals(2, json.readTree(bulk.body()).get("saved").asInt());
+            assertEquals("Bulk Forwarded",
+                    second.getBean(ProductService.class).getProductById(bulkRemote.getId()).getName());
+            assertNull(first.getBean(ProductService.class).getProductById(bulkRemote.getId()));
+            assertEquals(1, first.getBean(ProductService.class).searchByName("bulk new sandals").size());
+
+            // a batch get spanning both shards answers in the order asked for
+            List<Long> mixed = List.of(secondCatalog.get(1).getId(), firstCatalog.get(0).getId(), -1L,
+                    secondCatalog.get(2).getId());
+            HttpResponse<String> batch = get(base + "?ids=" + mixed.toString().replaceAll("[\\[\\] ]", ""));
+            assertEquals(200, batch.statusCode(), batch.body());
+            assertEquals(List.of(mixed.get(0), mixed.get(1), mixed.get(3)),
+                    ids(Arrays.asList(json.readValue(batch.body(), Product[].class))));
+
+            // shard 1 goes away: shard 0's results only, flagged
+            second.close();
+            HttpResponse<String> partial = get(base + "/cluster/search?name=shoes&maxPrice=500&limit=25&sort=rating"
+                    + "&timeoutMs=500");
+            assertEquals(200, partial.statusCode());
+            assertEquals("true", partial.headers().firstValue("X-Partial-Results").orElse(null));
+            assertEquals("1", partial.headers().firstValue("X-Failed-Shards").orElse(null));
+            InvertedIndexSearchEngine firstOnly = new InvertedIndexSearchEngine();
+            firstOnly.rebuild(firstCatalog);
+            assertEquals(ids(firstOnly.search(shoes, SearchSort.RATING, 25)), summaryIds(partial));
+            assertEquals(503, get(base + "/" + remote.getId()).statusCode());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(int self, int port, String nodes) {
+        return new SpringApplicationBuilder(ProductSearchServiceApplication.class).run(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:shard-test-" + self,
+                "--product.shard.nodes=" + nodes,
+                "--product.shard.self=" + self,
+                "--product.change-feed.poll-interval-ms=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=INFO",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO");
+    }
+
+    // 1,000 products per shard, from different seeds so the shards hold different names / prices / ratings
+    private static void seed(ProductService productService, int shard) {
+        Random random = new Random(shard);
+        List<Product> products = new ArrayList<>();
+        String[] words = {"Running", "Leather", "Trail", "Canvas", "Walking"};
+        for (int i = 0; i < 1_000; i++) {
+            products.add(new Product(0L, words[random.nextInt(words.length)] + " shoes " + i, "Footwear",
+                    "Brand " + random.nextInt(10), 10.0 + random.nextInt(990), random.nextInt(50) / 10.0));
+        }
+        productService.saveAll(products);
+    }
+
+    private HttpResponse<String> get(String url) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private List<Long> summaryIds(HttpResponse<String> response) throws Exception {
+        assertEquals(200, response.statusCode(), response.body());
+        List<Long> ids = new ArrayList<>();
+        for (ProductSummary summary : json.readValue(response.body(), ProductSummary[].class)) {
+            ids.add(summary.id());
+        }
+        return ids;
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        List<Long> ids = new ArrayList<>();
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.ProductSearchCriteria;
+import com.retail.product_search_service.service.SearchSort;
+import com.retail.product_search_service.service.search.InvertedIndexSearchEngine;
+import com.retail.product_search_service.service.search.NumericField;
+import com.retail.product_search_service.service.search.SnapshotStore;
+
+//Plain JUnit test of the snapshot file: write an engine to a temp directory, load it into a fresh engine
+//(as a restart would) and check that every kind of search gives the same answers.
+public class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private InvertedIndexSearchEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        file = directory.resolve("catalog.snapshot");
+        engine = new InvertedIndexSearchEngine();
+        List<Product> products = new ArrayList<>(Arrays.asList(
+                new Product(3L, "Nike Running Shoes", "Footwear", "Nike", 450.0, 4.2),
+                new Product(1L, "Dell Laptop", "Electronics", "Dell", 55000.0, 4.5),
+                new Product(2L, "Adidas Shoes", "footwear", "Adidas", 400.0, null),
+                new Product(4L, "Café Crème Mug", null, "Émile", null, 3.0),
+                new Product(5L, null, "Kitchen", null, 10.0, 1.0)));
+        Random random = new Random(9);
+        for (long id = 6; id <= 2_000; id++) {
+            products.add(new Product(id, "Item " + random.nextInt(500) + " shoes", "Category " + random.nextInt(7),
+                    "Brand " + random.nextInt(20), 1.0 + random.nextInt(1000), random.nextInt(50) / 10.0));
+        }
+        engine.rebuild(products);
+    }
+
+    @Test
+    public void testRestartFromSnapshotGivesSameResults() {
+        new SnapshotStore(engine, file.toString(), 60_000).write();
+        InvertedIndexSearchEngine restarted = new InvertedIndexSearchEngine();
+        assertTrue(new SnapshotStore(restarted, file.toString(), 60_000).load(2_000, 2_000, 0, false));
+
+        assertEquals(rows(engine.snapshot()), rows(restarted.snapshot()));
+        assertEquals(rows(engine.searchByName("shoes")), rows(restarted.searchByName("shoes")));
+        assertEquals(rows(engine.searchByName("crème")), rows(restarted.searchByName("crème")));
+        assertEquals(rows(engine.fuzzySearchByName("runing shoos", 2, 2000, 10)),
+                rows(restarted.fuzzySearchByName("runing shoos", 2, 2000, 10)));
+        ProductSearchCriteria criteria = new ProductSearchCriteria("shoes", "FOOTWEAR", null, 100.0, 500.0, null);
+        assertEquals(rows(engine.search(criteria)), rows(restarted.search(criteria)));
+        ProductSearchCriteria all = new ProductSearchCriteria("item 1", null, null, null, null, null);
+        assertEquals(rows(engine.search(all, SearchSort.RELEVANCE, 20)),
+                rows(restarted.search(all, SearchSort.RELEVANCE, 20)));
+        assertEquals(rows(engine.searchByRange(NumericField.PRICE, 0, 300, true, 0, 50)),
+                rows(restarted.searchByRange(NumericField.PRICE, 0, 300, true, 0, 50)));
+        assertEquals(engine.facets(all, 100, 1), restarted.facets(all, 100, 1));
+    }
+
+    @Test
+    public void testLoadedEngineAcceptsUpdates() {
+        new SnapshotStore(engine, file.toString(), 60_000).write();
+        InvertedIndexSearchEngine restarted = new InvertedIndexSearchEngine();
+        assertTrue(new SnapshotStore(restarted, file.toString(), 60_000).load(2_000, 2_000, 0, false));
+
+        restarted.index(new Product(1L, "Dell Monitor", "Electronics", "Dell", 12000.0, 4.1));
+        restarted.index(new Product(2_001L, "Puma Sandals", "Footwear", "Puma", 300.0, 3.9));
+        assertTrue(restarted.searchByName("laptop").isEmpty());
+        assertEquals("Dell Monitor", restarted.searchByName("monitor").get(0).getName());
+        assertEquals(Arrays.asList(2L, 3L, 2_001L), ids(restarted.search(
+                new ProductSearchCriteria(null, "footwear", null, null, null, null))));
+        assertEquals(2_001, restarted.size());
+    }
+
+    @Test
+    public void testLoadedSmallCatalogAcceptsInserts() {
+        InvertedIndexSearchEngine single = new InvertedIndexSearchEngine();
+        single.rebuild(List.of(new Product(1L, "Dell Laptop", "Electronics", "Dell", 55000.0, 4.5)));
+        new SnapshotStore(single, file.toString(), 60_000).write();
+        InvertedIndexSearchEngine restarted = new InvertedIndexSearchEngine();
+        assertTrue(new SnapshotStore(restarted, file.toString(), 60_000).load(1, 1, 0, false));
+
+        restarted.index(new Product(2L, "Nike Shoes", "Footwear", "Nike", 450.0, 4.2));
+        restarted.index(new Product(3L, "Puma Sandals", "Footwear", "Puma", 300.0, 3.9));
+        assertEquals(Arrays.asList(3L, 2L), ids(restarted.searchByRange(NumericField.PRICE, 0.0, 1000.0, false, 0, 10)));
+    }
+
+    @Test
+    public void testRemovedProductsStayRemovedAfterRestart() {
+        engine.remove(3L);
+        engine.remove(2_000L);
+        new SnapshotStore(engine, file.toString(), 60_000).write();
+        InvertedIndexSearchEngine restarted = new InvertedIndexSearchEngine();
+        // the header counts the products left, as the database would
+        assertTrue(new SnapshotStore(restarted, file.toString(), 60_000).load(1_998, 1_999, 0, false));
+
+        assertEquals(1_998, restarted.size());
+        assertEquals(rows(engine.snapshot()), rows(restarted.snapshot()));
+        assertTrue(restarted.findByIds(new long[] {3L, 2_000L}).isEmpty());
+        ProductSearchCriteria footwear = new ProductSearchCriteria(null, "footwear", null, null, null, null);
+        assertEquals(Arrays.asList(2L), ids(restarted.search(footwear)));
+        restarted.index(new Product(3L, "Nike Running Shoes", "Footwear", "Nike", 450.0, 4.2));
+        assertEquals(Arrays.asList(2L, 3L), ids(restarted.search(footwear)));
+    }
+
+    @Test
+    public void testSnapshotOfAnotherCatalogIsNotLoaded() {
+        new SnapshotStore(engine, file.toString(), 60_000).write();
+        InvertedIndexSearchEngine restarted = new InvertedIndexSearchEngine();
+        SnapshotStore store = new SnapshotStore(restarted, file.toString(), 60_000);
+        assertFalse(store.load(1_999, 2_000, 0, false));
+        assertFalse(store.load(2_000, 2_001, 0, false));
+        assertFalse(new SnapshotStore(restarted, directory.resolve("missing").toString(), 60_000).load(0, 0, 0, false));
+        assertEquals(0, restarted.size());
+    }
+
+    @Test
+    public void testSnapshotBehindTheDatabaseIsOnlyLoadedWhenThePollerCatchesUp() {
+        SnapshotStore store = new SnapshotStore(engine, file.toString(), 60_000);
+        store.indexedThrough(40);
+        store.write();
+        InvertedIndexSearchEngine restarted = new InvertedIndexSearchEngine();
+        SnapshotStore reloaded = new SnapshotStore(restarted, file.toString(), 60_000);
+        // rows changed after the file was written (same count, same largest id)
+        assertFalse(reloaded.load(2_000, 2_000, 41, false));
+        // the database is older than the file
+        assertFalse(reloaded.load(2_000, 2_000, 39, true));
+        assertEquals(0, restarted.size());
+        assertTrue(reloaded.load(2_000, 2_000, 41, true));
+        assertEquals(40, reloaded.loadedChangeVersion());
+
+        // a newer change version alone rewrites the file
+        store.indexedThrough(41);
+        store.write();
+        assertTrue(new SnapshotStore(new InvertedIndexSearchEngine(), file.toString(), 60_000)
+                .load(2_000, 2_000, 41, false));
+    }
+
+    @Test
+    public void testCorruptSnapshotIsRejected() throws Exception {
+        new SnapshotStore(engine, file.toString(), 60_000).write();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        InvertedIndexSearchEngine restarted = new InvertedIndexSearchEngine();
+        assertFalse(new SnapshotStore(restarted, file.toString(), 60_000).load(2_000, 2_000, 0, false));
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+        assertFalse(new SnapshotStore(restarted, file.toString(), 60_000).load(2_000, 2_000, 0, false));
+    }
+
+    @Test
+    public void testWriteDeletesSnapshotUntilRewritten() {
+        SnapshotStore store = new SnapshotStore(engine, file.toString(), 60_000);
+        store.write();
+        assertTrue(Files.exists(file));
+        store.beginWrite();
+        assertFalse(Files.exists(file));
+        // a snapshot taken while a write is between begin and end could miss it: not written
+        store.write();
+        assertFalse(Files.exists(file));
+        engine.index(new Product(2_001L, "Puma Sandals", "Footwear", "Puma", 300.0, 3.9));
+        store.endWrite();
+        store.write();
+        assertTrue(Files.exists(file));
+        InvertedIndexSearchEngine restarted = new InvertedIndexSearchEngine();
+        assertTrue(new SnapshotStore(restarted, file.toString(), 60_000).load(2_001, 2_001, 0, false));
+        assertEquals(1, restarted.searchByName("sandals").size());
+    }
+
+    @Test
+    public void testDisabledWithoutPath() {
+        SnapshotStore store = new SnapshotStore(engine, "", 60_000);
+        assertFalse(store.enabled());
+        store.write();
+        store.beginWrite();
+        store.endWrite();
+        assertFalse(store.load(2_000, 2_000, 0, false));
+    }
+
+    // Product.equals() compares ids only, toString() shows every field
+    private static List<String> rows(List<Product> products) {
+        List<String> rows = new ArrayList<>();
+        for (Product product : products) {
+            rows.add(product.toString());
+        }
+        return rows;
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        List<Long> ids = new ArrayList<>();
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,122 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Entity.Suggestion;
+import com.retail.product_search_service.service.search.SuggestionIndex;
+
+//Plain JUnit test of the autocomplete index: small catalog for the rules, big random catalog against a brute force.
+public class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new SuggestionIndex(5, 60_000);
+        index.rebuild(Arrays.asList(
+                new Product(1L, "Nike Running Shoes", "Footwear", "Nike", 450.0, 4.2),
+                new Product(2L, "Nike Air Max", "Footwear", "Nike", 900.0, 4.8),
+                new Product(3L, "Dell Laptop", "Electronics", "Dell", 55000.0, 4.5),
+                new Product(4L, "Adidas Running Shorts", "Apparel", "Adidas", 300.0, null)));
+    }
+
+    @Test
+    public void testPrefixOfAnyWordBestRatedFirst() {
+        // brand "Nike" and "Nike Air Max" both have 4.8: equal ratings are ordered by text
+        assertEquals(Arrays.asList("Nike", "Nike Air Max", "Nike Running Shoes"), texts(index.suggest("NIK", 10)));
+        assertEquals(Arrays.asList("Nike Running Shoes", "Adidas Running Shorts"), texts(index.suggest("run", 10)));
+        assertEquals(Arrays.asList("Nike Running Shoes"), texts(index.suggest("running shoe", 10)));
+        assertTrue(index.suggest("unning", 10).isEmpty());
+        assertTrue(index.suggest("sandals", 10).isEmpty());
+    }
+
+    @Test
+    public void testBrandKeepsBestRatingAndFields() {
+        List<Suggestion> suggestions = index.suggest("nike", 10);
+        Suggestion brand = suggestions.get(0);
+        assertEquals(Suggestion.BRAND, brand.field());
+        assertEquals(4.8, brand.rating());
+        assertEquals(Suggestion.CATEGORY, index.suggest("foot", 10).get(0).field());
+    }
+
+    @Test
+    public void testLimitCappedAtTopN() {
+        assertEquals(1, index.suggest("n", 1).size());
+        assertEquals(5, index.suggest("", 100).size());
+    }
+
+    @Test
+    public void testMatchesBruteForceOnLargeCatalog() {
+        String[] brands = {"Nike", "Adidas", "Puma", "Reebok", "Asics"};
+        String[] words = {"running", "trail", "road", "rain", "air", "max", "shoes", "shorts", "shirt", "socks"};
+        Random random = new Random(11);
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 3_000; id++) {
+            String name = brands[random.nextInt(brands.length)] + " " + words[random.nextInt(words.length)] + " "
+                    + words[random.nextInt(words.length)] + " " + random.nextInt(300);
+            Double rating = random.nextInt(10) == 0 ? null : random.nextInt(51) / 10.0;
+            products.add(new Product(id, name, "Category " + random.nextInt(4), brands[random.nextInt(brands.length)],
+                    10.0, rating));
+        }
+        index.rebuild(products);
+        for (String prefix : Arrays.asList("", "n", "nike ", "nike r", "r", "ra", "s", "sh", "shoes s", "1", "12",
+                "cat", "category 2", "puma air max 2", "zzz")) {
+            assertEquals(bruteForce(products, prefix, 5), index.suggest(prefix, 5), "prefix '" + prefix + "'");
+        }
+    }
+
+    // Same rules as the index, by scanning everything: any word starts with the prefix, best rating, then text
+    private static List<Suggestion> bruteForce(List<Product> products, String prefix, int limit) {
+        Map<String, Suggestion> best = new HashMap<>();
+        for (Product product : products) {
+            add(best, product.getName(), Suggestion.NAME, product.getRating());
+            add(best, product.getBrand(), Suggestion.BRAND, product.getRating());
+            add(best, product.getCategory(), Suggestion.CATEGORY, product.getRating());
+        }
+        List<Suggestion> matches = new ArrayList<>();
+        for (Suggestion suggestion : best.values()) {
+            String text = suggestion.text().toLowerCase(Locale.ROOT);
+            for (int i = 0; i < text.length(); i++) {
+                if ((i == 0 || text.charAt(i - 1) == ' ') && text.startsWith(prefix, i)) {
+                    matches.add(suggestion);
+                    break;
+                }
+            }
+        }
+        matches.sort(Comparator.comparingDouble((Suggestion s) -> s.rating() == null ? -1 : s.rating()).reversed()
+                .thenComparing(s -> s.text().toLowerCase(Locale.ROOT))
+                .thenComparing(Suggestion::field));
+        return matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    private static void add(Map<String, Suggestion> best, String text, String field, Double rating) {
+        String key = field + ":" + text.toLowerCase(Locale.ROOT);
+        Suggestion current = best.get(key);
+        if (current == null) {
+            best.put(key, new Suggestion(text, field, rating));
+        } else if (rating != null && (current.rating() == null || rating > current.rating())) {
+            best.put(key, new Suggestion(current.text(), field, rating));
+        }
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        List<String> texts = new ArrayList<>();
+        for (Suggestion suggestion : suggestions) {
+            texts.add(suggestion.text());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,176 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.ProductService;
+
+//Load test: the same workload against the app in platform-thread mode and in virtual-thread mode.
+//Each mode gets its own application (own port, own in-memory H2 database) seeded with the same catalog,
+//then CLIENTS concurrent clients send category / brand searches (SQL through Productrepository) for DURATION.
+//Reported per mode: requests per second, p50 / p99 latency and errors.
+//Virtual threads need Java 21, on Java 17 only the platform row is measured.
+//Tagged "load" so the normal build skips it. Run: mvn -Ploadtest test (Java 17) or mvn -Pjava21,loadtest test
+@Tag("load")
+class ThreadModeLoadTest {
+
+    private static final int CATALOG_SIZE = 50_000;
+    private static final int CLIENTS = 1_000;
+    private static final Duration DURATION = Duration.ofSeconds(15);
+
+    @Test
+    void compareThroughputOfPlatformAndVirtualThreads() throws Exception {
+        List<Result> results = new ArrayList<>();
+        results.add(run("platform"));
+        if (Runtime.version().feature() >= 21) {
+            results.add(run("virtual"));
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + ": virtual-thread mode needs Java 21, not measured");
+        }
+        System.out.println(String.format("%-10s %10s %10s %10s %8s", "mode", "req/s", "p50 ms", "p99 ms", "errors"));
+        for (Result result : results) {
+            System.out.println(String.format("%-10s %10.0f %10.2f %10.2f %8d", result.mode, result.throughput(),
+                    result.percentile(0.50), result.percentile(0.99), result.errors));
+            assertTrue(result.requests > 0);
+            assertEquals(0, result.errors);
+        }
+    }
+
+    // ===========================
+    // Start the app in one mode, seed it, drive it for DURATION, shut it down
+    // ===========================
+    private Result run(String mode) throws Exception {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=INFO",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"));
+        if (mode.equals("virtual")) {
+            args.add("--spring.profiles.active=virtual");
+        }
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProductSearchServiceApplication.class)
+                .run(args.toArray(new String[0]))) {
+            seed(context.getBean(ProductService.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return drive(mode, "http://localhost:" + port + "/products/search/");
+        }
+    }
+
+    private static void seed(ProductService productService) {
+        List<Product> products = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            products.add(new Product(0L, "Load Product " + i, "Category " + (i % 20), "Brand " + (i % 50),
+                    10.0 + i % 10_000, 1.0 + i % 5));
+        }
+        productService.saveAll(products);
+    }
+
+    // ===========================
+    // CLIENTS closed-loop clients: each sends its next request as soon as the previous answer arrives
+    // The clients run on their own thread pool so both modes see exactly the same client side
+    // ===========================
+    private static Result drive(String mode, String baseUrl) throws Exception {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long end = System.nanoTime() + DURATION.toNanos();
+        long start = System.nanoTime();
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    Result own = new Result(mode);
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < end) {
+                        String query = random.nextBoolean()
+                                ? "category?category=Category%20" + random.nextInt(20) + "&limit=50"
+                                : "brand?brand=Brand%20" + random.nextInt(50) + "&limit=50";
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + query))
+                                .timeout(Duration.ofSeconds(30)).build();
+                        long sent = System.nanoTime();
+                        try {
+                            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            own.record(System.nanoTime() - sent, status == 200);
+                        } catch (Exception e) {
+                            own.record(System.nanoTime() - sent, false);
+                        }
+                    }
+                    return own;
+                }));
+            }
+            Result total = new Result(mode);
+            for (Future<Result> future : futures) {
+                total.add(future.get());
+            }
+            total.elapsedNanos = System.nanoTime() - start;
+            return total;
+        } finally {
+            clients.shutdownNow();
+            clients.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // Latencies of one client (or of all clients after add()), in nanoseconds
+    private static final class Result {
+        private final String mode;
+        private long[] latencies = new long[1024];
+        private int requests;
+        private int errors;
+        private long elapsedNanos;
+
+        Result(String mode) {
+            this.mode = mode;
+        }
+
+        void record(long nanos, boolean ok) {
+            if (requests == latencies.length) {
+                latencies = Arrays.copyOf(latencies, requests * 2);
+            }
+            latencies[requests++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void add(Result other) {
+            for (int i = 0; i < other.requests; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        double throughput() {
+            return requests * 1e9 / elapsedNanos;
+        }
+
+        double percentile(double p) {
+            if (requests == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, requests);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(requests - 1, Math.ceil(p * requests) - 1)] / 1e6;
+        }
+    }
+}
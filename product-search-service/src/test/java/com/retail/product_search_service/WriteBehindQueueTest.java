@@ -0,0 +1,153 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.service.write.WriteAck;
+import com.retail.product_search_service.service.write.WriteBehindQueue;
+import com.retail.product_search_service.service.write.WriteQueueFullException;
+
+//Plain JUnit test of the write-behind queue with a fake batch writer instead of the database:
+//the writer records every batch it gets, gives new products ids and can be held on a latch so writes pile up.
+public class WriteBehindQueueTest {
+
+    private final List<List<Product>> batches = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong nextId = new AtomicLong(100);
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WriteBehindQueue queue;
+
+    // Fake database: saves every product of the batch, rejects the whole batch if one name is "bad"
+    private List<Product> write(List<Product> batch) {
+        writing.countDown();
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        batches.add(new ArrayList<>(batch));
+        List<Product> saved = new ArrayList<>();
+        for (Product product : batch) {
+            if ("bad".equals(product.getName())) {
+                throw new IllegalArgumentException("name: bad");
+            }
+            if (product.getId() == 0) {
+                product.setId(nextId.getAndIncrement());
+            }
+            saved.add(product);
+        }
+        return saved;
+    }
+
+    private WriteBehindQueue queue(int capacity, WriteAck ack, Function<List<Product>, List<Product>> writer) {
+        queue = new WriteBehindQueue(capacity, 100, 50, ack, writer);
+        return queue;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        queue.close();
+    }
+
+    @Test
+    public void testUpdatesOfOneProductAreCoalesced() throws Exception {
+        queue(1_000, WriteAck.COMMIT, this::write);
+        // the first write holds the writer, the rest queue up behind it and form the second batch
+        CompletableFuture<Product> first = queue.submit(new Product(1L, "first", "C", "B", 1.0, 1.0));
+        writing.await(10, TimeUnit.SECONDS);
+        List<CompletableFuture<Product>> updates = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            updates.add(queue.submit(new Product(7L, "price " + i, "C", "B", (double) i, 1.0)));
+        }
+        CompletableFuture<Product> insert = queue.submit(new Product(0L, "new", "C", "B", 1.0, 1.0));
+        release.countDown();
+
+        assertEquals("first", first.join().getName());
+        for (CompletableFuture<Product> update : updates) {
+            assertEquals("price 50", update.join().getName());
+        }
+        assertEquals(100, insert.join().getId());
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(1).size());
+        assertEquals(0, queue.pending());
+    }
+
+    @Test
+    public void testFailedBatchOnlyFailsTheBadWrite() throws Exception {
+        queue(1_000, WriteAck.COMMIT, this::write);
+        CompletableFuture<Product> first = queue.submit(new Product(1L, "first", "C", "B", 1.0, 1.0));
+        writing.await(10, TimeUnit.SECONDS);
+        CompletableFuture<Product> good = queue.submit(new Product(0L, "good", "C", "B", 1.0, 1.0));
+        CompletableFuture<Product> bad = queue.submit(new Product(0L, "bad", "C", "B", 1.0, 1.0));
+        CompletableFuture<Product> other = queue.submit(new Product(2L, "other", "C", "B", 1.0, 1.0));
+        release.countDown();
+
+        first.join();
+        assertEquals("good", good.join().getName());
+        assertEquals("other", other.join().getName());
+        Exception error = assertThrows(Exception.class, bad::join);
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertThrows(IllegalArgumentException.class, () -> queue.save(new Product(0L, "bad", "C", "B", 1.0, 1.0)));
+        // batch of 3 rejected, then retried one by one
+        assertEquals(3, batches.get(1).size());
+        assertEquals(1, batches.get(2).size());
+    }
+
+    @Test
+    public void testAckOnEnqueueReturnsBeforeCommitExceptForInserts() throws Exception {
+        queue(1_000, WriteAck.ENQUEUE, this::write);
+        Product update = new Product(5L, "update", "C", "B", 1.0, 1.0);
+        assertSame(update, queue.save(update));
+        assertTrue(batches.isEmpty());
+
+        CompletableFuture<Product> insert = CompletableFuture.supplyAsync(
+                () -> queue.save(new Product(0L, "insert", "C", "B", 1.0, 1.0)));
+        Thread.sleep(100);
+        assertFalse(insert.isDone());
+        release.countDown();
+        assertEquals(100, insert.get(10, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    public void testFullQueueRejectsAfterTimeout() {
+        queue(3, WriteAck.COMMIT, this::write);
+        List<CompletableFuture<Product>> queued = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            queued.add(queue.submit(new Product(id, "p" + id, "C", "B", 1.0, 1.0)));
+        }
+        assertEquals(3, queue.pending());
+        long start = System.nanoTime();
+        assertThrows(WriteQueueFullException.class, () -> queue.submit(new Product(4L, "p4", "C", "B", 1.0, 1.0)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        release.countDown();
+        queued.forEach(CompletableFuture::join);
+        assertEquals("p4", queue.save(new Product(4L, "p4", "C", "B", 1.0, 1.0)).getName());
+    }
+
+    @Test
+    public void testCloseCommitsQueuedWrites() {
+        queue(1_000, WriteAck.ENQUEUE, this::write);
+        for (long id = 1; id <= 250; id++) {
+            queue.save(new Product(id, "p" + id, "C", "B", 1.0, 1.0));
+        }
+        release.countDown();
+        queue.close();
+
+        assertEquals(250, batches.stream().mapToInt(List::size).sum());
+        assertThrows(IllegalStateException.class, () -> queue.submit(new Product(1L, "late", "C", "B", 1.0, 1.0)));
+    }
+}
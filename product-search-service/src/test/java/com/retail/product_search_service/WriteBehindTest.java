@@ -0,0 +1,74 @@
+package com.retail.product_search_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.retail.product_search_service.Entity.Product;
+import com.retail.product_search_service.Repository.Productrepository;
+import com.retail.product_search_service.service.ProductService;
+
+//saveProduct() in write-behind mode against the embedded H2 (real transactions and sequence ids, like BulkIngestTest):
+//many threads save at once, every caller must get its saved product back and every write must reach the database,
+//the search engine and the product cache.
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+        "product.write-behind.enabled=true",
+        "product.write-behind.batch-size=200"})
+class WriteBehindTest {
+
+    private static final int THREADS = 32;
+    private static final int SAVES_PER_THREAD = 250;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private Productrepository productRepository;
+
+    @Test
+    void concurrentSavesAreCommittedTogether() throws Exception {
+        long before = productRepository.count();
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Product>>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(clients.submit(() -> {
+                List<Product> saved = new ArrayList<>();
+                for (int i = 0; i < SAVES_PER_THREAD; i++) {
+                    saved.add(productService.saveProduct(new Product(0L, "Queued Product " + thread + "-" + i,
+                            "Category " + (i % 10), "Brand " + thread, 10.0 + i, 3.0)));
+                }
+                return saved;
+            }));
+        }
+        List<Product> saved = new ArrayList<>();
+        for (Future<List<Product>> result : results) {
+            saved.addAll(result.get());
+        }
+        clients.shutdown();
+
+        assertEquals(THREADS * SAVES_PER_THREAD, saved.size());
+        assertEquals(saved.size(), saved.stream().mapToLong(Product::getId).distinct().count());
+        assertTrue(saved.stream().allMatch(product -> product.getId() > 0));
+        assertEquals(before + saved.size(), productRepository.count());
+        assertEquals(1, productService.searchByName("queued product 31-249").size());
+
+        // an update of a cached product is visible to the next read
+        Product first = saved.get(0);
+        assertEquals(first.getName(), productService.getProductById(first.getId()).getName());
+        first.setPrice(1.5);
+        assertEquals(1.5, productService.saveProduct(first).getPrice());
+        assertEquals(1.5, productService.getProductById(first.getId()).getPrice());
+    }
+}